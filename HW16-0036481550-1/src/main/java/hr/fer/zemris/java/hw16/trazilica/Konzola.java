@@ -1,8 +1,12 @@
 package hr.fer.zemris.java.hw16.trazilica;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
@@ -11,36 +15,96 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map.Entry;
 
+import hr.fer.zemris.java.hw16.trazilica.commands.BatchSearch;
+import hr.fer.zemris.java.hw16.trazilica.commands.DocumentPager;
+import hr.fer.zemris.java.hw16.trazilica.commands.IndexWatcher;
+import hr.fer.zemris.java.hw16.trazilica.commands.QueryCache;
 import hr.fer.zemris.java.hw16.trazilica.commands.SearchContext;
+import hr.fer.zemris.java.hw16.trazilica.commands.SearchQuery;
 import hr.fer.zemris.java.hw16.trazilica.commands.SearchResult;
-import hr.fer.zemris.java.hw16.vector.Vector;
+import hr.fer.zemris.java.hw16.trazilica.commands.SearchSession;
+import hr.fer.zemris.java.hw16.trazilica.commands.Snippet;
+import hr.fer.zemris.java.hw16.trazilica.index.Similarity;
+import hr.fer.zemris.java.hw16.trazilica.server.SearchServer;
 
 /**
  * {@code Konzola} is a main class of the search engine program.
  * <p>
- * This is a console program that has 4 command:
+ * This is a console program that has 5 command:
  * <ul>
- * <li>query <i>arguments</i>
- * <li>type <i>indexOfResult</i>
+ * <li>query [-k <i>count</i>] <i>arguments</i>
+ * <li>type <i>indexOfResult</i> [<i>fromLine</i> [<i>count</i>]]
  * <li>results
+ * <li>cache
  * <li>exit
  * </ul>
  * <p>
  * Query command takes arguments and searches the text document for specified
- * arguments and outputs the results. <br>
+ * arguments and outputs the results. Words prefixed with {@code +} are
+ * required and words prefixed with {@code -} are excluded; words enclosed in
+ * parentheses form a group, so {@code +(film kino)} requires either of them,
+ * and {@code *} and {@code ?} in a word match any sequence of characters and
+ * any character, so {@code film*} matches all words that start with
+ * {@code film} (see {@link SearchQuery}). Option {@code -k} followed by an
+ * integer sets the number of results; {@code -k} followed by anything else is
+ * the excluded word {@code k}. <br>
  * Type command takes index of the result and outputs the content of the file at
- * the specified result index. <br>
+ * the specified result index, optionally only <i>count</i> lines starting
+ * with the line <i>fromLine</i>. <br>
  * Results command outputs the list of all results. <br>
+ * Cache command outputs the size and the counters of the query result cache.
+ * <br>
  * Exit command exists the program.
- * </ul>
+ * <p>
+ * Program takes the path to the directory with text files as its only
+ * positional argument. Option {@code -t} (or {@code --threads}) followed by a
+ * positive integer sets the number of threads used to build the index; by
+ * default all available processors are used. Option {@code -i} (or
+ * {@code --index}) followed by a path to a file makes the program store the
+ * index in that file and read it on later starts instead of reading all text
+ * files again. Option {@code -w} (or {@code --watch}) keeps the index up to
+ * date with the directory while the program is running. Option {@code -n} (or
+ * {@code --normalize}) makes the index store normalized weights, which speeds
+ * up queries at the cost of additional memory. Option {@code --similarity}
+ * followed by {@code cosine}, {@code sublinear} or {@code bm25} selects the
+ * {@link Similarity} that ranks the documents; the default is {@code cosine}.
+ * Weights of models other than {@code cosine} are always stored in the index.
+ * Option {@code -p} (or {@code --positions}) makes the index store positions
+ * of words, so queries may contain phrases in double quotes, like
+ * {@code "svjetsko prvenstvo"}, or proximity phrases, like
+ * {@code "svjetsko prvenstvo"~5} (see {@link SearchQuery}).
+ * Option {@code --snippets} makes the index keep the words of every document,
+ * so the results command shows a snippet of every document with highlighted
+ * query words; without it, memory used by the index doesn't grow with the
+ * length of the documents.
+ * Option {@code -s} (or {@code --serve}) followed by a port number starts a
+ * {@link SearchServer} on that port of the loopback interface instead of the
+ * console; option {@code --workers} followed by a positive integer sets the
+ * number of threads that handle its requests (by default all available
+ * processors).
+ * <p>
+ * Option {@code -c} (or {@code --cache}) followed by a non-negative integer
+ * sets the number of query results kept in the cache; {@code 0} disables the
+ * cache.
+ * <p>
+ * Option {@code -b} (or {@code --batch}) followed by a path to a file, or
+ * {@code -} for the standard input, evaluates the queries in that file, one
+ * per line, and writes their results to the standard output instead of
+ * starting the console (see {@link BatchSearch}). Results are written as
+ * tab-separated values or, with option {@code --format json}, as JSON lines.
+ * Option {@code --batch-size} followed by a positive integer sets the number
+ * of queries evaluated together. Batches are evaluated by as many threads as
+ * the index is built with.
  * 
  * @author Karlo Vrbić
  * @version 1.0
  */
 public class Konzola {
 
+    /** Number of results shown by the query command by default. */
+    private static final int DEFAULT_RESULT_COUNT = 10;
+
     /**
      * Starting point of a program.
      * 
@@ -48,16 +112,102 @@ public class Konzola {
      *            Command-line argument
      */
     public static void main(String[] args) {
-        if (args.length != 1) {
-            error("You need to provide 1 argument. You provided: " + args.length + ".", 1);
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path indexFile = null;
+        boolean watch = false;
+        boolean normalized = false;
+        boolean positions = false;
+        boolean snippets = false;
+        Similarity similarity = Similarity.COSINE;
+        int port = -1;
+        int workers = Runtime.getRuntime().availableProcessors();
+        String batch = null;
+        BatchSearch.Format format = BatchSearch.Format.TSV;
+        int batchSize = BatchSearch.DEFAULT_BATCH_SIZE;
+        int cacheSize = QueryCache.DEFAULT_CAPACITY;
+        List<String> positional = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-t":
+                case "--threads":
+                    threads = parsePositive(args, ++i);
+                    break;
+                case "-i":
+                case "--index":
+                    indexFile = getFilePath(args, ++i);
+                    break;
+                case "-w":
+                case "--watch":
+                    watch = true;
+                    break;
+                case "-n":
+                case "--normalize":
+                    normalized = true;
+                    break;
+                case "-p":
+                case "--positions":
+                    positions = true;
+                    break;
+                case "--snippets":
+                    snippets = true;
+                    break;
+                case "--similarity":
+                    similarity = parseSimilarity(args, ++i);
+                    break;
+                case "-s":
+                case "--serve":
+                    port = parsePositive(args, ++i);
+                    break;
+                case "--workers":
+                    workers = parsePositive(args, ++i);
+                    break;
+                case "-b":
+                case "--batch":
+                    batch = getValue(args, ++i);
+                    break;
+                case "--format":
+                    format = parseFormat(args, ++i);
+                    break;
+                case "--batch-size":
+                    batchSize = parsePositive(args, ++i);
+                    break;
+                case "-c":
+                case "--cache":
+                    cacheSize = parseInteger(args, ++i, 0);
+                    break;
+                default:
+                    positional.add(args[i]);
+            }
         }
 
-        Path dir = getDirectoryPath(args[0]);
+        if (positional.size() != 1) {
+            error("You need to provide 1 directory argument. You provided: " + positional.size() + ".", 1);
+        }
+
+        Path dir = getDirectoryPath(positional.get(0));
 
-        SearchContext context = new SearchContext(dir);
+        SearchContext.Options options = new SearchContext.Options().threads(threads).similarity(similarity)
+                .normalized(normalized).positional(positions).snippets(snippets);
+        SearchContext context = indexFile != null
+                ? SearchContext.open(dir, indexFile, options)
+                : new SearchContext(dir, options);
+        context.getCache().setCapacity(cacheSize);
+
+        if (batch != null) {
+            runBatch(new BatchSearch(context, threads, batchSize, DEFAULT_RESULT_COUNT, format), batch);
+            return;
+        }
 
         System.out.printf("%nVeličina riječnika je %d riječi.%n%n", context.dictionarySize());
+        if (port != -1) {
+            serve(context, port, workers, watch);
+            return;
+        }
 
+        SearchSession session = new SearchSession(context);
+
+        IndexWatcher watcher = watch ? startWatcher(context) : null;
         try (BufferedReader br = new BufferedReader(new InputStreamReader(System.in))) {
             l: while (true) {
                 System.out.print("Enter command > ");
@@ -73,13 +223,16 @@ public class Konzola {
 
                     switch (cmd) {
                         case "query":
-                            doQuery(context, cmdArgs);
+                            doQuery(session, cmdArgs);
                             break;
                         case "type":
-                            doType(context, cmdArgs);
+                            doType(session, cmdArgs);
                             break;
                         case "results":
-                            doResults(context, cmdArgs);
+                            doResults(session, cmdArgs);
+                            break;
+                        case "cache":
+                            doCache(context, cmdArgs);
                             break;
                         case "exit":
                             break l;
@@ -92,128 +245,435 @@ public class Konzola {
             }
         } catch (IOException e) {
 
+        } finally {
+            try {
+                if (watcher != null) {
+                    watcher.close();
+                }
+            } catch (IOException ignore) {
+            }
         }
     }
 
     /**
      * Calculates the similarity between arguments in {@code cmdArgs} array and
-     * text files in the {@code context}, outputs those results to standard
-     * output and stores the results in the {@code context}.
+     * text files in the context of the {@code session}, outputs those results
+     * to standard output and stores the results in the {@code session}.
+     * <p>
+     * By default at most {@value #DEFAULT_RESULT_COUNT} results are shown.
+     * If the first two arguments are {@code -k} and a positive integer, that
+     * many results are shown instead (see
+     * {@link SearchQuery#parseResultCount(String[])}).
      * 
-     * @param context
-     *            the context of the search engine
+     * @param session
+     *            the search session
      * @param cmdArgs
      *            the command arguments
      * @throws IllegalArgumentException
      *             if there isn't at least one element in the {@code cmdArgs}
-     *             array
+     *             array;<br>
+     *             if the number of results isn't a positive integer
      */
-    private static void doQuery(SearchContext context, String[] cmdArgs) {
-        if (cmdArgs.length < 1)
-            throw new IllegalArgumentException("You need to provide at least one argument for command 'query'.");
-
-        TFVector tfVector = new TFVector(cmdArgs);
-        Vector tfidf = context.getTFIDFVector(tfVector.getTFVector(context.getDictionary()));
-
-        List<SearchResult> values = new ArrayList<>();
-
-        for (Entry<Path, Vector> entry : context.getTFIDFVectors().entrySet()) {
-            Path path = entry.getKey();
-            Vector vector = entry.getValue();
-
-            double value = tfidf.mul(vector) / (tfidf.magnitude() * vector.magnitude());
-
-            values.add(new SearchResult(path, value));
+    private static void doQuery(SearchSession session, String[] cmdArgs) {
+        int k = SearchQuery.parseResultCount(cmdArgs);
+        if (k != 0) {
+            cmdArgs = Arrays.copyOfRange(cmdArgs, 2, cmdArgs.length);
+        } else {
+            k = DEFAULT_RESULT_COUNT;
         }
 
-        values.sort((v1, v2) -> v2.compareTo(v1));
-
-        context.clearResults();
-        for (int i = 0, max = Math.min(10, values.size()); i < max; i++) {
-            SearchResult result = values.get(i);
-            if (result.getSimilarity() == 0.0)
-                break;
+        if (cmdArgs.length < 1)
+            throw new IllegalArgumentException("You need to provide at least one argument for command 'query'.");
 
-            context.addResult(result);
-            System.out.printf("[%2d] (%.4f) %s%n", i, result.getSimilarity(), result.getPath().toString());
-        }
-        System.out.println();
+        session.query(cmdArgs, k);
+        printResults(session);
     }
 
     /**
      * Gets the result with index specified in the {@code cmdArgs} array and
      * outputs the content of that file.
+     * <p>
+     * The index may be followed by the number of the first shown line
+     * (numbered from {@code 1}) and the number of shown lines; by default the
+     * whole file is shown. Only the shown lines are read and decoded (see
+     * {@link DocumentPager}).
      * 
-     * @param context
-     *            the context of the search engine
+     * @param session
+     *            the search session
      * @param cmdArgs
      *            the command arguments
      * @throws IllegalArgumentException
-     *             if {@link #doQuery(SearchContext, String[])} wasn't called
+     *             if {@link #doQuery(SearchSession, String[])} wasn't called
      *             prior to this method call;<br>
-     *             if there aren't exactly one element in the {@code cmdArgs}
-     *             array;<br>
-     *             if argument from {@code cmdArgs} array doesn't contain a
-     *             parsable integer;<br>
-     *             if there is no is no search result with specified index
+     *             if there aren't one to three elements in the
+     *             {@code cmdArgs} array;<br>
+     *             if arguments from {@code cmdArgs} array aren't parsable
+     *             integers;<br>
+     *             if there is no is no search result with specified index;<br>
+     *             if the line number or the number of lines isn't positive
+     * @throws UncheckedIOException
+     *             if the file cannot be read
      */
-    private static void doType(SearchContext context, String[] cmdArgs) {
-        if (context.getResults().isEmpty())
+    private static void doType(SearchSession session, String[] cmdArgs) {
+        if (session.getResults().isEmpty())
             throw new IllegalArgumentException("You need to run a 'query' command to get some results first.");
-        if (cmdArgs.length != 1)
-            throw new IllegalArgumentException("You need to provide one argument for command 'type'.");
-
-        int index = -1;
+        if (cmdArgs.length < 1 || cmdArgs.length > 3)
+            throw new IllegalArgumentException("You need to provide one to three arguments for command 'type'.");
 
+        int[] values = new int[cmdArgs.length];
         try {
-            index = Integer.parseInt(cmdArgs[0]);
+            for (int i = 0; i < values.length; i++) {
+                values[i] = Integer.parseInt(cmdArgs[i]);
+            }
         } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("You need to provide one integer number as a argument.", e);
+            throw new IllegalArgumentException("You need to provide integer numbers as arguments.", e);
         }
 
+        int index = values[0];
+        int fromLine = values.length > 1 ? values[1] : 1;
+        int count = values.length > 2 ? values[2] : Integer.MAX_VALUE;
+        if (fromLine < 1 || count < 1)
+            throw new IllegalArgumentException("Line number and number of lines must be positive.");
+
         Path path = null;
         try {
-            path = context.getResult(index).getPath();
+            path = session.getResult(index).getPath();
         } catch (IndexOutOfBoundsException e) {
             throw new IllegalArgumentException("There is no search result with index " + index + ".", e);
         }
 
         System.out.println("----------------------------------------------------------------");
-        System.out.printf("Document: %s%n", path.toString());
+        if (values.length > 1) {
+            System.out.printf("Document: %s (from line %d)%n", path.toString(), fromLine);
+        } else {
+            System.out.printf("Document: %s%n", path.toString());
+        }
         System.out.println("----------------------------------------------------------------");
+
+        boolean more;
         try {
-            System.out.println(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
-        } catch (IOException ignore) {
+            Writer output = new BufferedWriter(new OutputStreamWriter(System.out));
+            more = DocumentPager.write(path, fromLine, count, output);
+            output.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the document " + path + ": " + e.getMessage(), e);
         }
+
+        System.out.println();
         System.out.println("----------------------------------------------------------------");
+        if (more) {
+            System.out.printf("More lines follow: type %d %d %d%n%n", index, fromLine + count, count);
+        }
     }
 
     /**
      * Gets the list of all results and outputs it through standard output.
      * 
-     * @param context
-     *            the context of the search engine
+     * @param session
+     *            the search session
      * @param cmdArgs
      *            the command arguments
      * @throws IllegalArgumentException
-     *             if {@link #doQuery(SearchContext, String[])} wasn't called
+     *             if {@link #doQuery(SearchSession, String[])} wasn't called
      *             prior to this method call;<br>
      *             if there aren't exactly zero elements in the {@code cmdArgs}
      *             array
      */
-    private static void doResults(SearchContext context, String[] cmdArgs) {
-        if (context.getResults().isEmpty())
+    private static void doResults(SearchSession session, String[] cmdArgs) {
+        if (session.getResults().isEmpty())
             throw new IllegalArgumentException("You need to run a 'query' command to get some results first.");
         if (cmdArgs.length != 0)
             throw new IllegalArgumentException("You need to provide zero arguments for command 'results'.");
 
-        int i = 0;
-        for (SearchResult result : context.getResults()) {
-            System.out.printf("[%2d] (%.4f) %s%n", i++, result.getSimilarity(), result.getPath().toString());
+        printResults(session);
+    }
+
+    /**
+     * Outputs the results of the last query of the {@code session}, each
+     * followed by the snippet of its document with highlighted query words if
+     * the index keeps the words of documents. A snippet that cannot be read is
+     * reported instead of shown.
+     * 
+     * @param session
+     *            the search session
+     */
+    private static void printResults(SearchSession session) {
+        List<SearchResult> results = session.getResults();
+        for (int i = 0; i < results.size(); i++) {
+            SearchResult result = results.get(i);
+            System.out.printf("[%2d] (%.4f) %s%n", i, result.getSimilarity(), result.getPath().toString());
+
+            try {
+                Snippet snippet = session.getSnippet(i);
+                if (snippet != null) {
+                    System.out.printf("     %s%n", snippet);
+                }
+            } catch (UncheckedIOException e) {
+                System.out.printf("     (snippet unavailable: %s)%n", e.getCause().getMessage());
+            }
         }
         System.out.println();
     }
 
+    /**
+     * Outputs the size and the counters of the query result cache of the
+     * {@code context}.
+     * 
+     * @param context
+     *            the context of the search engine
+     * @param cmdArgs
+     *            the command arguments
+     * @throws IllegalArgumentException
+     *             if there aren't exactly zero elements in the {@code cmdArgs}
+     *             array
+     */
+    private static void doCache(SearchContext context, String[] cmdArgs) {
+        if (cmdArgs.length != 0)
+            throw new IllegalArgumentException("You need to provide zero arguments for command 'cache'.");
+
+        System.out.printf("%s%n%n", context.getCache());
+    }
+
+    /**
+     * Evaluates the queries from the file at the specified {@code path}, or
+     * from the standard input if the path is {@code -}, and writes the results
+     * to the standard output.
+     * <p>
+     * If the path or a query is invalid program exits with status code 1. If
+     * the queries cannot be read or the results cannot be written program
+     * exits with status code 6.
+     * 
+     * @param search
+     *            the batch search
+     * @param path
+     *            the path to the file with queries or {@code -}
+     */
+    private static void runBatch(BatchSearch search, String path) {
+        Writer output = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        try (BufferedReader input = path.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            search.run(input, output);
+        } catch (IllegalArgumentException e) {
+            error(e.getMessage(), 1);
+        } catch (IOException e) {
+            error("Cannot evaluate the queries from " + path + ": " + e.getMessage(), 6);
+        }
+    }
+
+    /**
+     * Starts a {@link SearchServer} for the {@code context} that keeps running
+     * after this method returns, until the program is terminated.
+     * <p>
+     * If the server cannot be started program exits with status code 5.
+     * 
+     * @param context
+     *            the context of the search engine
+     * @param port
+     *            the port of the server
+     * @param workers
+     *            the number of worker threads
+     * @param watch
+     *            {@code true} if the directory should be watched for changes
+     */
+    private static void serve(SearchContext context, int port, int workers, boolean watch) {
+        // headers and body of a response are written separately, so with
+        // Nagle's algorithm every response would wait for the delayed
+        // acknowledgement; the property is read when the first server starts
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+
+        SearchServer server = null;
+        try {
+            server = new SearchServer(context, port, workers);
+        } catch (IOException | IllegalArgumentException e) {
+            error("Cannot start the server on port " + port + ": " + e.getMessage(), 5);
+        }
+
+        IndexWatcher watcher = watch ? startWatcher(context) : null;
+        SearchServer started = server;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            started.close();
+            try {
+                if (watcher != null) {
+                    watcher.close();
+                }
+            } catch (IOException ignore) {
+            }
+        }));
+
+        server.start();
+        System.out.printf("Server listens on http://%s:%d/%n", server.getAddress().getHostString(),
+                server.getAddress().getPort());
+    }
+
+    /**
+     * Starts watching the directory of the {@code context} for changes.
+     * <p>
+     * If the directory cannot be watched program exits with status code 4.
+     * 
+     * @param context
+     *            the context of the search engine
+     * @return the started watcher
+     */
+    private static IndexWatcher startWatcher(SearchContext context) {
+        try {
+            return new IndexWatcher(context);
+        } catch (IOException e) {
+            error("Cannot watch the directory " + context.getDirectory() + ": " + e.getMessage(), 4);
+            return null;
+        }
+    }
+
+    /**
+     * Parses the value of the option at position {@code index} in the
+     * {@code args} array as a positive integer.
+     * <p>
+     * If the value is missing or it isn't a positive integer program exits with
+     * status code 1.
+     * 
+     * @param args
+     *            Command-line arguments
+     * @param index
+     *            the index of the option value
+     * @return the parsed value
+     */
+    private static int parsePositive(String[] args, int index) {
+        return parseInteger(args, index, 1);
+    }
+
+    /**
+     * Parses the value of the option at position {@code index} in the
+     * {@code args} array as an integer that is at least {@code min}.
+     * <p>
+     * If the value is missing, it isn't an integer or it is less than
+     * {@code min} program exits with status code 1.
+     * 
+     * @param args
+     *            Command-line arguments
+     * @param index
+     *            the index of the option value
+     * @param min
+     *            the minimal value
+     * @return the parsed value
+     */
+    private static int parseInteger(String[] args, int index, int min) {
+        String value = getValue(args, index);
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed >= min)
+                return parsed;
+        } catch (NumberFormatException ignore) {
+        }
+
+        String expected = min == 1 ? "a positive integer" : "an integer of at least " + min;
+        error("Option " + args[index - 1] + " requires " + expected + ". You provided: " + value + ".", 1);
+        return min;
+    }
+
+    /**
+     * Returns the value of the option at position {@code index} in the
+     * {@code args} array.
+     * <p>
+     * If the value is missing program exits with status code 1.
+     * 
+     * @param args
+     *            Command-line arguments
+     * @param index
+     *            the index of the option value
+     * @return the value
+     */
+    private static String getValue(String[] args, int index) {
+        if (index >= args.length) {
+            error("Option " + args[index - 1] + " requires a value.", 1);
+        }
+
+        return args[index];
+    }
+
+    /**
+     * Parses the value of the option at position {@code index} in the
+     * {@code args} array as an output format of the batch search.
+     * <p>
+     * If the value is missing or it isn't {@code tsv} or {@code json} program
+     * exits with status code 1.
+     * 
+     * @param args
+     *            Command-line arguments
+     * @param index
+     *            the index of the option value
+     * @return the parsed format
+     */
+    private static BatchSearch.Format parseFormat(String[] args, int index) {
+        String value = getValue(args, index);
+        switch (value.toLowerCase()) {
+            case "tsv":
+                return BatchSearch.Format.TSV;
+            case "json":
+                return BatchSearch.Format.JSON;
+            default:
+                error("Option " + args[index - 1] + " requires tsv or json. You provided: " + value + ".", 1);
+                return null;
+        }
+    }
+
+    /**
+     * Parses the value of the option at position {@code index} in the
+     * {@code args} array as the name of a {@link Similarity}.
+     * <p>
+     * If the value is missing or it isn't {@code cosine}, {@code sublinear} or
+     * {@code bm25} program exits with status code 1.
+     * 
+     * @param args
+     *            Command-line arguments
+     * @param index
+     *            the index of the option value
+     * @return the similarity
+     */
+    private static Similarity parseSimilarity(String[] args, int index) {
+        String value = getValue(args, index);
+        try {
+            return Similarity.forName(value.toLowerCase());
+        } catch (IllegalArgumentException e) {
+            error("Option " + args[index - 1] + " requires cosine, sublinear or bm25. You provided: " + value + ".",
+                    1);
+            return null;
+        }
+    }
+
+    /**
+     * Converts the value of the option at position {@code index} in the
+     * {@code args} array to a {@link Path}.
+     * <p>
+     * If the value is missing, it cannot be converted to a Path or it is a
+     * directory program exits with status code 1.
+     * 
+     * @param args
+     *            Command-line arguments
+     * @param index
+     *            the index of the option value
+     * @return the resulting file Path
+     */
+    private static Path getFilePath(String[] args, int index) {
+        if (index >= args.length) {
+            error("Option " + args[index - 1] + " requires a value.", 1);
+        }
+
+        Path path = null;
+        try {
+            path = Paths.get(args[index]);
+        } catch (InvalidPathException e) {
+            error("The path you provided cannot be resolved as a path. You provided: " + args[index] + ".", 1);
+        }
+
+        if (Files.isDirectory(path)) {
+            error("Option " + args[index - 1] + " requires a path to a file. You provided: " + args[index] + ".", 1);
+        }
+
+        return path;
+    }
+
     /**
      * Converts a path string to a {@link Path}.
      * <p>
@@ -1,20 +1,37 @@
 package hr.fer.zemris.java.hw16.trazilica;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.List;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
 
-import hr.fer.zemris.java.hw16.vector.Vector;
+import hr.fer.zemris.java.hw16.trazilica.index.IntCountMap;
+import hr.fer.zemris.java.hw16.trazilica.index.TermDictionary;
+import hr.fer.zemris.java.hw16.trazilica.index.TokenList;
+import hr.fer.zemris.java.hw16.trazilica.index.Vocabulary;
+import hr.fer.zemris.java.hw16.vector.SparseVector;
 
 /**
  * {@code TFVector} is class that represents the TF vector for some text.
+ * <p>
+ * Every word is replaced by its ID in a {@link TermDictionary} and the
+ * occurrences of IDs are counted in an {@link IntCountMap}. Words produced by
+ * a {@link Tokenizer} are looked up directly by their characters, so a
+ * {@code String} is created only for words that are new to the dictionary.
+ * Documents that are indexed together share one dictionary.
+ * <p>
+ * TF vector of a file may also record the positions of all words of the file
+ * in a {@link TokenList} and the {@link #getSequence() sequence} of their IDs.
+ * Both grow with the size of the file, so they are recorded only on request;
+ * otherwise only the counts of distinct words are kept.
  * 
  * @author Karlo Vrbić
  * @version 1.0
@@ -23,12 +40,20 @@ public class TFVector {
 
     /** The path to text file to which this TF vector refers to. */
     private Path path;
-    /** Map of words and number of their occurrences. */
-    private Map<String, Long> words;
+    /** The dictionary that holds the words. */
+    private final TermDictionary dictionary;
+    /** Numbers of occurrences of words mapped by their IDs. */
+    private final IntCountMap counts;
+    /** Set of distinct words; created on the first request. */
+    private Set<String> wordSet;
+    /** Words of the file with their positions; {@code null} if not a file. */
+    private TokenList tokens;
+    /** IDs of all words of the file in order; {@code null} if not a file. */
+    private int[] sequence;
 
     /**
      * Constructs a new {@code TFVector} with specified {@code path} of the text
-     * file.
+     * file. Words are added to a new dictionary.
      * 
      * @param path
      *            the path to the text file
@@ -36,23 +61,80 @@ public class TFVector {
      *             if parameter {@code path} is a {@code null} reference
      * @throws IllegalArgumentException
      *             if parameter {@code path} isn't a path to some file
+     * @throws UncheckedIOException
+     *             if an I/O error occurs reading from the file
      */
     public TFVector(Path path) {
+        this(path, new TermDictionary());
+    }
+
+    /**
+     * Constructs a new {@code TFVector} with specified {@code path} of the text
+     * file. Words are added to the specified {@code dictionary}.
+     * <p>
+     * The file is tokenized while it is read, so the whole content of the file
+     * is never kept in memory. Neither the words nor their order are recorded.
+     * 
+     * @param path
+     *            the path to the text file
+     * @param dictionary
+     *            the dictionary to which words are added
+     * @throws NullPointerException
+     *             if any of the parameters is a {@code null} reference
+     * @throws IllegalArgumentException
+     *             if parameter {@code path} isn't a path to some file
+     * @throws UncheckedIOException
+     *             if an I/O error occurs reading from the file
+     */
+    public TFVector(Path path, TermDictionary dictionary) {
+        this(path, dictionary, false, false);
+    }
+
+    /**
+     * Constructs a new {@code TFVector} with specified {@code path} of the text
+     * file, like {@link #TFVector(Path, TermDictionary)}. If {@code sequence}
+     * is {@code true}, the IDs of all words are recorded in order; if
+     * {@code tokens} is {@code true}, the words are recorded with their
+     * positions in the file.
+     * 
+     * @param path
+     *            the path to the text file
+     * @param dictionary
+     *            the dictionary to which words are added
+     * @param sequence
+     *            {@code true} if the {@link #getSequence() sequence} of IDs is
+     *            recorded
+     * @param tokens
+     *            {@code true} if the {@link #getTokens() words} are recorded
+     * @throws NullPointerException
+     *             if parameters {@code path} or {@code dictionary} are a
+     *             {@code null} reference
+     * @throws IllegalArgumentException
+     *             if parameter {@code path} isn't a path to some file
+     * @throws UncheckedIOException
+     *             if an I/O error occurs reading from the file
+     */
+    public TFVector(Path path, TermDictionary dictionary, boolean sequence, boolean tokens) {
         this.path = Objects.requireNonNull(path, "Cannot instantiate TFVector with null reference as a path.");
+        this.dictionary = Objects.requireNonNull(dictionary,
+                "Cannot instantiate TFVector with null reference as a dictionary.");
         if (!Files.isRegularFile(path))
             throw new IllegalArgumentException("Cannot instantiate TFVector with non-file path.");
 
-        List<String> wordList = readAllWords(path);
-
-        this.words = new HashMap<>(wordList.size());
-        wordList.forEach(word -> {
-            Long count = this.words.get(word);
-            this.words.put(word, count != null ? ++count : 1);
-        });
+        this.counts = new IntCountMap();
+        Collector collector = new Collector(sequence, tokens);
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            collector.tokenizer.tokenize(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.tokens = tokens ? collector.tokens.build() : null;
+        this.sequence = sequence ? Arrays.copyOf(collector.sequence, collector.length) : null;
     }
 
     /**
      * Constructs a new {@code TFVector} with specified {@code words} array.
+     * Words are converted to lowercase and added to a new dictionary.
      * 
      * @param words
      *            the array of all words of some text
@@ -61,10 +143,10 @@ public class TFVector {
      */
     public TFVector(String[] words) {
         Objects.requireNonNull(words, "Cannot instantiate TFVector with null reference as words.");
-        this.words = new HashMap<>(words.length);
+        this.dictionary = new TermDictionary();
+        this.counts = new IntCountMap(words.length);
         for (int i = 0; i < words.length; i++) {
-            Long count = this.words.get(words[i]);
-            this.words.put(words[i], count != null ? ++count : 1);
+            counts.increment(dictionary.add(words[i].toLowerCase()));
         }
     }
 
@@ -77,6 +159,56 @@ public class TFVector {
         return path;
     }
 
+    /**
+     * Returns the words of the text file with their positions.
+     * 
+     * @return the words of the file or {@code null} if this TF vector wasn't
+     *         created from a file or the words weren't recorded
+     */
+    public TokenList getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Returns the IDs of all words of the text file in order of their
+     * occurrences; index of a word in the array is its position in the file.
+     * 
+     * @return the IDs of the words or {@code null} if this TF vector wasn't
+     *         created from a file or the sequence wasn't recorded
+     */
+    public int[] getSequence() {
+        return sequence != null ? sequence.clone() : null;
+    }
+
+    /**
+     * Returns the dictionary that holds the words of this TF vector.
+     * 
+     * @return the dictionary
+     */
+    public TermDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Returns the IDs of all distinct words of the text in ascending order.
+     * 
+     * @return the IDs of the words
+     */
+    public int[] getTermIds() {
+        return counts.keys();
+    }
+
+    /**
+     * Returns the numbers of occurrences of the words with the specified IDs.
+     * 
+     * @param termIds
+     *            the IDs of the words, as returned by {@link #getTermIds()}
+     * @return the numbers of occurrences of the words
+     */
+    public int[] getCounts(int[] termIds) {
+        return counts.counts(termIds);
+    }
+
     /**
      * Returns the number of occurrences of the specified {@code word} in a text
      * to which this TF vector refers to.
@@ -86,8 +218,24 @@ public class TFVector {
      * @return the number of occurrences of the specified {@code word} in a text
      */
     public long getWordCount(String word) {
-        Long count = words.get(word);
-        return count != null ? count : 0L;
+        return counts.get(dictionary.get(word));
+    }
+
+    /**
+     * Returns the unmodifiable set of all distinct words of the text.
+     * 
+     * @return the set of all distinct words of the text
+     */
+    public Set<String> getWords() {
+        if (wordSet == null) {
+            int[] ids = counts.keys();
+            Set<String> set = new HashSet<>(ids.length * 2);
+            for (int id : ids) {
+                set.add(dictionary.getTerm(id));
+            }
+            wordSet = Collections.unmodifiableSet(set);
+        }
+        return wordSet;
     }
 
     /**
@@ -100,49 +248,113 @@ public class TFVector {
      *         key; {@code false} otherwise
      */
     public boolean containsWord(String word) {
-        if (word == null)
-            return false;
-        return words.containsKey(word);
+        return getWordCount(word) != 0L;
     }
 
     /**
-     * Returns the TF vector for the specified dictionary.
+     * Returns the sparse TF vector for the specified {@code vocabulary}. Words
+     * that aren't in the vocabulary are ignored.
      * 
-     * @param dictionary
-     *            the list of all words
+     * @param vocabulary
+     *            the vocabulary that maps words to their positions in the
+     *            vector
      * @return the TF vector
+     * @throws NullPointerException
+     *             if parameter {@code vocabulary} is a {@code null} reference
      */
-    public Vector getTFVector(Set<String> dictionary) {
-        Vector vector = new Vector(dictionary.size());
-        int i = 0;
-        for (String word : dictionary) {
-            vector.set(i, (double) getWordCount(word));
-            i++;
+    public SparseVector getTFVector(Vocabulary vocabulary) {
+        Objects.requireNonNull(vocabulary, "Cannot calculate TF vector with null reference as a vocabulary.");
+
+        int[] ids = counts.keys();
+        int[] indices = new int[ids.length];
+        double[] values = new double[ids.length];
+        int n = 0;
+        for (int id : ids) {
+            int index = vocabulary.indexOf(dictionary.getTerm(id));
+            if (index < 0)
+                continue;
+
+            indices[n] = index;
+            values[n] = counts.get(id);
+            n++;
         }
 
-        return vector;
+        return new SparseVector(vocabulary.size(), Arrays.copyOf(indices, n), Arrays.copyOf(values, n));
     }
 
     /**
-     * Reads all text from the specified {@code path}, splits it into words and
-     * returns it as a list.
+     * Returns the sparse TF vector for the dictionary specified by
+     * {@code termIndices}. Words that aren't in the dictionary are ignored.
      * 
-     * @param path
-     *            the path to text file
-     * @return list of all words from the file specified by {@code path}
+     * @param termIndices
+     *            the map of dictionary words and their positions in the vector
+     * @return the TF vector
      */
-    private static List<String> readAllWords(Path path) {
-        Objects.requireNonNull(path, "Cannot read words from a null reference as a path to a text file.");
-        if (!Files.isRegularFile(path))
-            throw new IllegalArgumentException("The path you provided isn't a file. You provided: " + path + ".");
+    public SparseVector getTFVector(Map<String, Integer> termIndices) {
+        int[] ids = counts.keys();
+        int[] indices = new int[ids.length];
+        double[] values = new double[ids.length];
+        int n = 0;
+        for (int id : ids) {
+            Integer index = termIndices.get(dictionary.getTerm(id));
+            if (index == null)
+                continue;
 
-        try {
-            return Files.readAllLines(path).stream()
-                    .map(s -> Arrays.asList(s.split("[^\\p{L}]+")))
-                    .flatMap(List::stream)
-                    .collect(Collectors.toList());
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            indices[n] = index;
+            values[n] = counts.get(id);
+            n++;
+        }
+
+        return new SparseVector(termIndices.size(), Arrays.copyOf(indices, n), Arrays.copyOf(values, n));
+    }
+
+    /**
+     * {@code Collector} is a class that counts the words found by its
+     * tokenizer and optionally records their order and positions.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    private class Collector implements Tokenizer.TokenConsumer {
+
+        /** The tokenizer that passes words to this collector. */
+        private final Tokenizer tokenizer = new Tokenizer(this);
+        /** The builder of the list of words; {@code null} if not recorded. */
+        private final TokenList.Builder tokens;
+        /** IDs of the words in order; {@code null} if not recorded. */
+        private int[] sequence;
+        /** Number of words. */
+        private int length;
+
+        /**
+         * Constructs a new {@code Collector}.
+         *
+         * @param sequence
+         *            {@code true} if IDs of the words are recorded in order
+         * @param tokens
+         *            {@code true} if the words are recorded with their
+         *            positions
+         */
+        private Collector(boolean sequence, boolean tokens) {
+            this.sequence = sequence ? new int[256] : null;
+            this.tokens = tokens ? new TokenList.Builder() : null;
+        }
+
+        @Override
+        public void accept(char[] chars, int offset, int length) {
+            int id = dictionary.add(chars, offset, length);
+            counts.increment(id);
+            if (tokens != null) {
+                tokens.add(chars, offset, length, tokenizer.getStartOffset(), tokenizer.getEndOffset());
+            }
+
+            if (sequence != null) {
+                if (this.length == sequence.length) {
+                    sequence = Arrays.copyOf(sequence, sequence.length * 2);
+                }
+                sequence[this.length] = id;
+            }
+            this.length++;
         }
     }
 }
@@ -0,0 +1,275 @@
+package hr.fer.zemris.java.hw16.trazilica;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.Objects;
+
+/**
+ * {@code Tokenizer} is a class that splits text into lowercase words. A word is
+ * a maximal sequence of Unicode letters, the same as a token produced by
+ * splitting the text with the regular expression {@code [^\p{L}]+}.
+ * <p>
+ * Text is fed in chunks of any size and a word may span several chunks. Every
+ * word is lowercased while it is copied into an internal buffer and passed to
+ * the {@link TokenConsumer} as a range of that buffer, so tokenizing doesn't
+ * allocate any objects. The range is valid only until the consumer returns.
+ * <p>
+ * While a word is passed to the consumer, {@link #getStartOffset()} and
+ * {@link #getEndOffset()} return its position in the UTF-8 encoding of the
+ * text, so the word can later be found in the file without decoding the text
+ * before it. Offsets are exact for text that was decoded from valid UTF-8.
+ * <p>
+ * This class isn't thread-safe.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class Tokenizer {
+
+    /** Size of the buffer used to read text from a reader. */
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    /** The consumer of words. */
+    private final TokenConsumer consumer;
+    /** Characters of the current word. */
+    private char[] token = new char[32];
+    /** Length of the current word. */
+    private int length;
+    /** High surrogate at the end of the last chunk; {@code 0} if none. */
+    private char highSurrogate;
+    /** UTF-8 offset of the next character. */
+    private long position;
+    /** UTF-8 offset of the first character of the current word. */
+    private long start;
+    /** UTF-8 offset after the last character of the passed word. */
+    private long end;
+
+    /**
+     * Constructs a new {@code Tokenizer} that passes words to the specified
+     * {@code consumer}.
+     *
+     * @param consumer
+     *            the consumer of words
+     * @throws NullPointerException
+     *             if parameter {@code consumer} is a {@code null} reference
+     */
+    public Tokenizer(TokenConsumer consumer) {
+        this.consumer = Objects.requireNonNull(consumer,
+                "Cannot instantiate Tokenizer with null reference as a consumer.");
+    }
+
+    /**
+     * Tokenizes the whole text read from the specified {@code reader}. The
+     * reader isn't closed.
+     *
+     * @param reader
+     *            the reader
+     * @throws NullPointerException
+     *             if parameter {@code reader} is a {@code null} reference
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    public void tokenize(Reader reader) throws IOException {
+        Objects.requireNonNull(reader, "Cannot tokenize null reference as a reader.");
+
+        char[] buffer = new char[READ_BUFFER_SIZE];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            feed(buffer, 0, read);
+        }
+        finish();
+    }
+
+    /**
+     * Tokenizes the specified chunk of text. The last word of the chunk is
+     * passed to the consumer only when the next chunk or the
+     * {@link #finish()} call shows that it ended.
+     *
+     * @param chars
+     *            the characters of text
+     * @param offset
+     *            the position of the first character of the chunk
+     * @param count
+     *            the number of characters of the chunk
+     * @throws IndexOutOfBoundsException
+     *             if {@code offset} and {@code count} don't specify a range of
+     *             the array
+     */
+    public void feed(char[] chars, int offset, int count) {
+        if (offset < 0 || count < 0 || offset > chars.length - count)
+            throw new IndexOutOfBoundsException("Invalid range: offset " + offset + ", count " + count + ".");
+
+        for (int i = offset, last = offset + count; i < last; i++) {
+            char c = chars[i];
+
+            if (highSurrogate != 0) {
+                char high = highSurrogate;
+                highSurrogate = 0;
+                if (Character.isLowSurrogate(c)) {
+                    accept(Character.toCodePoint(high, c), position - 2);
+                    position += 2;
+                    continue;
+                }
+                accept(high, position - 2);
+            }
+
+            if (c < Character.MIN_SURROGATE) {
+                if (Character.isLetter(c)) {
+                    if (length == 0)
+                        start = position;
+                    append(Character.toLowerCase(c));
+                } else if (length != 0) {
+                    emit(position);
+                }
+                position += c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+            } else if (Character.isHighSurrogate(c)) {
+                highSurrogate = c;
+                position += 2;
+            } else {
+                accept(c, position);
+                position += 3;
+            }
+        }
+    }
+
+    /**
+     * Tokenizes the remaining characters of the specified {@code buffer}. The
+     * buffer's position is moved to its limit.
+     *
+     * @param buffer
+     *            the buffer with text
+     * @throws NullPointerException
+     *             if parameter {@code buffer} is a {@code null} reference
+     */
+    public void feed(CharBuffer buffer) {
+        Objects.requireNonNull(buffer, "Cannot tokenize null reference as a buffer.");
+
+        if (buffer.hasArray()) {
+            feed(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            return;
+        }
+
+        char[] chunk = new char[Math.min(buffer.remaining(), READ_BUFFER_SIZE)];
+        while (buffer.hasRemaining()) {
+            int count = Math.min(buffer.remaining(), chunk.length);
+            buffer.get(chunk, 0, count);
+            feed(chunk, 0, count);
+        }
+    }
+
+    /**
+     * Marks the end of the text and passes the last word to the consumer.
+     * Tokenizer can then be used for a new text.
+     */
+    public void finish() {
+        if (highSurrogate != 0) {
+            char high = highSurrogate;
+            highSurrogate = 0;
+            accept(high, position - 2);
+        }
+        if (length != 0)
+            emit(position);
+        position = 0;
+    }
+
+    /**
+     * Returns the offset of the first byte of the word that is being passed to
+     * the consumer, in the UTF-8 encoding of the text.
+     *
+     * @return the offset of the start of the word
+     */
+    public long getStartOffset() {
+        return start;
+    }
+
+    /**
+     * Returns the offset after the last byte of the word that is being passed
+     * to the consumer, in the UTF-8 encoding of the text.
+     *
+     * @return the offset of the end of the word
+     */
+    public long getEndOffset() {
+        return end;
+    }
+
+    /**
+     * Appends the lowercase code point to the current word if it is a letter
+     * or ends the current word otherwise.
+     *
+     * @param codePoint
+     *            the code point
+     * @param offset
+     *            the UTF-8 offset of the code point
+     */
+    private void accept(int codePoint, long offset) {
+        if (!Character.isLetter(codePoint)) {
+            if (length != 0)
+                emit(offset);
+            return;
+        }
+
+        if (length == 0)
+            start = offset;
+
+        int lowerCase = Character.toLowerCase(codePoint);
+        if (Character.isBmpCodePoint(lowerCase)) {
+            append((char) lowerCase);
+        } else {
+            append(Character.highSurrogate(lowerCase));
+            append(Character.lowSurrogate(lowerCase));
+        }
+    }
+
+    /**
+     * Appends the character to the current word.
+     *
+     * @param c
+     *            the character
+     */
+    private void append(char c) {
+        if (length == token.length) {
+            char[] larger = new char[token.length * 2];
+            System.arraycopy(token, 0, larger, 0, length);
+            token = larger;
+        }
+        token[length++] = c;
+    }
+
+    /**
+     * Passes the current word to the consumer and starts a new word.
+     *
+     * @param offset
+     *            the UTF-8 offset after the last character of the word
+     */
+    private void emit(long offset) {
+        end = offset;
+        consumer.accept(token, 0, length);
+        length = 0;
+    }
+
+    /**
+     * {@code TokenConsumer} is a functional interface that receives the words
+     * found by a {@link Tokenizer}.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    @FunctionalInterface
+    public interface TokenConsumer {
+
+        /**
+         * Receives a lowercase word. Characters of the word are valid only
+         * until this method returns and must not be modified.
+         *
+         * @param chars
+         *            the array that holds the word
+         * @param offset
+         *            the position of the first character of the word
+         * @param length
+         *            the length of the word
+         */
+        void accept(char[] chars, int offset, int length);
+    }
+}
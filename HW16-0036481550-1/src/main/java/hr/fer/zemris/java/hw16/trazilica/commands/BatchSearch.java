@@ -0,0 +1,342 @@
+package hr.fer.zemris.java.hw16.trazilica.commands;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * {@code BatchSearch} is a class that evaluates many queries without user
+ * interaction and writes their results.
+ * <p>
+ * Every line of the input is one query with the same syntax as the arguments
+ * of the {@code query} command: optional {@code -k} <i>count</i> followed by
+ * the words of the query (see {@link SearchQuery}). Empty lines and lines starting with {@code #} are
+ * skipped. Queries are grouped into batches that are evaluated in parallel;
+ * queries of one batch are evaluated together, so posting lists of terms
+ * shared by several queries of the batch are read only once (see
+ * {@link SearchContext#search(List, int)}).
+ * <p>
+ * Results are written in order of queries, as soon as all earlier batches are
+ * written, in one of the {@link Format formats}. Every query carries the
+ * number of its input line, the time in milliseconds it took to evaluate the
+ * batch of the query and the number of queries in that batch. Queries of a
+ * batch share their evaluation, so the time isn't measured for every query
+ * alone; the time divided by the size of the batch is the average time of its
+ * queries.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class BatchSearch {
+
+    /** Number of queries in a batch by default. */
+    public static final int DEFAULT_BATCH_SIZE = 32;
+
+    /**
+     * {@code Format} is an enumeration of output formats.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    public enum Format {
+        /**
+         * One tab-separated line per result with line number, query, rank,
+         * similarity, path, time of the batch and size of the batch. Query
+         * without results has one line with empty rank, similarity and path.
+         */
+        TSV,
+        /**
+         * One JSON object per query with {@code line}, {@code query},
+         * {@code batch_millis}, {@code batch_size} and {@code results}
+         * properties.
+         */
+        JSON
+    }
+
+    /** The context of the search engine. */
+    private final SearchContext context;
+    /** Number of threads. */
+    private final int threads;
+    /** Number of queries in a batch. */
+    private final int batchSize;
+    /** Number of results of queries without {@code -k}. */
+    private final int k;
+    /** The output format. */
+    private final Format format;
+
+    /**
+     * Constructs a new {@code BatchSearch}.
+     *
+     * @param context
+     *            the context of the search engine
+     * @param threads
+     *            the number of threads that evaluate batches
+     * @param batchSize
+     *            the number of queries in a batch
+     * @param k
+     *            the number of results of queries without {@code -k}
+     * @param format
+     *            the output format
+     * @throws NullPointerException
+     *             if parameter {@code context} or {@code format} is a
+     *             {@code null} reference
+     * @throws IllegalArgumentException
+     *             if {@code threads}, {@code batchSize} or {@code k} isn't
+     *             positive
+     */
+    public BatchSearch(SearchContext context, int threads, int batchSize, int k, Format format) {
+        this.context = Objects.requireNonNull(context, "Cannot search with null reference as a context.");
+        this.format = Objects.requireNonNull(format, "Cannot write results with null reference as a format.");
+        if (threads < 1)
+            throw new IllegalArgumentException("Number of threads must be positive. You provided: " + threads + ".");
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size must be positive. You provided: " + batchSize + ".");
+        if (k < 1)
+            throw new IllegalArgumentException("Number of results must be positive. You provided: " + k + ".");
+
+        this.threads = threads;
+        this.batchSize = batchSize;
+        this.k = k;
+    }
+
+    /**
+     * Reads the queries from the {@code input}, evaluates them and writes the
+     * results to the {@code output}. The output is flushed after every batch.
+     * <p>
+     * If a line isn't a valid query, results of all queries before it are
+     * written and an exception is thrown.
+     *
+     * @param input
+     *            the input with one query per line
+     * @param output
+     *            the output
+     * @throws NullPointerException
+     *             if parameter {@code input} or {@code output} is a
+     *             {@code null} reference
+     * @throws IllegalArgumentException
+     *             if a line isn't a valid query
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    public void run(BufferedReader input, Writer output) throws IOException {
+        Objects.requireNonNull(input, "Cannot read queries from null reference.");
+        Objects.requireNonNull(output, "Cannot write results to null reference.");
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        Deque<Future<String>> pending = new ArrayDeque<>();
+        try {
+            List<Query> batch = new ArrayList<>(batchSize);
+            int number = 0;
+            for (String line = input.readLine(); line != null; line = input.readLine()) {
+                Query query;
+                try {
+                    query = Query.parse(++number, line);
+                } catch (IllegalArgumentException e) {
+                    submit(pool, pending, batch);
+                    while (!pending.isEmpty()) {
+                        write(pending.poll(), output);
+                    }
+                    throw e;
+                }
+                if (query == null)
+                    continue;
+
+                batch.add(query);
+                if (batch.size() == batchSize) {
+                    submit(pool, pending, batch);
+                    batch = new ArrayList<>(batchSize);
+                    if (pending.size() > 2 * threads) {
+                        write(pending.poll(), output);
+                    }
+                }
+            }
+
+            submit(pool, pending, batch);
+            while (!pending.isEmpty()) {
+                write(pending.poll(), output);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Submits the evaluation of the {@code batch} if it isn't empty.
+     *
+     * @param pool
+     *            the pool
+     * @param pending
+     *            the pending evaluations
+     * @param batch
+     *            the batch
+     */
+    private void submit(ExecutorService pool, Deque<Future<String>> pending, List<Query> batch) {
+        if (!batch.isEmpty()) {
+            pending.add(pool.submit(() -> evaluate(batch)));
+        }
+    }
+
+    /**
+     * Waits for the evaluation and writes its output.
+     *
+     * @param evaluation
+     *            the evaluation
+     * @param output
+     *            the output
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    private static void write(Future<String> evaluation, Writer output) throws IOException {
+        String text;
+        try {
+            text = evaluation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+
+        output.write(text);
+        output.flush();
+    }
+
+    /**
+     * Evaluates the {@code batch} and formats the results.
+     *
+     * @param batch
+     *            the batch
+     * @return the formatted results
+     */
+    private String evaluate(List<Query> batch) {
+        List<String[]> words = new ArrayList<>(batch.size());
+        int max = 1;
+        for (Query query : batch) {
+            words.add(query.words);
+            max = Math.max(max, query.k == 0 ? k : query.k);
+        }
+
+        long start = System.nanoTime();
+        List<List<SearchResult>> results = context.search(words, max);
+        String millis = String.format(Locale.ROOT, "%.3f", (System.nanoTime() - start) / 1e6);
+
+        StringBuilder sb = new StringBuilder(batch.size() * 256);
+        for (int i = 0; i < batch.size(); i++) {
+            Query query = batch.get(i);
+            List<SearchResult> top = results.get(i);
+            top = top.subList(0, Math.min(top.size(), query.k == 0 ? k : query.k));
+
+            if (format == Format.JSON) {
+                sb.append("{\"line\":").append(query.line).append(",\"query\":");
+                Json.appendString(sb, query.text());
+                sb.append(",\"batch_millis\":").append(millis).append(",\"batch_size\":").append(batch.size())
+                        .append(",\"results\":");
+                Json.appendResults(sb, top).append("}\n");
+                continue;
+            }
+
+            if (top.isEmpty()) {
+                sb.append(query.line).append('\t').append(query.text()).append("\t\t\t\t")
+                        .append(millis).append('\t').append(batch.size()).append('\n');
+            }
+            int rank = 0;
+            for (SearchResult result : top) {
+                sb.append(query.line).append('\t').append(query.text())
+                        .append('\t').append(rank++)
+                        .append('\t').append(result.getSimilarity())
+                        .append('\t').append(result.getPath())
+                        .append('\t').append(millis)
+                        .append('\t').append(batch.size()).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * {@code Query} is a class that represents one query of the input.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    private static class Query {
+
+        /** The number of the input line. */
+        private final int line;
+        /** The number of results; {@code 0} for the default. */
+        private final int k;
+        /** The words of the query. */
+        private final String[] words;
+
+        /**
+         * Constructs a new {@code Query}.
+         *
+         * @param line
+         *            the number of the input line
+         * @param k
+         *            the number of results; {@code 0} for the default
+         * @param words
+         *            the words of the query
+         */
+        private Query(int line, int k, String[] words) {
+            this.line = line;
+            this.k = k;
+            this.words = words;
+        }
+
+        /**
+         * Returns the words of the query separated by spaces.
+         *
+         * @return the text of the query
+         */
+        private String text() {
+            return String.join(" ", words);
+        }
+
+        /**
+         * Parses the query in the specified input line.
+         *
+         * @param number
+         *            the number of the line
+         * @param line
+         *            the line
+         * @return the query or {@code null} if the line is empty or a comment
+         * @throws IllegalArgumentException
+         *             if the line isn't a valid query
+         */
+        private static Query parse(int number, String line) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#"))
+                return null;
+
+            String[] words = trimmed.split("\\s+");
+            try {
+                int k = SearchQuery.parseResultCount(words);
+                if (k != 0) {
+                    words = Arrays.copyOfRange(words, 2, words.length);
+                }
+                if (words.length == 0)
+                    throw new IllegalArgumentException("Query has no words.");
+
+                // syntax errors are reported here, with the number of the line,
+                // and not by the evaluation of the batch
+                SearchQuery.parse(words);
+                return new Query(number, k, words);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + number + ": " + e.getMessage(), e);
+            }
+        }
+    }
+}
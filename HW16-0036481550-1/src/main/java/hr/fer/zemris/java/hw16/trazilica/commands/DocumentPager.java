@@ -0,0 +1,204 @@
+package hr.fer.zemris.java.hw16.trazilica.commands;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * {@code DocumentPager} is a class that writes ranges of lines of a UTF-8 text
+ * document.
+ * <p>
+ * The document is memory-mapped when it is {@link #open(Path) opened}, so
+ * errors of reading the file are reported before anything is written. Only
+ * the bytes of the requested lines are decoded, in chunks of
+ * {@value #CHUNK_SIZE} characters that are written as soon as they are
+ * decoded, so the whole document is never held in memory as a string. Lines
+ * before the requested range are skipped by searching for line feed bytes,
+ * without decoding. Malformed input is replaced with the replacement
+ * character.
+ * <p>
+ * This class is immutable; the contents of the document are read when lines
+ * are written.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public final class DocumentPager {
+
+    /** Number of characters decoded at once. */
+    private static final int CHUNK_SIZE = 8192;
+    /** Pager of an empty document. */
+    private static final DocumentPager EMPTY = new DocumentPager(ByteBuffer.allocate(0));
+
+    /** The encoded document. */
+    private final ByteBuffer data;
+
+    /**
+     * Constructs a new {@code DocumentPager} of the encoded document.
+     *
+     * @param data
+     *            the encoded document
+     */
+    private DocumentPager(ByteBuffer data) {
+        this.data = data;
+    }
+
+    /**
+     * Opens the document at the specified {@code path} by mapping it into
+     * memory.
+     *
+     * @param path
+     *            the path of the document
+     * @return the pager of the document
+     * @throws NullPointerException
+     *             if parameter {@code path} is a {@code null} reference
+     * @throws IOException
+     *             if the document cannot be opened or mapped
+     */
+    public static DocumentPager open(Path path) throws IOException {
+        Objects.requireNonNull(path, "Cannot read null reference as a document.");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("Document " + path + " is larger than 2 GB.");
+            if (size == 0)
+                return EMPTY;
+
+            return new DocumentPager(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    /**
+     * Writes at most {@code count} lines of the document at the specified
+     * {@code path}, starting with the line {@code fromLine}, to the
+     * {@code output}. Lines are numbered from {@code 1}. The output isn't
+     * flushed.
+     *
+     * @param path
+     *            the path of the document
+     * @param fromLine
+     *            the number of the first written line
+     * @param count
+     *            the maximal number of written lines
+     * @param output
+     *            the output
+     * @return {@code true} if the document has more lines after the written
+     *         ones; {@code false} otherwise
+     * @throws NullPointerException
+     *             if parameter {@code path} or {@code output} is a
+     *             {@code null} reference
+     * @throws IllegalArgumentException
+     *             if {@code fromLine} or {@code count} isn't positive
+     * @throws IOException
+     *             if the document cannot be read or the output cannot be
+     *             written
+     */
+    public static boolean write(Path path, int fromLine, int count, Writer output) throws IOException {
+        return open(path).write(fromLine, count, output);
+    }
+
+    /**
+     * Writes at most {@code count} lines of the document, starting with the
+     * line {@code fromLine}, to the {@code output}. Lines are numbered from
+     * {@code 1}. The output isn't flushed.
+     *
+     * @param fromLine
+     *            the number of the first written line
+     * @param count
+     *            the maximal number of written lines
+     * @param output
+     *            the output
+     * @return {@code true} if the document has more lines after the written
+     *         ones; {@code false} otherwise
+     * @throws NullPointerException
+     *             if parameter {@code output} is a {@code null} reference
+     * @throws IllegalArgumentException
+     *             if {@code fromLine} or {@code count} isn't positive
+     * @throws IOException
+     *             if the output cannot be written
+     */
+    public boolean write(int fromLine, int count, Writer output) throws IOException {
+        Objects.requireNonNull(output, "Cannot write the document to null reference.");
+        if (fromLine < 1)
+            throw new IllegalArgumentException("Number of the first line must be positive. It was: " + fromLine + ".");
+        if (count < 1)
+            throw new IllegalArgumentException("Number of lines must be positive. It was: " + count + ".");
+
+        int limit = data.limit();
+        int start = skipLines(data, 0, fromLine - 1);
+        if (start == limit)
+            return false;
+
+        int end = skipLines(data, start, count);
+        decode(data, start, end, output);
+        return end < limit;
+    }
+
+    /**
+     * Returns the position after the specified number of {@code lines} that
+     * start at the {@code position}, or the limit of the {@code data} if it
+     * has fewer lines.
+     *
+     * @param data
+     *            the encoded document
+     * @param position
+     *            the position of the first line
+     * @param lines
+     *            the number of lines
+     * @return the position after the lines
+     */
+    private static int skipLines(ByteBuffer data, int position, int lines) {
+        int limit = data.limit();
+        while (lines > 0 && position < limit) {
+            if (data.get(position++) == '\n') {
+                lines--;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Decodes the bytes between {@code start} and {@code end} and writes them
+     * to the {@code output}.
+     *
+     * @param data
+     *            the encoded document
+     * @param start
+     *            the position of the first byte
+     * @param end
+     *            the position after the last byte
+     * @param output
+     *            the output
+     * @throws IOException
+     *             if the output cannot be written
+     */
+    private static void decode(ByteBuffer data, int start, int end, Writer output) throws IOException {
+        ByteBuffer input = data.duplicate();
+        input.position(start);
+        input.limit(end);
+
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(CHUNK_SIZE);
+
+        CoderResult result;
+        do {
+            result = decoder.decode(input, chars, true);
+            output.write(chars.array(), 0, chars.position());
+            chars.clear();
+        } while (result.isOverflow());
+
+        decoder.flush(chars);
+        output.write(chars.array(), 0, chars.position());
+    }
+}
@@ -0,0 +1,183 @@
+package hr.fer.zemris.java.hw16.trazilica.commands;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@code IndexWatcher} is a class that watches the directory of a
+ * {@link SearchContext} and its subdirectories and applies the changes of text
+ * files to the context.
+ * <p>
+ * Changes are collected until no new change arrives for
+ * {@value #QUIET_PERIOD} milliseconds and then applied together with
+ * {@link SearchContext#refresh(java.util.Collection)}, so that copying many
+ * files into the directory causes only one rebuild of the index snapshot. If
+ * some events are lost or a subdirectory is removed, the whole directory is
+ * refreshed.
+ * <p>
+ * Watcher runs in its own daemon thread.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class IndexWatcher implements Closeable {
+
+    /** Time in milliseconds without changes after which changes are applied. */
+    private static final long QUIET_PERIOD = 200;
+
+    /** The context that receives the changes. */
+    private final SearchContext context;
+    /** The watch service. */
+    private final WatchService service;
+    /** Watched directories mapped by their watch keys. */
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    /** The thread in which the watcher runs. */
+    private final Thread thread;
+
+    /**
+     * Constructs a new {@code IndexWatcher} for the specified {@code context}
+     * and starts watching its directory.
+     *
+     * @param context
+     *            the context
+     * @throws NullPointerException
+     *             if parameter {@code context} is a {@code null} reference
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    public IndexWatcher(SearchContext context) throws IOException {
+        this.context = Objects.requireNonNull(context,
+                "Cannot instantiate IndexWatcher with null reference as a context.");
+        this.service = context.getDirectory().getFileSystem().newWatchService();
+        register(context.getDirectory());
+
+        this.thread = new Thread(this::run, "index-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops watching the directory.
+     *
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        service.close();
+    }
+
+    /**
+     * Waits for changes and applies them to the context until the watcher is
+     * closed.
+     */
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<Path> changed = new HashSet<>();
+                boolean refreshAll = false;
+
+                WatchKey key = service.take();
+                do {
+                    refreshAll |= collect(key, changed);
+                } while ((key = service.poll(QUIET_PERIOD, TimeUnit.MILLISECONDS)) != null);
+
+                try {
+                    if (refreshAll) {
+                        context.refresh();
+                    } else {
+                        context.refresh(changed);
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println("Cannot update the index: " + e.getMessage());
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // watcher is closed
+        }
+    }
+
+    /**
+     * Collects the paths of changed files from the events of the specified
+     * {@code key} and resets the key.
+     *
+     * @param key
+     *            the watch key
+     * @param changed
+     *            the set to which paths of changed files are added
+     * @return {@code true} if the whole directory has to be refreshed;
+     *         {@code false} otherwise
+     */
+    private boolean collect(WatchKey key, Set<Path> changed) {
+        Path directory = directories.get(key);
+        boolean refreshAll = false;
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || directory == null) {
+                refreshAll = true;
+                continue;
+            }
+
+            Path child = directory.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(child)) {
+                try {
+                    register(child);
+                    try (Stream<Path> stream = Files.walk(child)) {
+                        changed.addAll(stream.filter(Files::isRegularFile).collect(Collectors.toList()));
+                    }
+                } catch (IOException | UncheckedIOException e) {
+                    refreshAll = true;
+                }
+            } else if (event.kind() == ENTRY_DELETE && directories.containsValue(child)) {
+                refreshAll = true;
+            } else {
+                changed.add(child);
+            }
+        }
+
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+
+        return refreshAll;
+    }
+
+    /**
+     * Registers the specified {@code directory} and all its subdirectories
+     * with the watch service.
+     *
+     * @param directory
+     *            the directory
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    private void register(Path directory) throws IOException {
+        try (Stream<Path> stream = Files.walk(directory)) {
+            for (Path dir : (Iterable<Path>) stream.filter(Files::isDirectory)::iterator) {
+                WatchKey key = dir.register(service, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                directories.put(key, dir);
+            }
+        }
+    }
+}
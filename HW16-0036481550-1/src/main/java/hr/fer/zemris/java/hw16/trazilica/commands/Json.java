@@ -0,0 +1,84 @@
+package hr.fer.zemris.java.hw16.trazilica.commands;
+
+import java.util.List;
+
+/**
+ * {@code Json} is a utility class that writes search results in JSON format.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public final class Json {
+
+    /**
+     * Disables creation of instances.
+     */
+    private Json() {
+    }
+
+    /**
+     * Appends the results as a JSON array of objects with {@code index},
+     * {@code similarity} and {@code path} properties.
+     *
+     * @param sb
+     *            the builder
+     * @param results
+     *            the results
+     * @return the builder
+     */
+    public static StringBuilder appendResults(StringBuilder sb, List<SearchResult> results) {
+        sb.append('[');
+        int i = 0;
+        for (SearchResult result : results) {
+            if (i != 0) {
+                sb.append(',');
+            }
+            sb.append("{\"index\":").append(i++)
+                    .append(",\"similarity\":").append(result.getSimilarity())
+                    .append(",\"path\":");
+            appendString(sb, result.getPath().toString());
+            sb.append('}');
+        }
+        return sb.append(']');
+    }
+
+    /**
+     * Appends the specified string as a JSON string literal.
+     *
+     * @param sb
+     *            the builder
+     * @param s
+     *            the string
+     * @return the builder
+     */
+    public static StringBuilder appendString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"');
+    }
+}
@@ -0,0 +1,258 @@
+package hr.fer.zemris.java.hw16.trazilica.commands;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import hr.fer.zemris.java.hw16.trazilica.index.InvertedIndex;
+
+/**
+ * {@code QueryCache} is a class that keeps the results of recent queries so
+ * repeated queries are answered without scoring any documents.
+ * <p>
+ * Results are keyed by the TF vector of the query over the vocabulary of the
+ * index, which is the multiset of the normalized query terms: queries that
+ * differ only in the order or case of their words, or in words that aren't
+ * indexed, share the entry. Queries with required or excluded words or with
+ * phrases are keyed by the TF vector together with these clauses. Every entry
+ * remembers the snapshot of the index it was computed on and is valid only
+ * for that snapshot, so results are never served from an older index, even if
+ * it is replaced while a query is being evaluated. Results of a query with
+ * {@code k} results also answer the same query with fewer results.
+ * <p>
+ * At most {@link #getCapacity() capacity} entries are kept; when a new entry
+ * doesn't fit, the least recently used one is evicted. Capacity {@code 0}
+ * disables the cache. Numbers of hits, misses and evictions are counted from
+ * the creation of the cache.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class QueryCache {
+
+    /** Number of entries kept by default. */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /** Entries in access order. */
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /** Maximal number of entries. */
+    private int capacity;
+    /** Number of hits. */
+    private long hits;
+    /** Number of misses. */
+    private long misses;
+    /** Number of evictions. */
+    private long evictions;
+
+    /**
+     * Constructs a new {@code QueryCache} with the specified {@code capacity}.
+     *
+     * @param capacity
+     *            the maximal number of entries
+     * @throws IllegalArgumentException
+     *             if the {@code capacity} is negative
+     */
+    public QueryCache(int capacity) {
+        setCapacity(capacity);
+    }
+
+    /**
+     * Returns at most {@code k} cached results of the {@code query} evaluated
+     * on the specified snapshot of the {@code index}.
+     *
+     * @param index
+     *            the snapshot of the index
+     * @param query
+     *            the key of the query
+     * @param k
+     *            the maximal number of results
+     * @return the unmodifiable list of results or {@code null} if there are no
+     *         such results in the cache
+     */
+    public synchronized List<SearchResult> get(InvertedIndex index, Object query, int k) {
+        if (capacity == 0)
+            return null;
+
+        Entry entry = entries.get(query);
+        if (entry == null || entry.index != index || !entry.covers(k)) {
+            misses++;
+            return null;
+        }
+
+        hits++;
+        return entry.results.size() > k ? entry.results.subList(0, k) : entry.results;
+    }
+
+    /**
+     * Stores the results of the {@code query} evaluated on the specified
+     * snapshot of the {@code index}.
+     *
+     * @param index
+     *            the snapshot of the index
+     * @param query
+     *            the key of the query
+     * @param k
+     *            the maximal number of results the query was evaluated with
+     * @param results
+     *            the unmodifiable list of results
+     * @throws NullPointerException
+     *             if any parameter is a {@code null} reference
+     */
+    public synchronized void put(InvertedIndex index, Object query, int k, List<SearchResult> results) {
+        Objects.requireNonNull(index, "Cannot cache results of null reference as an index.");
+        Objects.requireNonNull(query, "Cannot cache results of null reference as a query.");
+        Objects.requireNonNull(results, "Cannot cache null reference as results.");
+        if (capacity == 0)
+            return;
+
+        Entry old = entries.get(query);
+        if (old != null && old.index == index && old.covers(k))
+            return;
+
+        entries.put(query, new Entry(index, k, results));
+        evict(capacity);
+    }
+
+    /**
+     * Removes all entries that weren't computed on the specified snapshot of
+     * the {@code index}. Removed entries aren't counted as evictions.
+     *
+     * @param index
+     *            the current snapshot of the index
+     */
+    public synchronized void invalidate(InvertedIndex index) {
+        entries.values().removeIf(entry -> entry.index != index);
+    }
+
+    /**
+     * Returns the maximal number of entries.
+     *
+     * @return the capacity
+     */
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets the maximal number of entries, evicting the least recently used
+     * entries that don't fit.
+     *
+     * @param capacity
+     *            the maximal number of entries; {@code 0} disables the cache
+     * @throws IllegalArgumentException
+     *             if the {@code capacity} is negative
+     */
+    public synchronized void setCapacity(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Capacity of the cache cannot be negative. It was: " + capacity + ".");
+
+        this.capacity = capacity;
+        evict(capacity);
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that weren't answered from the cache.
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of entries evicted because the cache was full.
+     *
+     * @return the number of evictions
+     */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d/%d entries, %d hits, %d misses, %d evictions", entries.size(), capacity, hits,
+                misses, evictions);
+    }
+
+    /**
+     * Evicts the least recently used entries until at most {@code size}
+     * entries remain.
+     *
+     * @param size
+     *            the number of remaining entries
+     */
+    private void evict(int size) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > size) {
+            it.next();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * {@code Entry} is a class that represents cached results of one query.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    private static class Entry {
+
+        /** The snapshot of the index the results were computed on. */
+        private final InvertedIndex index;
+        /** The maximal number of results the query was evaluated with. */
+        private final int k;
+        /** The results. */
+        private final List<SearchResult> results;
+
+        /**
+         * Constructs a new {@code Entry}.
+         *
+         * @param index
+         *            the snapshot of the index
+         * @param k
+         *            the maximal number of results
+         * @param results
+         *            the results
+         */
+        private Entry(InvertedIndex index, int k, List<SearchResult> results) {
+            this.index = index;
+            this.k = k;
+            this.results = results;
+        }
+
+        /**
+         * Returns {@code true} if this entry holds all results of the query
+         * with at most {@code k} results.
+         *
+         * @param k
+         *            the maximal number of results
+         * @return {@code true} if the entry covers {@code k} results
+         */
+        private boolean covers(int k) {
+            return k <= this.k || results.size() < this.k;
+        }
+    }
+}
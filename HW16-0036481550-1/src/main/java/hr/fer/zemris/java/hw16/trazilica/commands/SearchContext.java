@@ -1,26 +1,60 @@
 package hr.fer.zemris.java.hw16.trazilica.commands;
 
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import hr.fer.zemris.java.hw16.trazilica.TFVector;
-import hr.fer.zemris.java.hw16.vector.Vector;
+import hr.fer.zemris.java.hw16.trazilica.index.DocIdSet;
+import hr.fer.zemris.java.hw16.trazilica.index.DocumentInfo;
+import hr.fer.zemris.java.hw16.trazilica.index.IncrementalIndex;
+import hr.fer.zemris.java.hw16.trazilica.index.IndexFile;
+import hr.fer.zemris.java.hw16.trazilica.index.InvertedIndex;
+import hr.fer.zemris.java.hw16.trazilica.index.Similarity;
+import hr.fer.zemris.java.hw16.trazilica.index.TermDictionary;
+import hr.fer.zemris.java.hw16.trazilica.index.TopK;
+import hr.fer.zemris.java.hw16.trazilica.index.Vocabulary;
+import hr.fer.zemris.java.hw16.vector.SparseVector;
 
 /**
- * {@code Context} is a class that holds information about the current state of
- * the search engine(dictionary, current results, vectors, ...)
+ * {@code Context} is a class that holds the index of the search engine and
+ * evaluates queries against it.
+ * <p>
+ * Queries are evaluated against an immutable snapshot of the index and return
+ * their own results, so any number of threads can query the same context
+ * concurrently without locking. Results of the last query of a user are kept
+ * by a {@link SearchSession}. Updates of the index are serialized and publish
+ * a new snapshot that is used by queries started after the update.
+ * <p>
+ * Results of recent queries are kept in a {@link QueryCache}; entries of
+ * older snapshots are dropped when a new snapshot is published.
+ * <p>
+ * Documents are ranked by a {@link Similarity}, by default the cosine
+ * similarity of TF-IDF vectors. Weights of the model are computed whenever a
+ * snapshot is published, so queries only read them.
+ * <p>
+ * Queries may require or exclude words and groups of words and, if the index
+ * stores positions of words, contain phrases (see {@link SearchQuery}). These
+ * restrict the documents that are ranked; the ranking itself doesn't depend
+ * on them.
  * 
  * @author Karlo Vrbić
  * @version 1.0
@@ -29,32 +63,42 @@ public class SearchContext {
 
     /** Path of the file containing stop words. */
     private static final Path STOP_WORDS_PATH = Paths.get("hrvatski_stoprijeci.txt");
-    /** List of stop words. */
-    private static List<String> STOP_WORDS;
+    /** Set of stop words. */
+    private static Set<String> STOP_WORDS;
+    /** Maximal number of terms to which a word with wildcards is expanded. */
+    private static final int MAX_EXPANSIONS = 1024;
 
     static {
         try {
             STOP_WORDS = Files.readAllLines(STOP_WORDS_PATH).stream()
                     .map(s -> s.trim().toLowerCase())
-                    .sorted()
-                    .collect(Collectors.toList());
+                    .collect(Collectors.toSet());
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
-    /** List of all words. */
-    private Set<String> dictionary;
-    /** List of TF vectors. */
-    private List<TFVector> tfVectors;
-    /** Map of TF-IDF vectors. */
-    private Map<Path, Vector> vectors;
-    /** List of search resutls. */
-    List<SearchResult> results;
+    /** Path of the directory with text files. */
+    private final Path directory;
+    /** Path of the index file; {@code null} if the index isn't stored. */
+    private final Path indexFile;
+    /** Model that ranks the documents. */
+    private final Similarity similarity;
+    /** Flag that shows whether the index stores normalized weights. */
+    private final boolean normalized;
+    /** Flag that shows whether words of documents are kept for snippets. */
+    private final boolean snippets;
+    /** Current snapshot of the inverted index. */
+    private volatile InvertedIndex index;
+    /** Index that receives document updates; created on the first update. */
+    private IncrementalIndex updates;
+    /** Cache of query results. */
+    private final QueryCache cache = new QueryCache(QueryCache.DEFAULT_CAPACITY);
 
     /**
      * Constructs a new {@code Context} with specified {@code path} of the
-     * directory with text files.
+     * directory with text files. The index is built with the default
+     * {@link Options options}, using all available processors.
      * 
      * @param path
      *            the path to the directory with text files
@@ -64,38 +108,308 @@ public class SearchContext {
      *             if parameter {@code path} isn't a path to some directory
      */
     public SearchContext(Path path) {
-        Objects.requireNonNull(path, "Cannot instantiate SearchContext with null reference as a path.");
-        if (!Files.isDirectory(path))
-            throw new IllegalArgumentException("Cannot instantiate SearchContext with non-directory path.");
+        this(path, new Options());
+    }
 
-        results = new ArrayList<>();
-        try {
-            dictionary = Files.walk(path)
-                    .filter(p -> Files.isRegularFile(p) && !p.equals(path))
-                    .map(p -> readAllLines(p))
-                    .flatMap(List::stream)
-                    .map(line -> Arrays.asList(line.trim().toLowerCase().split("[^\\p{L}]+")))
-                    .flatMap(List::stream)
-                    .collect(Collectors.toSet());
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    /**
+     * Constructs a new {@code Context} with specified {@code path} of the
+     * directory with text files, whose index is built by {@code threads}
+     * workers with otherwise default {@link Options options}.
+     * 
+     * @param path
+     *            the path to the directory with text files
+     * @param threads
+     *            the number of threads used to build the index
+     * @throws NullPointerException
+     *             if parameter {@code path} is a {@code null} reference
+     * @throws IllegalArgumentException
+     *             if parameter {@code path} isn't a path to some directory or
+     *             if {@code threads} isn't a positive number
+     */
+    public SearchContext(Path path, int threads) {
+        this(path, new Options().threads(threads));
+    }
+
+    /**
+     * Constructs a new {@code Context} with specified {@code path} of the
+     * directory with text files and the specified {@code options} of the
+     * index.
+     * <p>
+     * Every file is read exactly once. Files are tokenized and their words
+     * counted concurrently by the number of workers set by the options. The
+     * counts are then merged into the dictionary and document frequencies.
+     * Documents are ordered by path and dictionary words alphabetically so the
+     * resulting index doesn't depend on the number of threads.
+     * 
+     * @param path
+     *            the path to the directory with text files
+     * @param options
+     *            the options of the index
+     * @throws NullPointerException
+     *             if parameters {@code path} or {@code options} are a
+     *             {@code null} reference
+     * @throws IllegalArgumentException
+     *             if parameter {@code path} isn't a path to some directory
+     */
+    public SearchContext(Path path, Options options) {
+        this(path, null, checkOptions(options),
+                build(listFiles(path, null), options.threads, options.positional, options.snippets));
+    }
+
+    /**
+     * Constructs a new {@code Context} with specified {@code index}.
+     * 
+     * @param directory
+     *            the path to the directory with text files
+     * @param indexFile
+     *            the path to the index file; may be {@code null}
+     * @param options
+     *            the options of the index
+     * @param index
+     *            the inverted index
+     */
+    private SearchContext(Path directory, Path indexFile, Options options, InvertedIndex index) {
+        this.directory = directory;
+        this.indexFile = indexFile;
+        this.similarity = options.similarity;
+        this.normalized = options.normalized;
+        this.snippets = options.snippets;
+        this.index = weigh(index);
+    }
+
+    /**
+     * Opens the search context for the directory specified by {@code path}
+     * using the index stored in {@code indexFile}, whose index is built by
+     * {@code threads} workers with otherwise default {@link Options options}.
+     * 
+     * @param path
+     *            the path to the directory with text files
+     * @param indexFile
+     *            the path to the index file
+     * @param threads
+     *            the number of threads used if the index has to be built
+     * @return the search context
+     * @throws NullPointerException
+     *             if parameters {@code path} or {@code indexFile} are a
+     *             {@code null} reference
+     * @throws IllegalArgumentException
+     *             if parameter {@code path} isn't a path to some directory or
+     *             if {@code threads} isn't a positive number
+     * @throws UncheckedIOException
+     *             if the index file cannot be written
+     * @see #open(Path, Path, Options)
+     */
+    public static SearchContext open(Path path, Path indexFile, int threads) {
+        return open(path, indexFile, new Options().threads(threads));
+    }
+
+    /**
+     * Opens the search context for the directory specified by {@code path}
+     * using the index stored in {@code indexFile} and the specified
+     * {@code options} of the index.
+     * <p>
+     * If the index file exists and it matches the current content of the
+     * directory (same files with same sizes and modification times), the index
+     * is read from it and no text file is read. Otherwise the index is built
+     * from the text files and written to {@code indexFile}. Later updates of
+     * the context are written to {@code indexFile} as well.
+     * <p>
+     * The index file doesn't depend on the similarity or on normalization;
+     * weights are computed after the file is read. A stored index without
+     * positions or words of documents is built again if the options require
+     * them.
+     * 
+     * @param path
+     *            the path to the directory with text files
+     * @param indexFile
+     *            the path to the index file
+     * @param options
+     *            the options of the index
+     * @return the search context
+     * @throws NullPointerException
+     *             if parameters {@code path}, {@code indexFile} or
+     *             {@code options} are a {@code null} reference
+     * @throws IllegalArgumentException
+     *             if parameter {@code path} isn't a path to some directory
+     * @throws UncheckedIOException
+     *             if the index file cannot be written
+     */
+    public static SearchContext open(Path path, Path indexFile, Options options) {
+        Objects.requireNonNull(indexFile, "Cannot open SearchContext with null reference as an index file.");
+        checkOptions(options);
+        List<Path> files = listFiles(path, indexFile);
+
+        if (Files.isRegularFile(indexFile)) {
+            try {
+                InvertedIndex index = IndexFile.read(indexFile, path);
+                if ((!options.positional || index.hasPositions()) && (!options.snippets || hasTokens(index))
+                        && isUpToDate(index, files))
+                    return new SearchContext(path, indexFile, options, index);
+            } catch (IOException ignore) {
+                // unreadable index is rebuilt
+            }
         }
 
-        dictionary.removeAll(STOP_WORDS);
+        SearchContext context = new SearchContext(path, indexFile, options,
+                build(files, options.threads, options.positional, options.snippets));
+        context.store();
+        return context;
+    }
 
-        try {
-            tfVectors = Files.walk(path)
-                    .filter(p -> Files.isRegularFile(p) && !p.equals(path))
-                    .map(p -> new TFVector(p))
-                    .collect(Collectors.toList());
+    /**
+     * Checks that the specified {@code options} aren't a {@code null}
+     * reference.
+     * 
+     * @param options
+     *            the options of the index
+     * @return the options
+     * @throws NullPointerException
+     *             if parameter {@code options} is a {@code null} reference
+     */
+    private static Options checkOptions(Options options) {
+        return Objects.requireNonNull(options, "Cannot instantiate SearchContext with null reference as options.");
+    }
 
-            vectors = new HashMap<>();
-            for (TFVector vector : tfVectors) {
-                vectors.put(vector.getPath(), getTFIDFVector(vector.getTFVector(dictionary)));
+    /**
+     * Returns the path of the directory with text files.
+     * 
+     * @return the path of the directory with text files
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the model that ranks the documents.
+     *
+     * @return the similarity
+     */
+    public Similarity getSimilarity() {
+        return similarity;
+    }
+
+    /**
+     * Returns {@code true} if the index stores positions of words, so queries
+     * may contain phrases.
+     *
+     * @return {@code true} if the index stores positions; {@code false}
+     *         otherwise
+     */
+    public boolean hasPositions() {
+        return index.hasPositions();
+    }
+
+    /**
+     * Adds the specified text file to the index or, if it is already indexed
+     * and it changed, replaces it with its current content.
+     * 
+     * @param file
+     *            the text file
+     * @return {@code true} if the index changed; {@code false} otherwise
+     * @throws NullPointerException
+     *             if parameter {@code file} is a {@code null} reference
+     * @throws IllegalArgumentException
+     *             if the file isn't in the directory of this context
+     * @throws UncheckedIOException
+     *             if an I/O error occurs
+     */
+    public boolean update(Path file) {
+        return refresh(Collections.singleton(file));
+    }
+
+    /**
+     * Removes the specified text file from the index.
+     * 
+     * @param file
+     *            the text file
+     * @return {@code true} if the index changed; {@code false} otherwise
+     * @throws NullPointerException
+     *             if parameter {@code file} is a {@code null} reference
+     * @throws IllegalArgumentException
+     *             if the file isn't in the directory of this context
+     * @throws UncheckedIOException
+     *             if the index file cannot be written
+     */
+    public synchronized boolean delete(Path file) {
+        Path key = toDocumentPath(file);
+        if (!updates().remove(key))
+            return false;
+
+        publish();
+        return true;
+    }
+
+    /**
+     * Brings the specified files up to date in the index. Files that exist are
+     * added or replaced if they changed, and files that no longer exist are
+     * removed. Files that are directories are ignored.
+     * <p>
+     * Document frequencies of affected terms are updated immediately and all
+     * weights and norms are recomputed once, after all files are processed.
+     * Queries that are running in the meantime keep using the previous
+     * snapshot of the index.
+     * 
+     * @param files
+     *            the files to bring up to date
+     * @return {@code true} if the index changed; {@code false} otherwise
+     * @throws NullPointerException
+     *             if parameter {@code files} or some of its elements is a
+     *             {@code null} reference
+     * @throws IllegalArgumentException
+     *             if some file isn't in the directory of this context
+     * @throws UncheckedIOException
+     *             if an I/O error occurs
+     */
+    public synchronized boolean refresh(Collection<Path> files) {
+        Objects.requireNonNull(files, "Cannot refresh null reference as files.");
+
+        IncrementalIndex updates = updates();
+        boolean changed = false;
+        for (Path file : files) {
+            Path key = toDocumentPath(file);
+            if (isExcluded(key) || Files.isDirectory(key))
+                continue;
+
+            if (!Files.isRegularFile(key)) {
+                changed |= updates.remove(key);
+                continue;
             }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+
+            DocumentInfo document;
+            TFVector vector;
+            try {
+                document = DocumentInfo.read(key);
+                if (document.equals(updates.getDocument(key)))
+                    continue;
+                vector = new TFVector(key, updates.getDictionary(), index.hasPositions(), snippets);
+            } catch (UncheckedIOException e) {
+                // file was removed while it was being read
+                changed |= updates.remove(key);
+                continue;
+            }
+
+            updates.put(document, vector);
+            changed = true;
         }
+
+        if (changed)
+            publish();
+        return changed;
+    }
+
+    /**
+     * Brings the whole directory up to date in the index. New files are added,
+     * changed files are replaced and deleted files are removed. Only files
+     * whose size or modification time changed are read.
+     * 
+     * @return {@code true} if the index changed; {@code false} otherwise
+     * @throws UncheckedIOException
+     *             if an I/O error occurs
+     */
+    public synchronized boolean refresh() {
+        Set<Path> files = new HashSet<>(listFiles(directory, indexFile));
+        files.addAll(updates().getPaths());
+        return refresh(files);
     }
 
     /**
@@ -104,34 +418,87 @@ public class SearchContext {
      * @return the number of words in {@code dictionary}
      */
     public int dictionarySize() {
-        return this.dictionary.size();
+        return index.termCount();
     }
 
     /**
-     * Returns the list of all words.
+     * Returns the dictionary of all words. Words are sorted alphabetically and
+     * the position of a word in the dictionary is its position in the vectors,
+     * so vectors built with equal dictionaries can be compared and reused.
      * 
-     * @return the list of all words
+     * @return the dictionary of all words
      */
-    public Set<String> getDictionary() {
-        return dictionary;
+    public Vocabulary getDictionary() {
+        return index.getVocabulary();
     }
 
     /**
-     * Returns the list of Ds.
+     * Returns the map of dictionary words and their positions in the vectors.
      * 
-     * @return the list of TF vectors
+     * @return the map of dictionary words and their positions in the vectors
      */
-    public List<TFVector> getTFVectors() {
-        return tfVectors;
+    public Map<String, Integer> getTermIndices() {
+        return index.getTermIndices();
     }
 
     /**
-     * Returns the list of TF-IDF vectors.
+     * Returns the cache of query results.
      * 
-     * @return the list of TF-IDF vectors
+     * @return the cache of query results
      */
-    public Map<Path, Vector> getTFIDFVectors() {
-        return vectors;
+    public QueryCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Returns the current snapshot of the inverted index of all documents.
+     * Snapshot never changes; updates of the context replace it with a new
+     * one.
+     * 
+     * @return the inverted index
+     */
+    public InvertedIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the path of the document with the specified ID.
+     * 
+     * @param docId
+     *            the ID of the document
+     * @return the path of the document
+     * @throws IndexOutOfBoundsException
+     *             if there is no document with the specified ID
+     */
+    public Path getDocument(int docId) {
+        return index.getDocument(docId).getPath();
+    }
+
+    /**
+     * Returns the number of documents in which the term at the specified
+     * position occurs.
+     * 
+     * @param term
+     *            the position of the term
+     * @return the document frequency of the term
+     * @throws ArrayIndexOutOfBoundsException
+     *             if {@code term} is out of range
+     */
+    public int getDocumentFrequency(int term) {
+        return index.getDocumentFrequency(term);
+    }
+
+    /**
+     * Returns the IDF value of the term at the specified position.
+     * 
+     * @param term
+     *            the position of the term
+     * @return the IDF value of the term
+     * @throws ArrayIndexOutOfBoundsException
+     *             if {@code term} is out of range
+     */
+    public double getIDFValue(int term) {
+        return index.getIDFValue(term);
     }
 
     /**
@@ -141,104 +508,773 @@ public class SearchContext {
      *            the TF vector
      * @return the TF-IDF vector
      */
-    public Vector getTFIDFVector(Vector tfVector) {
-        Vector vector = new Vector(dictionary.size());
-        int i = 0;
-        for (String word : dictionary) {
-            vector.set(i, tfVector.get(i) != 0 ? tfVector.get(i) * getIDFValue(word) : 0.0);
-            i++;
-        }
-
-        return vector;
+    public SparseVector getTFIDFVector(SparseVector tfVector) {
+        return index.getTFIDFVector(tfVector);
     }
 
     /**
-     * Returns the list of all results.
+     * Returns at most {@code k} documents that are the most similar to the
+     * specified {@code query} words, ordered by similarity in descending
+     * order. Documents with similarity {@code 0} are never returned.
+     * <p>
+     * The query is evaluated against the current snapshot of the index and
+     * this method can be called from many threads at once. Results of recent
+     * queries are returned from the {@link #getCache() cache}.
+     * <p>
+     * The words are parsed as a {@link SearchQuery}, so they may contain
+     * required and excluded words and groups, and phrases if the index stores
+     * positions. Only documents that satisfy all of them are then ranked, by
+     * all words of the query that aren't excluded.
      * 
-     * @return the list of all results
+     * @param query
+     *            the words of the query
+     * @param k
+     *            the maximal number of results
+     * @return the unmodifiable list of results
+     * @throws NullPointerException
+     *             if parameter {@code query} is a {@code null} reference
+     * @throws IllegalArgumentException
+     *             if {@code k} is a negative number, if the query isn't valid
+     *             or if it contains phrases and the index doesn't store
+     *             positions
      */
-    public List<SearchResult> getResults() {
-        return results;
+    public List<SearchResult> search(String[] query, int k) {
+        if (k < 0)
+            throw new IllegalArgumentException("Number of results cannot be negative. You provided: " + k + ".");
+
+        return search(index, SearchQuery.parse(query), k);
     }
 
     /**
-     * Returns the search result at the specified position in search results
-     * list.
+     * Returns at most {@code k} results of the parsed {@code query} evaluated
+     * against the specified snapshot of the {@code index}, from the
+     * {@link #getCache() cache} if they are there.
      *
      * @param index
-     *            index of the search result to return
-     * @return the search result at the specified position in search results
-     *         list
-     * @throws IndexOutOfBoundsException
-     *             if the index is out of range (
-     *             {@code index &lt; 0 || index &gt;= size()})
+     *            the snapshot of the index
+     * @param parsed
+     *            the parsed query
+     * @param k
+     *            the maximal number of results
+     * @return the unmodifiable list of results
+     * @throws IllegalArgumentException
+     *             if the query contains phrases and the index doesn't store
+     *             positions
      */
-    public SearchResult getResult(int index) {
-        return results.get(index);
+    private List<SearchResult> search(InvertedIndex index, SearchQuery parsed, int k) {
+        SparseVector tfVector = getTFVector(index.getVocabulary(), parsed.getWords());
+        Object key = parsed.isPlain() ? tfVector : Arrays.asList(tfVector, parsed.getClauses());
+        List<SearchResult> results = cache.get(index, key, k);
+        if (results == null) {
+            results = toResults(index, evaluate(index, parsed, tfVector, k));
+            cache.put(index, key, k, results);
+        }
+        return results;
     }
 
     /**
-     * Appends the specified search result to the end of search results list.
+     * Returns at most {@code k} results of every query in the {@code queries}
+     * list, like {@link #search(String[], int)} called for every query, but
+     * evaluates all queries together against the same snapshot of the index,
+     * so posting lists of terms shared by several queries are read only once.
+     * Queries whose results are in the {@link #getCache() cache} aren't
+     * evaluated, and queries with operators or phrases are evaluated one by
+     * one.
+     * <p>
+     * This method can be called from many threads at once.
      *
-     * @param result
-     *            the search result to be appended to the search results list
+     * @param queries
+     *            the words of the queries
+     * @param k
+     *            the maximal number of results per query
+     * @return the unmodifiable list of unmodifiable lists of results, in order
+     *         of queries
      * @throws NullPointerException
-     *             if the specified element is {@code null}
+     *             if parameter {@code queries} or any of its elements is a
+     *             {@code null} reference
+     * @throws IllegalArgumentException
+     *             if {@code k} is a negative number, if some query isn't valid
+     *             or if it contains phrases and the index doesn't store
+     *             positions
      */
-    public void addResult(SearchResult result) {
-        results.add(result);
+    public List<List<SearchResult>> search(List<String[]> queries, int k) {
+        Objects.requireNonNull(queries, "Cannot search with null reference as queries.");
+        if (k < 0)
+            throw new IllegalArgumentException("Number of results cannot be negative. You provided: " + k + ".");
+
+        InvertedIndex index = this.index;
+        Vocabulary vocabulary = index.getVocabulary();
+        List<List<SearchResult>> results = new ArrayList<>(queries.size());
+        SparseVector[] tfVectors = new SparseVector[queries.size()];
+        int[] missed = new int[queries.size()];
+        int misses = 0;
+        for (int i = 0; i < tfVectors.length; i++) {
+            SearchQuery parsed = SearchQuery.parse(queries.get(i));
+            if (!parsed.isPlain()) {
+                results.add(search(index, parsed, k));
+                continue;
+            }
+
+            tfVectors[i] = getTFVector(vocabulary, parsed.getWords());
+            List<SearchResult> cached = cache.get(index, tfVectors[i], k);
+            results.add(cached);
+            if (cached == null) {
+                missed[misses++] = i;
+            }
+        }
+        if (misses == 0)
+            return Collections.unmodifiableList(results);
+
+        SparseVector[] vectors = new SparseVector[misses];
+        for (int i = 0; i < misses; i++) {
+            vectors[i] = index.getQueryVector(tfVectors[missed[i]]);
+        }
+
+        TopK[] tops = index.search(vectors, k);
+        for (int i = 0; i < misses; i++) {
+            List<SearchResult> evaluated = toResults(index, tops[i]);
+            cache.put(index, tfVectors[missed[i]], k, evaluated);
+            results.set(missed[i], evaluated);
+        }
+        return Collections.unmodifiableList(results);
     }
 
     /**
-     * Removes all of the elements from the search results list. The search
-     * results list will be empty after this call returns.
+     * Returns the TF vector of the specified {@code words} over the
+     * {@code vocabulary}. A word with wildcards is expanded to the terms that
+     * match it and every matched term is counted once, so the expansion ranks
+     * documents as a disjunction of the matched terms.
+     *
+     * @param vocabulary
+     *            the vocabulary
+     * @param words
+     *            the words of the query
+     * @return the TF vector of the words
+     * @throws IllegalArgumentException
+     *             if a word starts with a wildcard or matches more than
+     *             {@value #MAX_EXPANSIONS} terms
      */
-    public void clearResults() {
-        results.clear();
+    private static SparseVector getTFVector(Vocabulary vocabulary, String[] words) {
+        String[] plain = new String[words.length];
+        int n = 0;
+        int[] expanded = new int[0];
+        for (String word : words) {
+            if (!Vocabulary.isPattern(word)) {
+                plain[n++] = word;
+                continue;
+            }
+
+            int[] terms = expand(vocabulary, word);
+            expanded = Arrays.copyOf(expanded, expanded.length + terms.length);
+            System.arraycopy(terms, 0, expanded, expanded.length - terms.length, terms.length);
+        }
+
+        SparseVector tfVector = new TFVector(n == words.length ? words : Arrays.copyOf(plain, n))
+                .getTFVector(vocabulary);
+        if (expanded.length == 0)
+            return tfVector;
+
+        Arrays.sort(expanded);
+        int nonZero = tfVector.nonZeroCount();
+        int[] indices = new int[nonZero + expanded.length];
+        double[] values = new double[indices.length];
+        int count = 0;
+        for (int i = 0, j = 0; i < nonZero || j < expanded.length; count++) {
+            boolean fromVector = j == expanded.length || i < nonZero && tfVector.indexAt(i) <= expanded[j];
+            int term = fromVector ? tfVector.indexAt(i) : expanded[j];
+            double value = fromVector ? tfVector.valueAt(i++) : 0.0;
+            while (j < expanded.length && expanded[j] == term) {
+                value++;
+                j++;
+            }
+            indices[count] = term;
+            values[count] = value;
+        }
+        return new SparseVector(vocabulary.size(), Arrays.copyOf(indices, count), Arrays.copyOf(values, count));
     }
 
     /**
-     * Returns the IDF value for the specified {@code word}.
-     * 
-     * @param word
-     *            the word we calculate IDF value for
-     * @return the IDF value
+     * Returns the IDs of the terms of the {@code vocabulary} that match the
+     * specified word with wildcards.
+     *
+     * @param vocabulary
+     *            the vocabulary
+     * @param pattern
+     *            the word with wildcards
+     * @return the IDs of the matched terms in ascending order
+     * @throws IllegalArgumentException
+     *             if the word starts with a wildcard or matches more than
+     *             {@value #MAX_EXPANSIONS} terms
+     * @see Vocabulary#match(String)
+     */
+    private static int[] expand(Vocabulary vocabulary, String pattern) {
+        int[] terms = vocabulary.match(pattern.toLowerCase());
+        if (terms.length > MAX_EXPANSIONS)
+            throw new IllegalArgumentException(
+                    "Word " + pattern + " matches more than " + MAX_EXPANSIONS + " terms.");
+        return terms;
+    }
+
+    /**
+     * Returns the snippet of the document of the {@code result} with
+     * highlighted words of the {@code query} that are in the dictionary.
+     *
+     * @param query
+     *            the words of the query
+     * @param result
+     *            the result of the query
+     * @return the snippet or {@code null} if the words of the document aren't
+     *         known or the document changed after it was indexed
      * @throws NullPointerException
-     *             if parameter {@code word} isn't a path to some directory
+     *             if any of the parameters is a {@code null} reference
+     * @throws UncheckedIOException
+     *             if the document cannot be read
+     * @see SnippetExtractor
      */
-    private double getIDFValue(String word) {
-        Objects.requireNonNull(word, "Cannot calculate IDF value with null reference as a word.");
-        int numOfFilesWhereWordOccurrs = tfVectors.stream()
-                .filter(v -> v.containsWord(word))
-                .collect(Collectors.toList()).size();
+    public Snippet getSnippet(String[] query, SearchResult result) {
+        Objects.requireNonNull(query, "Cannot create a snippet with null reference as a query.");
+        Objects.requireNonNull(result, "Cannot create a snippet of null reference as a result.");
+        if (result.getDocument() == null)
+            return null;
+
+        Vocabulary vocabulary = index.getVocabulary();
+        Set<String> terms = new LinkedHashSet<>();
+        for (String word : SearchQuery.parse(query).getWords()) {
+            if (Vocabulary.isPattern(word)) {
+                for (int term : expand(vocabulary, word)) {
+                    terms.add(vocabulary.getTerm(term));
+                }
+                continue;
+            }
 
-        return Math.log(((double) tfVectors.size()) / numOfFilesWhereWordOccurrs);
+            String term = word.toLowerCase();
+            if (vocabulary.contains(term)) {
+                terms.add(term);
+            }
+        }
+
+        try {
+            return SnippetExtractor.extract(result.getDocument(), terms.toArray(new String[terms.size()]));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     /**
-     * Read all lines from a file. Bytes from the file are decoded into
-     * characters using the {@link StandardCharsets#UTF_8 UTF-8} {@link Charset
-     * charset}.
+     * Selects at most {@code k} documents of the {@code index} for the parsed
+     * {@code query}. Documents of a query with clauses are selected among the
+     * documents that match all of its required clauses and none of its
+     * excluded clauses. Sets of documents of the required clauses are
+     * intersected from the smallest one, so every intersection is at most as
+     * large as the most selective clause, and only the remaining documents are
+     * scored.
      *
-     * @param path
-     *            the path to the file
-     * @return the lines from the file as a {@code List}; whether the {@code
-     *          List} is modifiable or not is implementation dependent and
-     *         therefore not specified
+     * @param index
+     *            the index
+     * @param query
+     *            the parsed query
+     * @param tfVector
+     *            the TF vector of the words of the query
+     * @param k
+     *            the maximal number of results
+     * @return the selected documents
+     * @throws IllegalArgumentException
+     *             if the query contains phrases and the index doesn't store
+     *             positions
+     */
+    private static TopK evaluate(InvertedIndex index, SearchQuery query, SparseVector tfVector, int k) {
+        SparseVector queryVector = index.getQueryVector(tfVector);
+        if (query.isPlain())
+            return index.search(queryVector, k);
+
+        List<DocIdSet> required = new ArrayList<>();
+        DocIdSet excluded = DocIdSet.EMPTY;
+        for (SearchQuery.Clause clause : query.getClauses()) {
+            DocIdSet matches = match(index, clause);
+            if (matches == null)
+                continue;
+
+            if (clause.isRequired()) {
+                required.add(matches);
+            } else {
+                excluded = excluded.or(matches);
+            }
+        }
+        if (required.isEmpty() && excluded.isEmpty())
+            return index.search(queryVector, k);
+
+        required.sort(Comparator.comparingInt(DocIdSet::size));
+        DocIdSet candidates = required.isEmpty() ? DocIdSet.all(index.documentCount()) : required.get(0);
+        for (int i = 1; i < required.size() && !candidates.isEmpty(); i++) {
+            candidates = candidates.and(required.get(i));
+        }
+        return index.search(queryVector, k, candidates.andNot(excluded));
+    }
+
+    /**
+     * Returns the set of documents of the {@code index} that contain any word
+     * or phrase of the {@code clause}. Stop words aren't indexed, so a
+     * required clause with a stop word or a phrase of stop words matches every
+     * document, while such words and phrases of an excluded clause are left
+     * out. Words that aren't in the dictionary match no documents and a word
+     * with wildcards matches the documents of all terms it is expanded to.
+     *
+     * @param index
+     *            the index
+     * @param clause
+     *            the clause
+     * @return the matching documents or {@code null} if the clause matches
+     *         every document
+     * @throws IllegalArgumentException
+     *             if the clause contains phrases and the index doesn't store
+     *             positions or if a word with wildcards cannot be expanded
+     */
+    private static DocIdSet match(InvertedIndex index, SearchQuery.Clause clause) {
+        Vocabulary vocabulary = index.getVocabulary();
+        DocIdSet matches = DocIdSet.EMPTY;
+        for (String word : clause.getWords()) {
+            if (STOP_WORDS.contains(word)) {
+                if (clause.isRequired())
+                    return null;
+                continue;
+            }
+
+            if (Vocabulary.isPattern(word)) {
+                for (int term : expand(vocabulary, word)) {
+                    matches = matches.or(index.getDocuments(term));
+                }
+                continue;
+            }
+
+            int term = vocabulary.indexOf(word);
+            if (term >= 0) {
+                matches = matches.or(index.getDocuments(term));
+            }
+        }
+        for (SearchQuery.Phrase phrase : clause.getPhrases()) {
+            DocIdSet phraseMatches = matchPhrase(index, phrase);
+            if (phraseMatches == null) {
+                if (clause.isRequired())
+                    return null;
+                continue;
+            }
+            matches = matches.or(phraseMatches);
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the set of documents of the {@code index} that contain the
+     * {@code phrase}. Stop words of the phrase match any word. A phrase with
+     * an unknown word matches no documents.
+     *
+     * @param index
+     *            the index
+     * @param phrase
+     *            the phrase
+     * @return the matching documents or {@code null} if the phrase has only
+     *         stop words
+     * @throws IllegalArgumentException
+     *             if the index doesn't store positions
+     */
+    private static DocIdSet matchPhrase(InvertedIndex index, SearchQuery.Phrase phrase) {
+        if (!index.hasPositions())
+            throw new IllegalArgumentException("Phrase queries need an index with positions of words.");
+
+        Vocabulary vocabulary = index.getVocabulary();
+        String[] words = phrase.getWords();
+        int[] terms = new int[words.length];
+        int[] offsets = new int[words.length];
+        int n = 0;
+        for (int offset = 0; offset < words.length; offset++) {
+            if (STOP_WORDS.contains(words[offset]))
+                continue;
+
+            int term = vocabulary.indexOf(words[offset]);
+            if (term < 0)
+                return DocIdSet.EMPTY;
+            terms[n] = term;
+            offsets[n++] = offset;
+        }
+        if (n == 0)
+            return null;
+
+        return DocIdSet.of(index.matchPhrase(Arrays.copyOf(terms, n), Arrays.copyOf(offsets, n), phrase.getSlop()));
+    }
+
+    /**
+     * Converts the selected documents of the {@code index} to the unmodifiable
+     * list of results.
+     *
+     * @param index
+     *            the index
+     * @param top
+     *            the selected documents
+     * @return the unmodifiable list of results
+     */
+    private static List<SearchResult> toResults(InvertedIndex index, TopK top) {
+        List<SearchResult> results = new ArrayList<>(top.size());
+        for (int i = 0, size = top.size(); i < size; i++) {
+            results.add(new SearchResult(index.getDocument(top.docId(i)), top.score(i)));
+        }
+        return Collections.unmodifiableList(results);
+    }
+
+    /**
+     * Executes the specified {@code task} in the {@code pool} and waits for its
+     * result. Parallel streams used by the task run in the {@code pool}.
+     * 
+     * @param pool
+     *            the pool
+     * @param task
+     *            the task
+     * @return the result of the task
      * @throws RuntimeException
-     *             if an I/O error occurs reading from the file or a malformed
-     *             or unmappable byte sequence is read
-     * @throws SecurityException
-     *             In the case of the default provider, and a security manager
-     *             is installed, the {@link SecurityManager#checkRead(String)
-     *             checkRead} method is invoked to check read access to the
-     *             file.
-     */
-    private static List<String> readAllLines(Path path) {
+     *             if the task throws an exception or the thread is interrupted
+     */
+    private static <T> T execute(ForkJoinPool pool, Callable<T> task) {
         try {
-            return Files.readAllLines(path);
-        } catch (IOException e) {
+            return pool.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Returns the sorted list of all regular files in the directory specified
+     * by {@code path} and its subdirectories, except the {@code excluded} index
+     * file and its temporary file.
+     * 
+     * @param path
+     *            the path to the directory with text files
+     * @param excluded
+     *            the file that is left out; may be {@code null}
+     * @return the sorted list of files
+     * @throws NullPointerException
+     *             if parameter {@code path} is a {@code null} reference
+     * @throws IllegalArgumentException
+     *             if parameter {@code path} isn't a path to some directory
+     */
+    private static List<Path> listFiles(Path path, Path excluded) {
+        Objects.requireNonNull(path, "Cannot instantiate SearchContext with null reference as a path.");
+        if (!Files.isDirectory(path))
+            throw new IllegalArgumentException("Cannot instantiate SearchContext with non-directory path.");
+
+        try (Stream<Path> stream = Files.walk(path)) {
+            return stream.filter(p -> Files.isRegularFile(p) && !p.equals(path))
+                    .filter(p -> !isExcluded(p, excluded))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Builds the inverted index of the specified {@code files} using
+     * {@code threads} workers.
+     * 
+     * @param files
+     *            the sorted list of text files
+     * @param threads
+     *            the number of threads used to build the index
+     * @param positional
+     *            {@code true} if the index stores positions of words
+     * @param snippets
+     *            {@code true} if the index keeps the words of documents
+     * @return the inverted index
+     * @throws IllegalArgumentException
+     *             if {@code threads} isn't a positive number
+     */
+    private static InvertedIndex build(List<Path> files, int threads, boolean positional, boolean snippets) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Number of threads must be a positive number. It was: " + threads + ".");
+
+        IncrementalIndex index = new IncrementalIndex(STOP_WORDS, positional);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            execute(pool, () -> {
+                TermDictionary dictionary = index.getDictionary();
+                files.parallelStream().forEach(p -> index.put(DocumentInfo.read(p),
+                        new TFVector(p, dictionary, positional, snippets)));
+                return null;
+            });
+
+            return index.snapshot();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Returns {@code true} if the {@code index} keeps the words of all of its
+     * documents.
+     * 
+     * @param index
+     *            the index
+     * @return {@code true} if the words of all documents are known;
+     *         {@code false} otherwise
+     */
+    private static boolean hasTokens(InvertedIndex index) {
+        for (int docId = 0; docId < index.documentCount(); docId++) {
+            if (index.getDocument(docId).getTokens() == null)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if the {@code index} was built from the specified
+     * {@code files} in their current state.
+     * 
+     * @param index
+     *            the index
+     * @param files
+     *            the sorted list of text files
+     * @return {@code true} if the index is up to date; {@code false} otherwise
+     */
+    private static boolean isUpToDate(InvertedIndex index, List<Path> files) {
+        if (index.documentCount() != files.size())
+            return false;
+
+        for (int docId = 0; docId < files.size(); docId++) {
+            try {
+                if (!DocumentInfo.read(files.get(docId)).equals(index.getDocument(docId)))
+                    return false;
+            } catch (UncheckedIOException e) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the index that receives document updates, creating it from the
+     * current snapshot if needed.
+     * 
+     * @return the index that receives document updates
+     */
+    private IncrementalIndex updates() {
+        if (updates == null)
+            updates = new IncrementalIndex(index, STOP_WORDS);
+        return updates;
+    }
+
+    /**
+     * Replaces the current snapshot of the index with the snapshot of the
+     * updated index and writes it to the index file, if there is one.
+     * 
+     * @throws UncheckedIOException
+     *             if the index file cannot be written
+     */
+    private void publish() {
+        InvertedIndex snapshot = updates.snapshot();
+        index = weigh(snapshot);
+        cache.invalidate(index);
+        store();
+    }
+
+    /**
+     * Returns the specified {@code index} with the weights of the similarity
+     * of this context, if they are stored.
+     * 
+     * @param index
+     *            the index
+     * @return the index used to evaluate queries
+     */
+    private InvertedIndex weigh(InvertedIndex index) {
+        return normalized || similarity != Similarity.COSINE ? index.withSimilarity(similarity) : index;
+    }
+
+    /**
+     * Writes the current snapshot of the index to the index file, if there is
+     * one.
+     * 
+     * @throws UncheckedIOException
+     *             if the index file cannot be written
+     */
+    private void store() {
+        if (indexFile == null)
+            return;
+
+        try {
+            IndexFile.write(indexFile, directory, index);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Converts the specified {@code file} to the form in which paths of
+     * documents are stored in the index, which is the form produced by walking
+     * the directory of this context.
+     * 
+     * @param file
+     *            the file
+     * @return the path of the document
+     * @throws NullPointerException
+     *             if parameter {@code file} is a {@code null} reference
+     * @throws IllegalArgumentException
+     *             if the file isn't in the directory of this context
+     */
+    private Path toDocumentPath(Path file) {
+        Objects.requireNonNull(file, "Cannot update null reference as a file.");
+
+        Path root = directory.toAbsolutePath().normalize();
+        Path absolute = file.toAbsolutePath().normalize();
+        if (!absolute.startsWith(root) || absolute.equals(root))
+            throw new IllegalArgumentException("File " + file + " isn't in the directory " + directory + ".");
+
+        return directory.resolve(root.relativize(absolute));
+    }
+
+    /**
+     * Returns {@code true} if the specified {@code file} is the index file of
+     * this context or its temporary file.
+     * 
+     * @param file
+     *            the file
+     * @return {@code true} if the file is excluded from the index;
+     *         {@code false} otherwise
+     */
+    private boolean isExcluded(Path file) {
+        return isExcluded(file, indexFile);
+    }
+
+    /**
+     * Returns {@code true} if the specified {@code file} is the
+     * {@code indexFile} or its temporary file.
+     * 
+     * @param file
+     *            the file
+     * @param indexFile
+     *            the index file; may be {@code null}
+     * @return {@code true} if the file is excluded from the index;
+     *         {@code false} otherwise
+     */
+    private static boolean isExcluded(Path file, Path indexFile) {
+        if (indexFile == null)
+            return false;
+
+        Path absolute = file.toAbsolutePath().normalize();
+        Path index = indexFile.toAbsolutePath().normalize();
+        return absolute.equals(index) || absolute.equals(index.resolveSibling(index.getFileName() + ".tmp"));
+    }
+
+    /**
+     * {@code Options} is a class that holds the options of the index of a
+     * {@link SearchContext}. Every option has a default value, so only the
+     * options that differ from it have to be set:
+     * 
+     * <pre>
+     * new SearchContext(path, new Options().similarity(Similarity.BM25).positional(true));
+     * </pre>
+     * <p>
+     * A context copies the options when it is created, so changing them later
+     * doesn't affect it. This class isn't thread-safe.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    public static class Options {
+
+        /** Number of threads used to build the index. */
+        private int threads = Runtime.getRuntime().availableProcessors();
+        /** Model that ranks the documents. */
+        private Similarity similarity = Similarity.COSINE;
+        /** Flag that shows whether the index stores normalized weights. */
+        private boolean normalized;
+        /** Flag that shows whether the index stores positions of words. */
+        private boolean positional;
+        /** Flag that shows whether words of documents are kept for snippets. */
+        private boolean snippets;
+
+        /**
+         * Sets the number of threads used to build the index; by default all
+         * available processors.
+         *
+         * @param threads
+         *            the number of threads
+         * @return these options
+         * @throws IllegalArgumentException
+         *             if {@code threads} isn't a positive number
+         */
+        public Options threads(int threads) {
+            if (threads < 1)
+                throw new IllegalArgumentException(
+                        "Number of threads must be a positive number. It was: " + threads + ".");
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Sets the model that ranks the documents; by default the cosine
+         * similarity. Weights of models other than the cosine similarity are
+         * always stored in the index.
+         *
+         * @param similarity
+         *            the model that ranks the documents
+         * @return these options
+         * @throws NullPointerException
+         *             if parameter {@code similarity} is a {@code null}
+         *             reference
+         * @see InvertedIndex#withSimilarity(Similarity)
+         */
+        public Options similarity(Similarity similarity) {
+            this.similarity = Objects.requireNonNull(similarity,
+                    "Cannot set null reference as a similarity.");
+            return this;
+        }
+
+        /**
+         * Sets whether the index stores L2-normalized weights, so the cosine
+         * similarity is calculated as a plain dot product; by default it
+         * doesn't.
+         *
+         * @param normalized
+         *            {@code true} if the index stores normalized weights
+         * @return these options
+         * @see InvertedIndex#normalize()
+         */
+        public Options normalized(boolean normalized) {
+            this.normalized = normalized;
+            return this;
+        }
+
+        /**
+         * Sets whether the index stores positions of words, so queries may
+         * contain phrases; by default it doesn't.
+         *
+         * @param positional
+         *            {@code true} if the index stores positions of words
+         * @return these options
+         */
+        public Options positional(boolean positional) {
+            this.positional = positional;
+            return this;
+        }
+
+        /**
+         * Sets whether the index keeps the words of every document with their
+         * positions in the file, so
+         * {@link SearchContext#getSnippet(String[], SearchResult) snippets}
+         * can be created; by default it doesn't, so memory used by the index
+         * doesn't grow with the length of the documents.
+         *
+         * @param snippets
+         *            {@code true} if the index keeps the words of documents
+         * @return these options
+         */
+        public Options snippets(boolean snippets) {
+            this.snippets = snippets;
+            return this;
         }
     }
 
@@ -0,0 +1,571 @@
+package hr.fer.zemris.java.hw16.trazilica.commands;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+import hr.fer.zemris.java.hw16.trazilica.Tokenizer;
+import hr.fer.zemris.java.hw16.trazilica.index.Vocabulary;
+
+/**
+ * {@code SearchQuery} is a class that represents a parsed query of the search
+ * engine.
+ * <p>
+ * A query is a sequence of words separated by whitespace. Words enclosed in
+ * double quotes form a {@link Phrase}: a document matches the phrase only if
+ * it contains the words of the phrase next to each other and in the same
+ * order. A phrase followed by {@code ~} and a non-negative integer, like
+ * {@code "svjetsko prvenstvo"~5}, is a proximity phrase: its words may occur
+ * in any order, with at most that many other words among them. Words of a
+ * phrase are split by the same rules as the words of documents.
+ * <p>
+ * Words, phrases and groups of them enclosed in parentheses may be prefixed
+ * with {@code +}, which makes them required, or {@code -}, which makes them
+ * excluded. A document matches a group if it contains any of its words or
+ * phrases, so {@code +(film kino)} requires one of the two words and
+ * {@code -(film kino)} excludes both. A phrase without a prefix is required;
+ * words and groups without a prefix only rank the documents. Every required
+ * or excluded element is a {@link Clause} of the query.
+ * <p>
+ * Words of a query with operators or phrases are split by the same rules as
+ * the words of documents and words without letters are left out. A required
+ * word that splits into several words, like {@code +e-mail}, requires all of
+ * them, while the words of a group or an excluded word are alternatives.
+ * <p>
+ * Documents that satisfy all clauses are ranked by all {@link #getWords()
+ * words} of the query that aren't excluded, including the words of its
+ * phrases and groups.
+ * <p>
+ * A word outside of phrases may contain wildcards: {@code *} matches any
+ * sequence of characters and {@code ?} matches any character, so
+ * {@code film*} stands for every term of the dictionary that starts with
+ * {@code film}. Such words are only lowercased and expanded against the
+ * dictionary when the query is evaluated (see {@link
+ * hr.fer.zemris.java.hw16.trazilica.index.Vocabulary#match(String)}).
+ * <p>
+ * This class is immutable.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class SearchQuery {
+
+    /** Option that sets the number of results of a query. */
+    public static final String RESULT_COUNT_OPTION = "-k";
+
+    /** Words of the query. */
+    private final String[] words;
+    /** Clauses of the query. */
+    private final List<Clause> clauses;
+
+    /**
+     * Constructs a new {@code SearchQuery} with specified {@code words} and
+     * {@code clauses}.
+     *
+     * @param words
+     *            the words of the query
+     * @param clauses
+     *            the clauses of the query
+     */
+    private SearchQuery(String[] words, List<Clause> clauses) {
+        this.words = words;
+        this.clauses = Collections.unmodifiableList(clauses);
+    }
+
+    /**
+     * Parses the query whose parts are the specified {@code args}, as they are
+     * passed to the {@code query} command. Arguments are joined by spaces, so
+     * a phrase or a group may span several arguments. If there are no
+     * operators, the words of the query are the arguments themselves.
+     *
+     * @param args
+     *            the arguments of the query
+     * @return the parsed query
+     * @throws NullPointerException
+     *             if parameter {@code args} or any of its elements is a
+     *             {@code null} reference
+     * @throws IllegalArgumentException
+     *             if a quote or a parenthesis isn't closed, if groups are
+     *             nested, if a phrase, a group or a clause has no words, if
+     *             {@code ~} isn't followed by a non-negative integer or if
+     *             {@code +} or {@code -} isn't followed by a word, phrase or
+     *             group
+     */
+    public static SearchQuery parse(String[] args) {
+        Objects.requireNonNull(args, "Cannot parse null reference as a query.");
+        if (isPlain(args))
+            return new SearchQuery(args.clone(), new ArrayList<>());
+
+        return new Parser(String.join(" ", args)).parse();
+    }
+
+    /**
+     * Returns the number of results set by the {@value #RESULT_COUNT_OPTION}
+     * option at the start of the specified {@code args}, as they are passed to
+     * the {@code query} command, or {@code 0} if they don't start with the
+     * option. The option is also the excluded word {@code k}, so it is an
+     * option only if an integer follows it; an integer is never a query word,
+     * since words are made of letters. If the option is present, the words of
+     * the query start with the third argument.
+     *
+     * @param args
+     *            the arguments of the query
+     * @return the number of results or {@code 0} if it isn't set
+     * @throws NullPointerException
+     *             if parameter {@code args} is a {@code null} reference
+     * @throws IllegalArgumentException
+     *             if the number of results isn't positive or it is too large
+     */
+    public static int parseResultCount(String[] args) {
+        Objects.requireNonNull(args, "Cannot parse null reference as a query.");
+        if (args.length < 2 || !args[0].equals(RESULT_COUNT_OPTION) || !args[1].matches("[+-]?\\d+"))
+            return 0;
+
+        int k;
+        try {
+            k = Integer.parseInt(args[1]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Number of results is too large. You provided: " + args[1] + ".", e);
+        }
+        if (k < 1)
+            throw new IllegalArgumentException("Number of results must be positive. You provided: " + k + ".");
+        return k;
+    }
+
+    /**
+     * Returns the words of the query that rank the documents: all words
+     * except the excluded ones.
+     *
+     * @return the words of the query
+     */
+    public String[] getWords() {
+        return words.clone();
+    }
+
+    /**
+     * Returns the unmodifiable list of required and excluded clauses of the
+     * query.
+     *
+     * @return the clauses of the query
+     */
+    public List<Clause> getClauses() {
+        return clauses;
+    }
+
+    /**
+     * Returns {@code true} if the query has no clauses, so it is a plain bag of
+     * words.
+     *
+     * @return {@code true} if the query has no clauses; {@code false}
+     *         otherwise
+     */
+    public boolean isPlain() {
+        return clauses.isEmpty();
+    }
+
+    /**
+     * Returns {@code true} if none of the {@code args} contains quotes or
+     * parentheses or starts with an operator.
+     *
+     * @param args
+     *            the arguments of the query
+     * @return {@code true} if the arguments are plain words; {@code false}
+     *         otherwise
+     */
+    private static boolean isPlain(String[] args) {
+        for (String arg : args) {
+            if (arg.startsWith("+") || arg.startsWith("-") || arg.indexOf('"') >= 0 || arg.indexOf('(') >= 0
+                    || arg.indexOf(')') >= 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Splits the specified {@code text} into lowercase words.
+     *
+     * @param text
+     *            the text
+     * @return the words of the text
+     */
+    private static String[] tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        Tokenizer tokenizer = new Tokenizer((chars, offset, count) -> words.add(new String(chars, offset, count)));
+        tokenizer.feed(text.toCharArray(), 0, text.length());
+        tokenizer.finish();
+        return words.toArray(new String[words.size()]);
+    }
+
+    /**
+     * {@code Parser} is a class that parses the text of one query.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    private static class Parser {
+
+        /** The text of the query. */
+        private final String text;
+        /** Position of the next character. */
+        private int position;
+        /** Words of the query. */
+        private final List<String> words = new ArrayList<>();
+        /** Clauses of the query. */
+        private final List<Clause> clauses = new ArrayList<>();
+
+        /**
+         * Constructs a new {@code Parser} of the specified {@code text}.
+         *
+         * @param text
+         *            the text of the query
+         */
+        private Parser(String text) {
+            this.text = text;
+        }
+
+        /**
+         * Parses the text.
+         *
+         * @return the parsed query
+         * @throws IllegalArgumentException
+         *             if the text isn't a valid query
+         */
+        private SearchQuery parse() {
+            while (skipWhitespace()) {
+                int start = position;
+                char c = text.charAt(position);
+                char operator = 0;
+                if (c == '+' || c == '-') {
+                    operator = c;
+                    position++;
+                    if (position == text.length() || Character.isWhitespace(text.charAt(position)))
+                        throw new IllegalArgumentException("Operator " + c + " must be followed by a word, a phrase "
+                                + "or a group.");
+                    c = text.charAt(position);
+                }
+
+                List<String> alternatives = new ArrayList<>();
+                List<Phrase> phrases = new ArrayList<>();
+                if (c == '(') {
+                    parseGroup(alternatives, phrases);
+                } else if (c == '"') {
+                    phrases.add(parsePhrase());
+                } else if (c == ')') {
+                    throw new IllegalArgumentException("Parenthesis at character " + position + " isn't opened.");
+                } else {
+                    alternatives.add(parseWord());
+                }
+
+                boolean required = operator == '+' || operator == 0 && c == '"';
+                String[] clauseWords = normalize(alternatives);
+                if (operator != '-') {
+                    words.addAll(Arrays.asList(clauseWords));
+                    for (Phrase phrase : phrases) {
+                        words.addAll(Arrays.asList(phrase.words));
+                    }
+                }
+                if (operator != 0 || required) {
+                    if (clauseWords.length == 0 && phrases.isEmpty())
+                        throw new IllegalArgumentException("Clause " + text.substring(start, position)
+                                + " has no words.");
+
+                    if (required && c != '(' && c != '"') {
+                        for (String word : clauseWords) {
+                            clauses.add(new Clause(true, new String[] { word }, phrases));
+                        }
+                    } else {
+                        clauses.add(new Clause(required, clauseWords, phrases));
+                    }
+                }
+            }
+
+            return new SearchQuery(words.toArray(new String[words.size()]), clauses);
+        }
+
+        /**
+         * Parses the group that starts at the current position and adds its
+         * words and phrases to the specified lists.
+         *
+         * @param alternatives
+         *            the words of the group
+         * @param phrases
+         *            the phrases of the group
+         * @throws IllegalArgumentException
+         *             if the group isn't valid
+         */
+        private void parseGroup(List<String> alternatives, List<Phrase> phrases) {
+            int start = position++;
+            while (true) {
+                if (!skipWhitespace())
+                    throw new IllegalArgumentException("Group starting at character " + start + " isn't closed.");
+
+                char c = text.charAt(position);
+                if (c == ')') {
+                    position++;
+                    break;
+                } else if (c == '"') {
+                    phrases.add(parsePhrase());
+                } else if (c == '(') {
+                    throw new IllegalArgumentException("Groups cannot be nested.");
+                } else {
+                    alternatives.add(parseWord());
+                }
+            }
+            if (alternatives.isEmpty() && phrases.isEmpty())
+                throw new IllegalArgumentException("Group starting at character " + start + " has no words.");
+        }
+
+        /**
+         * Parses the phrase that starts at the current position, with its
+         * proximity if there is one.
+         *
+         * @return the phrase
+         * @throws IllegalArgumentException
+         *             if the phrase isn't valid
+         */
+        private Phrase parsePhrase() {
+            int start = position;
+            int end = text.indexOf('"', start + 1);
+            if (end < 0)
+                throw new IllegalArgumentException("Phrase starting at character " + start + " isn't closed.");
+
+            String[] phraseWords = tokenize(text.substring(start + 1, end));
+            if (phraseWords.length == 0)
+                throw new IllegalArgumentException("Phrase \"" + text.substring(start + 1, end) + "\" has no words.");
+
+            int slop = 0;
+            position = end + 1;
+            if (position < text.length() && text.charAt(position) == '~') {
+                int digits = position + 1;
+                while (digits < text.length() && Character.isDigit(text.charAt(digits))) {
+                    digits++;
+                }
+                try {
+                    slop = Integer.parseInt(text.substring(position + 1, digits));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Proximity of a phrase must be a non-negative integer.", e);
+                }
+                position = digits;
+            }
+            return new Phrase(phraseWords, slop);
+        }
+
+        /**
+         * Parses the word that starts at the current position. A word ends
+         * with whitespace, a quote or a parenthesis.
+         *
+         * @return the word
+         */
+        private String parseWord() {
+            int start = position;
+            while (position < text.length()) {
+                char c = text.charAt(position);
+                if (Character.isWhitespace(c) || c == '"' || c == '(' || c == ')')
+                    break;
+                position++;
+            }
+            return text.substring(start, position);
+        }
+
+        /**
+         * Skips the whitespace at the current position.
+         *
+         * @return {@code true} if there are more characters; {@code false}
+         *         otherwise
+         */
+        private boolean skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+            return position < text.length();
+        }
+
+        /**
+         * Splits the specified {@code words} by the rules of the
+         * {@link Tokenizer}, the same rules by which the documents are
+         * indexed. Words with wildcards are only lowercased.
+         *
+         * @param words
+         *            the words of the query
+         * @return the normalized words; words without letters are left out
+         */
+        private static String[] normalize(List<String> words) {
+            List<String> normalized = new ArrayList<>();
+            for (String word : words) {
+                if (Vocabulary.isPattern(word)) {
+                    normalized.add(word.toLowerCase(Locale.ROOT));
+                } else {
+                    normalized.addAll(Arrays.asList(tokenize(word)));
+                }
+            }
+            return normalized.toArray(new String[normalized.size()]);
+        }
+    }
+
+    /**
+     * {@code Clause} is a class that represents a required or excluded
+     * element of a query: a word, a phrase or a group of them. A document
+     * matches the clause if it contains any of its words or phrases.
+     * <p>
+     * This class is immutable.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    public static final class Clause {
+
+        /** Flag that shows whether the clause is required. */
+        private final boolean required;
+        /** Lowercase words of the clause. */
+        private final String[] words;
+        /** Phrases of the clause. */
+        private final List<Phrase> phrases;
+
+        /**
+         * Constructs a new {@code Clause} with specified {@code words} and
+         * {@code phrases}.
+         *
+         * @param required
+         *            {@code true} if the clause is required; {@code false} if
+         *            it is excluded
+         * @param words
+         *            the lowercase words of the clause
+         * @param phrases
+         *            the phrases of the clause
+         */
+        private Clause(boolean required, String[] words, List<Phrase> phrases) {
+            this.required = required;
+            this.words = words;
+            this.phrases = Collections.unmodifiableList(phrases);
+        }
+
+        /**
+         * Returns {@code true} if documents have to match the clause and
+         * {@code false} if they mustn't match it.
+         *
+         * @return {@code true} if the clause is required; {@code false} if it
+         *         is excluded
+         */
+        public boolean isRequired() {
+            return required;
+        }
+
+        /**
+         * Returns the lowercase words of the clause.
+         *
+         * @return the words of the clause
+         */
+        public String[] getWords() {
+            return words.clone();
+        }
+
+        /**
+         * Returns the unmodifiable list of phrases of the clause.
+         *
+         * @return the phrases of the clause
+         */
+        public List<Phrase> getPhrases() {
+            return phrases;
+        }
+
+        @Override
+        public int hashCode() {
+            return Boolean.hashCode(required) + 31 * (Arrays.hashCode(words) + 31 * phrases.hashCode());
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Clause))
+                return false;
+            Clause other = (Clause) obj;
+            return required == other.required && Arrays.equals(words, other.words) && phrases.equals(other.phrases);
+        }
+
+        @Override
+        public String toString() {
+            List<String> parts = new ArrayList<>(Arrays.asList(words));
+            for (Phrase phrase : phrases) {
+                parts.add(phrase.toString());
+            }
+            String elements = parts.size() == 1 ? parts.get(0) : "(" + String.join(" ", parts) + ")";
+            return (required ? "+" : "-") + elements;
+        }
+    }
+
+    /**
+     * {@code Phrase} is a class that represents a phrase of a query: lowercase
+     * words that have to occur together, within the {@link #getSlop() slop}
+     * of other words.
+     * <p>
+     * This class is immutable.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    public static final class Phrase {
+
+        /** Words of the phrase. */
+        private final String[] words;
+        /** Number of other words allowed among the words of the phrase. */
+        private final int slop;
+
+        /**
+         * Constructs a new {@code Phrase} with specified {@code words} and
+         * {@code slop}.
+         *
+         * @param words
+         *            the lowercase words of the phrase
+         * @param slop
+         *            the number of other words allowed among the words;
+         *            {@code 0} for an exact phrase
+         */
+        private Phrase(String[] words, int slop) {
+            this.words = words;
+            this.slop = slop;
+        }
+
+        /**
+         * Returns the lowercase words of the phrase.
+         *
+         * @return the words of the phrase
+         */
+        public String[] getWords() {
+            return words.clone();
+        }
+
+        /**
+         * Returns the number of other words allowed among the words of the
+         * phrase; {@code 0} if the words have to occur exactly in order.
+         *
+         * @return the slop of the phrase
+         */
+        public int getSlop() {
+            return slop;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(words) + slop;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Phrase))
+                return false;
+            Phrase other = (Phrase) obj;
+            return slop == other.slop && Arrays.equals(words, other.words);
+        }
+
+        @Override
+        public String toString() {
+            return "\"" + String.join(" ", words) + "\"" + (slop == 0 ? "" : "~" + slop);
+        }
+    }
+}
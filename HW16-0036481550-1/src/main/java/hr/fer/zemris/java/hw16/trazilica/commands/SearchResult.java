@@ -3,8 +3,12 @@ package hr.fer.zemris.java.hw16.trazilica.commands;
 import java.nio.file.Path;
 import java.util.Objects;
 
+import hr.fer.zemris.java.hw16.trazilica.index.DocumentInfo;
+
 /**
  * {@code SearchResult} is a class that represent one result of the search.
+ * <p>
+ * This class is immutable.
  * 
  * @author Karlo Vrbić
  * @version 1.0
@@ -13,12 +17,14 @@ import java.util.Objects;
 public class SearchResult implements Comparable<SearchResult> {
 
     /** Path to a file that is result of a search. */
-    private Path path;
+    private final Path path;
     /**
      * Value from 0 to 1 that represents similarity of this result to the text
      * in the {@code path}. Greater the number greater is the similarity.
      */
-    private double similarity;
+    private final double similarity;
+    /** The indexed document; {@code null} if it isn't known. */
+    private final DocumentInfo document;
 
     /**
      * Constructs a new {@code SearchResult} with specified {@code path} and
@@ -35,6 +41,38 @@ public class SearchResult implements Comparable<SearchResult> {
      *             if parameter {@code millisPassed} is a negative number
      */
     public SearchResult(Path path, double similarity) {
+        this(path, similarity, null);
+    }
+
+    /**
+     * Constructs a new {@code SearchResult} for the specified indexed
+     * {@code document} with specified {@code similarity}.
+     * 
+     * @param document
+     *            the indexed document that is result of a search
+     * @param similarity
+     *            the similarity coefficient
+     * @throws NullPointerException
+     *             if parameter {@code document} is a {@code null} reference
+     * @throws IllegalArgumentException
+     *             if parameter {@code similarity} is a negative number
+     */
+    public SearchResult(DocumentInfo document, double similarity) {
+        this(Objects.requireNonNull(document, "Cannot instantiate SearchResult with null reference as a document.")
+                .getPath(), similarity, document);
+    }
+
+    /**
+     * Constructs a new {@code SearchResult} with all parts specified.
+     * 
+     * @param path
+     *            the path to a file that is result of a search
+     * @param similarity
+     *            the similarity coefficient
+     * @param document
+     *            the indexed document; may be {@code null}
+     */
+    private SearchResult(Path path, double similarity, DocumentInfo document) {
         Objects.requireNonNull(path, "Cannot instantiate SearchResult with null reference as a path.");
         Objects.requireNonNull(similarity, "Cannot instantiate SearchResult with null reference as a similarity.");
 
@@ -43,6 +81,7 @@ public class SearchResult implements Comparable<SearchResult> {
 
         this.path = path.toAbsolutePath();
         this.similarity = similarity;
+        this.document = document;
     }
 
     /**
@@ -63,6 +102,15 @@ public class SearchResult implements Comparable<SearchResult> {
         return similarity;
     }
 
+    /**
+     * Returns the indexed document that is result of a search.
+     * 
+     * @return the indexed document or {@code null} if it isn't known
+     */
+    public DocumentInfo getDocument() {
+        return document;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -0,0 +1,112 @@
+package hr.fer.zemris.java.hw16.trazilica.commands;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * {@code SearchSession} is a class that holds the state of one user of the
+ * search engine, which is the list of results of the last query.
+ * <p>
+ * Many sessions can share one {@link SearchContext}; queries of different
+ * sessions don't affect each other. This class isn't thread-safe, so one
+ * session should be used by one thread at a time.
+ * 
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class SearchSession {
+
+    /** The context of the search engine. */
+    private final SearchContext context;
+    /** Results of the last query. */
+    private List<SearchResult> results = Collections.emptyList();
+    /** Words of the last query. */
+    private String[] query = new String[0];
+
+    /**
+     * Constructs a new {@code SearchSession} that queries the specified
+     * {@code context}.
+     * 
+     * @param context
+     *            the context of the search engine
+     * @throws NullPointerException
+     *             if parameter {@code context} is a {@code null} reference
+     */
+    public SearchSession(SearchContext context) {
+        this.context = Objects.requireNonNull(context,
+                "Cannot instantiate SearchSession with null reference as a context.");
+    }
+
+    /**
+     * Returns the context of the search engine.
+     * 
+     * @return the context of the search engine
+     */
+    public SearchContext getContext() {
+        return context;
+    }
+
+    /**
+     * Evaluates the {@code query} and remembers its results as the results of
+     * this session.
+     * 
+     * @param query
+     *            the words of the query
+     * @param k
+     *            the maximal number of results
+     * @return the unmodifiable list of results
+     * @throws NullPointerException
+     *             if parameter {@code query} is a {@code null} reference
+     * @throws IllegalArgumentException
+     *             if {@code k} is a negative number
+     * @see SearchContext#search(String[], int)
+     */
+    public List<SearchResult> query(String[] query, int k) {
+        results = context.search(query, k);
+        this.query = query.clone();
+        return results;
+    }
+
+    /**
+     * Returns the unmodifiable list of results of the last query.
+     * 
+     * @return the list of results
+     */
+    public List<SearchResult> getResults() {
+        return results;
+    }
+
+    /**
+     * Returns the result of the last query at the specified position.
+     *
+     * @param index
+     *            index of the search result to return
+     * @return the search result at the specified position
+     * @throws IndexOutOfBoundsException
+     *             if the index is out of range (
+     *             {@code index < 0 || index >= size()})
+     */
+    public SearchResult getResult(int index) {
+        return results.get(index);
+    }
+
+    /**
+     * Returns the snippet of the document of the result of the last query at
+     * the specified position, with highlighted words of the query.
+     *
+     * @param index
+     *            index of the search result
+     * @return the snippet or {@code null} if it cannot be created from the
+     *         index
+     * @throws IndexOutOfBoundsException
+     *             if the index is out of range (
+     *             {@code index < 0 || index >= size()})
+     * @throws java.io.UncheckedIOException
+     *             if the document cannot be read
+     * @see SearchContext#getSnippet(String[], SearchResult)
+     */
+    public Snippet getSnippet(int index) {
+        return context.getSnippet(query, results.get(index));
+    }
+}
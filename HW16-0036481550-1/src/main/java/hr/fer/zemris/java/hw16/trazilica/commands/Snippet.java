@@ -0,0 +1,134 @@
+package hr.fer.zemris.java.hw16.trazilica.commands;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * {@code Snippet} is a class that represents a short part of the text of a
+ * document with highlighted occurrences of query words.
+ * <p>
+ * Highlights are ranges of characters of the {@link #getText() text}, in
+ * ascending order and without overlaps.
+ * <p>
+ * This class is immutable.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see SnippetExtractor
+ */
+public class Snippet {
+
+    /** The text of the snippet. */
+    private final String text;
+    /** Positions of the first characters of highlights. */
+    private final int[] starts;
+    /** Positions after the last characters of highlights. */
+    private final int[] ends;
+
+    /**
+     * Constructs a new {@code Snippet} with specified {@code text} and
+     * highlights.
+     *
+     * @param text
+     *            the text of the snippet
+     * @param starts
+     *            the positions of the first characters of highlights
+     * @param ends
+     *            the positions after the last characters of highlights
+     * @param count
+     *            the number of highlights
+     * @throws NullPointerException
+     *             if any of the parameters is a {@code null} reference
+     * @throws IllegalArgumentException
+     *             if highlights aren't ordered ranges of the text
+     */
+    public Snippet(String text, int[] starts, int[] ends, int count) {
+        this.text = Objects.requireNonNull(text, "Cannot instantiate Snippet with null reference as a text.");
+        Objects.requireNonNull(starts, "Cannot instantiate Snippet with null reference as starts.");
+        Objects.requireNonNull(ends, "Cannot instantiate Snippet with null reference as ends.");
+
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            if (starts[i] < previous || ends[i] < starts[i] || ends[i] > text.length())
+                throw new IllegalArgumentException("Highlights must be ordered ranges of the text.");
+            previous = ends[i];
+        }
+
+        this.starts = Arrays.copyOf(starts, count);
+        this.ends = Arrays.copyOf(ends, count);
+    }
+
+    /**
+     * Returns the text of the snippet.
+     *
+     * @return the text
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Returns the number of highlights.
+     *
+     * @return the number of highlights
+     */
+    public int highlightCount() {
+        return starts.length;
+    }
+
+    /**
+     * Returns the position of the first character of the {@code i}-th
+     * highlight.
+     *
+     * @param i
+     *            the index of the highlight
+     * @return the position of the first character
+     * @throws ArrayIndexOutOfBoundsException
+     *             if {@code i} is out of range
+     */
+    public int highlightStart(int i) {
+        return starts[i];
+    }
+
+    /**
+     * Returns the position after the last character of the {@code i}-th
+     * highlight.
+     *
+     * @param i
+     *            the index of the highlight
+     * @return the position after the last character
+     * @throws ArrayIndexOutOfBoundsException
+     *             if {@code i} is out of range
+     */
+    public int highlightEnd(int i) {
+        return ends[i];
+    }
+
+    /**
+     * Returns the text with every highlight enclosed between {@code open} and
+     * {@code close} markers.
+     *
+     * @param open
+     *            the marker before a highlight
+     * @param close
+     *            the marker after a highlight
+     * @return the highlighted text
+     */
+    public String highlight(String open, String close) {
+        StringBuilder sb = new StringBuilder(text.length() + starts.length * (open.length() + close.length()));
+        int position = 0;
+        for (int i = 0; i < starts.length; i++) {
+            sb.append(text, position, starts[i]).append(open).append(text, starts[i], ends[i]).append(close);
+            position = ends[i];
+        }
+        return sb.append(text, position, text.length()).toString();
+    }
+
+    /**
+     * Returns the text with highlights enclosed in double asterisks.
+     */
+    @Override
+    public String toString() {
+        return highlight("**", "**");
+    }
+}
@@ -0,0 +1,250 @@
+package hr.fer.zemris.java.hw16.trazilica.commands;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Objects;
+
+import hr.fer.zemris.java.hw16.trazilica.index.DocumentInfo;
+import hr.fer.zemris.java.hw16.trazilica.index.TokenList;
+
+/**
+ * {@code SnippetExtractor} is a utility class that creates {@link Snippet}s of
+ * indexed documents.
+ * <p>
+ * A snippet is the window of {@value #WINDOW_SIZE} consecutive words of the
+ * document that contains the most distinct query words and, among those, the
+ * most occurrences of query words; the occurrences are highlighted. If the
+ * document contains no query words, the snippet is the start of the document.
+ * <p>
+ * The window is found in the {@link TokenList} of the document, so the
+ * document isn't read or tokenized; only the bytes of the window are read from
+ * the file. Highlights are checked against the text that was read. Whitespace
+ * in the snippet is collapsed into single spaces.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public final class SnippetExtractor {
+
+    /** Number of words in a snippet. */
+    public static final int WINDOW_SIZE = 24;
+    /** Mark of omitted text. */
+    private static final String ELLIPSIS = "...";
+
+    /**
+     * Disables creation of instances.
+     */
+    private SnippetExtractor() {
+    }
+
+    /**
+     * Creates the snippet of the {@code document} for the specified lowercase
+     * query {@code terms}.
+     *
+     * @param document
+     *            the indexed document
+     * @param terms
+     *            the distinct lowercase words of the query
+     * @return the snippet or {@code null} if the words of the document aren't
+     *         known or the document changed after it was indexed
+     * @throws NullPointerException
+     *             if any of the parameters is a {@code null} reference
+     * @throws IOException
+     *             if the document cannot be read
+     */
+    public static Snippet extract(DocumentInfo document, String[] terms) throws IOException {
+        Objects.requireNonNull(document, "Cannot create a snippet of null reference as a document.");
+        Objects.requireNonNull(terms, "Cannot create a snippet with null reference as terms.");
+
+        TokenList tokens = document.getTokens();
+        if (tokens == null)
+            return null;
+
+        int size = tokens.size();
+        int[] hashes = new int[size];
+        int[] starts = new int[size];
+        int[] ends = new int[size];
+        tokens.decode(hashes, starts, ends);
+
+        int[] termHashes = new int[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            termHashes[i] = terms[i].hashCode();
+        }
+
+        // query word of every word of the document; -1 for other words
+        int[] matches = new int[size];
+        int[] hits = new int[size];
+        int hitCount = 0;
+        for (int i = 0; i < size; i++) {
+            matches[i] = indexOf(termHashes, hashes[i]);
+            if (matches[i] >= 0) {
+                hits[hitCount++] = i;
+            }
+        }
+
+        int first = 0;
+        int last = Math.min(size, WINDOW_SIZE) - 1;
+        if (hitCount != 0) {
+            int[] window = bestWindow(hits, hitCount, matches, terms.length);
+            int span = hits[window[1]] - hits[window[0]] + 1;
+            first = Math.max(0, hits[window[0]] - (WINDOW_SIZE - span) / 2);
+            last = Math.min(size - 1, first + WINDOW_SIZE - 1);
+            first = Math.max(0, last - WINDOW_SIZE + 1);
+        }
+        if (last < first)
+            return new Snippet("", new int[0], new int[0], 0);
+
+        byte[] bytes;
+        try (FileChannel channel = FileChannel.open(document.getPath(), StandardOpenOption.READ)) {
+            if (channel.size() != document.getSize())
+                return null;
+
+            bytes = read(channel, starts[first], ends[last] - starts[first]);
+        }
+
+        StringBuilder text = new StringBuilder(bytes.length + 2 * ELLIPSIS.length());
+        int[] highlightStarts = new int[last - first + 1];
+        int[] highlightEnds = new int[last - first + 1];
+        int highlights = 0;
+        if (first > 0) {
+            text.append(ELLIPSIS).append(' ');
+        }
+
+        int base = starts[first];
+        int position = base;
+        for (int i = first; i <= last; i++) {
+            if (matches[i] < 0)
+                continue;
+
+            String word = new String(bytes, starts[i] - base, ends[i] - starts[i], StandardCharsets.UTF_8);
+            if (!word.toLowerCase(Locale.ROOT).equals(terms[matches[i]]))
+                continue;
+
+            appendCollapsed(text, new String(bytes, position - base, starts[i] - position, StandardCharsets.UTF_8));
+            highlightStarts[highlights] = text.length();
+            text.append(word);
+            highlightEnds[highlights++] = text.length();
+            position = ends[i];
+        }
+        appendCollapsed(text, new String(bytes, position - base, ends[last] - position, StandardCharsets.UTF_8));
+
+        if (last < size - 1) {
+            text.append(' ').append(ELLIPSIS);
+        }
+        return new Snippet(text.toString(), highlightStarts, highlightEnds, highlights);
+    }
+
+    /**
+     * Finds the window of at most {@value #WINDOW_SIZE} words with the most
+     * distinct query words and, among those, the most hits. The earliest such
+     * window is returned.
+     *
+     * @param hits
+     *            the positions of words that are query words
+     * @param hitCount
+     *            the number of hits
+     * @param matches
+     *            the query word of every word of the document
+     * @param termCount
+     *            the number of query words
+     * @return the indices of the first and the last hit of the window
+     */
+    private static int[] bestWindow(int[] hits, int hitCount, int[] matches, int termCount) {
+        int[] counts = new int[termCount];
+        int distinct = 0;
+        int bestFirst = 0;
+        int bestLast = 0;
+        long bestScore = -1;
+
+        for (int left = 0, right = 0; right < hitCount; right++) {
+            if (counts[matches[hits[right]]]++ == 0)
+                distinct++;
+
+            while (hits[right] - hits[left] >= WINDOW_SIZE) {
+                if (--counts[matches[hits[left]]] == 0)
+                    distinct--;
+                left++;
+            }
+
+            long score = ((long) distinct << 32) | (right - left + 1);
+            if (score > bestScore) {
+                bestScore = score;
+                bestFirst = left;
+                bestLast = right;
+            }
+        }
+        return new int[] { bestFirst, bestLast };
+    }
+
+    /**
+     * Returns the index of the {@code hash} in the {@code hashes} array.
+     *
+     * @param hashes
+     *            the hash codes of query words
+     * @param hash
+     *            the hash code of a word
+     * @return the index of the hash code or {@code -1} if there is none
+     */
+    private static int indexOf(int[] hashes, int hash) {
+        for (int i = 0; i < hashes.length; i++) {
+            if (hashes[i] == hash)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Reads {@code length} bytes of the file starting at the {@code position}.
+     *
+     * @param channel
+     *            the channel of the file
+     * @param position
+     *            the position of the first byte
+     * @param length
+     *            the number of bytes
+     * @return the bytes
+     * @throws IOException
+     *             if an I/O error occurs or the file is shorter
+     */
+    private static byte[] read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new EOFException("Document is shorter than its index.");
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Appends the {@code s} with every sequence of whitespace replaced by one
+     * space; no space is appended at the start of the text.
+     *
+     * @param sb
+     *            the text
+     * @param s
+     *            the appended string
+     */
+    private static void appendCollapsed(StringBuilder sb, String s) {
+        boolean space = false;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = true;
+                continue;
+            }
+            if (space && sb.length() != 0 && sb.charAt(sb.length() - 1) != ' ') {
+                sb.append(' ');
+            }
+            space = false;
+            sb.append(c);
+        }
+        if (space && sb.length() != 0 && sb.charAt(sb.length() - 1) != ' ') {
+            sb.append(' ');
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+/**
+ * {@code Accumulator} is a class that collects partial scores of documents
+ * during term-at-a-time query evaluation.
+ * <p>
+ * Besides the scores, it remembers which documents were touched so that only
+ * those documents have to be visited after the evaluation.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see InvertedIndex#score(hr.fer.zemris.java.hw16.vector.SparseVector)
+ */
+public class Accumulator {
+
+    /** Scores of all documents. */
+    private final double[] scores;
+    /** Flags of touched documents. */
+    private final boolean[] seen;
+    /** IDs of touched documents in order in which they were touched. */
+    private int[] touched;
+    /** Number of touched documents. */
+    private int size;
+
+    /**
+     * Constructs a new {@code Accumulator} for the specified number of
+     * documents.
+     *
+     * @param documentCount
+     *            the number of documents
+     */
+    Accumulator(int documentCount) {
+        this.scores = new double[documentCount];
+        this.seen = new boolean[documentCount];
+        this.touched = new int[Math.min(documentCount, 16)];
+    }
+
+    /**
+     * Adds {@code value} to the score of the document with ID {@code docId}.
+     *
+     * @param docId
+     *            the ID of the document
+     * @param value
+     *            the value to be added
+     */
+    void add(int docId, double value) {
+        if (!seen[docId]) {
+            seen[docId] = true;
+            if (size == touched.length) {
+                int[] copy = new int[Math.min(scores.length, size * 2)];
+                System.arraycopy(touched, 0, copy, 0, size);
+                touched = copy;
+            }
+            touched[size++] = docId;
+        }
+        scores[docId] += value;
+    }
+
+    /**
+     * Returns the number of touched documents.
+     *
+     * @return the number of touched documents
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the ID of the {@code i}-th touched document.
+     *
+     * @param i
+     *            position of the touched document
+     * @return the ID of the document
+     * @throws IndexOutOfBoundsException
+     *             if {@code i} is out of range
+     */
+    public int docId(int i) {
+        if (i < 0 || i >= size)
+            throw new IndexOutOfBoundsException("There is no touched document at position " + i + ".");
+
+        return touched[i];
+    }
+
+    /**
+     * Returns the score of the {@code i}-th touched document.
+     *
+     * @param i
+     *            position of the touched document
+     * @return the score of the document
+     * @throws IndexOutOfBoundsException
+     *             if {@code i} is out of range
+     */
+    public double score(int i) {
+        return scores[docId(i)];
+    }
+}
@@ -0,0 +1,142 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.util.Objects;
+
+import hr.fer.zemris.java.hw16.vector.SparseVector;
+
+/**
+ * {@code BM25Similarity} is a class that ranks documents with the Okapi BM25
+ * model.
+ * <p>
+ * Weight of a term that occurs {@code tf} times in a document of length
+ * {@code dl} is
+ * {@code idf * tf * (k1 + 1) / (tf + k1 * (1 - b + b * dl / avgdl))}, where
+ * {@code avgdl} is the average length of documents and
+ * {@code idf = ln(1 + (N - df + 0.5) / (df + 0.5))}. Length of a document is
+ * the number of its indexed words, so stop words aren't counted. Lengths are
+ * computed once, when the weights are computed. Weight of a term in the query
+ * is the number of its occurrences in the query and dot products aren't
+ * scaled.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see Similarity#BM25
+ */
+public final class BM25Similarity implements Similarity {
+
+    /** Default saturation of term frequencies. */
+    public static final double DEFAULT_K1 = 1.2;
+    /** Default strength of length normalization. */
+    public static final double DEFAULT_B = 0.75;
+
+    /** Saturation of term frequencies. */
+    private final double k1;
+    /** Strength of length normalization. */
+    private final double b;
+
+    /**
+     * Constructs a new {@code BM25Similarity} with the default parameters
+     * {@value #DEFAULT_K1} and {@value #DEFAULT_B}.
+     */
+    public BM25Similarity() {
+        this(DEFAULT_K1, DEFAULT_B);
+    }
+
+    /**
+     * Constructs a new {@code BM25Similarity} with the specified parameters.
+     *
+     * @param k1
+     *            the saturation of term frequencies
+     * @param b
+     *            the strength of length normalization
+     * @throws IllegalArgumentException
+     *             if {@code k1} is negative or {@code b} isn't between
+     *             {@code 0} and {@code 1}
+     */
+    public BM25Similarity(double k1, double b) {
+        if (!(k1 >= 0.0 && k1 < Double.POSITIVE_INFINITY))
+            throw new IllegalArgumentException("Parameter k1 must be a non-negative number. You provided: " + k1 + ".");
+        if (!(b >= 0.0 && b <= 1.0))
+            throw new IllegalArgumentException("Parameter b must be between 0 and 1. You provided: " + b + ".");
+
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    @Override
+    public String getName() {
+        return "bm25";
+    }
+
+    @Override
+    public double[][] documentWeights(InvertedIndex index) {
+        Objects.requireNonNull(index, "Cannot compute weights with null reference as an index.");
+
+        int documentCount = index.documentCount();
+        long[] lengths = new long[documentCount];
+        long total = 0;
+        PostingCursor cursor = new PostingCursor();
+        for (int term = 0; term < index.termCount(); term++) {
+            cursor.reset(index.getPostings(term));
+            while (cursor.nextDoc() != PostingCursor.NO_MORE_DOCS) {
+                lengths[cursor.docId()] += cursor.frequency();
+                total += cursor.frequency();
+            }
+        }
+        double averageLength = total != 0 ? (double) total / documentCount : 1.0;
+
+        // length normalization of every document
+        double[] normalizations = new double[documentCount];
+        for (int docId = 0; docId < documentCount; docId++) {
+            normalizations[docId] = k1 * (1.0 - b + b * lengths[docId] / averageLength);
+        }
+
+        double[][] weights = new double[index.termCount()][];
+        for (int term = 0; term < weights.length; term++) {
+            PostingList list = index.getPostings(term);
+            double idf = idf(list.size(), documentCount);
+            double[] termWeights = new double[list.size()];
+            cursor.reset(list);
+            for (int i = 0; cursor.nextDoc() != PostingCursor.NO_MORE_DOCS; i++) {
+                int frequency = cursor.frequency();
+                termWeights[i] = idf * frequency * (k1 + 1.0) / (frequency + normalizations[cursor.docId()]);
+            }
+            weights[term] = termWeights;
+        }
+        return weights;
+    }
+
+    @Override
+    public SparseVector queryWeights(InvertedIndex index, SparseVector tfVector) {
+        Objects.requireNonNull(index, "Cannot compute query weights with null reference as an index.");
+        Objects.requireNonNull(tfVector, "Cannot compute query weights with null reference as a TF vector.");
+
+        int[] indices = new int[tfVector.nonZeroCount()];
+        double[] values = new double[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = tfVector.indexAt(i);
+            values[i] = tfVector.valueAt(i);
+        }
+        return new SparseVector(tfVector.size(), indices, values);
+    }
+
+    @Override
+    public double queryScale(SparseVector query) {
+        return query.nonZeroCount() != 0 ? 1.0 : 0.0;
+    }
+
+    /**
+     * Calculates the BM25 IDF value of a term that occurs in
+     * {@code documentFrequency} of {@code documentCount} documents. The value
+     * is positive even for terms that occur in most documents.
+     *
+     * @param documentFrequency
+     *            the document frequency of the term
+     * @param documentCount
+     *            the number of documents
+     * @return the IDF value
+     */
+    private static double idf(int documentFrequency, int documentCount) {
+        return Math.log(1.0 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+}
@@ -0,0 +1,55 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.util.Objects;
+
+import hr.fer.zemris.java.hw16.vector.SparseVector;
+
+/**
+ * {@code CosineSimilarity} is a class that ranks documents by the cosine
+ * similarity of their TF-IDF vectors and the TF-IDF vector of the query.
+ * <p>
+ * Weight of a term is its raw term frequency multiplied by its IDF value.
+ * Weights of documents are divided by the norms of their TF-IDF vectors and
+ * dot products by the norm of the query vector.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see Similarity#COSINE
+ */
+public final class CosineSimilarity implements Similarity {
+
+    @Override
+    public String getName() {
+        return "cosine";
+    }
+
+    @Override
+    public double[][] documentWeights(InvertedIndex index) {
+        Objects.requireNonNull(index, "Cannot compute weights with null reference as an index.");
+
+        double[][] weights = new double[index.termCount()][];
+        PostingCursor cursor = new PostingCursor();
+        for (int term = 0; term < weights.length; term++) {
+            PostingList list = index.getPostings(term);
+            double[] termWeights = new double[list.size()];
+            cursor.reset(list);
+            for (int i = 0; cursor.nextDoc() != PostingCursor.NO_MORE_DOCS; i++) {
+                termWeights[i] = PostingList.weight(cursor.frequency(), list.idf(), index.getNorm(cursor.docId()));
+            }
+            weights[term] = termWeights;
+        }
+        return weights;
+    }
+
+    @Override
+    public SparseVector queryWeights(InvertedIndex index, SparseVector tfVector) {
+        Objects.requireNonNull(index, "Cannot compute query weights with null reference as an index.");
+        return index.getTFIDFVector(tfVector);
+    }
+
+    @Override
+    public double queryScale(SparseVector query) {
+        double norm = query.norm();
+        return norm != 0.0 ? 1.0 / norm : 0.0;
+    }
+}
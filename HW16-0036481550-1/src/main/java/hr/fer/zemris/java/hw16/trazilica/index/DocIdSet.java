@@ -0,0 +1,283 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * {@code DocIdSet} is a class that represents a set of document IDs as a
+ * sorted array, used to evaluate the boolean constraints of a query.
+ * <p>
+ * Intersection and difference gallop through the larger set: for every ID of
+ * the smaller set, the larger one is searched with exponentially growing steps
+ * from the position of the previous ID and then by binary search. Their cost
+ * is therefore proportional to the size of the smaller set times the logarithm
+ * of the gaps between its IDs in the larger one, so a selective constraint
+ * makes the others cheap. Union merges both sets.
+ * <p>
+ * This class is immutable.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public final class DocIdSet {
+
+    /** The empty set. */
+    public static final DocIdSet EMPTY = new DocIdSet(new int[0]);
+
+    /** IDs of the documents in strictly ascending order. */
+    private final int[] docIds;
+
+    /**
+     * Constructs a new {@code DocIdSet} with specified {@code docIds}, which
+     * aren't copied.
+     *
+     * @param docIds
+     *            the IDs of the documents in strictly ascending order
+     */
+    DocIdSet(int[] docIds) {
+        this.docIds = docIds;
+    }
+
+    /**
+     * Returns the set of the specified document IDs.
+     *
+     * @param docIds
+     *            the IDs of the documents in strictly ascending order
+     * @return the set of the IDs
+     * @throws NullPointerException
+     *             if parameter {@code docIds} is a {@code null} reference
+     * @throws IllegalArgumentException
+     *             if the IDs aren't in strictly ascending order or some of
+     *             them is negative
+     */
+    public static DocIdSet of(int... docIds) {
+        Objects.requireNonNull(docIds, "Cannot instantiate DocIdSet with null reference as document IDs.");
+        int previous = -1;
+        for (int docId : docIds) {
+            if (docId <= previous)
+                throw new IllegalArgumentException(
+                        "Document IDs must be non-negative and in strictly ascending order.");
+            previous = docId;
+        }
+        return new DocIdSet(docIds.clone());
+    }
+
+    /**
+     * Returns the set of all document IDs from {@code 0} to
+     * {@code documentCount - 1}.
+     *
+     * @param documentCount
+     *            the number of documents
+     * @return the set of all documents
+     * @throws IllegalArgumentException
+     *             if {@code documentCount} is a negative number
+     */
+    public static DocIdSet all(int documentCount) {
+        if (documentCount < 0)
+            throw new IllegalArgumentException(
+                    "Number of documents cannot be negative. You provided: " + documentCount + ".");
+
+        int[] docIds = new int[documentCount];
+        for (int docId = 0; docId < documentCount; docId++) {
+            docIds[docId] = docId;
+        }
+        return new DocIdSet(docIds);
+    }
+
+    /**
+     * Returns the number of documents in the set.
+     *
+     * @return the size of the set
+     */
+    public int size() {
+        return docIds.length;
+    }
+
+    /**
+     * Returns {@code true} if the set contains no documents.
+     *
+     * @return {@code true} if the set is empty; {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return docIds.length == 0;
+    }
+
+    /**
+     * Returns {@code true} if the set contains the document with the
+     * specified ID.
+     *
+     * @param docId
+     *            the ID of the document
+     * @return {@code true} if the set contains the document; {@code false}
+     *         otherwise
+     */
+    public boolean contains(int docId) {
+        return Arrays.binarySearch(docIds, docId) >= 0;
+    }
+
+    /**
+     * Returns the IDs of the documents in ascending order.
+     *
+     * @return the IDs of the documents
+     */
+    public int[] toArray() {
+        return docIds.clone();
+    }
+
+    /**
+     * Returns the IDs of the documents without copying them.
+     *
+     * @return the IDs of the documents
+     */
+    int[] docIds() {
+        return docIds;
+    }
+
+    /**
+     * Returns the set of documents that are in both this and the
+     * {@code other} set.
+     *
+     * @param other
+     *            the other set
+     * @return the intersection of the sets
+     * @throws NullPointerException
+     *             if parameter {@code other} is a {@code null} reference
+     */
+    public DocIdSet and(DocIdSet other) {
+        Objects.requireNonNull(other, "Cannot intersect with null reference as a set.");
+        int[] small = docIds.length <= other.docIds.length ? docIds : other.docIds;
+        int[] large = small == docIds ? other.docIds : docIds;
+
+        int[] common = new int[small.length];
+        int count = 0;
+        int from = 0;
+        for (int docId : small) {
+            int position = gallop(large, from, docId);
+            if (position < large.length && large[position] == docId) {
+                common[count++] = docId;
+                position++;
+            }
+            from = position;
+            if (from == large.length)
+                break;
+        }
+        return new DocIdSet(Arrays.copyOf(common, count));
+    }
+
+    /**
+     * Returns the set of documents that are in this or the {@code other} set.
+     *
+     * @param other
+     *            the other set
+     * @return the union of the sets
+     * @throws NullPointerException
+     *             if parameter {@code other} is a {@code null} reference
+     */
+    public DocIdSet or(DocIdSet other) {
+        Objects.requireNonNull(other, "Cannot unite with null reference as a set.");
+        int[] a = docIds;
+        int[] b = other.docIds;
+        if (b.length == 0)
+            return this;
+        if (a.length == 0)
+            return other;
+
+        int[] union = new int[a.length + b.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                union[count++] = a[i++];
+            } else if (a[i] > b[j]) {
+                union[count++] = b[j++];
+            } else {
+                union[count++] = a[i++];
+                j++;
+            }
+        }
+        while (i < a.length) {
+            union[count++] = a[i++];
+        }
+        while (j < b.length) {
+            union[count++] = b[j++];
+        }
+        return new DocIdSet(Arrays.copyOf(union, count));
+    }
+
+    /**
+     * Returns the set of documents that are in this set but not in the
+     * {@code other} set.
+     *
+     * @param other
+     *            the other set
+     * @return the difference of the sets
+     * @throws NullPointerException
+     *             if parameter {@code other} is a {@code null} reference
+     */
+    public DocIdSet andNot(DocIdSet other) {
+        Objects.requireNonNull(other, "Cannot subtract null reference as a set.");
+        int[] excluded = other.docIds;
+        if (excluded.length == 0 || docIds.length == 0)
+            return this;
+
+        int[] remaining = new int[docIds.length];
+        int count = 0;
+        int from = 0;
+        for (int docId : docIds) {
+            from = gallop(excluded, from, docId);
+            if (from == excluded.length || excluded[from] != docId) {
+                remaining[count++] = docId;
+            }
+        }
+        return count == docIds.length ? this : new DocIdSet(Arrays.copyOf(remaining, count));
+    }
+
+    /**
+     * Returns the position of the first element of the sorted {@code array},
+     * starting at {@code from}, that isn't less than the {@code target}.
+     *
+     * @param array
+     *            the sorted array
+     * @param from
+     *            the first position searched
+     * @param target
+     *            the searched value
+     * @return the position of the first element that isn't less than the
+     *         target or the length of the array if there is none
+     */
+    private static int gallop(int[] array, int from, int target) {
+        int step = 1;
+        int low = from;
+        int high = from;
+        while (high < array.length && array[high] < target) {
+            low = high + 1;
+            high = from + step;
+            step <<= 1;
+        }
+        if (high > array.length)
+            high = array.length;
+
+        int position = Arrays.binarySearch(array, low, high, target);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(docIds);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof DocIdSet))
+            return false;
+        return Arrays.equals(docIds, ((DocIdSet) obj).docIds);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(docIds);
+    }
+}
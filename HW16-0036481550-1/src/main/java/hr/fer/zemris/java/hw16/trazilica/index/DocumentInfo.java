@@ -0,0 +1,171 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+
+/**
+ * {@code DocumentInfo} is a class that holds the path of an indexed document
+ * together with its size and last modification time at the moment it was
+ * indexed.
+ * <p>
+ * Size and modification time are used to detect documents that changed after
+ * the index was built. Optionally it also holds the {@link TokenList} of the
+ * document, which isn't compared by {@link #equals(Object)}.
+ * <p>
+ * This class is immutable.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class DocumentInfo {
+
+    /** Path to the document. */
+    private final Path path;
+    /** Size of the document in bytes. */
+    private final long size;
+    /** Last modification time of the document in milliseconds since epoch. */
+    private final long lastModified;
+    /** Words of the document; {@code null} if they aren't known. */
+    private final TokenList tokens;
+
+    /**
+     * Constructs a new {@code DocumentInfo} with specified {@code path},
+     * {@code size} and {@code lastModified} time.
+     *
+     * @param path
+     *            the path to the document
+     * @param size
+     *            the size of the document in bytes
+     * @param lastModified
+     *            the last modification time in milliseconds since epoch
+     * @throws NullPointerException
+     *             if parameter {@code path} is a {@code null} reference
+     */
+    public DocumentInfo(Path path, long size, long lastModified) {
+        this(path, size, lastModified, null);
+    }
+
+    /**
+     * Constructs a new {@code DocumentInfo} with specified {@code path},
+     * {@code size}, {@code lastModified} time and {@code tokens}.
+     *
+     * @param path
+     *            the path to the document
+     * @param size
+     *            the size of the document in bytes
+     * @param lastModified
+     *            the last modification time in milliseconds since epoch
+     * @param tokens
+     *            the words of the document; may be {@code null}
+     * @throws NullPointerException
+     *             if parameter {@code path} is a {@code null} reference
+     */
+    public DocumentInfo(Path path, long size, long lastModified, TokenList tokens) {
+        this.path = Objects.requireNonNull(path, "Cannot instantiate DocumentInfo with null reference as a path.");
+        this.size = size;
+        this.lastModified = lastModified;
+        this.tokens = tokens;
+    }
+
+    /**
+     * Reads the size and the last modification time of the file specified by
+     * {@code path} and returns them as a {@code DocumentInfo}.
+     *
+     * @param path
+     *            the path to the document
+     * @return the information about the document
+     * @throws NullPointerException
+     *             if parameter {@code path} is a {@code null} reference
+     * @throws UncheckedIOException
+     *             if an I/O error occurs reading the file attributes
+     */
+    public static DocumentInfo read(Path path) {
+        Objects.requireNonNull(path, "Cannot read DocumentInfo with null reference as a path.");
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new DocumentInfo(path, attributes.size(), attributes.lastModifiedTime().toMillis());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the path to the document.
+     *
+     * @return the path to the document
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the size of the document in bytes.
+     *
+     * @return the size of the document in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the last modification time of the document in milliseconds since
+     * epoch.
+     *
+     * @return the last modification time of the document
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns the words of the document.
+     *
+     * @return the words of the document or {@code null} if they aren't known
+     */
+    public TokenList getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Returns the information about the same document with the specified
+     * {@code tokens}.
+     *
+     * @param tokens
+     *            the words of the document; may be {@code null}
+     * @return the information about the document
+     */
+    public DocumentInfo withTokens(TokenList tokens) {
+        return new DocumentInfo(path, size, lastModified, tokens);
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + path.hashCode();
+        result = prime * result + (int) (size ^ (size >>> 32));
+        result = prime * result + (int) (lastModified ^ (lastModified >>> 32));
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        DocumentInfo other = (DocumentInfo) obj;
+        return path.equals(other.path) && size == other.size && lastModified == other.lastModified;
+    }
+
+    @Override
+    public String toString() {
+        return "DocumentInfo [path=" + path + ", size=" + size + ", lastModified=" + lastModified + "]";
+    }
+}
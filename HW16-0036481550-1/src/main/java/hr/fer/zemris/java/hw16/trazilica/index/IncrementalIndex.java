@@ -0,0 +1,405 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import hr.fer.zemris.java.hw16.trazilica.TFVector;
+import hr.fer.zemris.java.hw16.vector.SparseVector;
+
+/**
+ * {@code IncrementalIndex} is a class that holds the term counts of every
+ * indexed document and the document frequencies of all terms, and supports
+ * adding, replacing and removing single documents.
+ * <p>
+ * Terms are identified by their IDs in a {@link TermDictionary}, so every
+ * document is stored as two int arrays of term IDs and counts. Documents
+ * should be read with {@link #getDictionary() the dictionary of this index} to
+ * avoid translating IDs. Terms are never removed from the dictionary; terms
+ * that no longer occur in any document are left out of snapshots.
+ * <p>
+ * Every change updates the document frequencies of the affected terms and
+ * invalidates the current {@link #snapshot() snapshot}. Because IDF values of
+ * all terms depend on the number of documents, the next snapshot recomputes
+ * all weights and norms, but it does so from the stored term counts without
+ * reading any file.
+ * <p>
+ * A positional index also stores the positions of indexed words in every
+ * document, so its snapshots store them as well (see
+ * {@link InvertedIndex#hasPositions()}). Positions count all words of the
+ * document, stop words included.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see InvertedIndex
+ */
+public class IncrementalIndex {
+
+    /** Words that are never indexed. */
+    private final Set<String> stopWords;
+    /** Flag that shows whether positions of words are stored. */
+    private final boolean positional;
+    /** Dictionary of all terms. */
+    private final TermDictionary dictionary = new TermDictionary();
+    /** Indexed documents mapped by their paths. */
+    private final Map<Path, Entry> documents = new HashMap<>();
+    /** Document frequencies of terms indexed by term ID. */
+    private int[] documentFrequencies = new int[0];
+    /** The last built snapshot; {@code null} if the index changed since. */
+    private InvertedIndex snapshot;
+
+    /**
+     * Constructs a new empty {@code IncrementalIndex}.
+     *
+     * @param stopWords
+     *            the words that are never indexed
+     * @throws NullPointerException
+     *             if parameter {@code stopWords} is a {@code null} reference
+     */
+    public IncrementalIndex(Set<String> stopWords) {
+        this(stopWords, false);
+    }
+
+    /**
+     * Constructs a new empty {@code IncrementalIndex} that stores the
+     * positions of words if {@code positional} is {@code true}.
+     *
+     * @param stopWords
+     *            the words that are never indexed
+     * @param positional
+     *            {@code true} if positions of words are stored
+     * @throws NullPointerException
+     *             if parameter {@code stopWords} is a {@code null} reference
+     */
+    public IncrementalIndex(Set<String> stopWords, boolean positional) {
+        this.stopWords = Objects.requireNonNull(stopWords,
+                "Cannot instantiate IncrementalIndex with null reference as stop words.");
+        this.positional = positional;
+    }
+
+    /**
+     * Constructs a new {@code IncrementalIndex} that contains the documents of
+     * the specified {@code index}. The term counts are recovered from the
+     * posting lists so no file is read. The new index is positional if the
+     * {@code index} stores positions.
+     *
+     * @param index
+     *            the index
+     * @param stopWords
+     *            the words that are never indexed
+     * @throws NullPointerException
+     *             if any of the parameters is a {@code null} reference
+     */
+    public IncrementalIndex(InvertedIndex index, Set<String> stopWords) {
+        this(stopWords, Objects.requireNonNull(index,
+                "Cannot instantiate IncrementalIndex with null reference as an index.").hasPositions());
+
+        int documentCount = index.documentCount();
+        int[] lengths = new int[documentCount];
+        PostingCursor cursor = new PostingCursor();
+        for (int term = 0; term < index.termCount(); term++) {
+            cursor.reset(index.getPostings(term));
+            for (int docId = cursor.nextDoc(); docId != PostingCursor.NO_MORE_DOCS; docId = cursor.nextDoc()) {
+                lengths[docId]++;
+            }
+        }
+
+        Entry[] entries = new Entry[documentCount];
+        for (int docId = 0; docId < documentCount; docId++) {
+            entries[docId] = new Entry(index.getDocument(docId), new int[lengths[docId]], new int[lengths[docId]],
+                    positional ? new int[lengths[docId]][] : null);
+            lengths[docId] = 0;
+        }
+
+        documentFrequencies = new int[index.termCount()];
+        for (int term = 0; term < index.termCount(); term++) {
+            PostingList list = index.getPostings(term);
+            int id = dictionary.add(index.getTerm(term));
+            documentFrequencies[id] = list.size();
+
+            cursor.reset(list);
+            for (int docId = cursor.nextDoc(); docId != PostingCursor.NO_MORE_DOCS; docId = cursor.nextDoc()) {
+                Entry entry = entries[docId];
+                int position = lengths[docId]++;
+                entry.termIds[position] = id;
+                entry.counts[position] = cursor.frequency();
+                if (positional) {
+                    entry.positions[position] = new int[cursor.frequency()];
+                    cursor.positions(entry.positions[position]);
+                }
+            }
+        }
+
+        for (Entry entry : entries) {
+            documents.put(entry.document.getPath(), entry);
+        }
+        this.snapshot = index;
+    }
+
+    /**
+     * Returns the dictionary of this index. TF vectors of documents built with
+     * this dictionary are indexed without translating term IDs.
+     *
+     * @return the dictionary
+     */
+    public TermDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Adds the document with the specified word counts to the index. If the
+     * index already contains a document with the same path, it is replaced.
+     * <p>
+     * Stop words are filtered out before the lock of the index is taken, so
+     * documents can be prepared by many threads at once. If the TF vector holds
+     * the {@link TFVector#getTokens() words} of the document, they are stored
+     * with the document. A positional index takes the positions of words from
+     * the {@link TFVector#getSequence() sequence} of the TF vector.
+     *
+     * @param document
+     *            the document
+     * @param vector
+     *            the word counts of the document
+     * @throws NullPointerException
+     *             if any of the parameters is a {@code null} reference
+     * @throws IllegalArgumentException
+     *             if the index is positional and the TF vector doesn't hold
+     *             the sequence of words
+     */
+    public void put(DocumentInfo document, TFVector vector) {
+        Objects.requireNonNull(document, "Cannot index null reference as a document.");
+        Objects.requireNonNull(vector, "Cannot index document with null reference as a TF vector.");
+
+        TermDictionary source = vector.getDictionary();
+        int[] ids = vector.getTermIds();
+        int[] counts = vector.getCounts(ids);
+        int[][] positions = positional ? positions(ids, counts, vector.getSequence()) : null;
+        int n = 0;
+        for (int i = 0; i < ids.length; i++) {
+            String term = source.getTerm(ids[i]);
+            if (stopWords.contains(term))
+                continue;
+
+            ids[n] = source == dictionary ? ids[i] : dictionary.add(term);
+            counts[n] = counts[i];
+            if (positional) {
+                positions[n] = positions[i];
+            }
+            n++;
+        }
+
+        if (vector.getTokens() != null) {
+            document = document.withTokens(vector.getTokens());
+        }
+
+        Entry entry = new Entry(document, Arrays.copyOf(ids, n), Arrays.copyOf(counts, n),
+                positional ? Arrays.copyOf(positions, n) : null);
+        synchronized (this) {
+            remove(document.getPath());
+            documents.put(document.getPath(), entry);
+
+            int size = dictionary.size();
+            if (documentFrequencies.length < size) {
+                int length = Math.max(size, documentFrequencies.length * 2);
+                documentFrequencies = Arrays.copyOf(documentFrequencies, length);
+            }
+            for (int id : entry.termIds) {
+                documentFrequencies[id]++;
+            }
+            snapshot = null;
+        }
+    }
+
+    /**
+     * Collects the positions of every word from the {@code sequence} of word
+     * IDs.
+     *
+     * @param ids
+     *            the IDs of distinct words in ascending order
+     * @param counts
+     *            the numbers of occurrences of the words
+     * @param sequence
+     *            the IDs of all words in order
+     * @return the positions of every word in ascending order
+     * @throws IllegalArgumentException
+     *             if the sequence is {@code null}
+     */
+    private static int[][] positions(int[] ids, int[] counts, int[] sequence) {
+        if (sequence == null)
+            throw new IllegalArgumentException("Positional index needs the sequence of words of every document.");
+
+        int[][] positions = new int[ids.length][];
+        for (int i = 0; i < ids.length; i++) {
+            positions[i] = new int[counts[i]];
+        }
+        int[] lengths = new int[ids.length];
+        for (int position = 0; position < sequence.length; position++) {
+            int i = Arrays.binarySearch(ids, sequence[position]);
+            positions[i][lengths[i]++] = position;
+        }
+        return positions;
+    }
+
+    /**
+     * Removes the document with the specified {@code path} from the index.
+     *
+     * @param path
+     *            the path of the document
+     * @return {@code true} if the index contained the document; {@code false}
+     *         otherwise
+     */
+    public synchronized boolean remove(Path path) {
+        Entry entry = documents.remove(path);
+        if (entry == null)
+            return false;
+
+        for (int id : entry.termIds) {
+            documentFrequencies[id]--;
+        }
+        snapshot = null;
+        return true;
+    }
+
+    /**
+     * Returns the information about the indexed document with the specified
+     * {@code path}.
+     *
+     * @param path
+     *            the path of the document
+     * @return the information about the document or {@code null} if the index
+     *         doesn't contain it
+     */
+    public synchronized DocumentInfo getDocument(Path path) {
+        Entry entry = documents.get(path);
+        return entry != null ? entry.document : null;
+    }
+
+    /**
+     * Returns the unmodifiable set of paths of all indexed documents.
+     *
+     * @return the set of paths of all indexed documents
+     */
+    public synchronized Set<Path> getPaths() {
+        return Collections.unmodifiableSet(new HashSet<>(documents.keySet()));
+    }
+
+    /**
+     * Returns the {@link InvertedIndex} with the current content of this index.
+     * The snapshot is rebuilt only if the index changed since the last call.
+     * <p>
+     * Documents are ordered by path and terms alphabetically.
+     *
+     * @return the inverted index
+     */
+    public synchronized InvertedIndex snapshot() {
+        if (snapshot != null)
+            return snapshot;
+
+        List<String> active = new ArrayList<>();
+        for (int id = 0; id < documentFrequencies.length; id++) {
+            if (documentFrequencies[id] != 0)
+                active.add(dictionary.getTerm(id));
+        }
+        String[] terms = active.toArray(new String[active.size()]);
+        Arrays.sort(terms);
+
+        int[] positions = new int[documentFrequencies.length];
+        for (int i = 0; i < terms.length; i++) {
+            positions[dictionary.get(terms[i])] = i;
+        }
+
+        Path[] paths = documents.keySet().toArray(new Path[documents.size()]);
+        Arrays.sort(paths);
+        List<DocumentInfo> infos = new ArrayList<>(paths.length);
+        List<SparseVector> vectors = new ArrayList<>(paths.length);
+        List<int[][]> termPositions = positional ? new ArrayList<>(paths.length) : null;
+        for (Path path : paths) {
+            Entry entry = documents.get(path);
+            int[] indices = new int[entry.termIds.length];
+            double[] values = new double[entry.termIds.length];
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = positions[entry.termIds[i]];
+                values[i] = entry.counts[i];
+            }
+            infos.add(entry.document);
+            vectors.add(new SparseVector(terms.length, indices, values));
+            if (positional) {
+                termPositions.add(sortedPositions(indices, entry.positions));
+            }
+        }
+
+        snapshot = new InvertedIndex(terms, infos, vectors, termPositions);
+        return snapshot;
+    }
+
+    /**
+     * Returns the positions of words in ascending order of their indices in
+     * the snapshot, the order of elements of the TF vector.
+     *
+     * @param indices
+     *            the indices of the words in the snapshot
+     * @param positions
+     *            the positions of the words
+     * @return the reordered positions
+     */
+    private static int[][] sortedPositions(int[] indices, int[][] positions) {
+        long[] keys = new long[indices.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ((long) indices[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        int[][] sorted = new int[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            sorted[i] = positions[(int) keys[i]];
+        }
+        return sorted;
+    }
+
+    /**
+     * {@code Entry} holds the IDs of indexed words of one document and their
+     * counts and positions.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    private static class Entry {
+
+        /** The document. */
+        private final DocumentInfo document;
+        /** IDs of indexed words of the document. */
+        private final int[] termIds;
+        /** Numbers of occurrences of the words. */
+        private final int[] counts;
+        /** Positions of the words; {@code null} if positions aren't stored. */
+        private final int[][] positions;
+
+        /**
+         * Constructs a new {@code Entry}.
+         *
+         * @param document
+         *            the document
+         * @param termIds
+         *            the IDs of indexed words of the document
+         * @param counts
+         *            the numbers of occurrences of the words
+         * @param positions
+         *            the positions of the words; may be {@code null}
+         */
+        private Entry(DocumentInfo document, int[] termIds, int[] counts, int[][] positions) {
+            this.document = document;
+            this.termIds = termIds;
+            this.counts = counts;
+            this.positions = positions;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * {@code IndexFile} is a utility class that writes an {@link InvertedIndex} to
+ * a binary file and reads it back.
+ * <p>
+ * The file has the following layout (all numbers are big-endian):
+ * <ul>
+ * <li>magic number and format version ({@code int}, {@code int}) followed by
+ * the flag that shows whether positions are stored ({@code byte})
+ * <li>document table: number of documents ({@code int}) followed by path
+ * relative to the corpus directory, size ({@code long}), last modification
+ * time ({@code long}), norm ({@code double}), number of words ({@code int},
+ * {@code -1} if the words aren't known) and the size of the encoded words in
+ * bytes ({@code int}) of every document
+ * <li>dictionary: number of terms ({@code int}) followed by the term, the
+ * length of its posting list ({@code int}), the size of the encoded postings
+ * in bytes ({@code int}), the largest normalized weight ({@code double}) and
+ * the size of the encoded positions in bytes ({@code int}) for every term
+ * <li>postings: encoded postings of every term, in the format described in
+ * {@link PostingList}
+ * <li>positions: encoded positions of every term, if the index stores them
+ * <li>words: encoded words of every document, in the format described in
+ * {@link TokenList}
+ * </ul>
+ * Strings are stored as their length in bytes ({@code int}) followed by their
+ * UTF-8 encoding.
+ * <p>
+ * The file is read through {@link FileChannel#map memory mapping}. Only the
+ * document table and the dictionary are decoded when the file is opened;
+ * posting lists and lists of words are views of the mapped file.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class IndexFile {
+
+    /** Magic number at the start of the file ("TRZI"). */
+    private static final int MAGIC = 0x54525A49;
+    /** Version of the file format. */
+    private static final int VERSION = 6;
+
+    /**
+     * Disables creation of {@code IndexFile} instances.
+     */
+    private IndexFile() {
+    }
+
+    /**
+     * Writes the {@code index} to the {@code file}. Paths of the documents are
+     * stored relative to the {@code root} directory. Weights stored in the
+     * posting lists of a weighted index aren't written.
+     * <p>
+     * The index is first written to a temporary file which then replaces the
+     * {@code file}, so a partially written index is never left behind.
+     *
+     * @param file
+     *            the index file
+     * @param root
+     *            the directory with the indexed documents
+     * @param index
+     *            the index
+     * @throws NullPointerException
+     *             if any of the parameters is a {@code null} reference
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    public static void write(Path file, Path root, InvertedIndex index) throws IOException {
+        Objects.requireNonNull(file, "Cannot write index to null reference as a file.");
+        Objects.requireNonNull(root, "Cannot write index with null reference as a root directory.");
+        Objects.requireNonNull(index, "Cannot write null reference as an index.");
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeBoolean(index.hasPositions());
+
+            out.writeInt(index.documentCount());
+            for (int docId = 0; docId < index.documentCount(); docId++) {
+                DocumentInfo document = index.getDocument(docId);
+                writeString(out, root.relativize(document.getPath()).toString());
+                out.writeLong(document.getSize());
+                out.writeLong(document.getLastModified());
+                out.writeDouble(index.getNorm(docId));
+
+                TokenList tokens = document.getTokens();
+                out.writeInt(tokens != null ? tokens.size() : -1);
+                out.writeInt(tokens != null ? tokens.byteSize() : 0);
+            }
+
+            PostingList[] postings = new PostingList[index.termCount()];
+            out.writeInt(postings.length);
+            for (int term = 0; term < postings.length; term++) {
+                postings[term] = index.getPostings(term).withoutWeights();
+                writeString(out, index.getTerm(term));
+                out.writeInt(postings[term].size());
+                out.writeInt(postings[term].byteSize());
+                out.writeDouble(postings[term].maxNormalizedWeight());
+                out.writeInt(postings[term].positionsByteSize());
+            }
+
+            byte[] chunk = new byte[8192];
+            for (PostingList list : postings) {
+                write(out, list.data(), chunk);
+            }
+            for (PostingList list : postings) {
+                ByteBuffer positions = list.positionData();
+                if (positions != null) {
+                    write(out, positions, chunk);
+                }
+            }
+            for (int docId = 0; docId < index.documentCount(); docId++) {
+                TokenList tokens = index.getDocument(docId).getTokens();
+                if (tokens != null) {
+                    write(out, tokens.data(), chunk);
+                }
+            }
+        }
+
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the index from the {@code file}. Paths of the documents are
+     * resolved against the {@code root} directory.
+     *
+     * @param file
+     *            the index file
+     * @param root
+     *            the directory with the indexed documents
+     * @return the index
+     * @throws NullPointerException
+     *             if any of the parameters is a {@code null} reference
+     * @throws IOException
+     *             if an I/O error occurs or if the file isn't a valid index
+     *             file
+     */
+    public static InvertedIndex read(Path file, Path root) throws IOException {
+        Objects.requireNonNull(file, "Cannot read index from null reference as a file.");
+        Objects.requireNonNull(root, "Cannot read index with null reference as a root directory.");
+
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Index file is too large: " + file + ".");
+
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC)
+                throw new IOException("File isn't an index file: " + file + ".");
+            int version = buffer.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported index file version " + version + ": " + file + ".");
+            boolean positional = buffer.get() != 0;
+
+            DocumentInfo[] documents = new DocumentInfo[buffer.getInt()];
+            double[] norms = new double[documents.length];
+            int[] tokenCounts = new int[documents.length];
+            int[] tokenSizes = new int[documents.length];
+            for (int docId = 0; docId < documents.length; docId++) {
+                Path path = root.resolve(readString(buffer));
+                documents[docId] = new DocumentInfo(path, buffer.getLong(), buffer.getLong());
+                norms[docId] = buffer.getDouble();
+                tokenCounts[docId] = buffer.getInt();
+                tokenSizes[docId] = buffer.getInt();
+            }
+
+            String[] terms = new String[buffer.getInt()];
+            int[] lengths = new int[terms.length];
+            int[] byteSizes = new int[terms.length];
+            double[] maxWeights = new double[terms.length];
+            int[] positionSizes = new int[terms.length];
+            for (int term = 0; term < terms.length; term++) {
+                terms[term] = readString(buffer);
+                lengths[term] = buffer.getInt();
+                byteSizes[term] = buffer.getInt();
+                maxWeights[term] = buffer.getDouble();
+                positionSizes[term] = buffer.getInt();
+            }
+
+            PostingList[] postings = new PostingList[terms.length];
+            int position = buffer.position();
+            int positionsStart = position;
+            for (int term = 0; term < terms.length; term++) {
+                positionsStart += byteSizes[term];
+            }
+            for (int term = 0; term < terms.length; term++) {
+                ByteBuffer data = slice(buffer, position, byteSizes[term]);
+                position += byteSizes[term];
+                ByteBuffer positions = null;
+                if (positional && lengths[term] != 0) {
+                    positions = slice(buffer, positionsStart, positionSizes[term]);
+                    positionsStart += positionSizes[term];
+                }
+                double idf = InvertedIndex.idf(lengths[term], documents.length);
+                postings[term] = new PostingList(data, positions, lengths[term], idf, maxWeights[term]);
+            }
+            position = positionsStart;
+
+            for (int docId = 0; docId < documents.length; docId++) {
+                if (tokenCounts[docId] < 0)
+                    continue;
+
+                TokenList tokens = new TokenList(slice(buffer, position, tokenSizes[docId]), tokenCounts[docId]);
+                position += tokenSizes[docId];
+                documents[docId] = documents[docId].withTokens(tokens);
+            }
+
+            return new InvertedIndex(terms, documents, norms, postings, positional);
+        } catch (RuntimeException e) {
+            throw new IOException("Index file is corrupted: " + file + ".", e);
+        }
+    }
+
+    /**
+     * Writes the remaining bytes of the {@code data} through the {@code chunk}
+     * array.
+     *
+     * @param out
+     *            the output stream
+     * @param data
+     *            the data
+     * @param chunk
+     *            the array used to copy the data
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    private static void write(DataOutputStream out, ByteBuffer data, byte[] chunk) throws IOException {
+        while (data.hasRemaining()) {
+            int length = Math.min(chunk.length, data.remaining());
+            data.get(chunk, 0, length);
+            out.write(chunk, 0, length);
+        }
+    }
+
+    /**
+     * Writes the length of the UTF-8 encoding of the string followed by the
+     * encoding.
+     *
+     * @param out
+     *            the output stream
+     * @param s
+     *            the string
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutputStream, String)}
+     * from the current position of the buffer.
+     *
+     * @param buffer
+     *            the buffer
+     * @return the string
+     */
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the part of the {@code buffer} of the specified {@code length}
+     * that starts at the specified {@code position}.
+     *
+     * @param buffer
+     *            the buffer
+     * @param position
+     *            the start of the part
+     * @param length
+     *            the length of the part in bytes
+     * @return the part of the buffer
+     */
+    private static ByteBuffer slice(ByteBuffer buffer, int position, int length) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(position);
+        duplicate.limit(position + length);
+        return duplicate.slice();
+    }
+}
@@ -0,0 +1,193 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.util.Arrays;
+
+/**
+ * {@code IntCountMap} is a class that counts occurrences of non-negative int
+ * keys. Keys and counts are stored in primitive arrays of an open-addressing
+ * hash table with linear probing, so counting doesn't allocate any objects
+ * unless the table has to grow.
+ * <p>
+ * This class isn't thread-safe.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class IntCountMap {
+
+    /** Marker of an empty slot. */
+    private static final int EMPTY = -1;
+
+    /** Keys of the table. */
+    private int[] keys;
+    /** Counts of the keys. */
+    private int[] counts;
+    /** Number of keys. */
+    private int size;
+
+    /**
+     * Constructs a new empty {@code IntCountMap}.
+     */
+    public IntCountMap() {
+        this(16);
+    }
+
+    /**
+     * Constructs a new empty {@code IntCountMap} that can hold the specified
+     * number of keys without growing.
+     *
+     * @param expectedSize
+     *            the expected number of keys
+     * @throws IllegalArgumentException
+     *             if {@code expectedSize} is a negative number
+     */
+    public IntCountMap(int expectedSize) {
+        if (expectedSize < 0)
+            throw new IllegalArgumentException("Expected size cannot be negative. It was: " + expectedSize + ".");
+
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+        this.keys = new int[capacity];
+        this.counts = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Increments the count of the specified {@code key} by one.
+     *
+     * @param key
+     *            the key
+     * @throws IllegalArgumentException
+     *             if {@code key} is a negative number
+     */
+    public void increment(int key) {
+        add(key, 1);
+    }
+
+    /**
+     * Adds the specified {@code amount} to the count of the {@code key}.
+     *
+     * @param key
+     *            the key
+     * @param amount
+     *            the amount
+     * @throws IllegalArgumentException
+     *             if {@code key} is a negative number
+     */
+    public void add(int key, int amount) {
+        if (key < 0)
+            throw new IllegalArgumentException("Key cannot be negative. It was: " + key + ".");
+
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                counts[i] += amount;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = key;
+        counts[i] = amount;
+        if (++size * 2 > keys.length)
+            grow();
+    }
+
+    /**
+     * Returns the count of the specified {@code key}; {@code 0} if the key was
+     * never counted.
+     *
+     * @param key
+     *            the key
+     * @return the count of the key
+     */
+    public int get(int key) {
+        if (key < 0)
+            return 0;
+
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key)
+                return counts[i];
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the number of counted keys.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the array of all counted keys in ascending order.
+     *
+     * @return the keys
+     */
+    public int[] keys() {
+        int[] result = new int[size];
+        int n = 0;
+        for (int key : keys) {
+            if (key != EMPTY)
+                result[n++] = key;
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Returns the array of counts of the keys in the order of
+     * {@link #keys()}.
+     *
+     * @param keys
+     *            the keys returned by {@link #keys()}
+     * @return the counts of the keys
+     */
+    public int[] counts(int[] keys) {
+        int[] result = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            result[i] = get(keys[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Doubles the capacity of the table.
+     */
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new int[oldKeys.length * 2];
+        counts = new int[oldCounts.length * 2];
+        Arrays.fill(keys, EMPTY);
+
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == EMPTY)
+                continue;
+
+            int i = mix(oldKeys[j]) & mask;
+            while (keys[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = oldKeys[j];
+            counts[i] = oldCounts[j];
+        }
+    }
+
+    /**
+     * Scrambles the bits of the key so consecutive keys don't occupy
+     * consecutive slots.
+     *
+     * @param key
+     *            the key
+     * @return the scrambled key
+     */
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
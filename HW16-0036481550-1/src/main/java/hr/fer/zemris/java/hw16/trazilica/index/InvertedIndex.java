@@ -0,0 +1,1195 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import hr.fer.zemris.java.hw16.vector.SparseVector;
+
+/**
+ * {@code InvertedIndex} is a class that maps every term of the dictionary to
+ * the {@link PostingList} of documents in which it occurs.
+ * <p>
+ * Besides the posting lists, index holds the dictionary, IDF values of all
+ * terms, the table of indexed documents and the norms of their TF-IDF vectors.
+ * The dictionary is a {@link Vocabulary} of alphabetically sorted terms;
+ * position of a term in it is its ID. Position of a document in the document
+ * table is its ID.
+ * <p>
+ * A query is evaluated document-at-a-time with the MaxScore algorithm. Every
+ * posting list stores the {@link PostingList#maxWeight() upper bound} of the
+ * score its term adds to any document. Once the best {@code k} documents found
+ * so far are known, the terms whose bounds add up to less than the score of
+ * the worst of them cannot make a document selected on their own; only the
+ * posting lists of the other terms are traversed, and the lists of these
+ * terms are searched only for documents that may still be selected, skipping
+ * the postings and blocks in between. Skipped documents cannot be ranked
+ * among the best {@code k}, so the results are the same as those of
+ * exhaustive term-at-a-time {@link #score(SparseVector) scoring}, which is
+ * still used to evaluate several queries together. Norms of documents are
+ * computed once, when the index is built.
+ * <p>
+ * Documents are ranked by the cosine similarity of TF-IDF vectors unless the
+ * index is {@link #withSimilarity(Similarity) weighted} by another
+ * {@link Similarity}. A weighted index stores the weight of every posting
+ * computed by the model, so the score of a document is the plain dot product
+ * of the stored weights and the query weights, scaled by a factor of the
+ * query, whatever the model is.
+ * <p>
+ * An index built with the positions of terms can also find the documents that
+ * contain a {@link #matchPhrase(int[], int[], int) phrase}; the best of those
+ * documents are then selected by their score for a query vector, without
+ * scoring any other document. The same is done for documents that satisfy the
+ * boolean constraints of a query, which are evaluated on the
+ * {@link #getDocuments(int) document sets} of terms (see {@link DocIdSet}).
+ * <p>
+ * This class is immutable.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see PostingList
+ * @see IndexFile
+ */
+public class InvertedIndex {
+
+    /** Empty posting list. */
+    private static final PostingList EMPTY = PostingList.encode(new int[0], new int[0], 0, 0.0, new double[0]);
+    /**
+     * Factor of upper bounds of scores that keeps them above the computed
+     * scores despite rounding errors.
+     */
+    private static final double BOUND_SLACK = 1.0 + 1e-9;
+
+    /** The dictionary. */
+    private final Vocabulary vocabulary;
+    /** IDF values indexed by term ID. */
+    private final double[] idfValues;
+    /** Indexed documents indexed by document ID. */
+    private final DocumentInfo[] documents;
+    /** Norms of TF-IDF vectors indexed by document ID. */
+    private final double[] norms;
+    /** Posting lists indexed by term ID. */
+    private final PostingList[] postings;
+    /** Model that ranks the documents. */
+    private final Similarity similarity;
+    /** Flag that shows whether the posting lists store weights. */
+    private final boolean weighted;
+    /** Flag that shows whether the posting lists store positions. */
+    private final boolean positional;
+
+    /**
+     * Constructs a new {@code InvertedIndex} from the specified TF vectors of
+     * {@code documents}. ID of a document is its position in the list and ID
+     * of a term is its position in the {@code terms} array. Values of TF
+     * vectors are whole numbers of occurrences.
+     *
+     * @param terms
+     *            the terms of the dictionary in strictly ascending order
+     * @param documents
+     *            the indexed documents
+     * @param tfVectors
+     *            the TF vectors of the documents
+     * @throws NullPointerException
+     *             if any of the parameters is a {@code null} reference
+     * @throws IllegalArgumentException
+     *             if the number of documents and vectors differ, if size of
+     *             some vector differs from the number of terms or if the terms
+     *             aren't in strictly ascending order
+     */
+    public InvertedIndex(String[] terms, List<DocumentInfo> documents, List<SparseVector> tfVectors) {
+        this(terms, documents, tfVectors, null);
+    }
+
+    /**
+     * Constructs a new {@code InvertedIndex} from the specified TF vectors of
+     * {@code documents}, like
+     * {@link #InvertedIndex(String[], List, List)}, that stores the specified
+     * {@code positions} of terms. Element {@code i} of the positions of a
+     * document holds the positions of the term of element {@code i} of its TF
+     * vector in ascending order, as many as is its value.
+     *
+     * @param terms
+     *            the terms of the dictionary in strictly ascending order
+     * @param documents
+     *            the indexed documents
+     * @param tfVectors
+     *            the TF vectors of the documents
+     * @param positions
+     *            the positions of terms in the documents; {@code null} if
+     *            positions aren't stored
+     * @throws NullPointerException
+     *             if parameters {@code terms}, {@code documents} or
+     *             {@code tfVectors} are a {@code null} reference
+     * @throws IllegalArgumentException
+     *             if the number of documents and vectors differ, if size of
+     *             some vector differs from the number of terms, if the terms
+     *             aren't in strictly ascending order or if the positions
+     *             don't match the TF vectors
+     */
+    public InvertedIndex(String[] terms, List<DocumentInfo> documents, List<SparseVector> tfVectors,
+            List<int[][]> positions) {
+        Objects.requireNonNull(terms, "Cannot instantiate InvertedIndex with null reference as terms.");
+        Objects.requireNonNull(documents, "Cannot instantiate InvertedIndex with null reference as documents.");
+        Objects.requireNonNull(tfVectors, "Cannot instantiate InvertedIndex with null reference as TF vectors.");
+        if (documents.size() != tfVectors.size())
+            throw new IllegalArgumentException("Number of documents and TF vectors differ.");
+        if (positions != null && positions.size() != tfVectors.size())
+            throw new IllegalArgumentException("Number of documents and positions differ.");
+
+        int termCount = terms.length;
+        int[] lengths = new int[termCount];
+        int[] positionCounts = new int[positions != null ? termCount : 0];
+        for (int docId = 0; docId < tfVectors.size(); docId++) {
+            SparseVector vector = tfVectors.get(docId);
+            if (vector.size() != termCount)
+                throw new IllegalArgumentException("TF vector size differs from the number of terms.");
+            if (positions != null && positions.get(docId).length != vector.nonZeroCount())
+                throw new IllegalArgumentException("Positions don't match the TF vector of document " + docId + ".");
+
+            for (int i = 0, n = vector.nonZeroCount(); i < n; i++) {
+                lengths[vector.indexAt(i)]++;
+                if (positions != null) {
+                    if (positions.get(docId)[i].length != (int) vector.valueAt(i))
+                        throw new IllegalArgumentException(
+                                "Positions don't match the TF vector of document " + docId + ".");
+                    positionCounts[vector.indexAt(i)] += positions.get(docId)[i].length;
+                }
+            }
+        }
+
+        this.vocabulary = new Vocabulary(terms);
+        this.idfValues = idfValues(lengths, documents.size());
+        this.documents = documents.toArray(new DocumentInfo[documents.size()]);
+        this.norms = new double[this.documents.length];
+
+        int[][] docIds = new int[termCount][];
+        int[][] frequencies = new int[termCount][];
+        int[][] termPositions = new int[positionCounts.length][];
+        for (int term = 0; term < termCount; term++) {
+            docIds[term] = new int[lengths[term]];
+            frequencies[term] = new int[lengths[term]];
+            lengths[term] = 0;
+        }
+        for (int term = 0; term < positionCounts.length; term++) {
+            termPositions[term] = new int[positionCounts[term]];
+            positionCounts[term] = 0;
+        }
+
+        for (int docId = 0; docId < tfVectors.size(); docId++) {
+            SparseVector vector = tfVectors.get(docId);
+            double sum = 0.0;
+            for (int i = 0, n = vector.nonZeroCount(); i < n; i++) {
+                int term = vector.indexAt(i);
+                int frequency = (int) vector.valueAt(i);
+                double weight = frequency * idfValues[term];
+                int position = lengths[term]++;
+                docIds[term][position] = docId;
+                frequencies[term][position] = frequency;
+                sum += weight * weight;
+
+                if (positions != null) {
+                    System.arraycopy(positions.get(docId)[i], 0, termPositions[term], positionCounts[term], frequency);
+                    positionCounts[term] += frequency;
+                }
+            }
+            norms[docId] = Math.sqrt(sum);
+        }
+
+        this.postings = new PostingList[termCount];
+        for (int term = 0; term < termCount; term++) {
+            postings[term] = docIds[term].length != 0
+                    ? PostingList.encode(docIds[term], frequencies[term],
+                            positions != null ? termPositions[term] : null, docIds[term].length, idfValues[term],
+                            norms)
+                    : EMPTY;
+        }
+        this.similarity = Similarity.COSINE;
+        this.weighted = false;
+        this.positional = positions != null;
+    }
+
+    /**
+     * Constructs a new {@code InvertedIndex} from already built parts. Arrays
+     * aren't copied and posting lists must already hold the IDF values of
+     * their terms.
+     *
+     * @param terms
+     *            the terms of the dictionary in strictly ascending order
+     * @param documents
+     *            the indexed documents
+     * @param norms
+     *            the norms of TF-IDF vectors of the documents
+     * @param postings
+     *            the posting lists of the terms
+     * @param positional
+     *            {@code true} if the posting lists store positions
+     */
+    InvertedIndex(String[] terms, DocumentInfo[] documents, double[] norms, PostingList[] postings,
+            boolean positional) {
+        this.vocabulary = new Vocabulary(terms);
+        this.idfValues = new double[terms.length];
+        for (int term = 0; term < terms.length; term++) {
+            idfValues[term] = postings[term].idf();
+        }
+        this.documents = documents;
+        this.norms = norms;
+        this.postings = postings;
+        this.similarity = Similarity.COSINE;
+        this.weighted = false;
+        this.positional = positional;
+    }
+
+    /**
+     * Constructs a new copy of the specified {@code index} weighted by the
+     * {@code similarity}.
+     *
+     * @param index
+     *            the index
+     * @param similarity
+     *            the model that ranks the documents
+     */
+    private InvertedIndex(InvertedIndex index, Similarity similarity) {
+        this.vocabulary = index.vocabulary;
+        this.idfValues = index.idfValues;
+        this.documents = index.documents;
+        this.norms = index.norms;
+        this.postings = new PostingList[index.postings.length];
+        double[][] weights = similarity.documentWeights(index);
+        // normalized cosine weights rank exactly like the unweighted index
+        boolean quantized = similarity != Similarity.COSINE;
+        for (int term = 0; term < postings.length; term++) {
+            PostingList list = index.postings[term];
+            postings[term] = list.size() != 0 ? list.withWeights(weights[term], quantized) : EMPTY;
+        }
+        this.similarity = similarity;
+        this.weighted = true;
+        this.positional = index.positional;
+    }
+
+    /**
+     * Returns the index with the same content as this index whose posting lists
+     * store the weights computed by the specified {@code similarity}, which
+     * ranks its documents. Statistics of documents the model needs are
+     * computed once, by this method. Weights are encoded in the blocks of
+     * postings and positions are shared with this index. Weights of the
+     * {@link Similarity#COSINE cosine similarity} are stored exactly, in eight
+     * bytes per posting, so the weighted index ranks documents exactly like
+     * the unweighted one; weights of other models are quantized to 16 bits,
+     * which takes two bytes per posting.
+     *
+     * @param similarity
+     *            the model that ranks the documents
+     * @return the weighted index; this index if it is already weighted by the
+     *         same model
+     * @throws NullPointerException
+     *             if parameter {@code similarity} is a {@code null} reference
+     */
+    public InvertedIndex withSimilarity(Similarity similarity) {
+        Objects.requireNonNull(similarity, "Cannot weigh InvertedIndex with null reference as a similarity.");
+        return weighted && this.similarity == similarity ? this : new InvertedIndex(this, similarity);
+    }
+
+    /**
+     * Returns the index with the same content as this index whose posting lists
+     * store L2-normalized weights, the index {@link #withSimilarity(Similarity)
+     * weighted} by the {@link Similarity#COSINE cosine similarity}. Scoring a
+     * normalized index doesn't divide by the norms of documents.
+     *
+     * @return the normalized index; this index if it is already normalized
+     */
+    public InvertedIndex normalize() {
+        return withSimilarity(Similarity.COSINE);
+    }
+
+    /**
+     * Returns {@code true} if the posting lists of this index store the
+     * weights computed by its {@link #getSimilarity() similarity}.
+     *
+     * @return {@code true} if the index is weighted; {@code false} otherwise
+     */
+    public boolean hasWeights() {
+        return weighted;
+    }
+
+    /**
+     * Returns {@code true} if the posting lists of this index store the
+     * positions of terms, so phrases can be matched.
+     *
+     * @return {@code true} if the index stores positions; {@code false}
+     *         otherwise
+     */
+    public boolean hasPositions() {
+        return positional;
+    }
+
+    /**
+     * Returns the model that ranks the documents of this index.
+     *
+     * @return the similarity
+     */
+    public Similarity getSimilarity() {
+        return similarity;
+    }
+
+    /**
+     * Returns the number of terms in the dictionary.
+     *
+     * @return the number of terms
+     */
+    public int termCount() {
+        return vocabulary.size();
+    }
+
+    /**
+     * Returns the term with the specified ID.
+     *
+     * @param term
+     *            the ID of the term
+     * @return the term
+     * @throws ArrayIndexOutOfBoundsException
+     *             if {@code term} is out of range
+     */
+    public String getTerm(int term) {
+        return vocabulary.getTerm(term);
+    }
+
+    /**
+     * Returns the dictionary of this index.
+     *
+     * @return the dictionary
+     */
+    public Vocabulary getVocabulary() {
+        return vocabulary;
+    }
+
+    /**
+     * Returns the unmodifiable map of terms and their IDs.
+     *
+     * @return the map of terms and their IDs
+     * @see Vocabulary#asMap()
+     */
+    public Map<String, Integer> getTermIndices() {
+        return vocabulary.asMap();
+    }
+
+    /**
+     * Returns the number of documents in which the term with the specified ID
+     * occurs.
+     *
+     * @param term
+     *            the ID of the term
+     * @return the document frequency of the term
+     * @throws ArrayIndexOutOfBoundsException
+     *             if {@code term} is out of range
+     */
+    public int getDocumentFrequency(int term) {
+        return postings[term].size();
+    }
+
+    /**
+     * Returns the IDF value of the term with the specified ID.
+     *
+     * @param term
+     *            the ID of the term
+     * @return the IDF value of the term
+     * @throws ArrayIndexOutOfBoundsException
+     *             if {@code term} is out of range
+     */
+    public double getIDFValue(int term) {
+        return idfValues[term];
+    }
+
+    /**
+     * Returns the number of indexed documents.
+     *
+     * @return the number of indexed documents
+     */
+    public int documentCount() {
+        return documents.length;
+    }
+
+    /**
+     * Returns the document with the specified ID.
+     *
+     * @param docId
+     *            the ID of the document
+     * @return the document
+     * @throws ArrayIndexOutOfBoundsException
+     *             if {@code docId} is out of range
+     */
+    public DocumentInfo getDocument(int docId) {
+        return documents[docId];
+    }
+
+    /**
+     * Returns the norm of the TF-IDF vector of the document with the specified
+     * ID.
+     *
+     * @param docId
+     *            the ID of the document
+     * @return the norm of the TF-IDF vector of the document
+     * @throws ArrayIndexOutOfBoundsException
+     *             if {@code docId} is out of range
+     */
+    public double getNorm(int docId) {
+        return norms[docId];
+    }
+
+    /**
+     * Returns the posting list of the term with ID {@code term}.
+     *
+     * @param term
+     *            the ID of the term
+     * @return the posting list of the term
+     * @throws ArrayIndexOutOfBoundsException
+     *             if {@code term} is out of range
+     */
+    public PostingList getPostings(int term) {
+        return postings[term];
+    }
+
+    /**
+     * Returns the set of documents in which the term with ID {@code term}
+     * occurs.
+     *
+     * @param term
+     *            the ID of the term
+     * @return the documents of the term
+     * @throws ArrayIndexOutOfBoundsException
+     *             if {@code term} is out of range
+     */
+    public DocIdSet getDocuments(int term) {
+        PostingList list = postings[term];
+        int[] docIds = new int[list.size()];
+        PostingCursor cursor = list.cursor();
+        for (int i = 0; i < docIds.length; i++) {
+            docIds[i] = cursor.nextDoc();
+        }
+        return new DocIdSet(docIds);
+    }
+
+    /**
+     * Returns the TF-IDF vector for the specified {@code tfVector}.
+     *
+     * @param tfVector
+     *            the TF vector
+     * @return the TF-IDF vector
+     * @throws NullPointerException
+     *             if parameter {@code tfVector} is a {@code null} reference
+     */
+    public SparseVector getTFIDFVector(SparseVector tfVector) {
+        Objects.requireNonNull(tfVector, "Cannot calculate TF-IDF vector with null reference as a TF vector.");
+
+        int[] indices = new int[tfVector.nonZeroCount()];
+        double[] values = new double[tfVector.nonZeroCount()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = tfVector.indexAt(i);
+            values[i] = tfVector.valueAt(i) * idfValues[indices[i]];
+        }
+
+        return new SparseVector(vocabulary.size(), indices, values);
+    }
+
+    /**
+     * Returns the vector of weights of the query terms for the specified
+     * {@code tfVector}, computed by the {@link #getSimilarity() similarity} of
+     * this index. This is the query vector expected by the search methods.
+     *
+     * @param tfVector
+     *            the TF vector of the query
+     * @return the vector of query weights
+     * @throws NullPointerException
+     *             if parameter {@code tfVector} is a {@code null} reference
+     */
+    public SparseVector getQueryVector(SparseVector tfVector) {
+        return similarity.queryWeights(this, tfVector);
+    }
+
+    /**
+     * Calculates the dot products between the {@code query} vector and all
+     * documents that contain at least one of the query terms. If the index is
+     * weighted, the documents are vectors of stored weights.
+     *
+     * @param query
+     *            the query vector
+     * @return the accumulator with dot products of the touched documents
+     * @throws NullPointerException
+     *             if parameter {@code query} is a {@code null} reference
+     */
+    public Accumulator score(SparseVector query) {
+        Objects.requireNonNull(query, "Cannot score documents with null reference as a query.");
+
+        Accumulator accumulator = new Accumulator(documents.length);
+        PostingCursor cursor = new PostingCursor();
+        for (int i = 0, n = query.nonZeroCount(); i < n; i++) {
+            double queryWeight = query.valueAt(i);
+            if (queryWeight == 0.0)
+                continue;
+
+            cursor.reset(postings[query.indexAt(i)]);
+            for (int docId = cursor.nextDoc(); docId != PostingCursor.NO_MORE_DOCS; docId = cursor.nextDoc()) {
+                accumulator.add(docId, queryWeight * cursor.weight());
+            }
+        }
+
+        return accumulator;
+    }
+
+    /**
+     * Selects at most {@code k} documents with the highest score for the
+     * {@code query} vector. Documents with score {@code 0} are never selected.
+     * <p>
+     * Documents that cannot be ranked among the best {@code k} are skipped
+     * (see {@link InvertedIndex}); results are the same as those of
+     * {@link #searchExhaustive(SparseVector, int)}.
+     *
+     * @param query
+     *            the query vector
+     * @param k
+     *            the maximal number of selected documents
+     * @return the selected documents ranked by score
+     * @throws NullPointerException
+     *             if parameter {@code query} is a {@code null} reference
+     * @throws IllegalArgumentException
+     *             if {@code k} is a negative number
+     */
+    public TopK search(SparseVector query, int k) {
+        Objects.requireNonNull(query, "Cannot search documents with null reference as a query.");
+
+        PostingCursor[] cursors = new PostingCursor[query.nonZeroCount()];
+        for (int i = 0; i < cursors.length; i++) {
+            cursors[i] = new PostingCursor();
+        }
+        return search(query, k, cursors);
+    }
+
+    /**
+     * Selects at most {@code k} documents with the highest score for the
+     * {@code query} vector by scoring every document that contains at least
+     * one query term. Documents with score {@code 0} are never selected.
+     *
+     * @param query
+     *            the query vector
+     * @param k
+     *            the maximal number of selected documents
+     * @return the selected documents ranked by score
+     * @throws NullPointerException
+     *             if parameter {@code query} is a {@code null} reference
+     * @throws IllegalArgumentException
+     *             if {@code k} is a negative number
+     */
+    public TopK searchExhaustive(SparseVector query, int k) {
+        return select(score(query), query, k);
+    }
+
+    /**
+     * Selects at most {@code k} documents with the highest score for the
+     * {@code query} vector with the MaxScore algorithm, reading the
+     * posting lists through the specified {@code cursors}, one for every
+     * non-zero value of the query.
+     * <p>
+     * Dot products are summed in order of term IDs, the same order in which
+     * {@link #score(SparseVector)} sums them, so the scores of selected
+     * documents are exactly the same as in exhaustive search.
+     *
+     * @param query
+     *            the query vector
+     * @param k
+     *            the maximal number of selected documents
+     * @param cursors
+     *            the cursors used to read the posting lists
+     * @return the selected documents ranked by score
+     * @throws IllegalArgumentException
+     *             if {@code k} is a negative number
+     */
+    TopK search(SparseVector query, int k, PostingCursor[] cursors) {
+        TopK top = new TopK(k);
+        double queryNorm = query.norm();
+        double scale = scale(query);
+        if (k == 0 || scale == 0.0)
+            return top;
+
+        // cursors and query weights of the terms in order of term IDs
+        double[] queryWeights = new double[cursors.length];
+        double[] bounds = new double[cursors.length];
+        int n = 0;
+        for (int i = 0, size = query.nonZeroCount(); i < size; i++) {
+            double queryWeight = query.valueAt(i);
+            PostingList list = postings[query.indexAt(i)];
+            if (queryWeight == 0.0 || list.size() == 0)
+                continue;
+
+            cursors[n].reset(list).nextDoc();
+            queryWeights[n] = queryWeight;
+            bounds[n] = queryWeight * list.maxWeight() * scale * BOUND_SLACK;
+            n++;
+        }
+
+        // terms in ascending order of bounds and the sums of bounds of the first terms
+        int[] order = new int[n];
+        for (int term = 0; term < n; term++) {
+            int i = term;
+            for (; i > 0 && bounds[order[i - 1]] > bounds[term]; i--) {
+                order[i] = order[i - 1];
+            }
+            order[i] = term;
+        }
+        double[] prefixBounds = new double[n];
+        for (int i = 0; i < n; i++) {
+            prefixBounds[i] = (i > 0 ? prefixBounds[i - 1] : 0.0) + bounds[order[i]];
+        }
+
+        // terms before the first essential one cannot make a document selected on their own
+        int essential = 0;
+        double[] products = new double[n];
+        while (essential < n) {
+            int docId = PostingCursor.NO_MORE_DOCS;
+            for (int i = essential; i < n; i++) {
+                docId = Math.min(docId, cursors[order[i]].docId());
+            }
+            if (docId == PostingCursor.NO_MORE_DOCS)
+                break;
+
+            double norm = weighted ? 1.0 : norms[docId];
+            if (norm == 0.0) {
+                for (int i = essential; i < n; i++) {
+                    cursors[order[i]].advance(docId + 1);
+                }
+                continue;
+            }
+
+            double partial = 0.0;
+            for (int i = essential; i < n; i++) {
+                int term = order[i];
+                PostingCursor cursor = cursors[term];
+                if (cursor.docId() == docId) {
+                    products[term] = queryWeights[term] * cursor.weight();
+                    partial += products[term];
+                    cursor.nextDoc();
+                }
+            }
+
+            double threshold = top.threshold();
+            boolean selectable = true;
+            for (int i = essential - 1; i >= 0; i--) {
+                if (partial * scale / norm * BOUND_SLACK + prefixBounds[i] < threshold) {
+                    selectable = false;
+                    break;
+                }
+
+                int term = order[i];
+                PostingCursor cursor = cursors[term];
+                if (cursor.advance(docId) == docId) {
+                    products[term] = queryWeights[term] * cursor.weight();
+                    partial += products[term];
+                }
+            }
+
+            if (!selectable) {
+                Arrays.fill(products, 0, n, 0.0);
+                continue;
+            }
+
+            // sum in order of term IDs, as score(SparseVector) does
+            double dot = 0.0;
+            for (int term = 0; term < n; term++) {
+                dot += products[term];
+                products[term] = 0.0;
+            }
+            if (dot == 0.0)
+                continue;
+
+            top.offer(docId, weighted ? dot * scale : dot / (queryNorm * norms[docId]));
+            threshold = top.threshold();
+            while (essential < n && prefixBounds[essential] < threshold) {
+                essential++;
+            }
+        }
+
+        return top;
+    }
+
+    /**
+     * Selects at most {@code k} of the {@code candidates} with the highest
+     * score for the {@code query} vector. Only the candidates are scored:
+     * posting lists of the query terms are searched for every candidate,
+     * skipping the postings and blocks in between. Terms are searched in
+     * descending order of their {@link PostingList#maxWeight() score bounds}
+     * and a candidate is left as soon as the bounds of its remaining terms
+     * cannot make it selected. Scores are the same as
+     * those of {@link #searchExhaustive(SparseVector, int)}. Documents with
+     * score {@code 0} are never selected.
+     *
+     * @param query
+     *            the query vector
+     * @param k
+     *            the maximal number of selected documents
+     * @param candidates
+     *            the IDs of the candidates in strictly ascending order
+     * @return the selected documents ranked by score
+     * @throws NullPointerException
+     *             if any of the parameters is a {@code null} reference
+     * @throws IllegalArgumentException
+     *             if {@code k} is a negative number or the candidates aren't
+     *             in strictly ascending order
+     */
+    public TopK search(SparseVector query, int k, int[] candidates) {
+        Objects.requireNonNull(query, "Cannot search documents with null reference as a query.");
+        Objects.requireNonNull(candidates, "Cannot search documents with null reference as candidates.");
+
+        TopK top = new TopK(k);
+        double queryNorm = query.norm();
+        double scale = scale(query);
+        if (k == 0 || scale == 0.0)
+            return top;
+
+        // cursors and query weights of the terms in order of term IDs
+        PostingCursor[] cursors = new PostingCursor[query.nonZeroCount()];
+        double[] queryWeights = new double[cursors.length];
+        double[] bounds = new double[cursors.length];
+        int n = 0;
+        for (int i = 0; i < cursors.length; i++) {
+            PostingList list = postings[query.indexAt(i)];
+            if (query.valueAt(i) == 0.0 || list.size() == 0)
+                continue;
+
+            cursors[n] = list.cursor();
+            queryWeights[n] = query.valueAt(i);
+            bounds[n] = queryWeights[n] * list.maxWeight() * scale * BOUND_SLACK;
+            n++;
+        }
+
+        // terms in descending order of bounds and the sums of bounds of the remaining terms
+        int[] order = new int[n];
+        for (int term = 0; term < n; term++) {
+            int i = term;
+            for (; i > 0 && bounds[order[i - 1]] < bounds[term]; i--) {
+                order[i] = order[i - 1];
+            }
+            order[i] = term;
+        }
+        double[] suffixBounds = new double[n + 1];
+        for (int i = n - 1; i >= 0; i--) {
+            suffixBounds[i] = suffixBounds[i + 1] + bounds[order[i]];
+        }
+
+        double[] products = new double[n];
+        int previous = -1;
+        for (int docId : candidates) {
+            if (docId <= previous)
+                throw new IllegalArgumentException("Candidates must be in strictly ascending order.");
+            previous = docId;
+
+            double threshold = top.threshold();
+            if (suffixBounds[0] < threshold)
+                continue;
+
+            double norm = weighted ? 1.0 : norms[docId];
+            if (norm == 0.0)
+                continue;
+
+            // terms with the highest bounds first, until the document cannot be selected
+            double partial = 0.0;
+            boolean selectable = true;
+            for (int i = 0; i < n; i++) {
+                int term = order[i];
+                PostingCursor cursor = cursors[term];
+                if (cursor.advance(docId) == docId) {
+                    products[term] = queryWeights[term] * cursor.weight();
+                    partial += products[term];
+                }
+                if (partial * scale / norm * BOUND_SLACK + suffixBounds[i + 1] < threshold) {
+                    selectable = false;
+                    break;
+                }
+            }
+
+            // sum in order of term IDs, as score(SparseVector) does
+            double dot = 0.0;
+            for (int term = 0; term < n; term++) {
+                dot += products[term];
+                products[term] = 0.0;
+            }
+            if (selectable && dot != 0.0) {
+                top.offer(docId, weighted ? dot * scale : dot / (queryNorm * norm));
+            }
+        }
+
+        return top;
+    }
+
+    /**
+     * Selects at most {@code k} documents of the {@code candidates} set with
+     * the highest score for the {@code query} vector, like
+     * {@link #search(SparseVector, int, int[])}.
+     *
+     * @param query
+     *            the query vector
+     * @param k
+     *            the maximal number of selected documents
+     * @param candidates
+     *            the set of candidates
+     * @return the selected documents ranked by score
+     * @throws NullPointerException
+     *             if any of the parameters is a {@code null} reference
+     * @throws IllegalArgumentException
+     *             if {@code k} is a negative number
+     */
+    public TopK search(SparseVector query, int k, DocIdSet candidates) {
+        Objects.requireNonNull(candidates, "Cannot search documents with null reference as candidates.");
+        return search(query, k, candidates.docIds());
+    }
+
+    /**
+     * Returns the IDs of the documents that contain the phrase of the
+     * specified {@code terms}, in ascending order.
+     * <p>
+     * Offset of a term is its position in the phrase; words of the phrase that
+     * aren't indexed, like stop words, are left out of the terms but still
+     * occupy their offsets. If {@code slop} is {@code 0}, the terms have to
+     * occur exactly at their offsets from each other. Otherwise they have to
+     * occur in any order within a window of at most {@code slop} words more
+     * than the phrase spans, so {@code slop} other words may come between
+     * them; a term repeated in the phrase may then be matched by the same
+     * occurrence.
+     * <p>
+     * Posting lists are intersected first, led by the shortest one and skipping
+     * the postings and blocks of the others, and positions are decoded only
+     * for the documents that contain all terms.
+     *
+     * @param terms
+     *            the IDs of the terms of the phrase
+     * @param offsets
+     *            the offsets of the terms in strictly ascending order
+     * @param slop
+     *            the number of other words allowed between the terms
+     * @return the IDs of matching documents
+     * @throws NullPointerException
+     *             if parameters {@code terms} or {@code offsets} are a
+     *             {@code null} reference
+     * @throws IllegalArgumentException
+     *             if there are no terms, if the numbers of terms and offsets
+     *             differ, if offsets aren't in strictly ascending order or if
+     *             {@code slop} is a negative number
+     * @throws IllegalStateException
+     *             if the index doesn't store positions
+     * @throws ArrayIndexOutOfBoundsException
+     *             if some term is out of range
+     */
+    public int[] matchPhrase(int[] terms, int[] offsets, int slop) {
+        Objects.requireNonNull(terms, "Cannot match a phrase with null reference as terms.");
+        Objects.requireNonNull(offsets, "Cannot match a phrase with null reference as offsets.");
+        if (terms.length == 0 || terms.length != offsets.length)
+            throw new IllegalArgumentException("Phrase must have at least one term and an offset for every term.");
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] <= offsets[i - 1])
+                throw new IllegalArgumentException("Offsets must be in strictly ascending order.");
+        }
+        if (slop < 0)
+            throw new IllegalArgumentException("Slop cannot be a negative number. You provided: " + slop + ".");
+        if (!positional)
+            throw new IllegalStateException("Index doesn't store positions of terms.");
+
+        // terms in ascending order of their document frequencies
+        int n = terms.length;
+        int[] order = new int[n];
+        for (int word = 0; word < n; word++) {
+            int i = word;
+            for (; i > 0 && postings[terms[order[i - 1]]].size() > postings[terms[word]].size(); i--) {
+                order[i] = order[i - 1];
+            }
+            order[i] = word;
+        }
+
+        PostingCursor[] cursors = new PostingCursor[n];
+        int[][] positions = new int[n][];
+        for (int word = 0; word < n; word++) {
+            cursors[word] = postings[terms[word]].cursor();
+            positions[word] = new int[16];
+        }
+        int[] counts = new int[n];
+        int[] pointers = new int[n];
+        int span = offsets[n - 1] - offsets[0] + slop;
+
+        PostingCursor lead = cursors[order[0]];
+        int[] matches = new int[postings[terms[order[0]]].size()];
+        int count = 0;
+        for (int docId = lead.nextDoc(); docId != PostingCursor.NO_MORE_DOCS;) {
+            int next = docId;
+            for (int i = 1; i < n && next == docId; i++) {
+                next = cursors[order[i]].advance(docId);
+            }
+            if (next != docId) {
+                docId = lead.advance(next);
+                continue;
+            }
+
+            for (int word = 0; word < n; word++) {
+                PostingCursor cursor = cursors[word];
+                if (positions[word].length < cursor.frequency()) {
+                    positions[word] = new int[Math.max(cursor.frequency(), 2 * positions[word].length)];
+                }
+                counts[word] = cursor.positions(positions[word]);
+            }
+            boolean match = slop == 0 ? isPhrase(positions, counts, offsets, pointers)
+                    : isNear(positions, counts, span, pointers);
+            if (match) {
+                matches[count++] = docId;
+            }
+            docId = lead.nextDoc();
+        }
+
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * Selects at most {@code k} documents with the highest score for each of
+     * the {@code queries}, like {@link #search(SparseVector, int)}
+     * called for every query, but evaluates the queries together: posting list
+     * of a term is decoded only once for all queries that contain the term.
+     *
+     * @param queries
+     *            the query vectors
+     * @param k
+     *            the maximal number of selected documents per query
+     * @return the selected documents of every query, in order of queries
+     * @throws NullPointerException
+     *             if parameter {@code queries} or any of its elements is a
+     *             {@code null} reference
+     * @throws IllegalArgumentException
+     *             if {@code k} is a negative number
+     */
+    public TopK[] search(SparseVector[] queries, int k) {
+        Objects.requireNonNull(queries, "Cannot search documents with null reference as queries.");
+        if (k < 0)
+            throw new IllegalArgumentException(
+                    "Number of selected documents cannot be negative. You provided: " + k + ".");
+
+        int pairs = 0;
+        for (SparseVector query : queries) {
+            Objects.requireNonNull(query, "Cannot search documents with null reference as a query.");
+            pairs += query.nonZeroCount();
+        }
+
+        // (term, query) pairs sorted by term; lower half of a key is the pair index
+        long[] keys = new long[pairs];
+        int[] owners = new int[pairs];
+        double[] queryWeights = new double[pairs];
+        int count = 0;
+        for (int q = 0; q < queries.length; q++) {
+            SparseVector query = queries[q];
+            for (int i = 0, n = query.nonZeroCount(); i < n; i++) {
+                if (query.valueAt(i) == 0.0)
+                    continue;
+
+                keys[count] = ((long) query.indexAt(i) << 32) | count;
+                owners[count] = q;
+                queryWeights[count] = query.valueAt(i);
+                count++;
+            }
+        }
+        Arrays.sort(keys, 0, count);
+
+        Accumulator[] accumulators = new Accumulator[queries.length];
+        for (int q = 0; q < queries.length; q++) {
+            accumulators[q] = new Accumulator(documents.length);
+        }
+
+        PostingCursor cursor = new PostingCursor();
+        Accumulator[] group = new Accumulator[queries.length];
+        double[] groupWeights = new double[queries.length];
+        for (int start = 0; start < count;) {
+            int term = (int) (keys[start] >>> 32);
+            int n = 0;
+            for (; start < count && (int) (keys[start] >>> 32) == term; start++) {
+                int pair = (int) keys[start];
+                group[n] = accumulators[owners[pair]];
+                groupWeights[n++] = queryWeights[pair];
+            }
+
+            cursor.reset(postings[term]);
+            for (int docId = cursor.nextDoc(); docId != PostingCursor.NO_MORE_DOCS; docId = cursor.nextDoc()) {
+                double weight = cursor.weight();
+                for (int j = 0; j < n; j++) {
+                    group[j].add(docId, groupWeights[j] * weight);
+                }
+            }
+        }
+
+        TopK[] tops = new TopK[queries.length];
+        for (int q = 0; q < queries.length; q++) {
+            tops[q] = select(accumulators[q], queries[q], k);
+        }
+        return tops;
+    }
+
+    /**
+     * Selects at most {@code k} documents with the highest score from the dot
+     * products with the {@code query} vector collected in the
+     * {@code accumulator}.
+     *
+     * @param accumulator
+     *            the accumulator with dot products
+     * @param query
+     *            the query vector
+     * @param k
+     *            the maximal number of selected documents
+     * @return the selected documents ranked by score
+     */
+    private TopK select(Accumulator accumulator, SparseVector query, int k) {
+        TopK top = new TopK(k);
+        double scale = scale(query);
+        if (scale == 0.0)
+            return top;
+
+        if (weighted) {
+            for (int i = 0, size = accumulator.size(); i < size; i++) {
+                double dot = accumulator.score(i);
+                if (dot != 0.0)
+                    top.offer(accumulator.docId(i), dot * scale);
+            }
+            return top;
+        }
+
+        double queryNorm = query.norm();
+        for (int i = 0, size = accumulator.size(); i < size; i++) {
+            double dot = accumulator.score(i);
+            if (dot == 0.0)
+                continue;
+
+            int docId = accumulator.docId(i);
+            top.offer(docId, dot / (queryNorm * norms[docId]));
+        }
+
+        return top;
+    }
+
+    /**
+     * Returns the factor by which dot products with the {@code query} vector
+     * are multiplied: the {@link Similarity#queryScale(SparseVector) scale} of
+     * the similarity in a weighted index, the reciprocal of the norm of the
+     * query otherwise.
+     *
+     * @param query
+     *            the query vector
+     * @return the factor or {@code 0} if no document can match the query
+     */
+    private double scale(SparseVector query) {
+        if (weighted)
+            return similarity.queryScale(query);
+
+        double queryNorm = query.norm();
+        return queryNorm != 0.0 ? 1.0 / queryNorm : 0.0;
+    }
+
+    /**
+     * Returns {@code true} if the words occur exactly at their offsets from
+     * each other at least once.
+     *
+     * @param positions
+     *            the positions of every word in ascending order
+     * @param counts
+     *            the numbers of positions of every word
+     * @param offsets
+     *            the offsets of the words in the phrase
+     * @param pointers
+     *            the array used for indices of positions
+     * @return {@code true} if the phrase occurs; {@code false} otherwise
+     */
+    private static boolean isPhrase(int[][] positions, int[] counts, int[] offsets, int[] pointers) {
+        int n = counts.length;
+        int anchor = 0;
+        for (int word = 1; word < n; word++) {
+            if (counts[word] < counts[anchor])
+                anchor = word;
+        }
+        Arrays.fill(pointers, 0);
+
+        for (int a = 0; a < counts[anchor]; a++) {
+            int start = positions[anchor][a] - offsets[anchor];
+            boolean found = true;
+            for (int word = 0; word < n && found; word++) {
+                int target = start + offsets[word];
+                int p = pointers[word];
+                while (p < counts[word] && positions[word][p] < target) {
+                    p++;
+                }
+                if (p == counts[word])
+                    return false;
+
+                pointers[word] = p;
+                found = positions[word][p] == target;
+            }
+            if (found)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if some window of positions at most {@code span}
+     * apart contains a position of every word.
+     *
+     * @param positions
+     *            the positions of every word in ascending order
+     * @param counts
+     *            the numbers of positions of every word
+     * @param span
+     *            the largest allowed distance between the first and the last
+     *            position of the window
+     * @param pointers
+     *            the array used for indices of positions
+     * @return {@code true} if there is such a window; {@code false} otherwise
+     */
+    private static boolean isNear(int[][] positions, int[] counts, int span, int[] pointers) {
+        int n = counts.length;
+        Arrays.fill(pointers, 0);
+        while (true) {
+            int first = 0;
+            int last = Integer.MIN_VALUE;
+            for (int word = 0; word < n; word++) {
+                int position = positions[word][pointers[word]];
+                if (position < positions[first][pointers[first]])
+                    first = word;
+                last = Math.max(last, position);
+            }
+            if (last - positions[first][pointers[first]] <= span)
+                return true;
+            if (++pointers[first] == counts[first])
+                return false;
+        }
+    }
+
+    /**
+     * Calculates the IDF values from the specified document frequencies.
+     *
+     * @param documentFrequencies
+     *            the document frequencies of terms
+     * @param documentCount
+     *            the number of documents
+     * @return the IDF values
+     */
+    private static double[] idfValues(int[] documentFrequencies, int documentCount) {
+        double[] idf = new double[documentFrequencies.length];
+        for (int i = 0; i < idf.length; i++) {
+            idf[i] = idf(documentFrequencies[i], documentCount);
+        }
+        return idf;
+    }
+
+    /**
+     * Calculates the IDF value of a term that occurs in
+     * {@code documentFrequency} of {@code documentCount} documents. Terms that
+     * don't occur in any document have IDF value {@code 0}.
+     *
+     * @param documentFrequency
+     *            the document frequency of the term
+     * @param documentCount
+     *            the number of documents
+     * @return the IDF value
+     */
+    static double idf(int documentFrequency, int documentCount) {
+        return documentFrequency != 0 ? Math.log(((double) documentCount) / documentFrequency) : 0.0;
+    }
+}
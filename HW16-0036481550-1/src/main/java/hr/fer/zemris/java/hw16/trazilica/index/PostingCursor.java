@@ -0,0 +1,244 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.util.Objects;
+
+/**
+ * {@code PostingCursor} is a class that iterates over the postings of a
+ * {@link PostingList} in ascending order of document IDs.
+ * <p>
+ * Cursor decodes one block of postings at a time into buffers that are
+ * allocated once, so one cursor can be {@link #reset(PostingList) reset} and
+ * reused for any number of lists without allocating. Initially the cursor is
+ * positioned before the first posting.
+ * <p>
+ * Positions of the term in the current document are decoded only when they
+ * are {@link #positions(int[]) requested}; positions of the postings before it
+ * in the same block are skipped without decoding.
+ * <p>
+ * This class isn't thread-safe.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class PostingCursor {
+
+    /** Document ID returned when the postings are exhausted. */
+    public static final int NO_MORE_DOCS = Integer.MAX_VALUE;
+
+    /** Document IDs of the current block. */
+    private final int[] docIds = new int[PostingList.BLOCK_SIZE];
+    /** Term frequencies of the current block. */
+    private final int[] frequencies = new int[PostingList.BLOCK_SIZE];
+    /** Weights of the current block, if the list stores weights. */
+    private final double[] weights = new double[PostingList.BLOCK_SIZE];
+    /** The posting list. */
+    private PostingList list;
+    /** Number of blocks of the list. */
+    private int blockCount;
+    /** Index of the current block. */
+    private int block;
+    /** Number of postings in the current block. */
+    private int length;
+    /** Position in the current block. */
+    private int position;
+    /** The current document ID. */
+    private int docId;
+    /** Number of postings decoded since the last reset. */
+    private long decoded;
+    /** Block of the posting whose positions are read next; {@code -1} if none. */
+    private int positionBlock;
+    /** Position in the block of the posting whose positions are read next. */
+    private int positionIndex;
+    /** Offset of the positions of that posting. */
+    private int positionOffset;
+
+    /**
+     * Positions this cursor before the first posting of the specified
+     * {@code list}.
+     *
+     * @param list
+     *            the posting list
+     * @return this cursor
+     * @throws NullPointerException
+     *             if parameter {@code list} is a {@code null} reference
+     */
+    public PostingCursor reset(PostingList list) {
+        this.list = Objects.requireNonNull(list, "Cannot iterate over null reference as a posting list.");
+        this.blockCount = list.blockCount();
+        this.block = -1;
+        this.length = 0;
+        this.position = 0;
+        this.docId = -1;
+        this.decoded = 0;
+        this.positionBlock = -1;
+        return this;
+    }
+
+    /**
+     * Moves to the next posting.
+     *
+     * @return the document ID of the next posting or {@link #NO_MORE_DOCS}
+     */
+    public int nextDoc() {
+        if (++position >= length) {
+            if (block + 1 >= blockCount)
+                return exhaust();
+
+            load(block + 1);
+        }
+        return docId = docIds[position];
+    }
+
+    /**
+     * Moves to the first posting whose document ID is greater than or equal to
+     * the {@code target}. Blocks whose last document ID is smaller than the
+     * target are skipped without decoding. Cursor never moves backwards.
+     *
+     * @param target
+     *            the target document ID
+     * @return the document ID of the posting or {@link #NO_MORE_DOCS}
+     */
+    public int advance(int target) {
+        if (docId >= target)
+            return docId;
+        if (docId == NO_MORE_DOCS)
+            return docId;
+
+        if (block < 0 || docIds[length - 1] < target) {
+            int next = block + 1;
+            if (next >= blockCount)
+                return exhaust();
+
+            if (blockCount > 1) {
+                int low = next;
+                int high = blockCount - 1;
+                if (list.lastDocId(high) < target)
+                    return exhaust();
+
+                while (low < high) {
+                    int middle = (low + high) >>> 1;
+                    if (list.lastDocId(middle) < target) {
+                        low = middle + 1;
+                    } else {
+                        high = middle;
+                    }
+                }
+                next = low;
+            }
+            load(next);
+            if (docIds[length - 1] < target)
+                return exhaust();
+        }
+
+        while (docIds[position] < target) {
+            position++;
+        }
+        return docId = docIds[position];
+    }
+
+    /**
+     * Returns the document ID of the current posting.
+     *
+     * @return the document ID; {@code -1} before the first posting and
+     *         {@link #NO_MORE_DOCS} after the last one
+     */
+    public int docId() {
+        return docId;
+    }
+
+    /**
+     * Returns the term frequency of the current posting.
+     *
+     * @return the term frequency
+     */
+    public int frequency() {
+        return frequencies[position];
+    }
+
+    /**
+     * Returns the weight of the term in the current posting.
+     *
+     * @return the weight of the term
+     * @see PostingList
+     */
+    public double weight() {
+        return list.hasWeights() ? weights[position] : frequencies[position] * list.idf();
+    }
+
+    /**
+     * Decodes the positions of the term in the current document into the
+     * {@code buffer} in ascending order. The buffer must have at least
+     * {@link #frequency()} elements.
+     *
+     * @param buffer
+     *            the buffer for positions
+     * @return the number of positions, the term frequency
+     * @throws IllegalStateException
+     *             if the cursor isn't positioned at a posting or the list
+     *             doesn't store positions
+     * @throws IndexOutOfBoundsException
+     *             if the buffer is too short
+     * @see PostingList#hasPositions()
+     */
+    public int positions(int[] buffer) {
+        if (docId < 0 || docId == NO_MORE_DOCS)
+            throw new IllegalStateException("Cursor isn't positioned at a posting.");
+        if (!list.hasPositions())
+            throw new IllegalStateException("Posting list doesn't store positions.");
+
+        int frequency = frequencies[position];
+        if (buffer.length < frequency)
+            throw new IndexOutOfBoundsException("Buffer must have at least " + frequency + " elements.");
+
+        if (positionBlock != block || positionIndex > position) {
+            positionBlock = block;
+            positionIndex = 0;
+            positionOffset = list.positionOffset(block);
+        }
+        for (; positionIndex < position; positionIndex++) {
+            positionOffset = list.skipPositions(positionOffset, frequencies[positionIndex]);
+        }
+
+        positionOffset = list.decodePositions(positionOffset, frequency, buffer);
+        positionIndex++;
+        return frequency;
+    }
+
+    /**
+     * Returns the number of postings decoded since the cursor was last
+     * {@link #reset(PostingList) reset}. Postings of skipped blocks aren't
+     * decoded.
+     *
+     * @return the number of decoded postings
+     */
+    long decodedCount() {
+        return decoded;
+    }
+
+    /**
+     * Decodes the specified block and positions the cursor at its first
+     * posting.
+     *
+     * @param block
+     *            the block
+     */
+    private void load(int block) {
+        int previous = block > 0 ? list.lastDocId(block - 1) : 0;
+        this.length = list.decode(block, previous, docIds, frequencies, weights);
+        this.decoded += length;
+        this.block = block;
+        this.position = 0;
+    }
+
+    /**
+     * Positions the cursor after the last posting.
+     *
+     * @return {@link #NO_MORE_DOCS}
+     */
+    private int exhaust() {
+        block = blockCount;
+        length = 0;
+        position = 0;
+        return docId = NO_MORE_DOCS;
+    }
+}
@@ -0,0 +1,670 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@code PostingList} is a class that represents the list of documents in which
+ * some term occurs together with the number of occurrences of the term in each
+ * document.
+ * <p>
+ * Postings are compressed. They are grouped into blocks of
+ * {@value #BLOCK_SIZE} postings, and every block stores the gaps between
+ * consecutive document IDs followed by the term frequencies, all in
+ * variable-byte encoding (7 bits per byte, the highest bit marks that more
+ * bytes follow). Weight of the term in a document is its term frequency
+ * multiplied by the IDF value of the term.
+ * <p>
+ * A posting list {@link #withWeights(double[], boolean) with stored weights}
+ * returns the weights computed by a {@link Similarity} instead. Weights follow
+ * the term frequencies in their block, either exactly, as {@code double}s, or
+ * quantized to 16 bits: every weight is then stored as the nearest multiple of
+ * the largest weight of the list divided by {@value #MAX_QUANTIZED_WEIGHT}, an
+ * unsigned {@code short}. Stored weights are never written to an index file,
+ * the list {@link #withoutWeights() without them} is.
+ * <p>
+ * Lists with more than one block start with a table of skip pointers that
+ * holds the last document ID and the offset of every block ({@code int}s), so
+ * {@link PostingCursor#advance(int)} can jump over blocks without decoding
+ * them. Encoded postings are the same in memory and in an index file; lists
+ * read from an index file are views of the mapped file.
+ * <p>
+ * A list may also store the positions of its term in every document, the
+ * indices of its occurrences among all words of the document, counting from
+ * {@code 0}. Positions are stored apart from the postings, so lists are read
+ * as fast with or without them. Positions of a posting are stored as the gaps
+ * between consecutive positions in variable-byte encoding, postings in order;
+ * lists with more than one block start with a table of offsets of the
+ * positions of every block ({@code int}s). Positions are decoded only when
+ * they are {@link PostingCursor#positions(int[]) requested}.
+ * <p>
+ * Every list also stores the largest weight of its term divided by the norm of
+ * the document and the {@link #maxWeight() largest weight} the list returns,
+ * which bounds the contribution of the term to the score of any document and
+ * lets the index skip documents that cannot be ranked among the best ones.
+ * <p>
+ * Postings are read through a {@link PostingCursor} that decodes one block at
+ * a time into its own buffers.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see InvertedIndex
+ * @see PostingCursor
+ */
+public class PostingList {
+
+    /** Number of postings in a block. */
+    static final int BLOCK_SIZE = 128;
+    /** Size of a skip pointer in bytes. */
+    static final int SKIP_SIZE = 2 * Integer.BYTES;
+    /** The largest quantized weight. */
+    static final int MAX_QUANTIZED_WEIGHT = 0xFFFF;
+
+    /** Encoded postings; accessed only with absolute reads. */
+    private final ByteBuffer data;
+    /** Number of postings. */
+    private final int size;
+    /** IDF value of the term. */
+    private final double idf;
+    /** The largest TF-IDF weight divided by the norm of its document. */
+    private final double maxNormalizedWeight;
+    /** The largest weight; the largest normalized weight if weights aren't stored. */
+    private final double maxWeight;
+    /** Weight represented by the quantized weight {@code 1}. */
+    private final double weightScale;
+    /** Size of a stored weight in bytes; {@code 0} if weights aren't stored. */
+    private final int weightSize;
+    /** Encoded positions; {@code null} if positions aren't stored. */
+    private final ByteBuffer positions;
+
+    /**
+     * Constructs a new {@code PostingList} backed by the specified encoded
+     * {@code data}. The buffer is accessed only with absolute reads.
+     *
+     * @param data
+     *            the encoded postings
+     * @param size
+     *            the number of postings
+     * @param idf
+     *            the IDF value of the term
+     * @param maxNormalizedWeight
+     *            the largest TF-IDF weight divided by the norm of its document
+     */
+    PostingList(ByteBuffer data, int size, double idf, double maxNormalizedWeight) {
+        this(data, size, idf, maxNormalizedWeight, maxNormalizedWeight, 0.0, 0, null);
+    }
+
+    /**
+     * Constructs a new {@code PostingList} backed by the specified encoded
+     * {@code data} and encoded {@code positions}. Buffers are accessed only
+     * with absolute reads.
+     *
+     * @param data
+     *            the encoded postings
+     * @param positions
+     *            the encoded positions; may be {@code null}
+     * @param size
+     *            the number of postings
+     * @param idf
+     *            the IDF value of the term
+     * @param maxNormalizedWeight
+     *            the largest TF-IDF weight divided by the norm of its document
+     */
+    PostingList(ByteBuffer data, ByteBuffer positions, int size, double idf, double maxNormalizedWeight) {
+        this(data, size, idf, maxNormalizedWeight, maxNormalizedWeight, 0.0, 0, positions);
+    }
+
+    /**
+     * Constructs a new {@code PostingList} with all parts specified.
+     *
+     * @param data
+     *            the encoded postings
+     * @param size
+     *            the number of postings
+     * @param idf
+     *            the IDF value of the term
+     * @param maxNormalizedWeight
+     *            the largest TF-IDF weight divided by the norm of its document
+     * @param maxWeight
+     *            the largest weight
+     * @param weightScale
+     *            the weight represented by the quantized weight {@code 1}
+     * @param weightSize
+     *            the size of a stored weight in bytes; {@code 0} if weights
+     *            aren't stored
+     * @param positions
+     *            the encoded positions; may be {@code null}
+     */
+    private PostingList(ByteBuffer data, int size, double idf, double maxNormalizedWeight, double maxWeight,
+            double weightScale, int weightSize, ByteBuffer positions) {
+        this.data = data;
+        this.size = size;
+        this.idf = idf;
+        this.maxNormalizedWeight = maxNormalizedWeight;
+        this.maxWeight = maxWeight;
+        this.weightScale = weightScale;
+        this.weightSize = weightSize;
+        this.positions = positions;
+    }
+
+    /**
+     * Encodes the first {@code length} postings of the specified arrays.
+     * Weights in documents with norm {@code 0} are {@code 0}.
+     *
+     * @param docIds
+     *            the IDs of the documents in ascending order
+     * @param frequencies
+     *            the term frequencies in the documents
+     * @param length
+     *            the number of postings
+     * @param idf
+     *            the IDF value of the term
+     * @param norms
+     *            the norms of TF-IDF vectors indexed by document ID
+     * @return the posting list
+     */
+    static PostingList encode(int[] docIds, int[] frequencies, int length, double idf, double[] norms) {
+        return encode(docIds, frequencies, null, length, idf, norms);
+    }
+
+    /**
+     * Encodes the first {@code length} postings of the specified arrays
+     * together with the positions of the term. Weights in documents with norm
+     * {@code 0} are {@code 0}.
+     *
+     * @param docIds
+     *            the IDs of the documents in ascending order
+     * @param frequencies
+     *            the term frequencies in the documents
+     * @param positions
+     *            the positions of the term in ascending order, as many for
+     *            every posting as is its term frequency, postings in order;
+     *            {@code null} if positions aren't stored
+     * @param length
+     *            the number of postings
+     * @param idf
+     *            the IDF value of the term
+     * @param norms
+     *            the norms of TF-IDF vectors indexed by document ID
+     * @return the posting list
+     */
+    static PostingList encode(int[] docIds, int[] frequencies, int[] positions, int length, double idf,
+            double[] norms) {
+        double maxWeight = 0.0;
+        for (int i = 0; i < length; i++) {
+            maxWeight = Math.max(maxWeight, weight(frequencies[i], idf, norms[docIds[i]]));
+        }
+
+        ByteBuffer data = encodeBlocks(docIds, frequencies, null, 0, 0.0, length);
+        ByteBuffer encodedPositions = positions != null ? encodePositions(frequencies, positions, length) : null;
+        return new PostingList(data, encodedPositions, length, idf, maxWeight);
+    }
+
+    /**
+     * Encodes the blocks of the first {@code length} postings of the specified
+     * arrays, preceded by the table of skip pointers if there is more than one
+     * block.
+     *
+     * @param docIds
+     *            the IDs of the documents in ascending order
+     * @param frequencies
+     *            the term frequencies in the documents
+     * @param weights
+     *            the weights; {@code null} if weights aren't stored
+     * @param weightSize
+     *            the size of a stored weight in bytes: {@link Double#BYTES}
+     *            for exact weights, {@link Character#BYTES} for quantized
+     *            ones
+     * @param weightScale
+     *            the weight represented by the quantized weight {@code 1}
+     * @param length
+     *            the number of postings
+     * @return the encoded postings
+     */
+    private static ByteBuffer encodeBlocks(int[] docIds, int[] frequencies, double[] weights, int weightSize,
+            double weightScale, int length) {
+        int blocks = blockCount(length);
+        int skips = blocks > 1 ? blocks * SKIP_SIZE : 0;
+        int postingSize = 2 * 5 + (weights != null ? weightSize : 0);
+        ByteBuffer buffer = ByteBuffer.allocate(skips + length * postingSize);
+        buffer.position(skips);
+
+        int previous = 0;
+        for (int block = 0; block < blocks; block++) {
+            int start = block * BLOCK_SIZE;
+            int end = Math.min(start + BLOCK_SIZE, length);
+            int offset = buffer.position();
+
+            for (int i = start; i < end; i++) {
+                writeVInt(buffer, docIds[i] - previous);
+                previous = docIds[i];
+            }
+            for (int i = start; i < end; i++) {
+                writeVInt(buffer, frequencies[i]);
+            }
+            if (weights != null && weightSize == Double.BYTES) {
+                for (int i = start; i < end; i++) {
+                    buffer.putDouble(weights[i]);
+                }
+            } else if (weights != null) {
+                for (int i = start; i < end; i++) {
+                    int quantized = weightScale != 0.0 ? (int) Math.round(weights[i] / weightScale) : 0;
+                    buffer.putChar((char) Math.min(quantized, MAX_QUANTIZED_WEIGHT));
+                }
+            }
+
+            if (skips != 0) {
+                buffer.putInt(block * SKIP_SIZE, previous);
+                buffer.putInt(block * SKIP_SIZE + Integer.BYTES, offset);
+            }
+        }
+
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(bytes);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Encodes the positions of the first {@code length} postings.
+     *
+     * @param frequencies
+     *            the term frequencies in the documents
+     * @param positions
+     *            the positions of the term, postings in order
+     * @param length
+     *            the number of postings
+     * @return the encoded positions
+     */
+    private static ByteBuffer encodePositions(int[] frequencies, int[] positions, int length) {
+        int blocks = blockCount(length);
+        int table = blocks > 1 ? blocks * Integer.BYTES : 0;
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            count += frequencies[i];
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(table + count * 5);
+        buffer.position(table);
+
+        int next = 0;
+        for (int i = 0; i < length; i++) {
+            if (table != 0 && i % BLOCK_SIZE == 0) {
+                buffer.putInt(i / BLOCK_SIZE * Integer.BYTES, buffer.position());
+            }
+
+            int previous = 0;
+            for (int end = next + frequencies[i]; next < end; next++) {
+                writeVInt(buffer, positions[next] - previous);
+                previous = positions[next];
+            }
+        }
+
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(bytes);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Returns the posting list with the same postings as this list that stores
+     * the specified {@code weights} of its postings, in order of postings,
+     * either exactly or quantized to 16 bits. Postings are encoded again,
+     * together with the weights; positions are shared with this list. The
+     * largest weight of the returned list is the largest stored weight, which
+     * bounds all of its weights.
+     *
+     * @param weights
+     *            the non-negative weights of the postings
+     * @param quantized
+     *            {@code true} if weights are quantized to 16 bits;
+     *            {@code false} if they are stored exactly
+     * @return the posting list with stored weights
+     * @throws IllegalArgumentException
+     *             if the number of weights differs from the number of postings
+     */
+    PostingList withWeights(double[] weights, boolean quantized) {
+        if (weights.length != size)
+            throw new IllegalArgumentException("Number of weights differs from the number of postings.");
+
+        double maxWeight = 0.0;
+        for (double weight : weights) {
+            maxWeight = Math.max(maxWeight, weight);
+        }
+        double scale = quantized ? maxWeight / MAX_QUANTIZED_WEIGHT : 0.0;
+        int weightSize = quantized ? Character.BYTES : Double.BYTES;
+
+        int[] docIds = new int[size];
+        int[] frequencies = new int[size];
+        decodeAll(docIds, frequencies);
+        ByteBuffer data = encodeBlocks(docIds, frequencies, weights, weightSize, scale, size);
+        return new PostingList(data, size, idf, maxNormalizedWeight, quantized ? MAX_QUANTIZED_WEIGHT * scale
+                : maxWeight, scale, weightSize, positions);
+    }
+
+    /**
+     * Returns the posting list with the same postings and positions as this
+     * list that doesn't store weights, the list that is written to an index
+     * file.
+     *
+     * @return the posting list without stored weights; this list if it
+     *         doesn't store them
+     */
+    PostingList withoutWeights() {
+        if (weightSize == 0)
+            return this;
+
+        int[] docIds = new int[size];
+        int[] frequencies = new int[size];
+        decodeAll(docIds, frequencies);
+        return new PostingList(encodeBlocks(docIds, frequencies, null, 0, 0.0, size), positions, size, idf,
+                maxNormalizedWeight);
+    }
+
+    /**
+     * Decodes all postings into the specified arrays.
+     *
+     * @param docIds
+     *            the array for document IDs
+     * @param frequencies
+     *            the array for term frequencies
+     */
+    private void decodeAll(int[] docIds, int[] frequencies) {
+        int[] blockDocIds = new int[BLOCK_SIZE];
+        int[] blockFrequencies = new int[BLOCK_SIZE];
+        int previous = 0;
+        for (int block = 0, blocks = blockCount(); block < blocks; block++) {
+            int length = decode(block, previous, blockDocIds, blockFrequencies, null);
+            System.arraycopy(blockDocIds, 0, docIds, block * BLOCK_SIZE, length);
+            System.arraycopy(blockFrequencies, 0, frequencies, block * BLOCK_SIZE, length);
+            previous = blockDocIds[length - 1];
+        }
+    }
+
+    /**
+     * Returns {@code true} if this posting list stores the weights of its
+     * postings.
+     *
+     * @return {@code true} if weights are stored; {@code false} otherwise
+     */
+    public boolean hasWeights() {
+        return weightSize != 0;
+    }
+
+    /**
+     * Returns {@code true} if this posting list stores the positions of its
+     * term.
+     *
+     * @return {@code true} if positions are stored; {@code false} otherwise
+     */
+    public boolean hasPositions() {
+        return positions != null;
+    }
+
+    /**
+     * Returns the number of documents in this posting list.
+     *
+     * @return the number of documents in this posting list
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the IDF value of the term.
+     *
+     * @return the IDF value of the term
+     */
+    public double idf() {
+        return idf;
+    }
+
+    /**
+     * Returns the largest stored weight or, if weights aren't stored, the
+     * largest weight of the term in any document of this list divided by the
+     * norm of the TF-IDF vector of that document. Multiplied by the weight of
+     * the term in a query, it is the largest dot product the term adds to the
+     * score of any document.
+     *
+     * @return the largest weight
+     */
+    public double maxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Returns the largest weight of the term in any document of this list
+     * divided by the norm of the TF-IDF vector of that document, whether or
+     * not weights are stored.
+     *
+     * @return the largest normalized weight
+     */
+    double maxNormalizedWeight() {
+        return maxNormalizedWeight;
+    }
+
+    /**
+     * Returns the size of the encoded postings in bytes, including the
+     * weights if they are stored.
+     *
+     * @return the size of the encoded postings
+     */
+    public int byteSize() {
+        return data.limit();
+    }
+
+    /**
+     * Returns the size of the encoded positions in bytes.
+     *
+     * @return the size of the encoded positions; {@code 0} if positions aren't
+     *         stored
+     */
+    public int positionsByteSize() {
+        return positions != null ? positions.limit() : 0;
+    }
+
+    /**
+     * Returns a new cursor positioned before the first posting of this list.
+     *
+     * @return the cursor
+     */
+    public PostingCursor cursor() {
+        return new PostingCursor().reset(this);
+    }
+
+    /**
+     * Returns a read-only view of the encoded postings.
+     *
+     * @return the encoded postings
+     */
+    ByteBuffer data() {
+        return data.asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a read-only view of the encoded positions.
+     *
+     * @return the encoded positions or {@code null} if positions aren't stored
+     */
+    ByteBuffer positionData() {
+        return positions != null ? positions.asReadOnlyBuffer() : null;
+    }
+
+    /**
+     * Returns the offset of the positions of the first posting of the
+     * specified block.
+     *
+     * @param block
+     *            the block
+     * @return the offset of the positions of the block
+     */
+    int positionOffset(int block) {
+        return size > BLOCK_SIZE ? positions.getInt(block * Integer.BYTES) : 0;
+    }
+
+    /**
+     * Skips {@code count} encoded positions starting at the {@code offset}.
+     *
+     * @param offset
+     *            the offset of the first position
+     * @param count
+     *            the number of positions
+     * @return the offset after the skipped positions
+     */
+    int skipPositions(int offset, int count) {
+        ByteBuffer positions = this.positions;
+        for (int i = 0; i < count; offset++) {
+            if (positions.get(offset) >= 0)
+                i++;
+        }
+        return offset;
+    }
+
+    /**
+     * Decodes {@code count} positions starting at the {@code offset} into
+     * the {@code buffer}.
+     *
+     * @param offset
+     *            the offset of the first position
+     * @param count
+     *            the number of positions
+     * @param buffer
+     *            the buffer for positions
+     * @return the offset after the decoded positions
+     */
+    int decodePositions(int offset, int count, int[] buffer) {
+        ByteBuffer positions = this.positions;
+        int position = 0;
+        for (int i = 0; i < count; i++) {
+            int b = positions.get(offset++);
+            int value = b & 0x7F;
+            for (int shift = 7; b < 0; shift += 7) {
+                b = positions.get(offset++);
+                value |= (b & 0x7F) << shift;
+            }
+            position += value;
+            buffer[i] = position;
+        }
+        return offset;
+    }
+
+    /**
+     * Returns the number of blocks.
+     *
+     * @return the number of blocks
+     */
+    int blockCount() {
+        return blockCount(size);
+    }
+
+    /**
+     * Returns the last document ID of the specified block. Valid only for
+     * lists with more than one block.
+     *
+     * @param block
+     *            the block
+     * @return the last document ID of the block
+     */
+    int lastDocId(int block) {
+        return data.getInt(block * SKIP_SIZE);
+    }
+
+    /**
+     * Decodes the specified block into the buffers.
+     *
+     * @param block
+     *            the block
+     * @param previous
+     *            the last document ID of the previous block; {@code 0} for the
+     *            first block
+     * @param docIds
+     *            the buffer for document IDs
+     * @param frequencies
+     *            the buffer for term frequencies
+     * @param weights
+     *            the buffer for weights; not used if it is {@code null} or
+     *            weights aren't stored
+     * @return the number of decoded postings
+     */
+    int decode(int block, int previous, int[] docIds, int[] frequencies, double[] weights) {
+        ByteBuffer data = this.data;
+        int length = Math.min(BLOCK_SIZE, size - block * BLOCK_SIZE);
+        int position = size > BLOCK_SIZE ? data.getInt(block * SKIP_SIZE + Integer.BYTES) : 0;
+
+        int docId = previous;
+        for (int i = 0; i < length; i++) {
+            int b = data.get(position++);
+            int value = b & 0x7F;
+            for (int shift = 7; b < 0; shift += 7) {
+                b = data.get(position++);
+                value |= (b & 0x7F) << shift;
+            }
+            docId += value;
+            docIds[i] = docId;
+        }
+        for (int i = 0; i < length; i++) {
+            int b = data.get(position++);
+            int value = b & 0x7F;
+            for (int shift = 7; b < 0; shift += 7) {
+                b = data.get(position++);
+                value |= (b & 0x7F) << shift;
+            }
+            frequencies[i] = value;
+        }
+        if (weights != null && weightSize == Double.BYTES) {
+            for (int i = 0; i < length; i++) {
+                weights[i] = data.getDouble(position);
+                position += Double.BYTES;
+            }
+        } else if (weights != null && weightSize != 0) {
+            for (int i = 0; i < length; i++) {
+                weights[i] = data.getChar(position) * weightScale;
+                position += Character.BYTES;
+            }
+        }
+
+        return length;
+    }
+
+    /**
+     * Returns the number of blocks of a list with {@code size} postings.
+     *
+     * @param size
+     *            the number of postings
+     * @return the number of blocks
+     */
+    static int blockCount(int size) {
+        return (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    /**
+     * Returns the weight of a term with the specified frequency and IDF value
+     * divided by the {@code norm} of the document, or {@code 0} if the norm is
+     * {@code 0}.
+     *
+     * @param frequency
+     *            the term frequency
+     * @param idf
+     *            the IDF value of the term
+     * @param norm
+     *            the norm of the TF-IDF vector of the document
+     * @return the normalized weight
+     */
+    static double weight(int frequency, double idf, double norm) {
+        return norm != 0.0 ? frequency * idf / norm : 0.0;
+    }
+
+    /**
+     * Writes the non-negative {@code value} in variable-byte encoding.
+     *
+     * @param buffer
+     *            the buffer
+     * @param value
+     *            the value
+     */
+    private static void writeVInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+}
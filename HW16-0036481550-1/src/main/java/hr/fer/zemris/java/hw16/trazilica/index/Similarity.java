@@ -0,0 +1,101 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import hr.fer.zemris.java.hw16.vector.SparseVector;
+
+/**
+ * {@code Similarity} is an interface of a model that ranks documents for a
+ * query.
+ * <p>
+ * Score of a document is the dot product of the weights of the query terms in
+ * the query and in the document, multiplied by the
+ * {@link #queryScale(SparseVector) scale} of the query. Weights of terms in
+ * documents are computed once, when the index is built or read, together with
+ * any statistics of the documents the model needs, and are stored in the
+ * posting lists (see {@link InvertedIndex#withSimilarity(Similarity)}). A
+ * query is then evaluated by the same loop over stored weights for every
+ * model, so the model isn't called for every posting.
+ * <p>
+ * Weights are never negative, so a document never scores less than any part
+ * of its dot product.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public interface Similarity {
+
+    /** Cosine similarity of TF-IDF vectors. */
+    Similarity COSINE = new CosineSimilarity();
+    /** Cosine similarity of TF-IDF vectors with sublinear term frequencies. */
+    Similarity SUBLINEAR_TF_IDF = new SublinearTFIDFSimilarity();
+    /** Okapi BM25 with the usual parameters. */
+    Similarity BM25 = new BM25Similarity();
+
+    /**
+     * Returns the name of this model.
+     *
+     * @return the name of this model
+     */
+    String getName();
+
+    /**
+     * Computes the weights of all postings of the {@code index}. Weights are
+     * computed from term frequencies, IDF values and norms of documents, which
+     * don't depend on the weights stored in the index.
+     *
+     * @param index
+     *            the index
+     * @return the weights of postings in order of postings, indexed by term ID
+     * @throws NullPointerException
+     *             if parameter {@code index} is a {@code null} reference
+     */
+    double[][] documentWeights(InvertedIndex index);
+
+    /**
+     * Returns the vector of weights of the query terms for the specified
+     * {@code tfVector} of the query.
+     *
+     * @param index
+     *            the index
+     * @param tfVector
+     *            the TF vector of the query
+     * @return the vector of weights of the query terms
+     * @throws NullPointerException
+     *             if any of the parameters is a {@code null} reference
+     */
+    SparseVector queryWeights(InvertedIndex index, SparseVector tfVector);
+
+    /**
+     * Returns the factor by which dot products with the {@code query} vector
+     * are multiplied.
+     *
+     * @param query
+     *            the vector of weights of the query terms
+     * @return the factor or {@code 0} if no document can match the query
+     */
+    double queryScale(SparseVector query);
+
+    /**
+     * Returns the model with the specified {@code name}: {@code cosine},
+     * {@code sublinear} or {@code bm25}.
+     *
+     * @param name
+     *            the name of the model
+     * @return the model
+     * @throws NullPointerException
+     *             if parameter {@code name} is a {@code null} reference
+     * @throws IllegalArgumentException
+     *             if there is no model with the specified name
+     */
+    static Similarity forName(String name) {
+        switch (name) {
+            case "cosine":
+                return COSINE;
+            case "sublinear":
+                return SUBLINEAR_TF_IDF;
+            case "bm25":
+                return BM25;
+            default:
+                throw new IllegalArgumentException("Unknown similarity: " + name + ".");
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.util.Objects;
+
+import hr.fer.zemris.java.hw16.vector.SparseVector;
+
+/**
+ * {@code SublinearTFIDFSimilarity} is a class that ranks documents by the
+ * cosine similarity of TF-IDF vectors whose term frequencies are sublinear.
+ * <p>
+ * Weight of a term that occurs {@code tf} times is {@code (1 + ln tf)}
+ * multiplied by its IDF value, so repeating a word adds less and less to the
+ * score. Weights of documents are divided by the norms of their vectors, which
+ * are computed once from these weights, and dot products by the norm of the
+ * query vector.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see Similarity#SUBLINEAR_TF_IDF
+ */
+public final class SublinearTFIDFSimilarity implements Similarity {
+
+    @Override
+    public String getName() {
+        return "sublinear";
+    }
+
+    @Override
+    public double[][] documentWeights(InvertedIndex index) {
+        Objects.requireNonNull(index, "Cannot compute weights with null reference as an index.");
+
+        double[] norms = new double[index.documentCount()];
+        PostingCursor cursor = new PostingCursor();
+        for (int term = 0; term < index.termCount(); term++) {
+            PostingList list = index.getPostings(term);
+            cursor.reset(list);
+            while (cursor.nextDoc() != PostingCursor.NO_MORE_DOCS) {
+                double weight = tf(cursor.frequency()) * list.idf();
+                norms[cursor.docId()] += weight * weight;
+            }
+        }
+        for (int docId = 0; docId < norms.length; docId++) {
+            norms[docId] = Math.sqrt(norms[docId]);
+        }
+
+        double[][] weights = new double[index.termCount()][];
+        for (int term = 0; term < weights.length; term++) {
+            PostingList list = index.getPostings(term);
+            double[] termWeights = new double[list.size()];
+            cursor.reset(list);
+            for (int i = 0; cursor.nextDoc() != PostingCursor.NO_MORE_DOCS; i++) {
+                double norm = norms[cursor.docId()];
+                termWeights[i] = norm != 0.0 ? tf(cursor.frequency()) * list.idf() / norm : 0.0;
+            }
+            weights[term] = termWeights;
+        }
+        return weights;
+    }
+
+    @Override
+    public SparseVector queryWeights(InvertedIndex index, SparseVector tfVector) {
+        Objects.requireNonNull(index, "Cannot compute query weights with null reference as an index.");
+        Objects.requireNonNull(tfVector, "Cannot compute query weights with null reference as a TF vector.");
+
+        int[] indices = new int[tfVector.nonZeroCount()];
+        double[] values = new double[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = tfVector.indexAt(i);
+            values[i] = tf(tfVector.valueAt(i)) * index.getIDFValue(indices[i]);
+        }
+        return new SparseVector(tfVector.size(), indices, values);
+    }
+
+    @Override
+    public double queryScale(SparseVector query) {
+        double norm = query.norm();
+        return norm != 0.0 ? 1.0 / norm : 0.0;
+    }
+
+    /**
+     * Returns the sublinear term frequency of a term that occurs
+     * {@code frequency} times.
+     *
+     * @param frequency
+     *            the raw term frequency
+     * @return the sublinear term frequency or {@code 0} if the term doesn't
+     *         occur
+     */
+    private static double tf(double frequency) {
+        return frequency > 0.0 ? 1.0 + Math.log(frequency) : 0.0;
+    }
+}
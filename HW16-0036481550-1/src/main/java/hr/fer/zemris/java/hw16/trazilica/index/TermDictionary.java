@@ -0,0 +1,298 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * {@code TermDictionary} is a class that assigns int IDs to terms. IDs are
+ * assigned in the order in which terms are added, starting with {@code 0}, and
+ * they never change.
+ * <p>
+ * Terms are kept in an open-addressing hash table whose keys can be looked up
+ * directly by the characters of a term, so a {@code String} is created only
+ * when a new term is added. Lookup of a known term doesn't take a lock, which
+ * lets many threads index documents into the same dictionary.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class TermDictionary {
+
+    /** Initial capacity of the hash table; must be a power of two. */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** Hash table of terms; empty slots are {@code null}. */
+    private volatile Term[] table = new Term[INITIAL_CAPACITY];
+    /** Terms indexed by ID. */
+    private String[] terms = new String[INITIAL_CAPACITY / 2];
+    /** Number of terms. */
+    private int size;
+
+    /**
+     * Returns the ID of the term made of the specified characters, adding the
+     * term to the dictionary if it isn't in it yet.
+     *
+     * @param chars
+     *            the array that holds the term
+     * @param offset
+     *            the position of the first character of the term
+     * @param length
+     *            the length of the term
+     * @return the ID of the term
+     */
+    public int add(char[] chars, int offset, int length) {
+        int hash = hash(chars, offset, length);
+        int id = find(table, hash, chars, offset, length);
+        return id >= 0 ? id : insert(hash, chars, offset, length);
+    }
+
+    /**
+     * Returns the ID of the specified {@code term}, adding the term to the
+     * dictionary if it isn't in it yet.
+     *
+     * @param term
+     *            the term
+     * @return the ID of the term
+     * @throws NullPointerException
+     *             if parameter {@code term} is a {@code null} reference
+     */
+    public int add(String term) {
+        Objects.requireNonNull(term, "Cannot add null reference as a term.");
+        char[] chars = term.toCharArray();
+        return add(chars, 0, chars.length);
+    }
+
+    /**
+     * Returns the ID of the specified {@code term} or {@code -1} if the term
+     * isn't in the dictionary.
+     *
+     * @param term
+     *            the term
+     * @return the ID of the term or {@code -1}
+     */
+    public int get(String term) {
+        if (term == null)
+            return -1;
+
+        Term[] table = this.table;
+        int mask = table.length - 1;
+        for (int i = spread(term.hashCode()) & mask; table[i] != null; i = (i + 1) & mask) {
+            if (table[i].term.equals(term))
+                return table[i].id;
+        }
+
+        // the term may have been added after the table was read
+        synchronized (this) {
+            table = this.table;
+            mask = table.length - 1;
+            for (int i = spread(term.hashCode()) & mask; table[i] != null; i = (i + 1) & mask) {
+                if (table[i].term.equals(term))
+                    return table[i].id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the term with the specified ID.
+     *
+     * @param id
+     *            the ID of the term
+     * @return the term
+     * @throws IndexOutOfBoundsException
+     *             if there is no term with the specified ID
+     */
+    public synchronized String getTerm(int id) {
+        if (id < 0 || id >= size)
+            throw new IndexOutOfBoundsException("There is no term with ID " + id + ".");
+
+        return terms[id];
+    }
+
+    /**
+     * Returns the number of terms in the dictionary.
+     *
+     * @return the number of terms
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Adds the term made of the specified characters unless another thread has
+     * added it in the meantime.
+     *
+     * @param hash
+     *            the hash code of the term
+     * @param chars
+     *            the array that holds the term
+     * @param offset
+     *            the position of the first character of the term
+     * @param length
+     *            the length of the term
+     * @return the ID of the term
+     */
+    private synchronized int insert(int hash, char[] chars, int offset, int length) {
+        Term[] table = this.table;
+        int mask = table.length - 1;
+        int i = spread(hash) & mask;
+        for (; table[i] != null; i = (i + 1) & mask) {
+            if (table[i].matches(chars, offset, length))
+                return table[i].id;
+        }
+
+        int id = size++;
+        if (id == terms.length)
+            terms = Arrays.copyOf(terms, terms.length * 2);
+        terms[id] = new String(chars, offset, length);
+
+        if (size * 2 > table.length) {
+            table = grow(table);
+            mask = table.length - 1;
+            i = spread(hash) & mask;
+            while (table[i] != null) {
+                i = (i + 1) & mask;
+            }
+            table[i] = new Term(terms[id], id);
+            this.table = table;
+        } else {
+            table[i] = new Term(terms[id], id);
+        }
+
+        return id;
+    }
+
+    /**
+     * Returns a new hash table twice as large as the specified {@code table}
+     * that holds the same terms.
+     *
+     * @param table
+     *            the table
+     * @return the larger table
+     */
+    private static Term[] grow(Term[] table) {
+        Term[] larger = new Term[table.length * 2];
+        int mask = larger.length - 1;
+        for (Term term : table) {
+            if (term == null)
+                continue;
+
+            int i = spread(term.term.hashCode()) & mask;
+            while (larger[i] != null) {
+                i = (i + 1) & mask;
+            }
+            larger[i] = term;
+        }
+        return larger;
+    }
+
+    /**
+     * Returns the ID of the term made of the specified characters in the
+     * {@code table} or {@code -1} if the table doesn't contain it.
+     *
+     * @param table
+     *            the hash table
+     * @param hash
+     *            the hash code of the term
+     * @param chars
+     *            the array that holds the term
+     * @param offset
+     *            the position of the first character of the term
+     * @param length
+     *            the length of the term
+     * @return the ID of the term or {@code -1}
+     */
+    private static int find(Term[] table, int hash, char[] chars, int offset, int length) {
+        int mask = table.length - 1;
+        for (int i = spread(hash) & mask; table[i] != null; i = (i + 1) & mask) {
+            if (table[i].matches(chars, offset, length))
+                return table[i].id;
+        }
+        return -1;
+    }
+
+    /**
+     * Calculates the hash code of the specified characters, which is the same
+     * as the hash code of the {@code String} made of them.
+     *
+     * @param chars
+     *            the array that holds the characters
+     * @param offset
+     *            the position of the first character
+     * @param length
+     *            the number of characters
+     * @return the hash code
+     */
+    private static int hash(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        return hash;
+    }
+
+    /**
+     * Spreads the higher bits of the hash code to the lower bits that select
+     * the slot of the table.
+     *
+     * @param hash
+     *            the hash code
+     * @return the spread hash code
+     */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * {@code Term} is an immutable entry of the hash table.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    private static class Term {
+
+        /** The term. */
+        private final String term;
+        /** The ID of the term. */
+        private final int id;
+
+        /**
+         * Constructs a new {@code Term}.
+         *
+         * @param term
+         *            the term
+         * @param id
+         *            the ID of the term
+         */
+        private Term(String term, int id) {
+            this.term = term;
+            this.id = id;
+        }
+
+        /**
+         * Returns {@code true} if the term consists of the specified
+         * characters.
+         *
+         * @param chars
+         *            the array that holds the characters
+         * @param offset
+         *            the position of the first character
+         * @param length
+         *            the number of characters
+         * @return {@code true} if the term consists of the characters;
+         *         {@code false} otherwise
+         */
+        private boolean matches(char[] chars, int offset, int length) {
+            if (term.length() != length)
+                return false;
+
+            for (int i = 0; i < length; i++) {
+                if (term.charAt(i) != chars[offset + i])
+                    return false;
+            }
+            return true;
+        }
+    }
+}
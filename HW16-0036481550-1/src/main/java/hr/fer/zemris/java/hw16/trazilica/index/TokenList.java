@@ -0,0 +1,214 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * {@code TokenList} is a class that represents the forward index of one
+ * document: the sequence of all words of the document with their positions in
+ * the file.
+ * <p>
+ * Every word is stored as the hash code of its lowercase form
+ * ({@link String#hashCode()}, 4 bytes), followed by the gap between the end of
+ * the previous word and the start of the word and by the length of the word,
+ * both in bytes of the UTF-8 encoded file and in variable-byte encoding. Words
+ * are identified by hash codes, so the list doesn't depend on the dictionary of
+ * any index and stays valid when the dictionary changes; a hash code may match
+ * more than one word, so users that need certainty have to check the text of
+ * the word in the file.
+ * <p>
+ * This class is immutable.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see DocumentInfo#getTokens()
+ */
+public class TokenList {
+
+    /** Encoded words; accessed only with absolute reads. */
+    private final ByteBuffer data;
+    /** Number of words. */
+    private final int size;
+
+    /**
+     * Constructs a new {@code TokenList} backed by the specified encoded
+     * {@code data}.
+     *
+     * @param data
+     *            the encoded words
+     * @param size
+     *            the number of words
+     */
+    TokenList(ByteBuffer data, int size) {
+        this.data = data;
+        this.size = size;
+    }
+
+    /**
+     * Returns the number of words.
+     *
+     * @return the number of words
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the size of the encoded words in bytes.
+     *
+     * @return the size of the encoded words
+     */
+    public int byteSize() {
+        return data.limit();
+    }
+
+    /**
+     * Decodes all words into the specified arrays, which must have at least
+     * {@link #size()} elements.
+     *
+     * @param hashes
+     *            the array for hash codes of the words
+     * @param starts
+     *            the array for offsets of the first bytes of the words
+     * @param ends
+     *            the array for offsets after the last bytes of the words
+     * @throws IndexOutOfBoundsException
+     *             if any array is too short
+     */
+    public void decode(int[] hashes, int[] starts, int[] ends) {
+        if (hashes.length < size || starts.length < size || ends.length < size)
+            throw new IndexOutOfBoundsException("Arrays must have at least " + size + " elements.");
+
+        ByteBuffer data = this.data;
+        int position = 0;
+        int end = 0;
+        for (int i = 0; i < size; i++) {
+            hashes[i] = data.getInt(position);
+            position += Integer.BYTES;
+
+            int b = data.get(position++);
+            int gap = b & 0x7F;
+            for (int shift = 7; b < 0; shift += 7) {
+                b = data.get(position++);
+                gap |= (b & 0x7F) << shift;
+            }
+            b = data.get(position++);
+            int length = b & 0x7F;
+            for (int shift = 7; b < 0; shift += 7) {
+                b = data.get(position++);
+                length |= (b & 0x7F) << shift;
+            }
+
+            starts[i] = end + gap;
+            end = starts[i] + length;
+            ends[i] = end;
+        }
+    }
+
+    /**
+     * Returns a read-only view of the encoded words.
+     *
+     * @return the encoded words
+     */
+    ByteBuffer data() {
+        return data.asReadOnlyBuffer();
+    }
+
+    /**
+     * {@code Builder} is a class that encodes the words of a document as they
+     * are found, in order of their positions.
+     * <p>
+     * This class isn't thread-safe.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /** Encoded words. */
+        private byte[] bytes = new byte[256];
+        /** Number of used bytes. */
+        private int length;
+        /** Number of words. */
+        private int size;
+        /** Offset after the last byte of the previous word. */
+        private long end;
+
+        /**
+         * Adds the lowercase word with the specified position in the file.
+         * Words whose position doesn't fit the offsets of files smaller than 2
+         * GB are ignored.
+         *
+         * @param chars
+         *            the array that holds the word
+         * @param offset
+         *            the position of the first character of the word
+         * @param count
+         *            the length of the word
+         * @param startOffset
+         *            the offset of the first byte of the word in the file
+         * @param endOffset
+         *            the offset after the last byte of the word in the file
+         * @throws IllegalArgumentException
+         *             if the word starts before the end of the previous word
+         *             or ends before it starts
+         */
+        public void add(char[] chars, int offset, int count, long startOffset, long endOffset) {
+            if (startOffset < end || endOffset < startOffset)
+                throw new IllegalArgumentException("Words must be added in order of their positions.");
+            if (endOffset > Integer.MAX_VALUE)
+                return;
+
+            int hash = 0;
+            for (int i = offset, last = offset + count; i < last; i++) {
+                hash = 31 * hash + chars[i];
+            }
+
+            ensureCapacity(Integer.BYTES + 2 * 5);
+            bytes[length++] = (byte) (hash >>> 24);
+            bytes[length++] = (byte) (hash >>> 16);
+            bytes[length++] = (byte) (hash >>> 8);
+            bytes[length++] = (byte) hash;
+            writeVInt((int) (startOffset - end));
+            writeVInt((int) (endOffset - startOffset));
+
+            end = endOffset;
+            size++;
+        }
+
+        /**
+         * Returns the list of added words.
+         *
+         * @return the list of words
+         */
+        public TokenList build() {
+            return new TokenList(ByteBuffer.wrap(Arrays.copyOf(bytes, length)), size);
+        }
+
+        /**
+         * Makes room for {@code count} more bytes.
+         *
+         * @param count
+         *            the number of bytes
+         */
+        private void ensureCapacity(int count) {
+            if (length + count > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + count));
+            }
+        }
+
+        /**
+         * Writes the non-negative {@code value} in variable-byte encoding.
+         *
+         * @param value
+         *            the value
+         */
+        private void writeVInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+    }
+}
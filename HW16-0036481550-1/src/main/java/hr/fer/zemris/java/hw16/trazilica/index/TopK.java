@@ -0,0 +1,219 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+/**
+ * {@code TopK} is a class that selects {@code k} best scored documents using a
+ * bounded min-heap over primitive arrays.
+ * <p>
+ * Documents are ranked by score in descending order. Documents with equal
+ * scores are ranked by document ID in descending order, which matches the
+ * ordering of search results by path because document IDs follow the order
+ * of paths.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class TopK {
+
+    /** IDs of selected documents; heap ordered until sorted. */
+    private final int[] docIds;
+    /** Scores of selected documents; heap ordered until sorted. */
+    private final double[] scores;
+    /** Number of selected documents. */
+    private int size;
+    /** Flag that shows whether the selected documents are sorted by rank. */
+    private boolean sorted;
+
+    /**
+     * Constructs a new {@code TopK} that selects at most {@code k} documents.
+     *
+     * @param k
+     *            the maximal number of selected documents
+     * @throws IllegalArgumentException
+     *             if {@code k} is a negative number
+     */
+    public TopK(int k) {
+        if (k < 0)
+            throw new IllegalArgumentException("Number of selected documents cannot be negative. It was: " + k + ".");
+
+        this.docIds = new int[k];
+        this.scores = new double[k];
+    }
+
+    /**
+     * Offers the document with the specified ID and score. Document is kept if
+     * fewer than {@code k} documents are selected or if it ranks better than
+     * the worst selected document.
+     *
+     * @param docId
+     *            the ID of the document
+     * @param score
+     *            the score of the document
+     * @throws IllegalStateException
+     *             if the selected documents were already sorted
+     */
+    public void offer(int docId, double score) {
+        if (sorted)
+            throw new IllegalStateException("Cannot offer documents after they were sorted.");
+
+        if (size < docIds.length) {
+            docIds[size] = docId;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (size > 0 && isWorse(docIds[0], scores[0], docId, score)) {
+            docIds[0] = docId;
+            scores[0] = score;
+            siftDown(0, size);
+        }
+    }
+
+    /**
+     * Returns the score a document has to beat to be selected, or negative
+     * infinity if fewer than {@code k} documents are selected.
+     *
+     * @return the score of the worst selected document
+     */
+    public double threshold() {
+        return size == docIds.length && size > 0 ? scores[0] : Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Returns the number of selected documents.
+     *
+     * @return the number of selected documents
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the ID of the document at the specified rank. Rank {@code 0} is
+     * the best document.
+     *
+     * @param rank
+     *            the rank of the document
+     * @return the ID of the document
+     * @throws IndexOutOfBoundsException
+     *             if {@code rank} is out of range
+     */
+    public int docId(int rank) {
+        checkRank(rank);
+        return docIds[rank];
+    }
+
+    /**
+     * Returns the score of the document at the specified rank. Rank {@code 0}
+     * is the best document.
+     *
+     * @param rank
+     *            the rank of the document
+     * @return the score of the document
+     * @throws IndexOutOfBoundsException
+     *             if {@code rank} is out of range
+     */
+    public double score(int rank) {
+        checkRank(rank);
+        return scores[rank];
+    }
+
+    /**
+     * Sorts the selected documents by rank if they aren't sorted yet and checks
+     * the {@code rank}.
+     *
+     * @param rank
+     *            the rank
+     * @throws IndexOutOfBoundsException
+     *             if {@code rank} is out of range
+     */
+    private void checkRank(int rank) {
+        if (rank < 0 || rank >= size)
+            throw new IndexOutOfBoundsException("There is no document with rank " + rank + ".");
+
+        if (!sorted) {
+            for (int end = size - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+            sorted = true;
+        }
+    }
+
+    /**
+     * Moves the element at position {@code i} up the heap.
+     *
+     * @param i
+     *            the position of the element
+     */
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!isWorse(docIds[i], scores[i], docIds[parent], scores[parent]))
+                break;
+
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    /**
+     * Moves the element at position {@code i} down the heap of the specified
+     * {@code size}.
+     *
+     * @param i
+     *            the position of the element
+     * @param size
+     *            the size of the heap
+     */
+    private void siftDown(int i, int size) {
+        while (true) {
+            int worst = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && isWorse(docIds[left], scores[left], docIds[worst], scores[worst]))
+                worst = left;
+            if (right < size && isWorse(docIds[right], scores[right], docIds[worst], scores[worst]))
+                worst = right;
+            if (worst == i)
+                return;
+
+            swap(i, worst);
+            i = worst;
+        }
+    }
+
+    /**
+     * Swaps the elements at the specified positions.
+     *
+     * @param i
+     *            the first position
+     * @param j
+     *            the second position
+     */
+    private void swap(int i, int j) {
+        int docId = docIds[i];
+        docIds[i] = docIds[j];
+        docIds[j] = docId;
+
+        double score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+
+    /**
+     * Returns {@code true} if the first document ranks worse than the second.
+     *
+     * @param docId1
+     *            the ID of the first document
+     * @param score1
+     *            the score of the first document
+     * @param docId2
+     *            the ID of the second document
+     * @param score2
+     *            the score of the second document
+     * @return {@code true} if the first document ranks worse than the second;
+     *         {@code false} otherwise
+     */
+    private static boolean isWorse(int docId1, double score1, int docId2, double score2) {
+        int compare = Double.compare(score1, score2);
+        return compare != 0 ? compare < 0 : docId1 < docId2;
+    }
+}
@@ -0,0 +1,603 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * {@code Vocabulary} is a class that represents the ordered dictionary of an
+ * {@link InvertedIndex}. Terms are sorted alphabetically and the position of a
+ * term is its index in vectors of the index.
+ * <p>
+ * Terms are front coded in blocks of {@value #BLOCK_SIZE} in a single
+ * {@code char} array: every term is stored as the length of the prefix it
+ * shares with the previous term of its block, followed by the remaining
+ * characters. The first term of a block is stored whole, so a term is found
+ * by binary search over the first terms of blocks and a scan of a single
+ * block, and the term at a position is decoded from the start of its block.
+ * Inflected forms of a word share long prefixes, so the dictionary takes a
+ * fraction of the memory of separate strings and a hash table.
+ * <p>
+ * Because terms are sorted, the terms that start with the same prefix have
+ * consecutive positions. Terms that {@link #match(String) match} a pattern
+ * with wildcards are therefore enumerated only from the range of the literal
+ * prefix of the pattern, in time proportional to the size of the range.
+ * Because positions depend only on the set of terms, vectors built with equal
+ * vocabularies are comparable, regardless of the process or the JVM in which
+ * they were built.
+ * <p>
+ * This class is immutable.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class Vocabulary {
+
+    /** Wildcard that matches any sequence of characters. */
+    public static final char ANY_SEQUENCE = '*';
+    /** Wildcard that matches any single character. */
+    public static final char ANY_CHARACTER = '?';
+    /** Number of terms in a block. */
+    private static final int BLOCK_SIZE = 16;
+
+    /** Number of terms. */
+    private final int size;
+    /** Terms as lengths of shared prefixes, lengths of suffixes and suffixes. */
+    private final char[] data;
+    /** Offsets of the first terms of blocks in the data. */
+    private final int[] blocks;
+    /** Length of the longest term. */
+    private final int maxLength;
+    /** Unmodifiable list view of the terms. */
+    private final List<String> list;
+    /** Unmodifiable map view of the terms and their positions. */
+    private final Map<String, Integer> map;
+
+    /**
+     * Constructs a new {@code Vocabulary} with the specified {@code terms}.
+     * The array isn't referenced after construction.
+     *
+     * @param terms
+     *            the terms in strictly ascending order
+     * @throws NullPointerException
+     *             if parameter {@code terms} or any of its elements is a
+     *             {@code null} reference
+     * @throws IllegalArgumentException
+     *             if the terms aren't in strictly ascending order or some of
+     *             them is longer than {@value Character#MAX_VALUE} characters
+     */
+    Vocabulary(String[] terms) {
+        Objects.requireNonNull(terms, "Cannot instantiate Vocabulary with null reference as terms.");
+        int length = 0;
+        int maxLength = 0;
+        for (int i = 0; i < terms.length; i++) {
+            Objects.requireNonNull(terms[i], "Cannot instantiate Vocabulary with null reference as a term.");
+            if (i > 0 && terms[i - 1].compareTo(terms[i]) >= 0)
+                throw new IllegalArgumentException("Terms aren't in strictly ascending order: " + terms[i] + ".");
+            if (terms[i].length() > Character.MAX_VALUE)
+                throw new IllegalArgumentException("Term is too long: " + terms[i] + ".");
+
+            length += 2 + terms[i].length() - shared(terms, i);
+            maxLength = Math.max(maxLength, terms[i].length());
+        }
+
+        this.size = terms.length;
+        this.data = new char[length];
+        this.blocks = new int[(terms.length + BLOCK_SIZE - 1) / BLOCK_SIZE];
+        this.maxLength = maxLength;
+        for (int i = 0, offset = 0; i < terms.length; i++) {
+            if (i % BLOCK_SIZE == 0) {
+                blocks[i / BLOCK_SIZE] = offset;
+            }
+            int shared = shared(terms, i);
+            data[offset] = (char) shared;
+            data[offset + 1] = (char) (terms[i].length() - shared);
+            terms[i].getChars(shared, terms[i].length(), data, offset + 2);
+            offset += 2 + terms[i].length() - shared;
+        }
+
+        this.list = new ListView();
+        this.map = new MapView();
+    }
+
+    /**
+     * Returns the length of the prefix that the term at the specified position
+     * shares with the previous term of its block.
+     *
+     * @param terms
+     *            the terms
+     * @param index
+     *            the position of the term
+     * @return the length of the shared prefix
+     */
+    private static int shared(String[] terms, int index) {
+        if (index % BLOCK_SIZE == 0)
+            return 0;
+
+        String previous = terms[index - 1];
+        String term = terms[index];
+        int length = Math.min(previous.length(), term.length());
+        int shared = 0;
+        while (shared < length && previous.charAt(shared) == term.charAt(shared)) {
+            shared++;
+        }
+        return shared;
+    }
+
+    /**
+     * Returns the number of terms.
+     *
+     * @return the number of terms
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the term at the specified position.
+     *
+     * @param index
+     *            the position of the term
+     * @return the term
+     * @throws ArrayIndexOutOfBoundsException
+     *             if {@code index} is out of range
+     */
+    public String getTerm(int index) {
+        if (index < 0 || index >= size)
+            throw new ArrayIndexOutOfBoundsException(index);
+
+        char[] term = new char[maxLength];
+        int offset = blocks[index / BLOCK_SIZE];
+        for (int i = index & -BLOCK_SIZE; i < index; i++) {
+            offset = decode(offset, term);
+        }
+        decode(offset, term);
+        return new String(term, 0, data[offset] + data[offset + 1]);
+    }
+
+    /**
+     * Returns the position of the specified {@code term} or {@code -1} if the
+     * vocabulary doesn't contain it.
+     *
+     * @param term
+     *            the term
+     * @return the position of the term or {@code -1}
+     */
+    public int indexOf(String term) {
+        if (term == null)
+            return -1;
+
+        int index = search(term, false);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * Returns {@code true} if the vocabulary contains the specified
+     * {@code term}.
+     *
+     * @param term
+     *            the term
+     * @return {@code true} if the vocabulary contains the term; {@code false}
+     *         otherwise
+     */
+    public boolean contains(String term) {
+        return indexOf(term) >= 0;
+    }
+
+    /**
+     * Returns {@code true} if the specified {@code word} contains a wildcard
+     * and should be {@link #match(String) matched} against the vocabulary.
+     *
+     * @param word
+     *            the word
+     * @return {@code true} if the word is a pattern; {@code false} otherwise
+     * @throws NullPointerException
+     *             if parameter {@code word} is a {@code null} reference
+     */
+    public static boolean isPattern(String word) {
+        return wildcard(word) >= 0;
+    }
+
+    /**
+     * Returns the positions of the terms that match the specified
+     * {@code pattern}, in ascending order. {@value #ANY_SEQUENCE} in the
+     * pattern matches any sequence of characters and {@value #ANY_CHARACTER}
+     * matches any single character; a pattern without wildcards matches only
+     * the equal term.
+     * <p>
+     * The pattern has to start with a character other than a wildcard. The
+     * terms that start with that literal prefix form a range of positions, so
+     * a pattern that ends with its only {@value #ANY_SEQUENCE} is matched
+     * without decoding a term, and other patterns are checked only against the
+     * terms of the range.
+     *
+     * @param pattern
+     *            the pattern
+     * @return the positions of the matched terms
+     * @throws NullPointerException
+     *             if parameter {@code pattern} is a {@code null} reference
+     * @throws IllegalArgumentException
+     *             if the pattern starts with a wildcard
+     */
+    public int[] match(String pattern) {
+        Objects.requireNonNull(pattern, "Cannot match terms with null reference as a pattern.");
+        int wildcard = wildcard(pattern);
+        if (wildcard < 0) {
+            int index = indexOf(pattern);
+            return index >= 0 ? new int[] { index } : new int[0];
+        }
+        if (wildcard == 0)
+            throw new IllegalArgumentException("Pattern cannot start with a wildcard: " + pattern + ".");
+
+        String prefix = pattern.substring(0, wildcard);
+        int from = search(prefix, false);
+        from = from >= 0 ? from : -from - 1;
+        int to = -search(prefix, true) - 1;
+        if (from == to)
+            return new int[0];
+        if (wildcard == pattern.length() - 1 && pattern.charAt(wildcard) == ANY_SEQUENCE) {
+            int[] matches = new int[to - from];
+            for (int i = 0; i < matches.length; i++) {
+                matches[i] = from + i;
+            }
+            return matches;
+        }
+
+        int[] matches = new int[to - from];
+        int count = 0;
+        char[] term = new char[maxLength];
+        int offset = blocks[from / BLOCK_SIZE];
+        for (int i = from & -BLOCK_SIZE; i < to; i++) {
+            int length = data[offset] + data[offset + 1];
+            offset = decode(offset, term);
+            if (i >= from && matches(term, length, pattern, wildcard)) {
+                matches[count++] = i;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * Returns the unmodifiable list of terms in alphabetical order.
+     *
+     * @return the list of terms
+     */
+    public List<String> asList() {
+        return list;
+    }
+
+    /**
+     * Returns the unmodifiable map of terms and their positions. The map is a
+     * view backed by this vocabulary and it iterates terms in alphabetical
+     * order.
+     *
+     * @return the map of terms and their positions
+     */
+    public Map<String, Integer> asMap() {
+        return map;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(data);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof Vocabulary))
+            return false;
+
+        Vocabulary other = (Vocabulary) obj;
+        return size == other.size && Arrays.equals(data, other.data);
+    }
+
+    /**
+     * Decodes the term at the specified {@code offset} into the {@code term}
+     * buffer that holds the previous term of its block.
+     *
+     * @param offset
+     *            the offset of the term in the data
+     * @param term
+     *            the buffer of the term
+     * @return the offset of the next term
+     */
+    private int decode(int offset, char[] term) {
+        int length = data[offset + 1];
+        System.arraycopy(data, offset + 2, term, data[offset], length);
+        return offset + 2 + length;
+    }
+
+    /**
+     * Searches for the specified {@code key}. If {@code prefix} is
+     * {@code false}, returns the position of the term equal to the key, or
+     * {@code -(insertion point) - 1} if there is none. If {@code prefix} is
+     * {@code true}, returns {@code -(position) - 1} of the first term that is
+     * greater than all terms starting with the key.
+     *
+     * @param key
+     *            the searched term or prefix
+     * @param prefix
+     *            {@code true} if terms are compared only up to the length of
+     *            the key
+     * @return the result of the search
+     */
+    private int search(String key, boolean prefix) {
+        int low = 0;
+        int high = blocks.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int offset = blocks[middle];
+            int comparison = compare(data, offset + 2, data[offset + 1], key, prefix);
+            if (comparison < 0 || prefix && comparison == 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle * BLOCK_SIZE;
+            }
+        }
+        if (low == 0)
+            return -1;
+
+        // the term is in the block before the first greater block; the
+        // previous term is less than the key and shares common characters
+        // with it, so shared prefixes decide most terms without comparing
+        int end = Math.min(low * BLOCK_SIZE, size);
+        int offset = blocks[low - 1];
+        int common = 0;
+        for (int i = (low - 1) * BLOCK_SIZE; i < end; i++) {
+            int shared = data[offset];
+            int length = data[offset + 1];
+            int suffix = offset + 2;
+            offset = suffix + length;
+            if (shared > common)
+                continue;
+            if (shared < common)
+                return -i - 1;
+
+            int matched = 0;
+            while (common < key.length() && matched < length && data[suffix + matched] == key.charAt(common)) {
+                common++;
+                matched++;
+            }
+            if (common == key.length()) {
+                if (prefix)
+                    continue;
+                return matched == length ? i : -i - 1;
+            }
+            if (matched < length && data[suffix + matched] > key.charAt(common))
+                return -i - 1;
+        }
+        return -end - 1;
+    }
+
+    /**
+     * Compares the term of the specified {@code length} stored in the
+     * {@code chars} from the {@code offset} with the {@code key}.
+     *
+     * @param chars
+     *            the characters of the term
+     * @param offset
+     *            the offset of the term
+     * @param length
+     *            the length of the term
+     * @param key
+     *            the key
+     * @param prefix
+     *            {@code true} if the term is compared only up to the length of
+     *            the key
+     * @return a negative number, zero or a positive number if the term is
+     *         less than, equal to or greater than the key
+     */
+    private static int compare(char[] chars, int offset, int length, String key, boolean prefix) {
+        if (prefix && length > key.length()) {
+            length = key.length();
+        }
+        int common = Math.min(length, key.length());
+        for (int i = 0; i < common; i++) {
+            int difference = chars[offset + i] - key.charAt(i);
+            if (difference != 0)
+                return difference;
+        }
+        return length - key.length();
+    }
+
+    /**
+     * Returns the position of the first wildcard in the specified
+     * {@code pattern} or {@code -1} if there is none.
+     *
+     * @param pattern
+     *            the pattern
+     * @return the position of the first wildcard or {@code -1}
+     */
+    private static int wildcard(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == ANY_SEQUENCE || c == ANY_CHARACTER)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether the term of the specified {@code length} matches the
+     * {@code pattern} from the position {@code from}, up to which they are
+     * equal. After a mismatch, matching backtracks to the last
+     * {@value #ANY_SEQUENCE}, which then consumes one more character.
+     *
+     * @param term
+     *            the characters of the term
+     * @param length
+     *            the length of the term
+     * @param pattern
+     *            the pattern
+     * @param from
+     *            the position from which the term and the pattern are matched
+     * @return {@code true} if the term matches the pattern; {@code false}
+     *         otherwise
+     */
+    private static boolean matches(char[] term, int length, String pattern, int from) {
+        int t = from;
+        int p = from;
+        int star = -1;
+        int resume = 0;
+        while (t < length) {
+            char c = p < pattern.length() ? pattern.charAt(p) : 0;
+            if (p < pattern.length() && c == ANY_SEQUENCE) {
+                star = p++;
+                resume = t;
+            } else if (p < pattern.length() && (c == ANY_CHARACTER || c == term[t])) {
+                p++;
+                t++;
+            } else if (star >= 0) {
+                p = star + 1;
+                t = ++resume;
+            } else {
+                return false;
+            }
+        }
+        while (p < pattern.length() && pattern.charAt(p) == ANY_SEQUENCE) {
+            p++;
+        }
+        return p == pattern.length();
+    }
+
+    /**
+     * {@code TermIterator} is an iterator that decodes the terms of the
+     * vocabulary in alphabetical order.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    private class TermIterator implements Iterator<String> {
+
+        /** Buffer of the last decoded term. */
+        private final char[] term = new char[maxLength];
+        /** Position of the next term. */
+        private int next;
+        /** Offset of the next term in the data. */
+        private int offset;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext())
+                throw new NoSuchElementException("There are no more terms.");
+
+            int length = data[offset] + data[offset + 1];
+            offset = decode(offset, term);
+            next++;
+            return new String(term, 0, length);
+        }
+    }
+
+    /**
+     * {@code ListView} is the list view of the vocabulary.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    private class ListView extends AbstractList<String> implements RandomAccess {
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public String get(int index) {
+            return getTerm(index);
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            return o instanceof String ? Vocabulary.this.indexOf((String) o) : -1;
+        }
+
+        @Override
+        public int lastIndexOf(Object o) {
+            return indexOf(o);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return indexOf(o) >= 0;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new TermIterator();
+        }
+    }
+
+    /**
+     * {@code MapView} is the map view of the vocabulary.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    private class MapView extends AbstractMap<String, Integer> {
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && indexOf((String) key) >= 0;
+        }
+
+        @Override
+        public Integer get(Object key) {
+            int index = key instanceof String ? indexOf((String) key) : -1;
+            return index >= 0 ? index : null;
+        }
+
+        @Override
+        public Set<Map.Entry<String, Integer>> entrySet() {
+            return new AbstractSet<Map.Entry<String, Integer>>() {
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public Iterator<Map.Entry<String, Integer>> iterator() {
+                    return new Iterator<Map.Entry<String, Integer>>() {
+
+                        /** Iterator of the terms. */
+                        private final TermIterator terms = new TermIterator();
+                        /** Position of the next term. */
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return terms.hasNext();
+                        }
+
+                        @Override
+                        public Map.Entry<String, Integer> next() {
+                            return new AbstractMap.SimpleImmutableEntry<>(terms.next(), next++);
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
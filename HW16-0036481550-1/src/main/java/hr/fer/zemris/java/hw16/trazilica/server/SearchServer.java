@@ -0,0 +1,453 @@
+package hr.fer.zemris.java.hw16.trazilica.server;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import hr.fer.zemris.java.hw16.trazilica.commands.DocumentPager;
+import hr.fer.zemris.java.hw16.trazilica.commands.Json;
+import hr.fer.zemris.java.hw16.trazilica.commands.SearchContext;
+import hr.fer.zemris.java.hw16.trazilica.commands.SearchResult;
+import hr.fer.zemris.java.hw16.trazilica.commands.SearchSession;
+
+/**
+ * {@code SearchServer} is a class that answers search requests over HTTP on
+ * the loopback interface. The {@link SearchContext} is shared by all requests,
+ * so the index is built or read only once.
+ * <p>
+ * Server handles following {@code GET} requests:
+ * <ul>
+ * <li>{@code /query?q=}<i>words</i>{@code [&k=}<i>count</i>{@code ][&session=}<i>id</i>{@code ]}
+ * - evaluates the query and returns at most <i>count</i> results (by default
+ * {@value #DEFAULT_RESULT_COUNT}) as JSON
+ * <li>{@code /results?session=}<i>id</i> - returns the results of the last
+ * query of the session as JSON
+ * <li>{@code /document?session=}<i>id</i>{@code &index=}<i>indexOfResult</i>
+ * {@code [&from=}<i>line</i>{@code ][&count=}<i>lines</i>{@code ]} - returns
+ * at most <i>lines</i> lines, starting with the line <i>line</i> (numbered
+ * from {@code 1}), of the document at the specified index of the results of
+ * the last query of the session as plain text; by default the whole document
+ * is returned
+ * </ul>
+ * <p>
+ * Sessions are identified by an arbitrary string chosen by the client and are
+ * created by their first query. At most {@value #MAX_SESSIONS} sessions are
+ * kept; the least recently used ones are forgotten. Queries without a session
+ * aren't stored. Invalid requests are answered with status code {@code 400},
+ * requests for unknown sessions or results with {@code 404}.
+ * <p>
+ * Documents are read through {@link DocumentPager} and streamed with chunked
+ * transfer encoding, so only the requested lines are read and a document is
+ * never held in memory. A document is opened before the response is started,
+ * so a document that cannot be read is answered with an error status code.
+ * <p>
+ * Requests are handled by a fixed pool of worker threads.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class SearchServer implements Closeable {
+
+    /** Number of results returned by the query request by default. */
+    public static final int DEFAULT_RESULT_COUNT = 10;
+    /** Maximum number of results returned by the query request. */
+    public static final int MAX_RESULT_COUNT = 1000;
+    /** Maximum number of kept sessions. */
+    public static final int MAX_SESSIONS = 1024;
+
+    /** Number of seconds that closing waits for the handled requests. */
+    private static final int CLOSE_DELAY = 5;
+
+    /** The context of the search engine. */
+    private final SearchContext context;
+    /** The HTTP server. */
+    private final HttpServer server;
+    /** The worker threads. */
+    private final ExecutorService workers;
+    /** Sessions by their IDs, in access order. */
+    private final Map<String, SearchSession> sessions = Collections
+            .synchronizedMap(new LinkedHashMap<String, SearchSession>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, SearchSession> eldest) {
+                    return size() > MAX_SESSIONS;
+                }
+            });
+
+    /**
+     * Constructs a new {@code SearchServer} bound to the specified
+     * {@code port} of the loopback interface. Server doesn't accept requests
+     * until it is {@link #start() started}.
+     *
+     * @param context
+     *            the context of the search engine
+     * @param port
+     *            the port; {@code 0} for any free port
+     * @param workers
+     *            the number of worker threads
+     * @throws NullPointerException
+     *             if parameter {@code context} is a {@code null} reference
+     * @throws IllegalArgumentException
+     *             if the {@code port} is outside of the range of valid ports;
+     *             <br>
+     *             if the number of {@code workers} isn't positive
+     * @throws IOException
+     *             if the server cannot be bound to the port
+     */
+    public SearchServer(SearchContext context, int port, int workers) throws IOException {
+        this.context = Objects.requireNonNull(context, "Cannot serve null reference as a search context.");
+        if (port < 0 || port > 0xFFFF)
+            throw new IllegalArgumentException("Port must be between 0 and 65535. You provided: " + port + ".");
+        if (workers < 1)
+            throw new IllegalArgumentException("Number of workers must be positive. You provided: " + workers + ".");
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.workers = Executors.newFixedThreadPool(workers, new WorkerFactory());
+
+        server.setExecutor(this.workers);
+        server.createContext("/query", exchange -> handle(exchange, this::query));
+        server.createContext("/results", exchange -> handle(exchange, this::results));
+        server.createContext("/document", exchange -> handle(exchange, this::document));
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Returns the address the server is bound to.
+     *
+     * @return the address of the server
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Stops accepting requests, waits at most {@value #CLOSE_DELAY} seconds
+     * for the requests that are being handled and stops the worker threads.
+     */
+    @Override
+    public void close() {
+        server.stop(CLOSE_DELAY);
+        workers.shutdown();
+        try {
+            workers.awaitTermination(CLOSE_DELAY, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Handles the query request.
+     *
+     * @param exchange
+     *            the exchange
+     * @param parameters
+     *            the query parameters
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    private void query(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        String q = parameters.get("q");
+        String[] query = q == null ? new String[0] : q.trim().split("\\s+");
+        if (query.length == 0 || query[0].isEmpty())
+            throw new IllegalArgumentException("Parameter 'q' must contain at least one word.");
+
+        int k = DEFAULT_RESULT_COUNT;
+        if (parameters.containsKey("k")) {
+            k = parseInt(parameters, "k");
+            if (k < 1 || k > MAX_RESULT_COUNT)
+                throw new IllegalArgumentException(
+                        "Parameter 'k' must be between 1 and " + MAX_RESULT_COUNT + ". You provided: " + k + ".");
+        }
+
+        List<SearchResult> results;
+        String id = parameters.get("session");
+        if (id != null) {
+            SearchSession session = sessions.computeIfAbsent(id, key -> new SearchSession(context));
+            synchronized (session) {
+                results = session.query(query, k);
+            }
+        } else {
+            results = context.search(query, k);
+        }
+
+        send(exchange, 200, "application/json", Json.appendResults(new StringBuilder(), results).toString());
+    }
+
+    /**
+     * Handles the results request.
+     *
+     * @param exchange
+     *            the exchange
+     * @param parameters
+     *            the query parameters
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    private void results(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        SearchSession session = getSession(exchange, parameters);
+        if (session == null)
+            return;
+
+        List<SearchResult> results;
+        synchronized (session) {
+            results = session.getResults();
+        }
+        send(exchange, 200, "application/json", Json.appendResults(new StringBuilder(), results).toString());
+    }
+
+    /**
+     * Handles the document request.
+     *
+     * @param exchange
+     *            the exchange
+     * @param parameters
+     *            the query parameters
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    private void document(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        SearchSession session = getSession(exchange, parameters);
+        if (session == null)
+            return;
+
+        int index = parseInt(parameters, "index");
+        int from = parameters.containsKey("from") ? parseInt(parameters, "from") : 1;
+        int count = parameters.containsKey("count") ? parseInt(parameters, "count") : Integer.MAX_VALUE;
+        if (from < 1 || count < 1)
+            throw new IllegalArgumentException("Parameters 'from' and 'count' must be positive.");
+
+        Path path;
+        synchronized (session) {
+            List<SearchResult> results = session.getResults();
+            if (index < 0 || index >= results.size()) {
+                send(exchange, 404, "text/plain; charset=utf-8", "There is no search result with index " + index + ".");
+                return;
+            }
+            path = results.get(index).getPath();
+        }
+
+        // the document is mapped before the headers are sent, so the failure
+        // to read it can still be answered with an error status code
+        DocumentPager pager;
+        try {
+            pager = DocumentPager.open(path);
+        } catch (NoSuchFileException e) {
+            send(exchange, 404, "text/plain; charset=utf-8", "Document " + path + " no longer exists.");
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer output = new BufferedWriter(
+                new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+            pager.write(from, count, output);
+        }
+    }
+
+    /**
+     * Returns the session specified by the {@code session} parameter. If there
+     * is no such session, answers the request with status code {@code 404}.
+     *
+     * @param exchange
+     *            the exchange
+     * @param parameters
+     *            the query parameters
+     * @return the session or {@code null} if there is no such session
+     * @throws IllegalArgumentException
+     *             if the {@code session} parameter is missing
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    private SearchSession getSession(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        String id = parameters.get("session");
+        if (id == null)
+            throw new IllegalArgumentException("Parameter 'session' is required.");
+
+        SearchSession session = sessions.get(id);
+        if (session == null) {
+            send(exchange, 404, "text/plain; charset=utf-8", "There is no session " + id + ".");
+        }
+        return session;
+    }
+
+    /**
+     * Parses the query string of the request, runs the {@code handler} and
+     * answers with an error status code if the request is invalid or handler
+     * fails.
+     *
+     * @param exchange
+     *            the exchange
+     * @param handler
+     *            the handler of the request
+     */
+    private static void handle(HttpExchange exchange, Handler handler) {
+        try {
+            try {
+                if (!exchange.getRequestMethod().equals("GET")) {
+                    exchange.getResponseHeaders().set("Allow", "GET");
+                    send(exchange, 405, "text/plain; charset=utf-8", "Only GET requests are supported.");
+                    return;
+                }
+                handler.handle(exchange, parseQuery(exchange.getRequestURI().getRawQuery()));
+            } catch (IllegalArgumentException e) {
+                send(exchange, 400, "text/plain; charset=utf-8", e.getMessage());
+            } catch (RuntimeException | IOException e) {
+                send(exchange, 500, "text/plain; charset=utf-8", "Request failed: " + e.getMessage());
+            }
+        } catch (IOException ignore) {
+            // response cannot be sent, the client will see the closed connection
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Sends the response with specified status code and body.
+     *
+     * @param exchange
+     *            the exchange
+     * @param status
+     *            the status code
+     * @param contentType
+     *            the content type of the body
+     * @param body
+     *            the body
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length != 0 ? bytes.length : -1);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    /**
+     * Parses the raw query string into a map of decoded parameters. If a
+     * parameter is repeated its last value is used.
+     *
+     * @param query
+     *            the raw query string; may be {@code null}
+     * @return the parameters
+     * @throws IllegalArgumentException
+     *             if the query string cannot be decoded
+     */
+    static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null || query.isEmpty())
+            return parameters;
+
+        try {
+            for (String pair : query.split("&")) {
+                if (pair.isEmpty())
+                    continue;
+
+                int eq = pair.indexOf('=');
+                String name = eq < 0 ? pair : pair.substring(0, eq);
+                String value = eq < 0 ? "" : pair.substring(eq + 1);
+                parameters.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return parameters;
+    }
+
+    /**
+     * Parses the specified parameter as an integer.
+     *
+     * @param parameters
+     *            the parameters
+     * @param name
+     *            the name of the parameter
+     * @return the parsed value
+     * @throws IllegalArgumentException
+     *             if the parameter is missing or it isn't an integer
+     */
+    private static int parseInt(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null)
+            throw new IllegalArgumentException("Parameter '" + name + "' is required.");
+
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    "Parameter '" + name + "' must be an integer. You provided: " + value + ".", e);
+        }
+    }
+
+    /**
+     * {@code Handler} is a functional interface that handles a request with
+     * parsed query parameters.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    @FunctionalInterface
+    private interface Handler {
+
+        /**
+         * Handles the request.
+         *
+         * @param exchange
+         *            the exchange
+         * @param parameters
+         *            the query parameters
+         * @throws IOException
+         *             if an I/O error occurs
+         */
+        void handle(HttpExchange exchange, Map<String, String> parameters) throws IOException;
+    }
+
+    /**
+     * {@code WorkerFactory} is a thread factory that creates named worker
+     * threads.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    private static class WorkerFactory implements ThreadFactory {
+
+        /** Number of created threads. */
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            return new Thread(r, "search-worker-" + count.incrementAndGet());
+        }
+    }
+}
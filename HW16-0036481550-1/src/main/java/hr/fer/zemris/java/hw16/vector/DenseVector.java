@@ -0,0 +1,279 @@
+package hr.fer.zemris.java.hw16.vector;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * {@code DenseVector} class represents vectors of a fixed size backed by a
+ * primitive {@code double} array.
+ * <p>
+ * Unlike {@link Vector} this class doesn't box its elements and isn't
+ * synchronized. Methods {@link #axpy(double, DenseVector)} and
+ * {@link #scale(double)} modify {@code this} vector in place so no temporary
+ * vectors are allocated during the calculations.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see Vector
+ */
+public class DenseVector {
+
+    /** Elements of this vector. */
+    private final double[] elements;
+
+    /**
+     * Constructs a new {@code DenseVector} of the specified {@code size} with
+     * all elements set to zero.
+     *
+     * @param size
+     *            the size of the vector
+     * @throws IllegalArgumentException
+     *             if the specified size is negative
+     */
+    public DenseVector(int size) {
+        if (size < 0)
+            throw new IllegalArgumentException("Size of the vector cannot be a negative number. It was: " + size + ".");
+
+        this.elements = new double[size];
+    }
+
+    /**
+     * Constructs a new {@code DenseVector} containing a copy of the specified
+     * {@code elements}.
+     *
+     * @param elements
+     *            the elements of the vector
+     * @throws NullPointerException
+     *             if parameter {@code elements} is a {@code null} reference
+     */
+    public DenseVector(double... elements) {
+        Objects.requireNonNull(elements, "Cannot instantiate DenseVector with null reference as elements.");
+        this.elements = elements.clone();
+    }
+
+    /**
+     * Constructs a new {@code DenseVector} containing the elements of the
+     * specified {@link Vector}.
+     *
+     * @param vector
+     *            the vector whose elements are to be copied
+     * @throws NullPointerException
+     *             if parameter {@code vector} is a {@code null} reference
+     */
+    public DenseVector(Vector vector) {
+        Objects.requireNonNull(vector, "Cannot instantiate DenseVector with null reference as a vector.");
+        this.elements = new double[vector.size()];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = vector.get(i);
+        }
+    }
+
+    /**
+     * Returns the number of elements in this vector.
+     *
+     * @return the number of elements in this vector
+     */
+    public int size() {
+        return elements.length;
+    }
+
+    /**
+     * Returns the element at the specified position in this vector.
+     *
+     * @param index
+     *            index of the element to return
+     * @return the element at the specified position
+     * @throws ArrayIndexOutOfBoundsException
+     *             if the index is out of range
+     */
+    public double get(int index) {
+        return elements[index];
+    }
+
+    /**
+     * Replaces the element at the specified position in this vector with the
+     * specified {@code value}.
+     *
+     * @param index
+     *            index of the element to replace
+     * @param value
+     *            the value to be stored at the specified position
+     * @throws ArrayIndexOutOfBoundsException
+     *             if the index is out of range
+     */
+    public void set(int index, double value) {
+        elements[index] = value;
+    }
+
+    /**
+     * Calculates the dot product between {@code this} and {@code that} vector.
+     *
+     * @param that
+     *            the other vector
+     * @return {@code this · that}
+     * @throws NullPointerException
+     *             if vector {@code that} is a {@code null} reference
+     * @throws VectorArithmeticException
+     *             if sizes of vectors {@code this} and {@code that} differ
+     */
+    public double dot(DenseVector that) {
+        checkSize(that, "dot product");
+
+        double[] a = this.elements;
+        double[] b = that.elements;
+        double result = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            result += a[i] * b[i];
+        }
+
+        return result;
+    }
+
+    /**
+     * Calculates the Euclidean norm (magnitude) of {@code this} vector.
+     *
+     * @return the norm of {@code this} vector
+     */
+    public double norm() {
+        double result = 0.0;
+        for (double e : elements) {
+            result += e * e;
+        }
+
+        return Math.sqrt(result);
+    }
+
+    /**
+     * Calculates the cosine of the angle between {@code this} and {@code that}
+     * vector. If any of the vectors has zero norm the result is {@code 0}.
+     *
+     * @param that
+     *            the other vector
+     * @return the cosine similarity of the vectors
+     * @throws NullPointerException
+     *             if vector {@code that} is a {@code null} reference
+     * @throws VectorArithmeticException
+     *             if sizes of vectors {@code this} and {@code that} differ
+     */
+    public double cosine(DenseVector that) {
+        double norms = this.norm() * that.norm();
+        return norms != 0.0 ? dot(that) / norms : 0.0;
+    }
+
+    /**
+     * Adds vector {@code x} multiplied by {@code alpha} to {@code this} vector
+     * in place ({@code this = this + alpha * x}).
+     *
+     * @param alpha
+     *            the scalar by which {@code x} is multiplied
+     * @param x
+     *            the vector to be added
+     * @return {@code this} vector
+     * @throws NullPointerException
+     *             if vector {@code x} is a {@code null} reference
+     * @throws VectorArithmeticException
+     *             if sizes of vectors {@code this} and {@code x} differ
+     */
+    public DenseVector axpy(double alpha, DenseVector x) {
+        checkSize(x, "axpy");
+
+        double[] a = this.elements;
+        double[] b = x.elements;
+        for (int i = 0; i < a.length; i++) {
+            a[i] += alpha * b[i];
+        }
+
+        return this;
+    }
+
+    /**
+     * Multiplies every element of {@code this} vector by {@code alpha} in
+     * place.
+     *
+     * @param alpha
+     *            the scalar
+     * @return {@code this} vector
+     */
+    public DenseVector scale(double alpha) {
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] *= alpha;
+        }
+
+        return this;
+    }
+
+    /**
+     * Returns a copy of {@code this} vector.
+     *
+     * @return a copy of {@code this} vector
+     */
+    public DenseVector copy() {
+        return new DenseVector(elements);
+    }
+
+    /**
+     * Returns a copy of the elements of this vector.
+     *
+     * @return a copy of the elements of this vector
+     */
+    public double[] toArray() {
+        return elements.clone();
+    }
+
+    /**
+     * Converts {@code this} vector to a {@link Vector}.
+     *
+     * @return the {@link Vector} with the same elements
+     */
+    public Vector toVector() {
+        Vector vector = new Vector(elements.length);
+        for (int i = 0; i < elements.length; i++) {
+            vector.set(i, elements[i]);
+        }
+
+        return vector;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(elements);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        DenseVector other = (DenseVector) obj;
+        return Arrays.equals(elements, other.elements);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(elements);
+    }
+
+    /**
+     * Checks that vector {@code that} isn't {@code null} and that it has the
+     * same size as {@code this} vector.
+     *
+     * @param that
+     *            the other vector
+     * @param operationName
+     *            the name of the operation; used in exception messages
+     * @throws NullPointerException
+     *             if vector {@code that} is a {@code null} reference
+     * @throws VectorArithmeticException
+     *             if sizes of vectors {@code this} and {@code that} differ
+     */
+    private void checkSize(DenseVector that, String operationName) {
+        Objects.requireNonNull(that, "Cannot perform " + operationName + " on null reference as a vector.");
+
+        if (this.elements.length != that.elements.length)
+            throw new VectorArithmeticException(
+                    "Can't perform " + operationName + " on two vectors of different size.");
+    }
+}
@@ -0,0 +1,307 @@
+package hr.fer.zemris.java.hw16.vector;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * {@code SparseVector} class represents vectors where most of the elements are
+ * zero. Only non-zero elements are stored as a sorted array of indices and a
+ * parallel array of values.
+ * <p>
+ * This class is immutable. Its norm is calculated when it is constructed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see DenseVector
+ */
+public class SparseVector {
+
+    /** Size of this vector, including the zero elements. */
+    private final int size;
+    /** Indices of stored elements in ascending order. */
+    private final int[] indices;
+    /** Values of stored elements. */
+    private final double[] values;
+    /** Norm of this vector. */
+    private final double norm;
+
+    /**
+     * Constructs a new {@code SparseVector} of the specified {@code size} with
+     * the elements specified by {@code indices} and {@code values}. Indices
+     * don't have to be sorted.
+     *
+     * @param size
+     *            the size of the vector
+     * @param indices
+     *            the indices of the stored elements
+     * @param values
+     *            the values of the stored elements
+     * @throws NullPointerException
+     *             if parameters {@code indices} or {@code values} are a
+     *             {@code null} reference
+     * @throws IllegalArgumentException
+     *             if the arrays have different lengths, if an index is out of
+     *             range or if some index is repeated
+     */
+    public SparseVector(int size, int[] indices, double[] values) {
+        Objects.requireNonNull(indices, "Cannot instantiate SparseVector with null reference as indices.");
+        Objects.requireNonNull(values, "Cannot instantiate SparseVector with null reference as values.");
+        if (size < 0)
+            throw new IllegalArgumentException("Size of the vector cannot be a negative number. It was: " + size + ".");
+        if (indices.length != values.length)
+            throw new IllegalArgumentException("Indices and values must have the same length.");
+
+        this.size = size;
+        this.indices = indices.clone();
+        this.values = values.clone();
+
+        if (!isSorted(this.indices))
+            sort(this.indices, this.values);
+
+        for (int i = 0; i < this.indices.length; i++) {
+            if (this.indices[i] < 0 || this.indices[i] >= size)
+                throw new IllegalArgumentException("Index " + this.indices[i] + " is out of range.");
+            if (i > 0 && this.indices[i] == this.indices[i - 1])
+                throw new IllegalArgumentException("Index " + this.indices[i] + " is repeated.");
+        }
+
+        double sum = 0.0;
+        for (double v : this.values) {
+            sum += v * v;
+        }
+        this.norm = Math.sqrt(sum);
+    }
+
+    /**
+     * Returns the size of this vector, including the zero elements.
+     *
+     * @return the size of this vector
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of stored elements.
+     *
+     * @return the number of stored elements
+     */
+    public int nonZeroCount() {
+        return indices.length;
+    }
+
+    /**
+     * Returns the index of the {@code i}-th stored element.
+     *
+     * @param i
+     *            position of the stored element
+     * @return the index of the stored element
+     * @throws ArrayIndexOutOfBoundsException
+     *             if {@code i} is out of range
+     */
+    public int indexAt(int i) {
+        return indices[i];
+    }
+
+    /**
+     * Returns the value of the {@code i}-th stored element.
+     *
+     * @param i
+     *            position of the stored element
+     * @return the value of the stored element
+     * @throws ArrayIndexOutOfBoundsException
+     *             if {@code i} is out of range
+     */
+    public double valueAt(int i) {
+        return values[i];
+    }
+
+    /**
+     * Returns the element at the specified position in this vector.
+     *
+     * @param index
+     *            index of the element to return
+     * @return the element at the specified position
+     * @throws IndexOutOfBoundsException
+     *             if the index is out of range
+     */
+    public double get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " is out of range.");
+
+        int i = Arrays.binarySearch(indices, index);
+        return i >= 0 ? values[i] : 0.0;
+    }
+
+    /**
+     * Calculates the dot product between {@code this} and {@code that} vector
+     * by merging their sorted indices.
+     *
+     * @param that
+     *            the other vector
+     * @return {@code this · that}
+     * @throws NullPointerException
+     *             if vector {@code that} is a {@code null} reference
+     * @throws VectorArithmeticException
+     *             if sizes of vectors {@code this} and {@code that} differ
+     */
+    public double dot(SparseVector that) {
+        Objects.requireNonNull(that, "Cannot perform dot product on null reference as a vector.");
+        if (this.size != that.size)
+            throw new VectorArithmeticException("Can't perform dot product on two vectors of different size.");
+
+        int[] a = this.indices;
+        int[] b = that.indices;
+        double result = 0.0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result += this.values[i++] * that.values[j++];
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Calculates the dot product between {@code this} and {@code that} vector.
+     *
+     * @param that
+     *            the other vector
+     * @return {@code this · that}
+     * @throws NullPointerException
+     *             if vector {@code that} is a {@code null} reference
+     * @throws VectorArithmeticException
+     *             if sizes of vectors {@code this} and {@code that} differ
+     */
+    public double dot(DenseVector that) {
+        Objects.requireNonNull(that, "Cannot perform dot product on null reference as a vector.");
+        if (this.size != that.size())
+            throw new VectorArithmeticException("Can't perform dot product on two vectors of different size.");
+
+        double result = 0.0;
+        for (int i = 0; i < indices.length; i++) {
+            result += values[i] * that.get(indices[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the Euclidean norm (magnitude) of {@code this} vector.
+     *
+     * @return the norm of {@code this} vector
+     */
+    public double norm() {
+        return norm;
+    }
+
+    /**
+     * Calculates the cosine of the angle between {@code this} and {@code that}
+     * vector. If any of the vectors has zero norm the result is {@code 0}.
+     *
+     * @param that
+     *            the other vector
+     * @return the cosine similarity of the vectors
+     * @throws NullPointerException
+     *             if vector {@code that} is a {@code null} reference
+     * @throws VectorArithmeticException
+     *             if sizes of vectors {@code this} and {@code that} differ
+     */
+    public double cosine(SparseVector that) {
+        double norms = this.norm() * that.norm();
+        return norms != 0.0 ? dot(that) / norms : 0.0;
+    }
+
+    /**
+     * Converts {@code this} vector to a {@link DenseVector}.
+     *
+     * @return the {@link DenseVector} with the same elements
+     */
+    public DenseVector toDense() {
+        DenseVector vector = new DenseVector(size);
+        for (int i = 0; i < indices.length; i++) {
+            vector.set(indices[i], values[i]);
+        }
+
+        return vector;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + size;
+        result = prime * result + Arrays.hashCode(indices);
+        result = prime * result + Arrays.hashCode(values);
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        SparseVector other = (SparseVector) obj;
+        return size == other.size
+                && Arrays.equals(indices, other.indices)
+                && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("SparseVector [size=").append(size).append(", {");
+        for (int i = 0; i < indices.length; i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append(indices[i]).append('=').append(values[i]);
+        }
+        return sb.append("}]").toString();
+    }
+
+    /**
+     * Returns {@code true} if the specified array is sorted in ascending order.
+     *
+     * @param array
+     *            the array
+     * @return {@code true} if the array is sorted; {@code false} otherwise
+     */
+    private static boolean isSorted(int[] array) {
+        for (int i = 1; i < array.length; i++) {
+            if (array[i - 1] > array[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sorts the {@code indices} array in ascending order and reorders
+     * {@code values} array accordingly.
+     *
+     * @param indices
+     *            the indices
+     * @param values
+     *            the values
+     */
+    private static void sort(int[] indices, double[] values) {
+        long[] pairs = new long[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            pairs[i] = ((long) indices[i] << 32) | i;
+        }
+        Arrays.sort(pairs);
+
+        double[] copy = values.clone();
+        for (int i = 0; i < pairs.length; i++) {
+            indices[i] = (int) (pairs[i] >> 32);
+            values[i] = copy[(int) pairs[i]];
+        }
+    }
+}
@@ -226,7 +226,8 @@ public class Vector extends java.util.Vector<Double> {
      */
     public double magnitude() {
         double result = 0;
-        for (double e : toArray(new Double[1])) {
+        for (int i = 0, n = size(); i < n; i++) {
+            double e = get(i);
             result += e * e;
         }
         return Math.sqrt(result);
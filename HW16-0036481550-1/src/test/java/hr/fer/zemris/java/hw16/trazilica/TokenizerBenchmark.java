@@ -0,0 +1,139 @@
+package hr.fer.zemris.java.hw16.trazilica;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * {@code TokenizerBenchmark} is a JMH benchmark that compares the throughput
+ * of the {@link Tokenizer} with splitting lines by a regular expression.
+ * <p>
+ * Every operation tokenizes the whole {@code clanci} corpus, which is decoded
+ * into memory beforehand. Besides operations per second, the benchmark
+ * reports the {@code megabytes} counter, which is the throughput in MB of
+ * UTF-8 encoded text per second. Benchmark has to be run from the project
+ * directory.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenizerBenchmark {
+
+    /** Path of the corpus. */
+    private static final Path CORPUS = Paths.get("clanci");
+    /** Pattern that matches the separators between words. */
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}]+");
+
+    /** Lines of all documents. */
+    private List<String> lines;
+    /** Contents of all documents. */
+    private List<char[]> documents;
+    /** Size of the corpus in megabytes. */
+    private double megabytes;
+
+    /**
+     * Reads the corpus.
+     *
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    @Setup
+    public void setup() throws IOException {
+        lines = new ArrayList<>();
+        documents = new ArrayList<>();
+        long bytes = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(CORPUS)) {
+            for (Path file : stream) {
+                bytes += Files.size(file);
+                lines.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+                documents.add(new String(Files.readAllBytes(file), StandardCharsets.UTF_8).toCharArray());
+            }
+        }
+        megabytes = bytes / 1e6;
+    }
+
+    @Benchmark
+    public void regex(Throughput throughput, Blackhole blackhole) {
+        for (String line : lines) {
+            for (String word : SEPARATOR.split(line)) {
+                if (!word.isEmpty())
+                    blackhole.consume(word.toLowerCase());
+            }
+        }
+        throughput.megabytes += megabytes;
+    }
+
+    @Benchmark
+    public void tokenizer(Throughput throughput, Blackhole blackhole) {
+        Tokenizer tokenizer = new Tokenizer((chars, offset, length) -> blackhole.consume(length));
+        for (char[] document : documents) {
+            tokenizer.feed(document, 0, document.length);
+            tokenizer.finish();
+        }
+        throughput.megabytes += megabytes;
+    }
+
+    /**
+     * {@code Throughput} holds the counter of tokenized megabytes.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+
+        /** Number of tokenized megabytes. */
+        public double megabytes;
+
+        /**
+         * Resets the counter before every iteration.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+        }
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args
+     *            Command-line arguments; not used
+     * @throws RunnerException
+     *             if benchmark fails to run
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TokenizerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,111 @@
+package hr.fer.zemris.java.hw16.trazilica.commands;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * {@code PhraseQueryBenchmark} is a JMH benchmark that compares the latency
+ * of phrase queries with the latency of the same words queried as a bag of
+ * words.
+ * <p>
+ * The context of the {@code clanci} corpus stores positions of words and
+ * doesn't cache results. The {@code bagOfWords} benchmark evaluates the words
+ * of the queries without quotes, the {@code phrase} benchmark evaluates them
+ * as exact phrases and the {@code proximity} benchmark as phrases with slop
+ * {@code 5}. Benchmark has to be run from the project directory.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhraseQueryBenchmark {
+
+    /** Words of the queries used by the benchmark. */
+    private static final String[][] QUERIES = {
+            { "svjetsko", "prvenstvo" },
+            { "splitska", "banka" },
+            { "republike", "hrvatske" },
+            { "europsko", "prvenstvo" },
+            { "olimpijskim", "igrama" },
+            { "nogometnog", "saveza", "hrvatske" },
+    };
+
+    /** The context. */
+    private SearchContext context;
+    /** Queries of the {@code bagOfWords} benchmark. */
+    private String[][] bags;
+    /** Queries of the {@code phrase} benchmark. */
+    private String[][] phrases;
+    /** Queries of the {@code proximity} benchmark. */
+    private String[][] proximities;
+    /** Index of the next query. */
+    private int next;
+
+    /**
+     * Builds the positional context of the {@code clanci} corpus and the
+     * queries.
+     */
+    @Setup
+    public void setup() {
+        context = new SearchContext(Paths.get("clanci"), new SearchContext.Options().threads(1).positional(true));
+        context.getCache().setCapacity(0);
+
+        bags = QUERIES;
+        phrases = new String[QUERIES.length][];
+        proximities = new String[QUERIES.length][];
+        for (int i = 0; i < QUERIES.length; i++) {
+            String phrase = "\"" + String.join(" ", QUERIES[i]) + "\"";
+            phrases[i] = phrase.split(" ");
+            proximities[i] = (phrase + "~5").split(" ");
+        }
+    }
+
+    @Benchmark
+    public List<SearchResult> bagOfWords() {
+        return context.search(bags[next++ % bags.length], 10);
+    }
+
+    @Benchmark
+    public List<SearchResult> phrase() {
+        return context.search(phrases[next++ % phrases.length], 10);
+    }
+
+    @Benchmark
+    public List<SearchResult> proximity() {
+        return context.search(proximities[next++ % proximities.length], 10);
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args
+     *            Command-line arguments; not used
+     * @throws RunnerException
+     *             if benchmark fails to run
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PhraseQueryBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
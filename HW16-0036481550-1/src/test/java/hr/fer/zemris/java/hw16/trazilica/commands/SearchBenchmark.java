@@ -0,0 +1,118 @@
+package hr.fer.zemris.java.hw16.trazilica.commands;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * {@code SearchBenchmark} is a JMH benchmark that measures the throughput of
+ * queries evaluated concurrently against one shared {@link SearchContext}.
+ * <p>
+ * Every benchmark thread has its own {@link SearchSession} and cycles through
+ * a fixed set of queries. With {@code cache} {@code 0} every query is
+ * evaluated; otherwise all queries after the first round are answered from
+ * the {@link QueryCache}. The {@link #main(String[])} method runs the
+ * benchmark with 1, 2, 4 and 8 threads so the scaling can be compared.
+ * Benchmark has to be run from the project directory.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+    /** Queries used by the benchmark. */
+    private static final String[][] QUERIES = {
+            { "malta", "sport" },
+            { "svjetsko", "prvenstvo", "nogomet" },
+            { "adut", "kultura", "film" },
+            { "hrvatska", "vlada", "ministar" },
+            { "predsjednik", "izbori" },
+            { "utakmica" },
+    };
+
+    /** Capacity of the query result cache. */
+    @Param({ "0", "1024" })
+    private int cache;
+
+    /** The shared context. */
+    private SearchContext context;
+
+    /**
+     * Builds the context of the {@code clanci} corpus.
+     */
+    @Setup
+    public void setup() {
+        context = new SearchContext(Paths.get("clanci"));
+        context.getCache().setCapacity(cache);
+    }
+
+    @Benchmark
+    public List<SearchResult> query(Session session) {
+        String[] query = QUERIES[session.next++ % QUERIES.length];
+        return session.session.query(query, 10);
+    }
+
+    /**
+     * {@code Session} holds the search session of one benchmark thread.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    @State(Scope.Thread)
+    public static class Session {
+
+        /** The search session. */
+        private SearchSession session;
+        /** Index of the next query. */
+        private int next;
+
+        /**
+         * Creates the search session.
+         *
+         * @param benchmark
+         *            the benchmark state with the shared context
+         */
+        @Setup
+        public void setup(SearchBenchmark benchmark) {
+            session = new SearchSession(benchmark.context);
+        }
+    }
+
+    /**
+     * Runs the benchmark with 1, 2, 4 and 8 threads.
+     *
+     * @param args
+     *            Command-line arguments; not used
+     * @throws RunnerException
+     *             if benchmark fails to run
+     */
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[] { 1, 2, 4, 8 }) {
+            new Runner(new OptionsBuilder()
+                    .include(SearchBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build()).run();
+        }
+    }
+}
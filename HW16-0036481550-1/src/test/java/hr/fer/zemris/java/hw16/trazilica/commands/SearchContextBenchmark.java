@@ -0,0 +1,116 @@
+package hr.fer.zemris.java.hw16.trazilica.commands;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * {@code SearchContextBenchmark} is a JMH benchmark that measures the time
+ * needed to build a {@link SearchContext}.
+ * <p>
+ * The corpus is made of {@code scale} copies of the {@code clanci} directory
+ * so the startup time can be compared on corpora ten and a hundred times
+ * larger than {@code clanci} and with different numbers of threads. Benchmark
+ * has to be run from the project directory.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SearchContextBenchmark {
+
+    /** Path of the original corpus. */
+    private static final Path CORPUS = Paths.get("clanci");
+
+    /** Number of copies of the original corpus. */
+    @Param({ "1", "10", "100" })
+    private int scale;
+
+    /** Number of threads used to build the index. */
+    @Param({ "1", "4" })
+    private int threads;
+
+    /** Directory with the copies of the corpus. */
+    private Path directory;
+
+    /**
+     * Creates the directory with {@code scale} copies of the corpus.
+     *
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("clanci");
+        for (int i = 0; i < scale; i++) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(CORPUS)) {
+                for (Path file : stream) {
+                    Files.copy(file, directory.resolve(i + "-" + file.getFileName()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the directory with the copies of the corpus.
+     *
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> stream = Files.walk(directory)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.delete(p);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    public SearchContext build() {
+        return new SearchContext(directory, threads);
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args
+     *            Command-line arguments; not used
+     * @throws RunnerException
+     *             if benchmark fails to run
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SearchContextBenchmark.class.getSimpleName()).build()).run();
+    }
+}
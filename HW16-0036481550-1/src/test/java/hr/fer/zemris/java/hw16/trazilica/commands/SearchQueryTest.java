@@ -0,0 +1,154 @@
+package hr.fer.zemris.java.hw16.trazilica.commands;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * {@code SearchQueryTest} checks how {@link SearchQuery} parses operators,
+ * groups and phrases and how it normalizes the words of clauses.
+ * <p>
+ * Clauses are compared by their string form: {@code +} or {@code -} followed
+ * by a word, a phrase or a group of them in parentheses.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class SearchQueryTest extends TestCase {
+
+    public void testPlainQuery() {
+        SearchQuery query = parse("Film kino");
+        assertTrue(query.isPlain());
+        assertWords(query, "Film", "kino");
+    }
+
+    public void testOperatorsApplyToOneWord() {
+        SearchQuery query = parse("+film -kino kazalište");
+        assertClauses(query, "+film", "-kino");
+        assertWords(query, "film", "kazalište");
+    }
+
+    public void testOperatorsApplyToWholeGroup() {
+        SearchQuery query = parse("+(film kino) -(kazalište opera) glazba");
+        assertClauses(query, "+(film kino)", "-(kazalište opera)");
+        assertWords(query, "film", "kino", "glazba");
+    }
+
+    public void testGroupWithoutOperatorOnlyRanks() {
+        SearchQuery query = parse("(film kino) -opera");
+        assertClauses(query, "-opera");
+        assertWords(query, "film", "kino");
+    }
+
+    public void testPhraseIsRequiredWithoutOperator() {
+        SearchQuery query = parse("\"svjetsko prvenstvo\" nogomet");
+        assertClauses(query, "+\"svjetsko prvenstvo\"");
+        assertWords(query, "svjetsko", "prvenstvo", "nogomet");
+    }
+
+    public void testExcludedPhraseDoesNotRank() {
+        SearchQuery query = parse("nogomet -\"svjetsko prvenstvo\"~3");
+        assertClauses(query, "-\"svjetsko prvenstvo\"~3");
+        assertWords(query, "nogomet");
+    }
+
+    public void testPhraseInsideGroup() {
+        SearchQuery query = parse("+(film \"Hrvatsko kazalište\"~2)");
+        assertClauses(query, "+(film \"hrvatsko kazalište\"~2)");
+        assertEquals(2, query.getClauses().get(0).getPhrases().get(0).getSlop());
+    }
+
+    public void testPhraseAndGroupEndWords() {
+        SearchQuery query = parse("+film\"kino opera\"(glazba)");
+        assertClauses(query, "+film", "+\"kino opera\"");
+        assertWords(query, "film", "kino", "opera", "glazba");
+    }
+
+    public void testGroupSpansArguments() {
+        SearchQuery query = SearchQuery.parse(new String[] { "+(film", "kino)", "-\"opera", "glazba\"" });
+        assertClauses(query, "+(film kino)", "-\"opera glazba\"");
+    }
+
+    public void testClauseWordsAreTokenized() {
+        assertClauses(parse("+Nogomet, -KINO!"), "+nogomet", "-kino");
+        assertWords(parse("+Nogomet, -KINO!"), "nogomet");
+        assertClauses(parse("+(Film, 12 kino)"), "+(film kino)");
+    }
+
+    public void testRequiredWordSplitsIntoRequiredWords() {
+        assertClauses(parse("+e-mail"), "+e", "+mail");
+        assertClauses(parse("-e-mail"), "-(e mail)");
+    }
+
+    public void testWildcardsAreKept() {
+        assertClauses(parse("+Film* -k?no"), "+film*", "-k?no");
+    }
+
+    public void testEqualQueriesAreEqual() {
+        assertEquals(parse("+(film kino) -\"a b\"~2").getClauses(), parse("+(Film kino)  -\"A b\"~2").getClauses());
+        assertEquals(parse("+(film kino)").getClauses().hashCode(), parse("+(Film kino)").getClauses().hashCode());
+        assertFalse(parse("+film").getClauses().equals(parse("-film").getClauses()));
+    }
+
+    public void testInvalidQueries() {
+        for (String text : new String[] { "+", "- film", "\"film kino", "+(film kino", "+(film (kino))", "()",
+                "film )", "\"\"", "\"film\"~x", "+123", "-(12 34)" }) {
+            try {
+                parse(text);
+                fail(text);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    public void testResultCountOption() {
+        assertEquals(5, SearchQuery.parseResultCount(new String[] { "-k", "5", "film" }));
+        assertEquals(5, SearchQuery.parseResultCount(new String[] { "-k", "+5" }));
+        // the excluded word k
+        assertEquals(0, SearchQuery.parseResultCount(new String[] { "-k", "film" }));
+        assertEquals(0, SearchQuery.parseResultCount(new String[] { "-k" }));
+        assertEquals(0, SearchQuery.parseResultCount(new String[] { "film", "-k", "5" }));
+        for (String count : new String[] { "0", "-3", "99999999999" }) {
+            try {
+                SearchQuery.parseResultCount(new String[] { "-k", count, "film" });
+                fail(count);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    /**
+     * Parses the query given as one argument.
+     *
+     * @param text
+     *            the text of the query
+     * @return the parsed query
+     */
+    private static SearchQuery parse(String text) {
+        return SearchQuery.parse(text.split(" "));
+    }
+
+    /**
+     * Checks the clauses of the query.
+     *
+     * @param query
+     *            the query
+     * @param expected
+     *            the string forms of the clauses
+     */
+    private static void assertClauses(SearchQuery query, String... expected) {
+        assertEquals(Arrays.toString(expected), query.getClauses().toString());
+    }
+
+    /**
+     * Checks the words of the query.
+     *
+     * @param query
+     *            the query
+     * @param expected
+     *            the words
+     */
+    private static void assertWords(SearchQuery query, String... expected) {
+        assertEquals(Arrays.toString(expected), Arrays.toString(query.getWords()));
+    }
+}
@@ -0,0 +1,118 @@
+package hr.fer.zemris.java.hw16.trazilica.commands;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import hr.fer.zemris.java.hw16.trazilica.Tokenizer;
+
+/**
+ * {@code SnippetBenchmark} is a JMH benchmark that measures the latency of
+ * creating the snippet of one search result.
+ * <p>
+ * Every invocation takes the next of the top 10 results of a fixed set of
+ * queries. The {@code snippet} benchmark creates its snippet from the
+ * forward index of the document; the {@code readAndTokenize} benchmark only
+ * reads and tokenizes the whole document, which is the least a snippet
+ * without the forward index would cost. Benchmark has to be run from the
+ * project directory.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnippetBenchmark {
+
+    /** Queries used by the benchmark. */
+    private static final String[][] QUERIES = {
+            { "malta", "sport" },
+            { "svjetsko", "prvenstvo", "nogomet" },
+            { "adut", "kultura", "film" },
+            { "hrvatska", "vlada", "ministar" },
+            { "predsjednik", "izbori" },
+            { "utakmica" },
+    };
+
+    /** The context. */
+    private SearchContext context;
+    /** Query of every result. */
+    private final List<String[]> queries = new ArrayList<>();
+    /** The results of all queries. */
+    private final List<SearchResult> results = new ArrayList<>();
+    /** Index of the next result. */
+    private int next;
+    /** Number of words found by the tokenizer. */
+    private int words;
+    /** Tokenizer of the baseline. */
+    private final Tokenizer tokenizer = new Tokenizer((chars, offset, length) -> words++);
+
+    /**
+     * Builds the context of the {@code clanci} corpus and evaluates the
+     * queries.
+     */
+    @Setup
+    public void setup() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        context = new SearchContext(Paths.get("clanci"), new SearchContext.Options().threads(threads).snippets(true));
+        for (String[] query : QUERIES) {
+            for (SearchResult result : context.search(query, 10)) {
+                queries.add(query);
+                results.add(result);
+            }
+        }
+    }
+
+    @Benchmark
+    public Snippet snippet() {
+        int i = next++ % results.size();
+        return context.getSnippet(queries.get(i), results.get(i));
+    }
+
+    @Benchmark
+    public int readAndTokenize() throws IOException {
+        SearchResult result = results.get(next++ % results.size());
+        words = 0;
+        try (Reader reader = Files.newBufferedReader(result.getPath(), StandardCharsets.UTF_8)) {
+            tokenizer.tokenize(reader);
+        }
+        return words;
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args
+     *            Command-line arguments; not used
+     * @throws RunnerException
+     *             if benchmark fails to run
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SnippetBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,207 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import hr.fer.zemris.java.hw16.vector.SparseVector;
+
+/**
+ * {@code BooleanQueryBenchmark} is a JMH benchmark that compares top 10
+ * queries whose terms are all optional with the same queries whose
+ * {@code required} rarest terms have to occur in the selected documents.
+ * <p>
+ * The index is a synthetic corpus of {@code documents} documents whose words
+ * follow Zipf's law over a dictionary of {@value #TERM_COUNT} terms, like the
+ * one of {@link TopKSearchBenchmark}. Every query has {@value #LENGTH}
+ * distinct terms. The {@code bagOfWords} benchmark evaluates a query with
+ * MaxScore; the {@code required} benchmark intersects the
+ * {@link InvertedIndex#getDocuments(int) document sets} of the required terms
+ * and scores only the remaining candidates. When the index is built, the
+ * benchmark checks that the candidates are ranked the same as by exhaustive
+ * scoring and prints the average number of candidates per query.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class BooleanQueryBenchmark {
+
+    /** Number of terms in the dictionary. */
+    private static final int TERM_COUNT = 20000;
+    /** Number of queries. */
+    private static final int QUERY_COUNT = 64;
+    /** Number of terms in a query. */
+    private static final int LENGTH = 4;
+    /** Number of selected documents. */
+    private static final int K = 10;
+
+    /** Number of documents. */
+    @Param({ "10000", "50000" })
+    private int documents;
+
+    /** Number of required terms in a query. */
+    @Param({ "1", "2" })
+    private int required;
+
+    /** The index. */
+    private InvertedIndex index;
+    /** Query vectors of the queries. */
+    private SparseVector[] queries;
+    /** IDs of the required terms of every query. */
+    private int[][] requiredTerms;
+    /** Index of the next query. */
+    private int next;
+
+    /**
+     * Builds the synthetic index and the queries.
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        String[] terms = new String[TERM_COUNT];
+        double[] cumulative = new double[TERM_COUNT];
+        double sum = 0.0;
+        for (int rank = 0; rank < TERM_COUNT; rank++) {
+            terms[rank] = String.format("t%05d", rank);
+            sum += 1.0 / (rank + 1);
+            cumulative[rank] = sum;
+        }
+
+        List<DocumentInfo> infos = new ArrayList<>(documents);
+        List<SparseVector> vectors = new ArrayList<>(documents);
+        int[] counts = new int[TERM_COUNT];
+        for (int docId = 0; docId < documents; docId++) {
+            int words = 50 + random.nextInt(250);
+            for (int i = 0; i < words; i++) {
+                int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+                counts[rank < 0 ? -rank - 1 : rank]++;
+            }
+            infos.add(new DocumentInfo(Paths.get("document" + docId), words, 0));
+            vectors.add(vector(counts));
+            Arrays.fill(counts, 0);
+        }
+        index = new InvertedIndex(terms, infos, vectors);
+
+        queries = new SparseVector[QUERY_COUNT];
+        requiredTerms = new int[QUERY_COUNT][];
+        long candidates = 0;
+        for (int q = 0; q < QUERY_COUNT; q++) {
+            int[] queryTerms = new int[LENGTH];
+            for (int i = 0; i < LENGTH;) {
+                int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+                rank = rank < 0 ? -rank - 1 : rank;
+                if (rank >= 10 && rank < 1000 && counts[rank] == 0) {
+                    counts[rank] = 1;
+                    queryTerms[i++] = rank;
+                }
+            }
+            queries[q] = index.getQueryVector(vector(counts));
+            Arrays.fill(counts, 0);
+
+            // terms with higher ranks are rarer
+            Arrays.sort(queryTerms);
+            requiredTerms[q] = Arrays.copyOfRange(queryTerms, LENGTH - required, LENGTH);
+            DocIdSet set = candidates(requiredTerms[q]);
+            candidates += set.size();
+
+            TopK top = index.search(queries[q], K, set);
+            TopK all = index.searchExhaustive(queries[q], documents);
+            for (int rank = 0, selected = 0; rank < all.size() && selected < K; rank++) {
+                if (!set.contains(all.docId(rank)))
+                    continue;
+                if (selected >= top.size() || top.docId(selected) != all.docId(rank)
+                        || top.score(selected) != all.score(rank))
+                    throw new IllegalStateException("Results of candidates differ from exhaustive results.");
+                selected++;
+            }
+        }
+        System.out.printf("%ncandidates per query: %d of %d documents%n", candidates / QUERY_COUNT, documents);
+    }
+
+    @Benchmark
+    public TopK bagOfWords() {
+        return index.search(queries[next++ % QUERY_COUNT], K);
+    }
+
+    @Benchmark
+    public TopK required() {
+        int q = next++ % QUERY_COUNT;
+        return index.search(queries[q], K, candidates(requiredTerms[q]));
+    }
+
+    /**
+     * Returns the documents that contain all of the specified {@code terms}.
+     *
+     * @param terms
+     *            the IDs of the required terms
+     * @return the candidates
+     */
+    private DocIdSet candidates(int[] terms) {
+        DocIdSet candidates = index.getDocuments(terms[0]);
+        for (int i = 1; i < terms.length; i++) {
+            candidates = candidates.and(index.getDocuments(terms[i]));
+        }
+        return candidates;
+    }
+
+    /**
+     * Returns the sparse vector of the non-zero {@code counts}.
+     *
+     * @param counts
+     *            the counts indexed by term ID
+     * @return the sparse vector
+     */
+    private static SparseVector vector(int[] counts) {
+        int nonZero = 0;
+        for (int count : counts) {
+            if (count != 0)
+                nonZero++;
+        }
+
+        int[] indices = new int[nonZero];
+        double[] values = new double[nonZero];
+        for (int term = 0, i = 0; term < counts.length; term++) {
+            if (counts[term] != 0) {
+                indices[i] = term;
+                values[i++] = counts[term];
+            }
+        }
+        return new SparseVector(counts.length, indices, values);
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args
+     *            Command-line arguments; not used
+     * @throws RunnerException
+     *             if benchmark fails to run
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BooleanQueryBenchmark.class.getSimpleName()).build()).run();
+    }
+}
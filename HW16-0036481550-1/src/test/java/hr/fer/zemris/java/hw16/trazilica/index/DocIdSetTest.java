@@ -0,0 +1,135 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+
+/**
+ * {@code DocIdSetTest} checks the galloping intersection and difference of
+ * {@link DocIdSet}s and their union against the same operations on
+ * {@link TreeSet}s, for sets of very different sizes and densities.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class DocIdSetTest extends TestCase {
+
+    public void testFixedSets() {
+        DocIdSet a = DocIdSet.of(1, 3, 5, 7, 9, 11);
+        DocIdSet b = DocIdSet.of(0, 3, 4, 9, 12);
+        assertIds(a.and(b), 3, 9);
+        assertIds(b.and(a), 3, 9);
+        assertIds(a.andNot(b), 1, 5, 7, 11);
+        assertIds(b.andNot(a), 0, 4, 12);
+        assertIds(a.or(b), 0, 1, 3, 4, 5, 7, 9, 11, 12);
+    }
+
+    public void testEmptySets() {
+        DocIdSet a = DocIdSet.of(1, 2, 3);
+        assertTrue(a.and(DocIdSet.EMPTY).isEmpty());
+        assertTrue(DocIdSet.EMPTY.and(a).isEmpty());
+        assertSame(a, a.andNot(DocIdSet.EMPTY));
+        assertTrue(DocIdSet.EMPTY.andNot(a).isEmpty());
+        assertSame(a, a.or(DocIdSet.EMPTY));
+    }
+
+    public void testGallopingPastTheEnd() {
+        DocIdSet large = DocIdSet.all(1000);
+        // IDs before, at and after the ends of the larger set
+        DocIdSet small = DocIdSet.of(0, 1, 511, 512, 999, 1000, 5000);
+        assertIds(small.and(large), 0, 1, 511, 512, 999);
+        assertIds(large.and(small), 0, 1, 511, 512, 999);
+        assertIds(small.andNot(large), 1000, 5000);
+        assertEquals(995, large.andNot(small).size());
+        assertFalse(large.andNot(small).contains(512));
+    }
+
+    public void testDisjointAndEqualSets() {
+        DocIdSet even = DocIdSet.of(0, 2, 4, 6);
+        DocIdSet odd = DocIdSet.of(1, 3, 5, 7);
+        assertTrue(even.and(odd).isEmpty());
+        assertSame(even, even.andNot(odd));
+        assertEquals(even, even.and(DocIdSet.of(0, 2, 4, 6)));
+        assertTrue(even.andNot(DocIdSet.of(0, 2, 4, 6)).isEmpty());
+    }
+
+    public void testRandomSets() {
+        Random random = new Random(42);
+        int[] sizes = { 1, 2, 10, 100, 1000, 5000 };
+        for (int first : sizes) {
+            for (int second : sizes) {
+                TreeSet<Integer> a = random(random, first, 20_000);
+                TreeSet<Integer> b = random(random, second, 20_000);
+                DocIdSet x = set(a);
+                DocIdSet y = set(b);
+
+                TreeSet<Integer> expected = new TreeSet<>(a);
+                expected.retainAll(b);
+                assertEquals(set(expected), x.and(y));
+                assertEquals(set(expected), y.and(x));
+
+                expected = new TreeSet<>(a);
+                expected.removeAll(b);
+                assertEquals(set(expected), x.andNot(y));
+
+                expected = new TreeSet<>(a);
+                expected.addAll(b);
+                assertEquals(set(expected), x.or(y));
+            }
+        }
+    }
+
+    public void testInvalidIds() {
+        for (int[] docIds : new int[][] { { 1, 1 }, { 2, 1 }, { -1, 0 } }) {
+            try {
+                DocIdSet.of(docIds);
+                fail(Arrays.toString(docIds));
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    /**
+     * Checks the IDs of the set.
+     *
+     * @param set
+     *            the set
+     * @param expected
+     *            the IDs in ascending order
+     */
+    private static void assertIds(DocIdSet set, int... expected) {
+        assertEquals(Arrays.toString(expected), Arrays.toString(set.toArray()));
+    }
+
+    /**
+     * Returns the random set of the specified size.
+     *
+     * @param random
+     *            the random number generator
+     * @param size
+     *            the size of the set
+     * @param bound
+     *            the bound of the IDs
+     * @return the set
+     */
+    private static TreeSet<Integer> random(Random random, int size, int bound) {
+        TreeSet<Integer> set = new TreeSet<>();
+        while (set.size() < size) {
+            set.add(random.nextInt(bound));
+        }
+        return set;
+    }
+
+    /**
+     * Returns the {@code DocIdSet} of the IDs in the specified set.
+     *
+     * @param set
+     *            the set
+     * @return the document ID set
+     */
+    private static DocIdSet set(TreeSet<Integer> set) {
+        return DocIdSet.of(set.stream().mapToInt(Integer::intValue).toArray());
+    }
+}
@@ -0,0 +1,208 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import hr.fer.zemris.java.hw16.trazilica.commands.SearchContext;
+import junit.framework.TestCase;
+
+/**
+ * {@code IncrementalIndexTest} checks that files added, replaced and deleted
+ * through {@link SearchContext#update(Path)}, {@link SearchContext#delete(Path)}
+ * and {@link SearchContext#refresh()} update the document frequencies and the
+ * results of queries exactly like building the {@link IncrementalIndex} of
+ * the directory again.
+ * <p>
+ * Every test works in its own temporary directory, which holds the index file
+ * and the {@code clanci} directory with a few text files. Documents have
+ * different similarities for every query, so their order doesn't depend on
+ * document IDs.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class IncrementalIndexTest extends TestCase {
+
+    /** Words of the queries. */
+    private static final String[] WORDS = { "film", "glazba", "kino", "knjiga", "nogomet", "opera" };
+
+    /** The temporary directory. */
+    private Path directory;
+    /** The directory with text files. */
+    private Path corpus;
+    /** The index file. */
+    private Path indexFile;
+    /** The context that receives the updates. */
+    private SearchContext context;
+
+    @Override
+    protected void setUp() throws IOException {
+        directory = Files.createTempDirectory("trazilica");
+        corpus = Files.createDirectory(directory.resolve("clanci"));
+        indexFile = directory.resolve("index.bin");
+        write("a.txt", "film kino kino");
+        write("b.txt", "film glazba glazba glazba nogomet");
+        write("c.txt", "knjiga film knjiga");
+        context = SearchContext.open(corpus, indexFile, options());
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        try (Stream<Path> stream = Files.walk(directory)) {
+            for (Path path : stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    public void testAdd() throws IOException {
+        assertEquals(0, frequency("opera"));
+        assertEquals(3, frequency("film"));
+
+        assertTrue(context.update(write("d.txt", "opera film opera")));
+        assertEquals(1, frequency("opera"));
+        assertEquals(4, frequency("film"));
+        assertEquals(corpus.resolve("d.txt"), context.search(new String[] { "opera" }, 10).get(0).getPath());
+        assertRebuilt();
+    }
+
+    public void testReplace() throws IOException {
+        assertEquals(1, frequency("kino"));
+
+        assertTrue(context.update(write("a.txt", "opera nogomet nogomet film opera opera")));
+        assertFalse(context.getTermIndices().containsKey("kino"));
+        assertEquals(1, frequency("opera"));
+        assertEquals(2, frequency("nogomet"));
+        assertEquals(3, frequency("film"));
+        assertTrue(context.search(new String[] { "kino" }, 10).isEmpty());
+        assertRebuilt();
+    }
+
+    public void testDelete() throws IOException {
+        Path file = corpus.resolve("b.txt");
+        Files.delete(file);
+
+        assertTrue(context.delete(file));
+        assertFalse(context.getTermIndices().containsKey("glazba"));
+        assertEquals(2, frequency("film"));
+        assertFalse(context.delete(file));
+        assertRebuilt();
+    }
+
+    public void testRefresh() throws IOException {
+        write("d.txt", "opera kino");
+        write("c.txt", "knjiga knjiga glazba opera");
+        Files.delete(corpus.resolve("a.txt"));
+
+        assertTrue(context.refresh());
+        assertEquals(2, frequency("opera"));
+        assertEquals(1, frequency("kino"));
+        assertEquals(1, frequency("film"));
+        assertEquals(2, frequency("glazba"));
+        assertRebuilt();
+        assertFalse(context.refresh());
+    }
+
+    public void testUnchangedFileIsIgnored() throws IOException {
+        Path file = corpus.resolve("a.txt");
+        assertFalse(context.update(file));
+
+        // the same size and modification time
+        FileTime lastModified = Files.getLastModifiedTime(file);
+        write("a.txt", "opera nogomet.");
+        Files.setLastModifiedTime(file, lastModified);
+        assertFalse(context.update(file));
+        assertEquals(0, frequency("opera"));
+    }
+
+    public void testUpdatesAreStored() throws IOException {
+        context.update(write("d.txt", "opera film opera"));
+        context.delete(Files.move(corpus.resolve("c.txt"), corpus.resolve("c.old")));
+        context.refresh();
+
+        Files.setLastModifiedTime(indexFile, FileTime.fromMillis(0));
+        SearchContext reopened = SearchContext.open(corpus, indexFile, options());
+        assertEquals(0, Files.getLastModifiedTime(indexFile).toMillis());
+        assertEquals(results(context), results(reopened));
+    }
+
+    /**
+     * Checks that the context has the same dictionary, document frequencies
+     * and results as the context built from the current content of the
+     * directory. Terms that no document contains any more are dropped from
+     * the dictionary.
+     */
+    private void assertRebuilt() {
+        SearchContext rebuilt = new SearchContext(corpus, options());
+        assertEquals(rebuilt.getTermIndices().keySet(), context.getTermIndices().keySet());
+        for (Map.Entry<String, Integer> term : rebuilt.getTermIndices().entrySet()) {
+            assertEquals(term.getKey(), rebuilt.getDocumentFrequency(term.getValue()), frequency(term.getKey()));
+        }
+        assertEquals(results(rebuilt), results(context));
+    }
+
+    /**
+     * Returns the document frequency of the specified {@code term} in the
+     * context; {@code 0} if the term isn't in its dictionary.
+     *
+     * @param term
+     *            the term
+     * @return the document frequency
+     */
+    private int frequency(String term) {
+        Integer index = context.getTermIndices().get(term);
+        return index != null ? context.getDocumentFrequency(index) : 0;
+    }
+
+    /**
+     * Writes the specified text to the file with the specified name in the
+     * directory with text files.
+     *
+     * @param name
+     *            the name of the file
+     * @param text
+     *            the text
+     * @return the path of the file
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    private Path write(String name, String text) throws IOException {
+        return Files.write(corpus.resolve(name), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the options of contexts of the tests.
+     *
+     * @return the options
+     */
+    private static SearchContext.Options options() {
+        return new SearchContext.Options().threads(1).positional(true);
+    }
+
+    /**
+     * Returns the string forms of the results of queries of every word and of
+     * all words together, followed by the number of documents.
+     *
+     * @param context
+     *            the search context
+     * @return the results
+     */
+    private static List<String> results(SearchContext context) {
+        List<String> results = new ArrayList<>();
+        for (String word : WORDS) {
+            results.add(context.search(new String[] { word }, 10).toString());
+        }
+        results.add(context.search(WORDS.clone(), 10).toString());
+        results.add(String.valueOf(context.getIndex().documentCount()));
+        return results;
+    }
+}
@@ -0,0 +1,344 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import hr.fer.zemris.java.hw16.trazilica.commands.SearchContext;
+import hr.fer.zemris.java.hw16.vector.SparseVector;
+import junit.framework.TestCase;
+
+/**
+ * {@code IndexFileTest} checks that an {@link InvertedIndex} read from an
+ * {@link IndexFile} has the same documents, terms, positions and rankings as
+ * the index that was written, and that
+ * {@link SearchContext#open(Path, Path, SearchContext.Options)} reads the
+ * stored index only while it matches the sizes and modification times of the
+ * text files.
+ * <p>
+ * Every test works in its own temporary directory, which holds the index file
+ * and the {@code clanci} directory with text files.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class IndexFileTest extends TestCase {
+
+    /** Number of terms of the generated index. */
+    private static final int TERM_COUNT = 30;
+    /** Number of documents of the generated index. */
+    private static final int DOCUMENTS = 300;
+    /** Words of the text files. */
+    private static final String[] WORDS = { "film", "glazba", "grad", "kazalište", "kino", "knjiga", "more",
+            "nogomet", "otok", "rijeka", "slika" };
+
+    /** The temporary directory. */
+    private Path directory;
+    /** The directory with text files. */
+    private Path corpus;
+    /** The index file. */
+    private Path indexFile;
+    /** The generated index that stores positions. */
+    private InvertedIndex index;
+    /** The TF vectors of the queries. */
+    private List<SparseVector> queries;
+
+    @Override
+    protected void setUp() throws IOException {
+        directory = Files.createTempDirectory("trazilica");
+        corpus = Files.createDirectory(directory.resolve("clanci"));
+        indexFile = directory.resolve("index.bin");
+
+        Random random = new Random(42);
+        String[] terms = new String[TERM_COUNT];
+        for (int term = 0; term < TERM_COUNT; term++) {
+            terms[term] = String.format("t%02d", term);
+        }
+
+        List<DocumentInfo> documents = new ArrayList<>();
+        List<SparseVector> vectors = new ArrayList<>();
+        List<int[][]> positions = new ArrayList<>();
+        for (int i = 0; i < DOCUMENTS; i++) {
+            int[] words = new int[random.nextInt(40)];
+            for (int position = 0; position < words.length; position++) {
+                // lower terms are more frequent
+                words[position] = (int) (TERM_COUNT * Math.pow(random.nextDouble(), 2));
+            }
+            documents.add(new DocumentInfo(directory.resolve("d" + i), words.length, i));
+            vectors.add(vector(words));
+            positions.add(positions(words));
+        }
+        index = new InvertedIndex(terms, documents, vectors, positions);
+
+        queries = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            int[] words = new int[1 + random.nextInt(5)];
+            for (int position = 0; position < words.length; position++) {
+                words[position] = random.nextInt(TERM_COUNT);
+            }
+            queries.add(vector(words));
+        }
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        try (Stream<Path> stream = Files.walk(directory)) {
+            for (Path path : stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    public void testDocumentsAndTermsRoundTrip() throws IOException {
+        InvertedIndex read = writeAndRead(index);
+
+        assertEquals(index.documentCount(), read.documentCount());
+        for (int docId = 0; docId < index.documentCount(); docId++) {
+            assertEquals(index.getDocument(docId), read.getDocument(docId));
+            assertEquals(index.getNorm(docId), read.getNorm(docId));
+        }
+        assertEquals(index.termCount(), read.termCount());
+        for (int term = 0; term < index.termCount(); term++) {
+            assertEquals(index.getTerm(term), read.getTerm(term));
+            assertEquals(index.getDocumentFrequency(term), read.getDocumentFrequency(term));
+            assertEquals(index.getDocuments(term), read.getDocuments(term));
+        }
+    }
+
+    public void testRankingRoundTrip() throws IOException {
+        InvertedIndex read = writeAndRead(index);
+        assertSameResults(index, read);
+        for (Similarity similarity : new Similarity[] { Similarity.COSINE, Similarity.SUBLINEAR_TF_IDF,
+                Similarity.BM25 }) {
+            assertSameResults(index.withSimilarity(similarity), read.withSimilarity(similarity));
+        }
+    }
+
+    public void testWeightedIndexRoundTrip() throws IOException {
+        // weights aren't stored, so they are computed again after reading
+        InvertedIndex weighted = index.withSimilarity(Similarity.BM25);
+        InvertedIndex read = writeAndRead(weighted);
+        assertFalse(read.hasWeights());
+        assertSameResults(weighted, read.withSimilarity(Similarity.BM25));
+    }
+
+    public void testPositionsRoundTrip() throws IOException {
+        InvertedIndex read = writeAndRead(index);
+        assertTrue(read.hasPositions());
+        for (int first = 0; first < 10; first++) {
+            for (int second = 0; second < 10; second++) {
+                for (int slop : new int[] { 0, 2 }) {
+                    int[] terms = { first, second };
+                    int[] offsets = { 0, 1 };
+                    assertEquals(Arrays.toString(index.matchPhrase(terms, offsets, slop)),
+                            Arrays.toString(read.matchPhrase(terms, offsets, slop)));
+                }
+            }
+        }
+    }
+
+    public void testInvalidFile() throws IOException {
+        Files.write(indexFile, "film kino".getBytes(StandardCharsets.UTF_8));
+        try {
+            IndexFile.read(indexFile, directory);
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    public void testUpToDateIndexIsRead() throws IOException {
+        writeCorpus();
+        List<String> expected = results(SearchContext.open(corpus, indexFile, options()));
+        Files.setLastModifiedTime(indexFile, FileTime.fromMillis(0));
+
+        SearchContext context = SearchContext.open(corpus, indexFile, options());
+        assertEquals(0, Files.getLastModifiedTime(indexFile).toMillis());
+        assertEquals(expected, results(context));
+        assertEquals(expected, results(new SearchContext(corpus, options())));
+    }
+
+    public void testIndexWithChangedSizeIsRebuilt() throws IOException {
+        writeCorpus();
+        SearchContext.open(corpus, indexFile, options());
+        Files.setLastModifiedTime(indexFile, FileTime.fromMillis(0));
+
+        // the same modification time, but another size
+        Path file = corpus.resolve("d1.txt");
+        FileTime lastModified = Files.getLastModifiedTime(file);
+        Files.write(file, "opera opera kino".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, lastModified);
+
+        SearchContext context = SearchContext.open(corpus, indexFile, options());
+        assertTrue(Files.getLastModifiedTime(indexFile).toMillis() != 0);
+        assertTrue(context.getTermIndices().containsKey("opera"));
+        assertEquals(results(new SearchContext(corpus, options())), results(context));
+    }
+
+    public void testIndexWithChangedModificationTimeIsRebuilt() throws IOException {
+        writeCorpus();
+        SearchContext.open(corpus, indexFile, options());
+        Files.setLastModifiedTime(indexFile, FileTime.fromMillis(0));
+
+        // the same size, but another modification time
+        Path file = corpus.resolve("d1.txt");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() - 60_000));
+
+        SearchContext.open(corpus, indexFile, options());
+        assertTrue(Files.getLastModifiedTime(indexFile).toMillis() != 0);
+    }
+
+    public void testIndexWithAddedFileIsRebuilt() throws IOException {
+        writeCorpus();
+        SearchContext.open(corpus, indexFile, options());
+        Files.setLastModifiedTime(indexFile, FileTime.fromMillis(0));
+
+        Files.write(corpus.resolve("e.txt"), "film opera".getBytes(StandardCharsets.UTF_8));
+        SearchContext context = SearchContext.open(corpus, indexFile, options());
+        assertTrue(Files.getLastModifiedTime(indexFile).toMillis() != 0);
+        assertEquals(results(new SearchContext(corpus, options())), results(context));
+    }
+
+    /**
+     * Writes the {@code index} to the index file and reads it back.
+     *
+     * @param index
+     *            the index
+     * @return the index read from the file
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    private InvertedIndex writeAndRead(InvertedIndex index) throws IOException {
+        IndexFile.write(indexFile, directory, index);
+        return IndexFile.read(indexFile, directory);
+    }
+
+    /**
+     * Checks that both indices rank all queries the same, for several values
+     * of {@code k}.
+     *
+     * @param expected
+     *            the written index
+     * @param actual
+     *            the read index
+     */
+    private void assertSameResults(InvertedIndex expected, InvertedIndex actual) {
+        for (SparseVector tfVector : queries) {
+            for (int k : new int[] { 1, 5, 50, 1000 }) {
+                TopK first = expected.search(expected.getQueryVector(tfVector), k);
+                TopK second = actual.search(actual.getQueryVector(tfVector), k);
+                assertEquals(first.size(), second.size());
+                for (int rank = 0; rank < first.size(); rank++) {
+                    assertEquals(first.docId(rank), second.docId(rank));
+                    assertEquals(first.score(rank), second.score(rank));
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes text files made of seeded random {@link #WORDS words} to the
+     * corpus directory.
+     *
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    private void writeCorpus() throws IOException {
+        Random random = new Random(7);
+        for (int i = 0; i < 20; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int words = 3 + random.nextInt(20); words > 0; words--) {
+                text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            Files.write(corpus.resolve("d" + i + ".txt"), text.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Returns the options of contexts of the tests.
+     *
+     * @return the options
+     */
+    private static SearchContext.Options options() {
+        return new SearchContext.Options().threads(2).positional(true);
+    }
+
+    /**
+     * Returns the string forms of the results of queries of every word and of
+     * some pairs of words.
+     *
+     * @param context
+     *            the search context
+     * @return the results
+     */
+    private static List<String> results(SearchContext context) {
+        List<String> results = new ArrayList<>();
+        for (int i = 0; i < WORDS.length; i++) {
+            results.add(context.search(new String[] { WORDS[i] }, 10).toString());
+            results.add(context.search(new String[] { WORDS[i], WORDS[(i + 3) % WORDS.length] }, 10).toString());
+        }
+        return results;
+    }
+
+    /**
+     * Returns the TF vector of the document with the specified words.
+     *
+     * @param words
+     *            the terms of the words in order of their positions
+     * @return the vector
+     */
+    private static SparseVector vector(int[] words) {
+        int[] counts = new int[TERM_COUNT];
+        for (int term : words) {
+            counts[term]++;
+        }
+
+        int n = 0;
+        for (int count : counts) {
+            n += count != 0 ? 1 : 0;
+        }
+        int[] indices = new int[n];
+        double[] values = new double[n];
+        n = 0;
+        for (int term = 0; term < TERM_COUNT; term++) {
+            if (counts[term] != 0) {
+                indices[n] = term;
+                values[n++] = counts[term];
+            }
+        }
+        return new SparseVector(TERM_COUNT, indices, values);
+    }
+
+    /**
+     * Returns the positions of the terms of the document with the specified
+     * words, in the order of the elements of its TF vector.
+     *
+     * @param words
+     *            the terms of the words in order of their positions
+     * @return the positions of the terms
+     */
+    private static int[][] positions(int[] words) {
+        List<int[]> positions = new ArrayList<>();
+        for (int term = 0; term < TERM_COUNT; term++) {
+            int[] termPositions = new int[words.length];
+            int n = 0;
+            for (int position = 0; position < words.length; position++) {
+                if (words[position] == term) {
+                    termPositions[n++] = position;
+                }
+            }
+            if (n != 0) {
+                positions.add(Arrays.copyOf(termPositions, n));
+            }
+        }
+        return positions.toArray(new int[positions.size()][]);
+    }
+}
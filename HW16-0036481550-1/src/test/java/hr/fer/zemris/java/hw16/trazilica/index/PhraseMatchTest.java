@@ -0,0 +1,184 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import hr.fer.zemris.java.hw16.vector.SparseVector;
+import junit.framework.TestCase;
+
+/**
+ * {@code PhraseMatchTest} checks that {@link InvertedIndex#matchPhrase(int[],
+ * int[], int)} finds exact phrases at their offsets and proximity phrases
+ * within their slop.
+ * <p>
+ * Documents are given as words separated by spaces; position of a word is its
+ * index among the words of the document.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class PhraseMatchTest extends TestCase {
+
+    public void testExactPhrase() {
+        InvertedIndex index = index("a b c", "b a c", "a x b", "c a b", "a");
+        assertMatches(index, "a b", 0, 0, 3);
+        assertMatches(index, "b a", 0, 1);
+        assertMatches(index, "a b c", 0, 0);
+        assertMatches(index, "c", 0, 0, 1, 3);
+    }
+
+    public void testLaterOccurrenceMatches() {
+        InvertedIndex index = index("a x b x a b", "b x a x b x a", "a a a a a a a a a a a a a a a a a a a a b");
+        assertMatches(index, "a b", 0, 0, 2);
+    }
+
+    public void testOffsetsWithGap() {
+        // the middle word of the phrase isn't indexed, like a stop word
+        InvertedIndex index = index("a x c", "a c", "a x y c", "c x a");
+        assertMatches(index, new String[] { "a", "c" }, new int[] { 0, 2 }, 0, 0);
+    }
+
+    public void testRepeatedTerm() {
+        InvertedIndex index = index("x a a", "a b a", "a");
+        assertMatches(index, "a a", 0, 0);
+    }
+
+    public void testSlop() {
+        InvertedIndex index = index("a x b", "b a", "a x y b", "b x y a", "a", "a b");
+        assertMatches(index, "a b", 1, 0, 1, 5);
+        assertMatches(index, "a b", 2, 0, 1, 2, 3, 5);
+    }
+
+    public void testSlopOfThreeTerms() {
+        InvertedIndex index = index("c x a b", "a x y b c", "b c a", "a b x x x x c");
+        assertMatches(index, "a b c", 0);
+        assertMatches(index, "a b c", 1, 0, 2);
+        assertMatches(index, "a b c", 2, 0, 1, 2);
+    }
+
+    public void testInvalidArguments() {
+        InvertedIndex index = index("a b");
+        try {
+            index.matchPhrase(new int[] { 0, 1 }, new int[] { 0, 1 }, -1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            index.matchPhrase(new int[] { 0, 1 }, new int[] { 1, 1 }, 0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            index.matchPhrase(new int[0], new int[0], 0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    public void testIndexWithoutPositions() {
+        String[] terms = { "a" };
+        List<DocumentInfo> documents = Arrays.asList(new DocumentInfo(Paths.get("d0"), 0, 0));
+        List<SparseVector> vectors = Arrays.asList(new SparseVector(1, new int[] { 0 }, new double[] { 1 }));
+        InvertedIndex index = new InvertedIndex(terms, documents, vectors);
+        try {
+            index.matchPhrase(new int[] { 0 }, new int[] { 0 }, 0);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    /**
+     * Checks the documents that match the phrase of consecutive words.
+     *
+     * @param index
+     *            the index
+     * @param phrase
+     *            the words of the phrase separated by spaces
+     * @param slop
+     *            the slop
+     * @param expected
+     *            the IDs of the matching documents
+     */
+    private static void assertMatches(InvertedIndex index, String phrase, int slop, int... expected) {
+        String[] words = phrase.split(" ");
+        int[] offsets = new int[words.length];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = i;
+        }
+        assertMatches(index, words, offsets, slop, expected);
+    }
+
+    /**
+     * Checks the documents that match the phrase of words at the specified
+     * offsets.
+     *
+     * @param index
+     *            the index
+     * @param words
+     *            the words of the phrase
+     * @param offsets
+     *            the offsets of the words
+     * @param slop
+     *            the slop
+     * @param expected
+     *            the IDs of the matching documents
+     */
+    private static void assertMatches(InvertedIndex index, String[] words, int[] offsets, int slop,
+            int... expected) {
+        int[] terms = new int[words.length];
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = index.getVocabulary().indexOf(words[i]);
+        }
+        int[] actual = index.matchPhrase(terms, offsets, slop);
+        assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+    }
+
+    /**
+     * Builds the index of the specified documents with positions of terms.
+     *
+     * @param texts
+     *            the documents, words separated by spaces
+     * @return the index
+     */
+    private static InvertedIndex index(String... texts) {
+        TreeSet<String> vocabulary = new TreeSet<>();
+        for (String text : texts) {
+            vocabulary.addAll(Arrays.asList(text.split(" ")));
+        }
+        String[] terms = vocabulary.toArray(new String[vocabulary.size()]);
+
+        List<DocumentInfo> documents = new ArrayList<>();
+        List<SparseVector> vectors = new ArrayList<>();
+        List<int[][]> positions = new ArrayList<>();
+        for (String text : texts) {
+            String[] words = text.split(" ");
+            int[] counts = new int[terms.length];
+            int[][] termPositions = new int[terms.length][0];
+            for (int position = 0; position < words.length; position++) {
+                int term = Arrays.binarySearch(terms, words[position]);
+                counts[term]++;
+                termPositions[term] = Arrays.copyOf(termPositions[term], counts[term]);
+                termPositions[term][counts[term] - 1] = position;
+            }
+
+            int n = 0;
+            int[] indices = new int[terms.length];
+            double[] values = new double[terms.length];
+            int[][] documentPositions = new int[terms.length][];
+            for (int term = 0; term < terms.length; term++) {
+                if (counts[term] != 0) {
+                    indices[n] = term;
+                    values[n] = counts[term];
+                    documentPositions[n++] = termPositions[term];
+                }
+            }
+            documents.add(new DocumentInfo(Paths.get("d" + documents.size()), 0, 0));
+            vectors.add(new SparseVector(terms.length, Arrays.copyOf(indices, n), Arrays.copyOf(values, n)));
+            positions.add(Arrays.copyOf(documentPositions, n));
+        }
+        return new InvertedIndex(terms, documents, vectors, positions);
+    }
+}
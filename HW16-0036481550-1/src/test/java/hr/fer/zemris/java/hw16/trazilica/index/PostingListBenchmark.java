@@ -0,0 +1,203 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import hr.fer.zemris.java.hw16.trazilica.commands.SearchContext;
+
+/**
+ * {@code PostingListBenchmark} is a JMH benchmark that measures how fast the
+ * compressed posting lists are decoded, compared with iterating over plain
+ * {@code int} arrays.
+ * <p>
+ * The index is built from {@code scale} copies of the {@code clanci} corpus.
+ * Every operation reads all postings of the index. Besides operations per
+ * second, the benchmark reports the {@code postings} counter, which is the
+ * number of postings read per second. The number of bytes per posting, without
+ * and with the quantized weights of the {@link Similarity#BM25 BM25} model, is
+ * printed when the index is built. Benchmark has to be run from the project
+ * directory.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PostingListBenchmark {
+
+    /** Path of the original corpus. */
+    private static final Path CORPUS = Paths.get("clanci");
+
+    /** Number of copies of the original corpus. */
+    @Param({ "1", "10" })
+    private int scale;
+
+    /** The compressed posting lists. */
+    private PostingList[] lists;
+    /** Document IDs of the posting lists. */
+    private int[][] docIds;
+    /** Term frequencies of the posting lists. */
+    private int[][] frequencies;
+    /** Number of postings in the index. */
+    private long postings;
+
+    /**
+     * Builds the index and copies its postings into plain arrays.
+     *
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    @Setup
+    public void setup() throws IOException {
+        Path directory = Files.createTempDirectory("clanci");
+        InvertedIndex index;
+        try {
+            for (int i = 0; i < scale; i++) {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(CORPUS)) {
+                    for (Path file : stream) {
+                        Files.copy(file, directory.resolve(i + "-" + file.getFileName()));
+                    }
+                }
+            }
+            index = new SearchContext(directory).getIndex();
+        } finally {
+            delete(directory);
+        }
+
+        lists = new PostingList[index.termCount()];
+        docIds = new int[lists.length][];
+        frequencies = new int[lists.length][];
+        InvertedIndex weighted = index.withSimilarity(Similarity.BM25);
+        long bytes = 0;
+        long weightedBytes = 0;
+        for (int term = 0; term < lists.length; term++) {
+            PostingList list = index.getPostings(term);
+            lists[term] = list;
+            docIds[term] = new int[list.size()];
+            frequencies[term] = new int[list.size()];
+
+            PostingCursor cursor = list.cursor();
+            for (int i = 0; cursor.nextDoc() != PostingCursor.NO_MORE_DOCS; i++) {
+                docIds[term][i] = cursor.docId();
+                frequencies[term][i] = cursor.frequency();
+            }
+            postings += list.size();
+            bytes += list.byteSize();
+            weightedBytes += weighted.getPostings(term).byteSize();
+        }
+
+        System.out.printf("%n%d postings, %.2f bytes per posting (%d as int arrays), %.2f with weights (%d with"
+                + " double weights)%n", postings, (double) bytes / postings, 2 * Integer.BYTES,
+                (double) weightedBytes / postings, 2 * Integer.BYTES + Double.BYTES);
+    }
+
+    @Benchmark
+    public long compressed(Throughput throughput) {
+        long sum = 0;
+        PostingCursor cursor = new PostingCursor();
+        for (PostingList list : lists) {
+            cursor.reset(list);
+            for (int docId = cursor.nextDoc(); docId != PostingCursor.NO_MORE_DOCS; docId = cursor.nextDoc()) {
+                sum += docId + cursor.frequency();
+            }
+        }
+        throughput.postings += postings;
+        return sum;
+    }
+
+    @Benchmark
+    public long arrays(Throughput throughput) {
+        long sum = 0;
+        for (int term = 0; term < docIds.length; term++) {
+            int[] ids = docIds[term];
+            int[] tfs = frequencies[term];
+            for (int i = 0; i < ids.length; i++) {
+                sum += ids[i] + tfs[i];
+            }
+        }
+        throughput.postings += postings;
+        return sum;
+    }
+
+    /**
+     * {@code Throughput} holds the counter of read postings.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+
+        /** Number of read postings. */
+        public long postings;
+
+        /**
+         * Resets the counter before every iteration.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            postings = 0;
+        }
+    }
+
+    /**
+     * Deletes the specified directory with all its content.
+     *
+     * @param directory
+     *            the directory
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> stream = Files.walk(directory)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.delete(p);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args
+     *            Command-line arguments; not used
+     * @throws RunnerException
+     *             if benchmark fails to run
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PostingListBenchmark.class.getSimpleName()).build()).run();
+    }
+}
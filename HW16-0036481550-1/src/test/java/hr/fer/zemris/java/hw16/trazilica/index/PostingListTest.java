@@ -0,0 +1,282 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * {@code PostingListTest} checks that postings, positions and exact or
+ * quantized weights survive the encoding of a {@link PostingList}, especially around
+ * the boundaries of blocks, and that a {@link PostingCursor} advances over
+ * blocks without decoding them.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class PostingListTest extends TestCase {
+
+    /** IDF value of the encoded lists. */
+    private static final double IDF = 1.5;
+
+    public void testRoundTripAtBlockBoundaries() {
+        int block = PostingList.BLOCK_SIZE;
+        for (int length : new int[] { 1, block - 1, block, block + 1, 2 * block, 2 * block + 1 }) {
+            int[] docIds = docIds(length, 7);
+            int[] frequencies = frequencies(length);
+            PostingList list = encode(docIds, frequencies, null);
+
+            assertEquals(length, list.size());
+            assertEquals((length + block - 1) / block, list.blockCount());
+            PostingCursor cursor = list.cursor();
+            assertEquals(-1, cursor.docId());
+            for (int i = 0; i < length; i++) {
+                assertEquals(docIds[i], cursor.nextDoc());
+                assertEquals(frequencies[i], cursor.frequency());
+                assertEquals(frequencies[i] * IDF, cursor.weight());
+            }
+            assertEquals(PostingCursor.NO_MORE_DOCS, cursor.nextDoc());
+            assertEquals(PostingCursor.NO_MORE_DOCS, cursor.nextDoc());
+            assertEquals(length, cursor.decodedCount());
+        }
+    }
+
+    public void testOneFullBlockHasNoSkipTable() {
+        int length = PostingList.BLOCK_SIZE;
+        int[] docIds = new int[length];
+        int[] frequencies = new int[length];
+        for (int i = 0; i < length; i++) {
+            docIds[i] = i + 1;
+            frequencies[i] = 1;
+        }
+
+        // one byte for every gap and every frequency
+        assertEquals(2 * length, encode(docIds, frequencies, null).byteSize());
+    }
+
+    public void testMultiByteValues() {
+        int[] docIds = { 0, 127, 128, 255, 16_639, 16_640, 2_113_791, 2_113_792 };
+        int[] frequencies = { 1, 127, 128, 16_383, 16_384, 1, 2_097_152, 1 };
+        PostingCursor cursor = encode(docIds, frequencies, null).cursor();
+        for (int i = 0; i < docIds.length; i++) {
+            assertEquals(docIds[i], cursor.nextDoc());
+            assertEquals(frequencies[i], cursor.frequency());
+        }
+        assertEquals(PostingCursor.NO_MORE_DOCS, cursor.nextDoc());
+    }
+
+    public void testPositionsAtBlockBoundaries() {
+        int length = 2 * PostingList.BLOCK_SIZE + 1;
+        int[] docIds = docIds(length, 3);
+        int[] frequencies = frequencies(length);
+        int[][] positions = new int[length][];
+        int[] all = new int[0];
+        for (int i = 0; i < length; i++) {
+            positions[i] = new int[frequencies[i]];
+            for (int j = 0; j < frequencies[i]; j++) {
+                positions[i][j] = j * (i % 5 + 1) + (j > 0 ? 200 : 0);
+            }
+            all = concat(all, positions[i]);
+        }
+        PostingList list = encode(docIds, frequencies, all);
+        assertTrue(list.hasPositions());
+
+        // positions of every posting
+        int[] buffer = new int[64];
+        PostingCursor cursor = list.cursor();
+        for (int i = 0; i < length; i++) {
+            cursor.nextDoc();
+            assertEquals(frequencies[i], cursor.positions(buffer));
+            assertTrue(Arrays.equals(positions[i], Arrays.copyOf(buffer, frequencies[i])));
+        }
+
+        // positions of postings reached by skipping the ones before them
+        cursor = list.cursor();
+        for (int i = PostingList.BLOCK_SIZE - 1; i < length; i += 37) {
+            assertEquals(docIds[i], cursor.advance(docIds[i]));
+            assertEquals(frequencies[i], cursor.positions(buffer));
+            assertTrue(Arrays.equals(positions[i], Arrays.copyOf(buffer, frequencies[i])));
+        }
+    }
+
+    public void testAdvanceSkipsBlocks() {
+        int block = PostingList.BLOCK_SIZE;
+        int[] docIds = new int[12 * block];
+        int[] frequencies = new int[docIds.length];
+        for (int i = 0; i < docIds.length; i++) {
+            docIds[i] = 2 * i;
+            frequencies[i] = 1;
+        }
+        PostingCursor cursor = encode(docIds, frequencies, null).cursor();
+
+        // target in the eighth block
+        assertEquals(2 * 900, cursor.advance(2 * 900));
+        assertEquals(block, cursor.decodedCount());
+        // target between two documents of the same block
+        assertEquals(2 * 901, cursor.advance(2 * 900 + 1));
+        assertEquals(block, cursor.decodedCount());
+        // the cursor never moves backwards
+        assertEquals(2 * 901, cursor.advance(10));
+        assertEquals(2 * 902, cursor.nextDoc());
+        // target after the last document of the block
+        int last = docIds[8 * block - 1];
+        assertEquals(last, cursor.advance(last));
+        assertEquals(last + 2, cursor.advance(last + 1));
+        assertEquals(2 * block, cursor.decodedCount());
+        // target in the last block, skipping two blocks
+        assertEquals(2 * (12 * block - 1), cursor.advance(2 * (12 * block - 1)));
+        assertEquals(3 * block, cursor.decodedCount());
+        assertEquals(PostingCursor.NO_MORE_DOCS, cursor.advance(2 * 12 * block));
+        assertEquals(PostingCursor.NO_MORE_DOCS, cursor.nextDoc());
+
+        // target after the last document of the list
+        cursor = encode(docIds, frequencies, null).cursor();
+        assertEquals(PostingCursor.NO_MORE_DOCS, cursor.advance(Integer.MAX_VALUE - 1));
+        assertEquals(0, cursor.decodedCount());
+    }
+
+    public void testQuantizedWeights() {
+        int length = 3 * PostingList.BLOCK_SIZE + 5;
+        int[] docIds = docIds(length, 11);
+        int[] frequencies = frequencies(length);
+        PostingList list = encode(docIds, frequencies, null);
+
+        Random random = new Random(42);
+        double[] weights = new double[length];
+        for (int i = 0; i < length; i++) {
+            weights[i] = i % 10 == 0 ? 0.0 : random.nextDouble() * 20.0;
+        }
+        double maxWeight = 0.0;
+        for (double weight : weights) {
+            maxWeight = Math.max(maxWeight, weight);
+        }
+
+        PostingList weighted = list.withWeights(weights, true);
+        assertTrue(weighted.hasWeights());
+        assertEquals(maxWeight, weighted.maxWeight(), maxWeight * 1e-12);
+        // two bytes of every posting hold its weight
+        assertEquals(list.byteSize() + 2 * length, weighted.byteSize());
+
+        PostingCursor cursor = weighted.cursor();
+        for (int i = 0; i < length; i++) {
+            assertEquals(docIds[i], cursor.nextDoc());
+            assertEquals(frequencies[i], cursor.frequency());
+            assertEquals(weights[i], cursor.weight(), maxWeight / PostingList.MAX_QUANTIZED_WEIGHT / 2);
+            assertTrue(cursor.weight() <= weighted.maxWeight());
+            if (weights[i] == 0.0) {
+                assertEquals(0.0, cursor.weight());
+            }
+        }
+
+        // index files store the list without weights
+        PostingList plain = weighted.withoutWeights();
+        assertFalse(plain.hasWeights());
+        assertEquals(list.data(), plain.data());
+        assertSame(list, list.withoutWeights());
+    }
+
+    public void testExactWeights() {
+        int length = 2 * PostingList.BLOCK_SIZE + 3;
+        int[] docIds = docIds(length, 5);
+        int[] frequencies = frequencies(length);
+        PostingList list = encode(docIds, frequencies, null);
+
+        Random random = new Random(7);
+        double[] weights = new double[length];
+        for (int i = 0; i < length; i++) {
+            weights[i] = random.nextDouble() / (1 + random.nextInt(1000));
+        }
+
+        PostingList weighted = list.withWeights(weights, false);
+        assertTrue(weighted.hasWeights());
+        // eight bytes of every posting hold its weight
+        assertEquals(list.byteSize() + 8 * length, weighted.byteSize());
+
+        double maxWeight = 0.0;
+        PostingCursor cursor = weighted.cursor();
+        for (int i = 0; i < length; i++) {
+            assertEquals(docIds[i], cursor.nextDoc());
+            assertEquals(frequencies[i], cursor.frequency());
+            assertEquals(weights[i], cursor.weight());
+            maxWeight = Math.max(maxWeight, weights[i]);
+        }
+        assertEquals(maxWeight, weighted.maxWeight());
+        assertEquals(list.data(), weighted.withoutWeights().data());
+    }
+
+    public void testWeightsOfWrongLength() {
+        PostingList list = encode(docIds(10, 1), frequencies(10), null);
+        try {
+            list.withWeights(new double[9], true);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    /**
+     * Encodes the postings with norms {@code 1}.
+     *
+     * @param docIds
+     *            the document IDs
+     * @param frequencies
+     *            the term frequencies
+     * @param positions
+     *            the positions; may be {@code null}
+     * @return the posting list
+     */
+    private static PostingList encode(int[] docIds, int[] frequencies, int[] positions) {
+        double[] norms = new double[docIds[docIds.length - 1] + 1];
+        Arrays.fill(norms, 1.0);
+        return PostingList.encode(docIds, frequencies, positions, docIds.length, IDF, norms);
+    }
+
+    /**
+     * Returns ascending document IDs with gaps of varying length.
+     *
+     * @param length
+     *            the number of IDs
+     * @param seed
+     *            the seed of the gaps
+     * @return the document IDs
+     */
+    private static int[] docIds(int length, long seed) {
+        Random random = new Random(seed);
+        int[] docIds = new int[length];
+        int docId = random.nextInt(3);
+        for (int i = 0; i < length; i++) {
+            docIds[i] = docId;
+            docId += i % 50 == 49 ? 200 + random.nextInt(300) : 1 + random.nextInt(5);
+        }
+        return docIds;
+    }
+
+    /**
+     * Returns positive term frequencies.
+     *
+     * @param length
+     *            the number of frequencies
+     * @return the term frequencies
+     */
+    private static int[] frequencies(int length) {
+        int[] frequencies = new int[length];
+        for (int i = 0; i < length; i++) {
+            frequencies[i] = 1 + i % 7 * (i % 3);
+        }
+        return frequencies;
+    }
+
+    /**
+     * Returns the elements of both arrays, in order.
+     *
+     * @param first
+     *            the first array
+     * @param second
+     *            the second array
+     * @return the concatenated arrays
+     */
+    private static int[] concat(int[] first, int[] second) {
+        int[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
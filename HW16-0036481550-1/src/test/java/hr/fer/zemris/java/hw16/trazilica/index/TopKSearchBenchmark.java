@@ -0,0 +1,198 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import hr.fer.zemris.java.hw16.vector.SparseVector;
+
+/**
+ * {@code TopKSearchBenchmark} is a JMH benchmark that compares the MaxScore
+ * evaluation of top 10 queries with exhaustive term-at-a-time scoring.
+ * <p>
+ * The index is a synthetic corpus of {@code documents} documents whose words
+ * follow Zipf's law over a dictionary of {@value #TERM_COUNT} terms, so
+ * posting lists are long enough to span many blocks. Every query has
+ * {@code length} distinct terms drawn by the same law, without the 10 most
+ * frequent terms, which would be stop words. Documents are ranked by the
+ * {@code similarity} model; the {@code cosine} index doesn't store weights.
+ * When the index is built, the benchmark checks that both evaluations return
+ * the same results and prints the average number of postings decoded per
+ * query by each of them.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class TopKSearchBenchmark {
+
+    /** Number of terms in the dictionary. */
+    private static final int TERM_COUNT = 20000;
+    /** Number of queries. */
+    private static final int QUERY_COUNT = 64;
+    /** Number of selected documents. */
+    private static final int K = 10;
+
+    /** Number of documents. */
+    @Param({ "10000", "50000" })
+    private int documents;
+
+    /** Number of terms in a query. */
+    @Param({ "2", "8", "16" })
+    private int length;
+
+    /** Name of the similarity. */
+    @Param({ "cosine", "sublinear", "bm25" })
+    private String similarity;
+
+    /** The index. */
+    private InvertedIndex index;
+    /** Query vectors of the queries. */
+    private SparseVector[] queries;
+    /** Index of the next query. */
+    private int next;
+
+    /**
+     * Builds the synthetic index and the queries and compares the two
+     * evaluations.
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        String[] terms = new String[TERM_COUNT];
+        double[] cumulative = new double[TERM_COUNT];
+        double sum = 0.0;
+        for (int rank = 0; rank < TERM_COUNT; rank++) {
+            terms[rank] = String.format("t%05d", rank);
+            sum += 1.0 / (rank + 1);
+            cumulative[rank] = sum;
+        }
+
+        List<DocumentInfo> infos = new ArrayList<>(documents);
+        List<SparseVector> vectors = new ArrayList<>(documents);
+        int[] counts = new int[TERM_COUNT];
+        for (int docId = 0; docId < documents; docId++) {
+            int words = 50 + random.nextInt(250);
+            for (int i = 0; i < words; i++) {
+                int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+                counts[rank < 0 ? -rank - 1 : rank]++;
+            }
+            infos.add(new DocumentInfo(Paths.get("document" + docId), words, 0));
+            vectors.add(vector(counts));
+            Arrays.fill(counts, 0);
+        }
+        index = new InvertedIndex(terms, infos, vectors);
+        if (Similarity.forName(similarity) != Similarity.COSINE) {
+            index = index.withSimilarity(Similarity.forName(similarity));
+        }
+
+        queries = new SparseVector[QUERY_COUNT];
+        for (int q = 0; q < QUERY_COUNT; q++) {
+            for (int i = 0; i < length;) {
+                int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+                rank = rank < 0 ? -rank - 1 : rank;
+                if (rank >= 10 && counts[rank] == 0) {
+                    counts[rank] = 1;
+                    i++;
+                }
+            }
+            queries[q] = index.getQueryVector(vector(counts));
+            Arrays.fill(counts, 0);
+        }
+
+        long pruned = 0;
+        long exhaustive = 0;
+        for (SparseVector query : queries) {
+            PostingCursor[] cursors = new PostingCursor[query.nonZeroCount()];
+            for (int i = 0; i < cursors.length; i++) {
+                cursors[i] = new PostingCursor();
+            }
+            TopK top = index.search(query, K, cursors);
+            TopK all = index.searchExhaustive(query, K);
+            for (int rank = 0; rank < all.size(); rank++) {
+                if (top.size() != all.size() || top.docId(rank) != all.docId(rank)
+                        || top.score(rank) != all.score(rank))
+                    throw new IllegalStateException("MaxScore results differ from exhaustive results.");
+            }
+
+            for (PostingCursor cursor : cursors) {
+                pruned += cursor.decodedCount();
+            }
+            for (int i = 0; i < query.nonZeroCount(); i++) {
+                exhaustive += index.getPostings(query.indexAt(i)).size();
+            }
+        }
+        System.out.printf("%npostings decoded per query: MaxScore %d, exhaustive %d (%.1f%%)%n", pruned / QUERY_COUNT,
+                exhaustive / QUERY_COUNT, 100.0 * pruned / exhaustive);
+    }
+
+    @Benchmark
+    public TopK maxScore() {
+        return index.search(queries[next++ % QUERY_COUNT], K);
+    }
+
+    @Benchmark
+    public TopK exhaustive() {
+        return index.searchExhaustive(queries[next++ % QUERY_COUNT], K);
+    }
+
+    /**
+     * Returns the sparse vector of the non-zero {@code counts}.
+     *
+     * @param counts
+     *            the counts indexed by term ID
+     * @return the sparse vector
+     */
+    private static SparseVector vector(int[] counts) {
+        int nonZero = 0;
+        for (int count : counts) {
+            if (count != 0)
+                nonZero++;
+        }
+
+        int[] indices = new int[nonZero];
+        double[] values = new double[nonZero];
+        for (int term = 0, i = 0; term < counts.length; term++) {
+            if (counts[term] != 0) {
+                indices[i] = term;
+                values[i++] = counts[term];
+            }
+        }
+        return new SparseVector(counts.length, indices, values);
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args
+     *            Command-line arguments; not used
+     * @throws RunnerException
+     *             if benchmark fails to run
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TopKSearchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,251 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import hr.fer.zemris.java.hw16.vector.SparseVector;
+import junit.framework.TestCase;
+
+/**
+ * {@code TopKSearchTest} checks that the MaxScore search of an
+ * {@link InvertedIndex} selects exactly the same documents with exactly the
+ * same scores as the exhaustive search, for every {@link Similarity}, and
+ * that the normalized index ranks documents like the exact cosine similarity.
+ * <p>
+ * The corpus is fixed: the first documents are copies of each other, so their
+ * scores tie, and they are the only documents with the {@link #RARE rare}
+ * term. One document is empty and the rest are generated from a seeded random
+ * number generator, enough of them that the posting lists of frequent terms
+ * have several blocks.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class TopKSearchTest extends TestCase {
+
+    /** Number of terms. */
+    private static final int TERM_COUNT = 40;
+    /** Number of randomly generated documents. */
+    private static final int RANDOM_DOCUMENTS = 600;
+    /** Number of copies of the same document. */
+    private static final int COPIES = 4;
+    /** The term that only the copies contain. */
+    private static final int RARE = TERM_COUNT - 1;
+
+    /** The index ranked by the cosine similarity. */
+    private InvertedIndex index;
+    /** The queries. */
+    private List<SparseVector> queries;
+
+    @Override
+    protected void setUp() {
+        Random random = new Random(42);
+        String[] terms = new String[TERM_COUNT];
+        for (int term = 0; term < TERM_COUNT; term++) {
+            terms[term] = String.format("t%02d", term);
+        }
+
+        List<int[]> documents = new ArrayList<>();
+        for (int i = 0; i < COPIES; i++) {
+            documents.add(counts(0, 2, 1, 1, 7, 3, RARE, 1));
+        }
+        documents.add(new int[TERM_COUNT]);
+        for (int i = 0; i < RANDOM_DOCUMENTS; i++) {
+            int[] counts = new int[TERM_COUNT];
+            for (int words = 5 + random.nextInt(30); words > 0; words--) {
+                // lower terms are more frequent
+                counts[(int) (RARE * Math.pow(random.nextDouble(), 2))]++;
+            }
+            documents.add(counts);
+        }
+
+        List<DocumentInfo> infos = new ArrayList<>();
+        List<SparseVector> vectors = new ArrayList<>();
+        for (int[] counts : documents) {
+            infos.add(new DocumentInfo(Paths.get("d" + infos.size()), 0, 0));
+            vectors.add(vector(counts));
+        }
+        index = new InvertedIndex(terms, infos, vectors);
+
+        queries = new ArrayList<>();
+        queries.add(vector(counts(0, 1, RARE, 1)));
+        queries.add(vector(counts(1, 1, 3, 2, 7, 1)));
+        for (int i = 0; i < 50; i++) {
+            int[] counts = new int[TERM_COUNT];
+            for (int words = 1 + random.nextInt(5); words > 0; words--) {
+                counts[random.nextInt(RARE)]++;
+            }
+            queries.add(vector(counts));
+        }
+    }
+
+    public void testCosine() {
+        assertSameResults(index);
+    }
+
+    public void testNormalizedCosine() {
+        assertSameResults(index.normalize());
+    }
+
+    public void testNormalizedCosineRanksLikeCosine() {
+        InvertedIndex normalized = index.normalize();
+        for (SparseVector tfVector : queries) {
+            SparseVector query = index.getQueryVector(tfVector);
+            SparseVector normalizedQuery = normalized.getQueryVector(tfVector);
+            for (int k : new int[] { 1, 5, 50, 1000 }) {
+                TopK expected = index.searchExhaustive(query, k);
+                TopK actual = search(normalized, normalizedQuery, k);
+
+                // scores differ only by rounding, which never reorders documents
+                // whose scores differ by more than that
+                assertEquals(expected.size(), actual.size());
+                for (int rank = 0; rank < expected.size(); rank++) {
+                    assertEquals(expected.score(rank), actual.score(rank), 1e-12);
+                    if (expected.docId(rank) != actual.docId(rank)) {
+                        assertEquals(expected.score(rank), expected.score(rank + 1), 1e-12);
+                    }
+                }
+            }
+        }
+    }
+
+    public void testSublinearTFIDF() {
+        assertSameResults(index.withSimilarity(Similarity.SUBLINEAR_TF_IDF));
+    }
+
+    public void testBM25() {
+        assertSameResults(index.withSimilarity(Similarity.BM25));
+    }
+
+    public void testTiesAreRankedByDocumentId() {
+        for (InvertedIndex index : indices()) {
+            SparseVector query = index.getQueryVector(vector(counts(0, 1, RARE, 1)));
+            TopK top = search(index, query, COPIES - 1);
+
+            assertEquals(COPIES - 1, top.size());
+            for (int rank = 0; rank < top.size(); rank++) {
+                assertEquals(COPIES - 1 - rank, top.docId(rank));
+                assertEquals(top.score(0), top.score(rank));
+            }
+            assertResults(index.searchExhaustive(query, COPIES - 1), top);
+        }
+    }
+
+    public void testKLargerThanMatches() {
+        for (InvertedIndex index : indices()) {
+            SparseVector query = index.getQueryVector(vector(counts(RARE, 1)));
+            TopK top = search(index, query, 100);
+
+            assertEquals(COPIES, top.size());
+            assertResults(index.searchExhaustive(query, 100), top);
+        }
+    }
+
+    public void testKZero() {
+        SparseVector query = index.getQueryVector(vector(counts(0, 1, 1, 1)));
+        assertEquals(0, search(index, query, 0).size());
+    }
+
+    public void testNoMatches() {
+        SparseVector query = index.getQueryVector(new SparseVector(TERM_COUNT, new int[0], new double[0]));
+        assertEquals(0, search(index, query, 10).size());
+    }
+
+    /**
+     * Checks the results of all queries for several values of {@code k}.
+     *
+     * @param index
+     *            the index
+     */
+    private void assertSameResults(InvertedIndex index) {
+        for (SparseVector tfVector : queries) {
+            SparseVector query = index.getQueryVector(tfVector);
+            for (int k : new int[] { 1, 2, 5, 10, 50, 1000 }) {
+                assertResults(index.searchExhaustive(query, k), search(index, query, k));
+            }
+        }
+    }
+
+    /**
+     * Checks that the results are the same, document by document.
+     *
+     * @param expected
+     *            the results of the exhaustive search
+     * @param actual
+     *            the results of the MaxScore search
+     */
+    private static void assertResults(TopK expected, TopK actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int rank = 0; rank < expected.size(); rank++) {
+            assertEquals(expected.docId(rank), actual.docId(rank));
+            assertEquals(expected.score(rank), actual.score(rank));
+        }
+    }
+
+    /**
+     * Searches the {@code index} through new cursors.
+     *
+     * @param index
+     *            the index
+     * @param query
+     *            the query vector
+     * @param k
+     *            the maximal number of results
+     * @return the selected documents
+     */
+    private static TopK search(InvertedIndex index, SparseVector query, int k) {
+        PostingCursor[] cursors = new PostingCursor[query.nonZeroCount()];
+        for (int i = 0; i < cursors.length; i++) {
+            cursors[i] = new PostingCursor();
+        }
+        return index.search(query, k, cursors);
+    }
+
+    /**
+     * Returns the index weighted by every similarity.
+     *
+     * @return the indices
+     */
+    private InvertedIndex[] indices() {
+        return new InvertedIndex[] { index, index.normalize(), index.withSimilarity(Similarity.SUBLINEAR_TF_IDF),
+                index.withSimilarity(Similarity.BM25) };
+    }
+
+    /**
+     * Returns the term counts given as pairs of a term and its count.
+     *
+     * @param pairs
+     *            the terms and their counts
+     * @return the counts of all terms
+     */
+    private static int[] counts(int... pairs) {
+        int[] counts = new int[TERM_COUNT];
+        for (int i = 0; i < pairs.length; i += 2) {
+            counts[pairs[i]] = pairs[i + 1];
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the sparse vector of the specified term counts.
+     *
+     * @param counts
+     *            the counts of all terms
+     * @return the vector
+     */
+    private static SparseVector vector(int[] counts) {
+        int n = 0;
+        int[] indices = new int[counts.length];
+        double[] values = new double[counts.length];
+        for (int term = 0; term < counts.length; term++) {
+            if (counts[term] != 0) {
+                indices[n] = term;
+                values[n++] = counts[term];
+            }
+        }
+        return new SparseVector(counts.length, Arrays.copyOf(indices, n), Arrays.copyOf(values, n));
+    }
+}
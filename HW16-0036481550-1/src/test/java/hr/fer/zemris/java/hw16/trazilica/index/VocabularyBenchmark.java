@@ -0,0 +1,129 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import hr.fer.zemris.java.hw16.trazilica.commands.SearchContext;
+
+/**
+ * {@code VocabularyBenchmark} is a JMH benchmark that compares lookups in the
+ * front coded {@link Vocabulary} of the {@code clanci} corpus with lookups in
+ * an array and a hash map of the same terms.
+ * <p>
+ * The {@code prefixMatch} benchmark {@link Vocabulary#match(String) matches}
+ * patterns like {@code nogomet*} and the {@code prefixScan} benchmark finds
+ * the same terms by checking every term of the array. The
+ * {@code wildcardMatch} benchmark matches patterns with wildcards inside of
+ * them. The {@code indexOf} and {@code hashLookup} benchmarks look up single
+ * terms in the vocabulary and in the hash map. Benchmark has to be run from
+ * the project directory.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VocabularyBenchmark {
+
+    /** Prefixes of the {@code prefixMatch} and {@code prefixScan} benchmarks. */
+    private static final String[] PREFIXES = {
+            "adut", "nogomet", "film", "hrvat", "kin", "splitsk", "prvenstv", "olimpij",
+    };
+    /** Patterns of the {@code wildcardMatch} benchmark. */
+    private static final String[] PATTERNS = {
+            "nogomet?", "ka*a", "s?o*t", "film*a", "hrvat*ke", "prvenst?o", "olimpij*im", "kin?",
+    };
+    /** Terms of the {@code indexOf} and {@code hashLookup} benchmarks. */
+    private static final String[] TERMS = {
+            "adut", "nogometaši", "film", "hrvatske", "kino", "splitska", "prvenstvo", "xyzzy",
+    };
+
+    /** The vocabulary. */
+    private Vocabulary vocabulary;
+    /** Terms of the vocabulary in alphabetical order. */
+    private String[] terms;
+    /** Positions of the terms. */
+    private Map<String, Integer> positions;
+    /** Index of the next query. */
+    private int next;
+
+    /**
+     * Builds the vocabulary of the {@code clanci} corpus and copies its terms
+     * to the array and the hash map.
+     */
+    @Setup
+    public void setup() {
+        vocabulary = new SearchContext(Paths.get("clanci")).getDictionary();
+        terms = vocabulary.asList().toArray(new String[vocabulary.size()]);
+        positions = new HashMap<>();
+        for (int i = 0; i < terms.length; i++) {
+            positions.put(terms[i], i);
+        }
+    }
+
+    @Benchmark
+    public int[] prefixMatch() {
+        return vocabulary.match(PREFIXES[next++ % PREFIXES.length] + Vocabulary.ANY_SEQUENCE);
+    }
+
+    @Benchmark
+    public int prefixScan() {
+        String prefix = PREFIXES[next++ % PREFIXES.length];
+        int count = 0;
+        for (String term : terms) {
+            if (term.startsWith(prefix)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int[] wildcardMatch() {
+        return vocabulary.match(PATTERNS[next++ % PATTERNS.length]);
+    }
+
+    @Benchmark
+    public int indexOf() {
+        return vocabulary.indexOf(TERMS[next++ % TERMS.length]);
+    }
+
+    @Benchmark
+    public Integer hashLookup() {
+        return positions.get(TERMS[next++ % TERMS.length]);
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args
+     *            Command-line arguments; not used
+     * @throws RunnerException
+     *             if benchmark fails to run
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VocabularyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
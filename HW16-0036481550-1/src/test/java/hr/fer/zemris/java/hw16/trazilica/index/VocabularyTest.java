@@ -0,0 +1,153 @@
+package hr.fer.zemris.java.hw16.trazilica.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import junit.framework.TestCase;
+
+/**
+ * {@code VocabularyTest} checks that the front-coded {@link Vocabulary} finds
+ * terms and matches patterns like a sorted array of strings, especially for
+ * terms whose shared prefixes cross the boundaries of blocks.
+ * <p>
+ * The terms that start with {@code kuć} fill more than a block and start in
+ * the middle of one; their neighbours start with {@code kuc} and {@code kuč},
+ * which share all but the last character of the prefix.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class VocabularyTest extends TestCase {
+
+    /** The terms in alphabetical order. */
+    private String[] terms;
+    /** The vocabulary of the terms. */
+    private Vocabulary vocabulary;
+
+    @Override
+    protected void setUp() {
+        TreeSet<String> set = new TreeSet<>(Arrays.asList("a", "ab", "abc", "b", "kazalište", "kino", "kuc",
+                "kucati", "kucnuti", "kuč", "kučka", "lampa", "zrak", "žaba"));
+        for (String vowel : new String[] { "a", "e", "i", "o", "u" }) {
+            for (String ending : new String[] { "", "m", "ma", "mi", "ni" }) {
+                set.add("kuć" + vowel + ending);
+            }
+        }
+        terms = set.toArray(new String[set.size()]);
+        vocabulary = new Vocabulary(terms.clone());
+    }
+
+    public void testTerms() {
+        assertEquals(terms.length, vocabulary.size());
+        assertEquals(Arrays.asList(terms), vocabulary.asList());
+        for (int i = 0; i < terms.length; i++) {
+            assertEquals(terms[i], vocabulary.getTerm(i));
+            assertEquals(i, vocabulary.indexOf(terms[i]));
+            assertTrue(Arrays.equals(new int[] { i }, vocabulary.match(terms[i])));
+        }
+    }
+
+    public void testMissingTerms() {
+        for (String term : new String[] { "", "0", "aa", "abcd", "k", "kuć", "kućax", "kuča", "kucb", "z", "žabe",
+                "ž", "ђ" }) {
+            assertEquals(term, -1, vocabulary.indexOf(term));
+            assertEquals(term, 0, vocabulary.match(term).length);
+        }
+        assertEquals(-1, vocabulary.indexOf(null));
+    }
+
+    public void testPrefixAcrossBlockBoundary() {
+        int[] matches = vocabulary.match("kuć*");
+        int from = Arrays.asList(terms).indexOf("kuća");
+        assertEquals(25, matches.length);
+        // the range starts in the middle of a block and ends in another one
+        assertTrue(from % 16 != 0);
+        assertTrue(from / 16 != (from + matches.length - 1) / 16);
+        for (int i = 0; i < matches.length; i++) {
+            assertEquals(from + i, matches[i]);
+        }
+        assertEquals("kucnuti", terms[from - 1]);
+        assertEquals("kuč", terms[from + matches.length]);
+    }
+
+    public void testPatterns() {
+        for (String pattern : new String[] { "a*", "ab*", "abc*", "k*", "ku*", "kuc*", "kuč*", "kuć*", "kuća*",
+                "kućam*", "k*a", "kuć?", "kuć??", "kuć?m?", "kuć*i", "kuć*m*", "kuć?*", "kuć*?*", "k*n*", "z*",
+                "ž*", "ž?b?", "a?", "a??", "ab?*", "kuća?*i" }) {
+            assertMatches(pattern);
+        }
+    }
+
+    public void testNoMatch() {
+        for (String pattern : new String[] { "0*", "aa*", "c*", "kuća?x", "kućx*", "kuć???x*", "ki?", "zz*",
+                "ž??", "ђ*" }) {
+            assertEquals(pattern, 0, vocabulary.match(pattern).length);
+        }
+    }
+
+    public void testWildcardAtStart() {
+        for (String pattern : new String[] { "*", "?", "*a", "?uća", "**" }) {
+            assertTrue(Vocabulary.isPattern(pattern));
+            try {
+                vocabulary.match(pattern);
+                fail(pattern);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+        assertFalse(Vocabulary.isPattern("kuća"));
+    }
+
+    public void testEmptyVocabulary() {
+        Vocabulary empty = new Vocabulary(new String[0]);
+        assertEquals(0, empty.size());
+        assertEquals(-1, empty.indexOf("a"));
+        assertEquals(0, empty.match("a").length);
+        assertEquals(0, empty.match("a*").length);
+    }
+
+    public void testUnsortedTerms() {
+        try {
+            new Vocabulary(new String[] { "b", "a" });
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            new Vocabulary(new String[] { "a", "a" });
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    /**
+     * Checks the matched terms against the terms that match the equivalent
+     * regular expression.
+     *
+     * @param pattern
+     *            the pattern
+     */
+    private void assertMatches(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : pattern.toCharArray()) {
+            if (c == Vocabulary.ANY_SEQUENCE) {
+                regex.append(".*");
+            } else if (c == Vocabulary.ANY_CHARACTER) {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        Pattern compiled = Pattern.compile(regex.toString());
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < terms.length; i++) {
+            if (compiled.matcher(terms[i]).matches()) {
+                expected.add(i);
+            }
+        }
+        assertFalse(pattern, expected.isEmpty());
+        assertEquals(pattern, expected.toString(), Arrays.toString(vocabulary.match(pattern)));
+    }
+}
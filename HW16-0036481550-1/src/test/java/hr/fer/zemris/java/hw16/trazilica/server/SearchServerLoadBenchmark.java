@@ -0,0 +1,167 @@
+package hr.fer.zemris.java.hw16.trazilica.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import hr.fer.zemris.java.hw16.trazilica.commands.QueryCache;
+import hr.fer.zemris.java.hw16.trazilica.commands.SearchContext;
+
+/**
+ * {@code SearchServerLoadBenchmark} is a load-test harness for the
+ * {@link SearchServer}. It starts a server for the {@code clanci} corpus on a
+ * free port and lets concurrent clients send query requests over HTTP, each
+ * client waiting for the response before sending its next request.
+ * <p>
+ * After a warmup round, the harness prints the number of queries per second
+ * and the 50th and 99th percentile of the request latency for 1, 2, 4 and 8
+ * clients. The number of requests per client and the number of worker threads
+ * of the server can be given as the first and the second argument. Clients
+ * repeat a few queries, so by default the {@link QueryCache} is disabled and
+ * every request evaluates its query; its capacity can be given as the third
+ * argument. Harness has to be run from the project directory.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class SearchServerLoadBenchmark {
+
+    /** Queries sent by the clients. */
+    private static final String[] QUERIES = {
+            "malta sport",
+            "svjetsko prvenstvo nogomet",
+            "adut kultura film",
+            "hrvatska vlada ministar",
+            "predsjednik izbori",
+            "utakmica",
+    };
+
+    /**
+     * Runs the load test.
+     *
+     * @param args
+     *            Command-line arguments; optionally the number of requests per
+     *            client, the number of worker threads and the capacity of the
+     *            query cache
+     * @throws Exception
+     *             if the server cannot be started or a request fails
+     */
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int cache = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        // as in the server mode of the console, responses aren't delayed by
+        // Nagle's algorithm
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+
+        SearchContext context = new SearchContext(Paths.get("clanci"));
+        context.getCache().setCapacity(cache);
+        try (SearchServer server = new SearchServer(context, 0, workers)) {
+            server.start();
+            String base = "http://127.0.0.1:" + server.getAddress().getPort() + "/query?k=10&q=";
+
+            run(base, 4, requests / 2);
+            System.out.printf("workers: %d, query cache capacity: %d%n", workers, cache);
+            System.out.printf("%7s %10s %10s %10s%n", "clients", "QPS", "p50 [ms]", "p99 [ms]");
+            for (int clients : new int[] { 1, 2, 4, 8 }) {
+                long start = System.nanoTime();
+                long[] latencies = run(base, clients, requests);
+                double seconds = (System.nanoTime() - start) / 1e9;
+
+                Arrays.sort(latencies);
+                System.out.printf("%7d %10.0f %10.3f %10.3f%n", clients, latencies.length / seconds,
+                        percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6);
+            }
+        }
+    }
+
+    /**
+     * Runs the specified number of clients, each sending {@code requests}
+     * requests, and returns the latencies of all requests.
+     *
+     * @param base
+     *            the URL of the query request without the query words
+     * @param clients
+     *            the number of clients
+     * @param requests
+     *            the number of requests per client
+     * @return the latencies in nanoseconds
+     * @throws Exception
+     *             if a request fails
+     */
+    private static long[] run(String base, int clients, int requests) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                int offset = c;
+                futures.add(pool.submit(() -> {
+                    long[] latencies = new long[requests];
+                    for (int i = 0; i < requests; i++) {
+                        String query = URLEncoder.encode(QUERIES[(offset + i) % QUERIES.length], "UTF-8");
+                        long start = System.nanoTime();
+                        get(new URL(base + query));
+                        latencies[i] = System.nanoTime() - start;
+                    }
+                    return latencies;
+                }));
+            }
+
+            long[] all = new long[clients * requests];
+            for (int c = 0; c < clients; c++) {
+                System.arraycopy(futures.get(c).get(), 0, all, c * requests, requests);
+            }
+            return all;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Sends the request and reads the whole response, so the connection can be
+     * reused.
+     *
+     * @param url
+     *            the URL
+     */
+    private static void get(URL url) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            if (connection.getResponseCode() != 200)
+                throw new IOException("Request " + url + " failed with status " + connection.getResponseCode() + ".");
+
+            byte[] buffer = new byte[8192];
+            try (InputStream is = connection.getInputStream()) {
+                while (is.read(buffer) != -1) {
+                    // the body is discarded
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the value at the specified percentile of the sorted values.
+     *
+     * @param sorted
+     *            the sorted values
+     * @param p
+     *            the percentile between {@code 0} and {@code 1}
+     * @return the value at the percentile
+     */
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
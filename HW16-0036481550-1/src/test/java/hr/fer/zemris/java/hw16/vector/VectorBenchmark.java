@@ -0,0 +1,109 @@
+package hr.fer.zemris.java.hw16.vector;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * {@code VectorBenchmark} is a JMH benchmark that compares the boxed
+ * {@link Vector} with the primitive {@link DenseVector}.
+ * <p>
+ * Size {@code 10905} is the size of the dictionary built from the
+ * {@code clanci} directory.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorBenchmark {
+
+    /** Size of the vectors. */
+    @Param({ "1000", "10905" })
+    private int size;
+
+    /** First boxed vector. */
+    private Vector boxed1;
+    /** Second boxed vector. */
+    private Vector boxed2;
+    /** First primitive vector. */
+    private DenseVector dense1;
+    /** Second primitive vector. */
+    private DenseVector dense2;
+
+    /**
+     * Fills the vectors with the same random values.
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        boxed1 = new Vector(size);
+        boxed2 = new Vector(size);
+        for (int i = 0; i < size; i++) {
+            boxed1.set(i, random.nextDouble());
+            boxed2.set(i, random.nextDouble());
+        }
+        dense1 = new DenseVector(boxed1);
+        dense2 = new DenseVector(boxed2);
+    }
+
+    @Benchmark
+    public double boxedDot() {
+        return boxed1.mul(boxed2);
+    }
+
+    @Benchmark
+    public double denseDot() {
+        return dense1.dot(dense2);
+    }
+
+    @Benchmark
+    public double boxedCosine() {
+        return boxed1.mul(boxed2) / (boxed1.magnitude() * boxed2.magnitude());
+    }
+
+    @Benchmark
+    public double denseCosine() {
+        return dense1.cosine(dense2);
+    }
+
+    @Benchmark
+    public Vector boxedAxpy() {
+        return boxed1.add(boxed2.mul(0.5));
+    }
+
+    @Benchmark
+    public DenseVector denseAxpy() {
+        return dense1.axpy(0.5, dense2);
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args
+     *            Command-line arguments; not used
+     * @throws RunnerException
+     *             if benchmark fails to run
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(VectorBenchmark.class.getSimpleName()).build()).run();
+    }
+}